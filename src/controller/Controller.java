@@ -1,33 +1,47 @@
 package controller;
 
-import java.util.ArrayList;
-import java.util.Hashtable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
+import controller.pipeline.FailedItem;
+import controller.pipeline.PostPaymentPipeline;
+import controller.pipeline.StageStatistics;
 import integration.cashregister.CashRegister;
+import integration.cashregister.RegisterReport;
+import integration.cashregister.ReportTotals;
 import integration.dbhandler.AccountingSystem;
 import integration.dbhandler.DiscountSystem;
 import integration.dbhandler.InvalidItemIDException;
-import integration.dbhandler.InventoryException;
 import integration.dbhandler.InventorySystem;
 import integration.dbhandler.SaleLog;
 import integration.dbhandler.SystemCreator;
-import integration.dbhandler.data.ItemDescription;
-import integration.dbhandler.discount.Discount;
+import integration.dbhandler.catalog.CatalogDelta;
+import integration.dbhandler.catalog.CatalogUpdater;
+import integration.dbhandler.journal.SaleJournal;
 import integration.printer.Printer;
+import integration.printer.SpoolingPrinter;
+import log.ErrorLogHandler;
 import model.dto.PriceInformation;
-import model.dto.PurchasedItemInformation;
 import model.dto.Receipt;
 import model.dto.RecentPurchaseInformation;
 import model.observer.CurrentSaleObserver;
-import model.pos.Sale;
 import model.util.Amount;
 import model.util.IdentificationNumber;
 
 /**
- * Handles all the system operations in the program.
+ * Handles all the system operations in the program. The controller can serve
+ * several checkout lanes at once, see {@link #openLane()}. The system operations
+ * declared in this class are performed in a default lane, for programs that
+ * only need one.
  */
 public class Controller {
+	private static final Duration SALE_TIME_MARGIN = Duration.ofMinutes(1);
+
 	private InventorySystem inventorySystem;
 	private AccountingSystem accountingSystem;
 	private DiscountSystem discountSystem;
@@ -35,11 +49,13 @@ public class Controller {
 
 	private Printer printer;
 	private CashRegister cashRegister;
-
-	private Sale currentSale;
+	private PostPaymentPipeline postPaymentPipeline;
+	private CatalogUpdater catalogUpdater;
 
 	private List<CurrentSaleObserver> saleObservers;
 
+	private Lane defaultLane;
+
 	/**
 	 * Creates a new instance and initializes references to the external systems
 	 * {@link InventorySystem}, {@link DiscountSystem}, {@link AccountingSystem},
@@ -49,15 +65,58 @@ public class Controller {
 	 *                external systems.
 	 */
 	public Controller(SystemCreator creator) {
+		this(creator, new Printer());
+	}
+
+	/**
+	 * Creates a new instance that prints receipts with the specified printer,
+	 * for example a {@link SpoolingPrinter} for a receipt printer device.
+	 * 
+	 * @param creator A {@link SystemCreator} object that has references to all the
+	 *                external systems.
+	 * @param printer The printer that prints the receipts.
+	 */
+	public Controller(SystemCreator creator, Printer printer) {
+		this(creator, printer, null);
+	}
+
+	/**
+	 * Creates a new instance that prints receipts with the specified printer
+	 * and writes sales that could not be handled after payment to the specified
+	 * error log.
+	 * 
+	 * @param creator  A {@link SystemCreator} object that has references to all
+	 *                 the external systems.
+	 * @param printer  The printer that prints the receipts.
+	 * @param errorLog The log that failed sales are written to, or
+	 *                 <code>null</code> to only keep them, see
+	 *                 {@link #getFailedPostPaymentItems()}.
+	 */
+	public Controller(SystemCreator creator, Printer printer, ErrorLogHandler errorLog) {
 		inventorySystem = creator.getInventorySystem();
 		accountingSystem = creator.getAccountingSystem();
 		discountSystem = creator.getDiscountSystem();
 		saleLog = creator.getSaleLog();
 
-		printer = new Printer();
+		this.printer = printer;
 		cashRegister = new CashRegister();
+		postPaymentPipeline = new PostPaymentPipeline(saleLog, inventorySystem, accountingSystem, printer, errorLog);
+		catalogUpdater = new CatalogUpdater(inventorySystem, discountSystem);
+
+		saleObservers = new CopyOnWriteArrayList<>();
 
-		saleObservers = new ArrayList<>();
+		defaultLane = openLane();
+	}
+
+	/**
+	 * Opens a new checkout lane. The lane has its own sale, but shares the
+	 * external systems, printer, cash register, post-payment pipeline and sale
+	 * observers with every other lane of this controller.
+	 * 
+	 * @return The new {@link Lane}.
+	 */
+	public Lane openLane() {
+		return new Lane(inventorySystem, discountSystem, postPaymentPipeline, cashRegister, saleObservers);
 	}
 
 	/**
@@ -66,8 +125,7 @@ public class Controller {
 	 * {@link CurrentSaleObserver}s to the sale object.
 	 */
 	public void startSale() {
-		currentSale = new Sale();
-		currentSale.addSaleObservers(saleObservers);
+		defaultLane.startSale();
 	}
 
 	/**
@@ -76,7 +134,7 @@ public class Controller {
 	 * @return Returns information about the total price, including total VAT tax.
 	 */
 	public PriceInformation endSale() {
-		return currentSale.getPriceInformation();
+		return defaultLane.endSale();
 	}
 	
 	/**
@@ -84,10 +142,7 @@ public class Controller {
 	 * @return the discounted price information.
 	 */
 	public PriceInformation applyDiscounts() {
-		Hashtable<IdentificationNumber, Discount> itemDiscounts = discountSystem.getDiscounts(currentSale.getImmutableItemList());
-		currentSale.applyItemDiscounts(itemDiscounts);
-		
-		return currentSale.getPriceInformation();
+		return defaultLane.applyDiscounts();
 	}
 
 	/**
@@ -106,66 +161,171 @@ public class Controller {
 	 */
 	public RecentPurchaseInformation processItem(IdentificationNumber itemID, int quantity)
 			throws InvalidItemIDException, OperationFailedException {
-		ItemDescription itemDescription;
-
-		try {
-			itemDescription = inventorySystem.retrieveItemDescription(itemID);
-
-			PurchasedItemInformation itemInfo = currentSale.addItemToSale(itemDescription, quantity);
-			RecentPurchaseInformation recentPurchase = new RecentPurchaseInformation(itemInfo,
-					currentSale.getPriceInformation());
-			return recentPurchase;
-		} catch (InventoryException e) {
-			throw new OperationFailedException("Could not retrieve item description.", e);
-		}
+		return defaultLane.processItem(itemID, quantity);
 	}
 
 	/**
 	 * Processes the sale by updating the balance in the register, creating a
-	 * receipt and sending the sale information to the relevant external systems.
-	 * Finally, it prints the receipt and returns the amount of change to give to
-	 * the customer.
+	 * receipt and writing it to the sale log. The other external systems are
+	 * updated, and the receipt printed, in the background. Finally, it returns
+	 * the amount of change to give to the customer.
 	 * 
-	 * @throws OperationFailedException If the item description could not be
-	 *                                  retrieved from the external inventory
-	 *                                  system.
 	 * @param amountPaid The amount paid by the customer.
 	 * @return The amount of change to be received by the customer.
+	 * @throws OperationFailedException If the sale could not be written to the
+	 *                                  sale log.
 	 */
 	public Amount processSale(Amount amountPaid) {
-		Amount totalPrice = currentSale.getPriceInformation().getTotalPrice();
-		Amount amountOfChange = amountPaid.subtract(totalPrice);
+		return defaultLane.processSale(amountPaid);
+	}
+
+	/**
+	 * Adds the specified observer to this controller's list of sale observers. The
+	 * observer will be notified when a sale has been processed, in any lane.
+	 * 
+	 * @param observer The {@link CurrentSaleObserver} that should get notified.
+	 */
+	public void addSaleObserver(CurrentSaleObserver observer) {
+		saleObservers.add(observer);
+	}
+
+	/**
+	 * Returns the current balance of the cash register shared by all lanes.
+	 * 
+	 * @return The balance as an <code>Amount</code>.
+	 */
+	public Amount getCashRegisterBalance() {
+		return cashRegister.getBalance();
+	}
 
-		updateBalanceInCashRegister(totalPrice);
+	/**
+	 * Makes an X-report of the cash register's current period, without closing
+	 * the period.
+	 * 
+	 * @return The {@link RegisterReport}.
+	 */
+	public RegisterReport createXReport() {
+		return cashRegister.createXReport();
+	}
 
-		Receipt receipt = currentSale.processSale(amountPaid, amountOfChange);
+	/**
+	 * Makes a Z-report of the cash register's current period and starts a new
+	 * period.
+	 * 
+	 * @return The {@link RegisterReport}.
+	 */
+	public RegisterReport createZReport() {
+		return cashRegister.createZReport();
+	}
 
+	/**
+	 * Checks a report against the sale log, by reading back the sales that this
+	 * controller's cash register registered in the report's period and adding
+	 * them up again. Sales of other registers, and of earlier runs of the
+	 * program, are told apart by the register ID and period number that every
+	 * receipt is marked with.
+	 * 
+	 * @param report The report to check.
+	 * @return A description of each figure that differs, empty if the report
+	 *         agrees with the sale log.
+	 * @throws OperationFailedException If the sale log could not be read.
+	 */
+	public List<String> reconcileReport(RegisterReport report) {
+		SaleJournal journal = saleLog.getJournal();
+		if (journal == null) {
+			throw new OperationFailedException("The sale log is not available.");
+		}
+
+		ReportTotals recounted = new ReportTotals();
+		long registerID = report.getRegisterID();
+		long periodNumber = report.getPeriodNumber();
 		try {
-			inventorySystem.updateQuantityOfItems(receipt);
-			accountingSystem.updateAccounting(receipt);
-			saleLog.logSale(receipt);
-		} catch (InventoryException e) {
-			throw new OperationFailedException(e.getMessage(), e);
+			journal.replayBetween(report.getPeriodStart().minus(SALE_TIME_MARGIN), report.getCreatedAt().plusNanos(1),
+					receipt -> {
+						if (receipt.getRegisterID() == registerID && receipt.getRegisterPeriod() == periodNumber) {
+							recounted.record(receipt);
+						}
+					});
+		} catch (IOException e) {
+			throw new OperationFailedException("Could not read the sale log.", e);
 		}
 
-		printer.printReceipt(receipt);
+		return report.reconcile(recounted);
+	}
 
-		return amountOfChange;
+	/**
+	 * Loads changed prices, new items and changed discounts from a file, see
+	 * {@link CatalogDelta}, in the background. Items scanned after the changes
+	 * are applied get the new prices, while sales that are in progress keep the
+	 * discounts they started with.
+	 * 
+	 * @param deltaFile The file with the changes.
+	 * @return A future that is completed when the changes have been applied.
+	 */
+	public CompletableFuture<CatalogDelta> updateCatalog(Path deltaFile) {
+		return catalogUpdater.loadDelta(deltaFile);
 	}
 
 	/**
-	 * Adds the specified observer to this controller's list of sale observers. The
-	 * observer will be notified when a sale has been processed.
+	 * Waits until every completed sale has been sent to the inventory and
+	 * accounting systems and its receipt has been printed.
 	 * 
-	 * @param observer The {@link CurrentSaleObserver} that should get notified.
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if all sales were handled in time.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
 	 */
-	public void addSaleObserver(CurrentSaleObserver observer) {
-		saleObservers.add(observer);
+	public boolean awaitPostPaymentStages(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		if (!postPaymentPipeline.awaitIdle(timeout, unit)) {
+			return false;
+		}
+
+		return printer.awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
 	}
 
-	private Amount updateBalanceInCashRegister(Amount totalPrice) {
-		cashRegister.depositAmountToRegister(totalPrice);
+	/**
+	 * @return the queue depth, counts and latencies of every stage that handles
+	 *         completed sales in the background.
+	 */
+	public List<StageStatistics> getPostPaymentStatistics() {
+		return postPaymentPipeline.getStatistics();
+	}
 
-		return cashRegister.getBalance();
+	/**
+	 * @return the completed sales that a background stage failed to handle, and
+	 *         that have not been replayed.
+	 */
+	public List<FailedItem<Receipt>> getFailedPostPaymentItems() {
+		return postPaymentPipeline.getFailedItems();
+	}
+
+	/**
+	 * Hands the completed sales that a background stage failed to handle to that
+	 * stage again, for example once the inventory system can be reached again.
+	 * 
+	 * @return The number of sales that were handed to a stage again.
+	 */
+	public int replayFailedPostPaymentItems() {
+		return postPaymentPipeline.replayFailed();
+	}
+
+	/**
+	 * Stops accepting sales and waits for the sales that are still being handled
+	 * in the background.
+	 * 
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if all sales were handled in time.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		catalogUpdater.shutdown(0, TimeUnit.NANOSECONDS);
+		if (!postPaymentPipeline.shutdown(timeout, unit)) {
+			return false;
+		}
+
+		return printer.shutdown(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
 	}
 }
@@ -0,0 +1,142 @@
+package controller;
+
+import java.util.List;
+
+import controller.pipeline.PostPaymentPipeline;
+import integration.cashregister.CashRegister;
+import integration.dbhandler.DiscountSystem;
+import integration.dbhandler.InvalidItemIDException;
+import integration.dbhandler.InventoryException;
+import integration.dbhandler.InventorySystem;
+import integration.dbhandler.SaleLogException;
+import integration.dbhandler.data.ItemDescription;
+import model.dto.PriceInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.dto.RecentPurchaseInformation;
+import model.observer.CurrentSaleObserver;
+import model.pos.Sale;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+/**
+ * Handles the system operations of one checkout lane. Every lane has its own
+ * ongoing sale, while the external systems are shared with all other lanes
+ * opened by the same {@link Controller}. Different lanes can be used from
+ * different threads at the same time, but a single lane must only be used by
+ * one thread at a time.
+ */
+public class Lane {
+	private final InventorySystem inventorySystem;
+	private final DiscountSystem discountSystem;
+	private final PostPaymentPipeline postPaymentPipeline;
+
+	private final CashRegister cashRegister;
+
+	private final List<CurrentSaleObserver> saleObservers;
+
+	private Sale currentSale;
+
+	Lane(InventorySystem inventorySystem, DiscountSystem discountSystem, PostPaymentPipeline postPaymentPipeline,
+			CashRegister cashRegister, List<CurrentSaleObserver> saleObservers) {
+		this.inventorySystem = inventorySystem;
+		this.discountSystem = discountSystem;
+		this.postPaymentPipeline = postPaymentPipeline;
+		this.cashRegister = cashRegister;
+		this.saleObservers = saleObservers;
+	}
+
+	/**
+	 * Starts a new sale in this lane, which applies the current discount rules as
+	 * items are scanned. Also adds the {@link CurrentSaleObserver}s of the
+	 * controller to the sale object.
+	 */
+	public void startSale() {
+		currentSale = new Sale(discountSystem.getDiscountRules());
+		currentSale.addSaleObservers(saleObservers);
+	}
+
+	/**
+	 * Signals that all items of the sale in this lane have been scanned.
+	 * 
+	 * @return Returns information about the total price, including total VAT tax.
+	 */
+	public PriceInformation endSale() {
+		return currentSale.getPriceInformation();
+	}
+
+	/**
+	 * Applies discounts that are available for specific items, with the discount
+	 * rules that were in effect when the sale started.
+	 * @return the discounted price information.
+	 */
+	public PriceInformation applyDiscounts() {
+		currentSale.applyDiscounts();
+
+		return currentSale.getPriceInformation();
+	}
+
+	/**
+	 * Processes the item by either adding the item to the sale, or updating its
+	 * quantity if an identical item has already been processed.
+	 * 
+	 * @param itemID   The unique id for the item that should be processed.
+	 * @param quantity Amount of items being processed.
+	 * @throws InvalidItemIDException   If the specified item ID did not correspond
+	 *                                  to any item in the inventory system.
+	 * @throws OperationFailedException If the item description could not be
+	 *                                  retrieved from the external inventory
+	 *                                  system.
+	 * @return A {@link RecentPurchaseInformation} object containing information
+	 *         about the most recently purchased item and the running total.
+	 */
+	public RecentPurchaseInformation processItem(IdentificationNumber itemID, int quantity)
+			throws InvalidItemIDException, OperationFailedException {
+		ItemDescription itemDescription;
+
+		try {
+			itemDescription = inventorySystem.retrieveItemDescription(itemID);
+
+			PurchasedItemInformation itemInfo = currentSale.addItemToSale(itemDescription, quantity);
+			RecentPurchaseInformation recentPurchase = new RecentPurchaseInformation(itemInfo,
+					currentSale.getPriceInformation());
+			return recentPurchase;
+		} catch (InventoryException e) {
+			throw new OperationFailedException("Could not retrieve item description.", e);
+		}
+	}
+
+	/**
+	 * Processes the sale by creating a receipt and writing it to the sale log.
+	 * Only once the sale is stored there is the payment registered in the cash
+	 * register and reported to the observers, so a sale that could not be
+	 * stored is not counted and can be paid again. The inventory and accounting
+	 * systems are then updated, and the receipt printed, by the
+	 * {@link PostPaymentPipeline} without making this lane wait. Finally, it
+	 * returns the amount of change to give to the customer.
+	 * 
+	 * @param amountPaid The amount paid by the customer.
+	 * @return The amount of change to be received by the customer.
+	 * @throws OperationFailedException If the sale could not be written to the
+	 *                                  sale log.
+	 */
+	public Amount processSale(Amount amountPaid) {
+		Amount totalPrice = currentSale.getPriceInformation().getTotalPrice();
+		Amount amountOfChange = amountPaid.subtract(totalPrice);
+
+		Receipt receipt = cashRegister.markSale(currentSale.createReceipt(amountPaid, amountOfChange));
+
+		try {
+			postPaymentPipeline.logSale(receipt);
+		} catch (SaleLogException e) {
+			cashRegister.cancelSale(receipt);
+			throw new OperationFailedException("Could not write the sale to the sale log.", e);
+		}
+
+		cashRegister.registerSale(receipt);
+		currentSale.completePayment(receipt);
+		postPaymentPipeline.submit(receipt);
+
+		return amountOfChange;
+	}
+}
@@ -0,0 +1,60 @@
+package controller.pipeline;
+
+import java.time.LocalDateTime;
+
+/**
+ * An item that a {@link PipelineStage} failed to process on every attempt. The
+ * item is kept, so it can be inspected and replayed once the cause has been
+ * dealt with.
+ *
+ * @param <T> The type of the item.
+ */
+public final class FailedItem<T> {
+	private final String stageName;
+	private final T item;
+	private final Exception cause;
+	private final LocalDateTime failedAt;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param stageName The name of the stage that failed to process the item.
+	 * @param item      The item.
+	 * @param cause     The exception thrown by the last attempt.
+	 * @param failedAt  When the last attempt failed.
+	 */
+	public FailedItem(String stageName, T item, Exception cause, LocalDateTime failedAt) {
+		this.stageName = stageName;
+		this.item = item;
+		this.cause = cause;
+		this.failedAt = failedAt;
+	}
+
+	/**
+	 * @return the name of the stage that failed to process the item.
+	 */
+	public String getStageName() {
+		return stageName;
+	}
+
+	/**
+	 * @return the item that could not be processed.
+	 */
+	public T getItem() {
+		return item;
+	}
+
+	/**
+	 * @return the exception thrown by the last attempt.
+	 */
+	public Exception getCause() {
+		return cause;
+	}
+
+	/**
+	 * @return when the last attempt failed.
+	 */
+	public LocalDateTime getFailedAt() {
+		return failedAt;
+	}
+}
@@ -0,0 +1,275 @@
+package controller.pipeline;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import controller.OperationFailedException;
+import log.ErrorLogHandler;
+
+/**
+ * One stage of a {@link PostPaymentPipeline}. The stage has a bounded queue and
+ * its own pool of worker threads that hand every submitted item to the stage's
+ * action. If the queue is full, {@link #submit(Object)} blocks until there is
+ * room, so a slow stage slows down the producers instead of using up all
+ * memory. A failed action is retried a limited number of times, so a stage
+ * with more than one attempt must have an action that changes nothing when it
+ * fails. An item that fails on every attempt is logged and kept as a
+ * {@link FailedItem}, which can be replayed with {@link #replayFailed()}.
+ * 
+ * @param <T> The type of the items processed by the stage.
+ */
+public class PipelineStage<T> {
+	private static final long RETRY_BACKOFF_MILLIS = 10;
+
+	private final String name;
+	private final Consumer<T> action;
+	private final int maxAttempts;
+	private final ErrorLogHandler errorLog;
+	private final ThreadPoolExecutor workers;
+	private final ConcurrentLinkedQueue<FailedItem<T>> failedItems = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger pendingTasks = new AtomicInteger();
+	private final Object idleLock = new Object();
+
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder totalLatencyNanos = new LongAdder();
+	private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Creates a new stage and starts its worker threads.
+	 * 
+	 * @param name          The name of the stage, used for its threads and
+	 *                      statistics.
+	 * @param action        What the stage does with each item.
+	 * @param workerCount   The number of worker threads.
+	 * @param queueCapacity The maximum number of items waiting in the queue.
+	 * @param maxAttempts   How many times an item is attempted before it is
+	 *                      counted as failed. Only an action that changes
+	 *                      nothing when it fails may be attempted more than once.
+	 * @param errorLog      The log that items that failed on every attempt are
+	 *                      written to, or <code>null</code> to only keep them.
+	 */
+	public PipelineStage(String name, Consumer<T> action, int workerCount, int queueCapacity, int maxAttempts,
+			ErrorLogHandler errorLog) {
+		this.name = name;
+		this.action = action;
+		this.maxAttempts = maxAttempts;
+		this.errorLog = errorLog;
+
+		workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new StageThreadFactory(name),
+				PipelineStage::waitForRoomInQueue);
+	}
+
+	/**
+	 * Adds an item to the stage's queue. Blocks while the queue is full.
+	 * 
+	 * @param item The item to process.
+	 * @throws RejectedExecutionException If the stage has been shut down.
+	 */
+	public void submit(T item) {
+		long submittedAt = System.nanoTime();
+		pendingTasks.incrementAndGet();
+
+		try {
+			workers.execute(() -> process(item, submittedAt));
+		} catch (RejectedExecutionException e) {
+			taskFinished();
+			throw e;
+		}
+	}
+
+	/**
+	 * Waits until every submitted item has been processed.
+	 * 
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if the stage became idle, <code>false</code> if
+	 *         the time ran out first.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		synchronized (idleLock) {
+			while (pendingTasks.get() > 0) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(idleLock, remaining);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Stops accepting new items and waits for the queued items to be processed.
+	 * 
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if all items were processed in time.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		workers.shutdown();
+
+		return workers.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * @return the items that failed on every attempt and have not been replayed,
+	 *         oldest first.
+	 */
+	public List<FailedItem<T>> getFailedItems() {
+		return new ArrayList<>(failedItems);
+	}
+
+	/**
+	 * Submits the items that failed on every attempt again, oldest first. An item
+	 * that fails again is kept again.
+	 * 
+	 * @return The number of items that were submitted.
+	 * @throws RejectedExecutionException If the stage has been shut down. The
+	 *                                    item that was not submitted is kept.
+	 */
+	public int replayFailed() {
+		int replayed = 0;
+		for (FailedItem<T> failure = failedItems.poll(); failure != null; failure = failedItems.poll()) {
+			try {
+				submit(failure.getItem());
+			} catch (RejectedExecutionException e) {
+				failedItems.add(failure);
+				throw e;
+			}
+			replayed++;
+		}
+
+		return replayed;
+	}
+
+	/**
+	 * Keeps an item that the stage did not accept, for example because it had
+	 * been shut down, as a {@link FailedItem}, so it can be replayed later.
+	 * 
+	 * @param item  The item that was not accepted.
+	 * @param cause Why it was not accepted.
+	 */
+	public void keepRejected(T item, RejectedExecutionException cause) {
+		keepFailed(item, cause, "The " + name + " stage did not accept an item. The item was kept to be replayed.");
+	}
+
+	/**
+	 * @return a snapshot of the queue depth, counts and latencies of this stage.
+	 */
+	public StageStatistics getStatistics() {
+		long completedCount = completed.sum();
+		long finishedCount = completedCount + failed.sum();
+		long averageLatency = finishedCount == 0 ? 0 : totalLatencyNanos.sum() / finishedCount;
+
+		return new StageStatistics(name, workers.getQueue().size(), completedCount, retries.sum(), failed.sum(),
+				averageLatency, maxLatencyNanos.get());
+	}
+
+	private void process(T item, long submittedAt) {
+		try {
+			for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+				try {
+					action.accept(item);
+					completed.increment();
+					return;
+				} catch (RuntimeException e) {
+					if (attempt == maxAttempts) {
+						giveUp(item, e);
+						return;
+					}
+					retries.increment();
+					Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+				}
+			}
+		} catch (InterruptedException e) {
+			giveUp(item, e);
+			Thread.currentThread().interrupt();
+		} finally {
+			long latency = System.nanoTime() - submittedAt;
+			totalLatencyNanos.add(latency);
+			maxLatencyNanos.accumulate(latency);
+			taskFinished();
+		}
+	}
+
+	private void giveUp(T item, Exception cause) {
+		keepFailed(item, cause, "The " + name + " stage could not process an item after " + maxAttempts
+				+ " attempt(s). The item was kept to be replayed.");
+	}
+
+	private void keepFailed(T item, Exception cause, String message) {
+		failedItems.add(new FailedItem<>(name, item, cause, LocalDateTime.now()));
+		failed.increment();
+
+		if (errorLog != null) {
+			errorLog.logException(new OperationFailedException(message, cause));
+		}
+	}
+
+	private void taskFinished() {
+		if (pendingTasks.decrementAndGet() == 0) {
+			synchronized (idleLock) {
+				idleLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Puts a task that did not fit in the queue when there is room. If the stage
+	 * was shut down while waiting, its workers may already have stopped, so the
+	 * task is taken back out of the queue and rejected, unless a worker has
+	 * already taken it.
+	 */
+	static void waitForRoomInQueue(Runnable task, ThreadPoolExecutor executor) {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException("The pipeline stage has been shut down.");
+		}
+
+		try {
+			executor.getQueue().put(task);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for room in the queue.", e);
+		}
+
+		if (executor.isShutdown() && executor.remove(task)) {
+			throw new RejectedExecutionException("The pipeline stage was shut down while waiting for room in the queue.");
+		}
+	}
+
+	private static class StageThreadFactory implements ThreadFactory {
+		private final String stageName;
+		private final AtomicInteger threadNr = new AtomicInteger();
+
+		private StageThreadFactory(String stageName) {
+			this.stageName = stageName;
+		}
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, stageName + "-" + threadNr.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
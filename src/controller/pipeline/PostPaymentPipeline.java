@@ -0,0 +1,167 @@
+package controller.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import integration.dbhandler.AccountingSystem;
+import integration.dbhandler.InventorySystem;
+import integration.dbhandler.SaleLog;
+import integration.dbhandler.SaleLogException;
+import integration.printer.Printer;
+import log.ErrorLogHandler;
+import model.dto.Receipt;
+
+/**
+ * Sends completed sales to the external systems after payment. The sale is
+ * first written to the {@link SaleLog} on the calling thread, see
+ * {@link #logSale(Receipt)}, and only once that is done does the payment
+ * count as registered. Updating the {@link InventorySystem} and
+ * {@link AccountingSystem} and printing the receipt are then done by separate
+ * {@link PipelineStage}s, see {@link #submit(Receipt)}, so the customer does
+ * not have to wait for them.
+ * <p>
+ * Only the inventory update is retried, since it looks up every item before it
+ * changes any stock. Recording a sale in the accounting system, or printing its
+ * receipt, could be done twice by a retry after a partial failure. A sale that
+ * a stage fails to handle is logged and kept for that stage, see
+ * {@link #getFailedItems()} and {@link #replayFailed()}.
+ */
+public class PostPaymentPipeline {
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final int MAX_INVENTORY_ATTEMPTS = 3;
+
+	private final SaleLog saleLog;
+	private final List<PipelineStage<Receipt>> stages = new ArrayList<>();
+
+	/**
+	 * Creates a new pipeline and starts the worker threads of its stages.
+	 * 
+	 * @param saleLog          The sale log that every sale is written to before
+	 *                         it is handed to the stages.
+	 * @param inventorySystem  The inventory whose stock is updated.
+	 * @param accountingSystem The accounting system that is updated.
+	 * @param printer          The printer that prints the receipts.
+	 * @param errorLog         The log that failed sales are written to, or
+	 *                         <code>null</code> to only keep them.
+	 */
+	public PostPaymentPipeline(SaleLog saleLog, InventorySystem inventorySystem, AccountingSystem accountingSystem,
+			Printer printer, ErrorLogHandler errorLog) {
+		this.saleLog = saleLog;
+
+		stages.add(new PipelineStage<Receipt>("inventory", inventorySystem::updateQuantityOfItems, 1, QUEUE_CAPACITY,
+				MAX_INVENTORY_ATTEMPTS, errorLog));
+		stages.add(new PipelineStage<Receipt>("accounting", accountingSystem::updateAccounting, 1, QUEUE_CAPACITY, 1,
+				errorLog));
+		stages.add(new PipelineStage<Receipt>("printer", printer::printReceipt, 1, QUEUE_CAPACITY, 1, errorLog));
+	}
+
+	/**
+	 * Writes the completed sale to the sale log. Returns when the sale has been
+	 * stored durably.
+	 * 
+	 * @param receipt The receipt of the completed sale.
+	 * @throws SaleLogException If the sale could not be written to the sale log.
+	 */
+	public void logSale(Receipt receipt) {
+		saleLog.logSale(receipt);
+	}
+
+	/**
+	 * Queues a sale that has been written to the sale log for the other stages.
+	 * Blocks if a stage's queue is full. A stage that does not accept the sale,
+	 * because it has been shut down, keeps it as a failed item, and the sale is
+	 * still queued for the other stages.
+	 * 
+	 * @param receipt The receipt of the completed sale.
+	 */
+	public void submit(Receipt receipt) {
+		for (PipelineStage<Receipt> stage : stages) {
+			try {
+				stage.submit(receipt);
+			} catch (RejectedExecutionException e) {
+				stage.keepRejected(receipt, e);
+			}
+		}
+	}
+
+	/**
+	 * Waits until every submitted sale has been handled by every stage.
+	 * 
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if all stages became idle in time.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		for (PipelineStage<Receipt> stage : stages) {
+			if (!stage.awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Stops accepting sales and waits for the queued sales to be handled.
+	 * 
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if all queued sales were handled in time.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		boolean allHandled = true;
+
+		for (PipelineStage<Receipt> stage : stages) {
+			allHandled &= stage.shutdown(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		return allHandled;
+	}
+
+	/**
+	 * @return the sales that a stage failed to handle and that have not been
+	 *         replayed, stage by stage.
+	 */
+	public List<FailedItem<Receipt>> getFailedItems() {
+		List<FailedItem<Receipt>> failedItems = new ArrayList<>();
+		for (PipelineStage<Receipt> stage : stages) {
+			failedItems.addAll(stage.getFailedItems());
+		}
+
+		return failedItems;
+	}
+
+	/**
+	 * Hands the sales that a stage failed to handle to that stage again. The
+	 * sales are not written to the sale log again.
+	 * 
+	 * @return The number of sales that were handed to a stage again.
+	 */
+	public int replayFailed() {
+		int replayed = 0;
+		for (PipelineStage<Receipt> stage : stages) {
+			replayed += stage.replayFailed();
+		}
+
+		return replayed;
+	}
+
+	/**
+	 * @return a snapshot of the statistics of every stage.
+	 */
+	public List<StageStatistics> getStatistics() {
+		List<StageStatistics> statistics = new ArrayList<>(stages.size());
+		for (PipelineStage<Receipt> stage : stages) {
+			statistics.add(stage.getStatistics());
+		}
+
+		return statistics;
+	}
+}
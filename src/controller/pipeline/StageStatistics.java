@@ -0,0 +1,96 @@
+package controller.pipeline;
+
+/**
+ * An immutable snapshot of the statistics of one {@link PipelineStage}.
+ */
+public final class StageStatistics {
+	private final String stageName;
+	private final int queueDepth;
+	private final long completedCount;
+	private final long retryCount;
+	private final long failedCount;
+	private final long averageLatencyNanos;
+	private final long maxLatencyNanos;
+
+	/**
+	 * Creates a new snapshot.
+	 * 
+	 * @param stageName           The name of the stage.
+	 * @param queueDepth          Number of tasks waiting in the stage's queue.
+	 * @param completedCount      Number of tasks that completed successfully.
+	 * @param retryCount          Number of times a failed task was retried.
+	 * @param failedCount         Number of tasks that failed on every attempt.
+	 * @param averageLatencyNanos Average time from submission to completion.
+	 * @param maxLatencyNanos     Longest time from submission to completion.
+	 */
+	public StageStatistics(String stageName, int queueDepth, long completedCount, long retryCount,
+			long failedCount, long averageLatencyNanos, long maxLatencyNanos) {
+		this.stageName = stageName;
+		this.queueDepth = queueDepth;
+		this.completedCount = completedCount;
+		this.retryCount = retryCount;
+		this.failedCount = failedCount;
+		this.averageLatencyNanos = averageLatencyNanos;
+		this.maxLatencyNanos = maxLatencyNanos;
+	}
+
+	/**
+	 * @return the name of the stage.
+	 */
+	public String getStageName() {
+		return stageName;
+	}
+
+	/**
+	 * @return the number of tasks waiting in the stage's queue.
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * @return the number of tasks that completed successfully.
+	 */
+	public long getCompletedCount() {
+		return completedCount;
+	}
+
+	/**
+	 * @return the number of times a failed task was retried.
+	 */
+	public long getRetryCount() {
+		return retryCount;
+	}
+
+	/**
+	 * @return the number of tasks that failed on every attempt.
+	 */
+	public long getFailedCount() {
+		return failedCount;
+	}
+
+	/**
+	 * @return the average time in nanoseconds from when a task was submitted
+	 *         until it was finished, including the time spent in the queue.
+	 */
+	public long getAverageLatencyNanos() {
+		return averageLatencyNanos;
+	}
+
+	/**
+	 * @return the longest time in nanoseconds from when a task was submitted
+	 *         until it was finished.
+	 */
+	public long getMaxLatencyNanos() {
+		return maxLatencyNanos;
+	}
+
+	/**
+	 * A string representation of the statistics.
+	 */
+	public String toString() {
+		return String.format("%s: queued %d, completed %d, retried %d, failed %d, avg latency %d us, max latency %d us",
+				stageName, queueDepth, completedCount, retryCount, failedCount, averageLatencyNanos / 1000,
+				maxLatencyNanos / 1000);
+	}
+}
@@ -1,24 +1,109 @@
 package integration.cashregister;
 
+import java.time.LocalDateTime;
 import java.util.Random;
 
+import model.dto.Receipt;
 import model.util.Amount;
 
 /**
- * This class represents the cash register system.
+ * This class represents the cash register system. It can be shared by several
+ * checkout lanes, so every operation on the balance is synchronized.
+ * <p>
+ * The register keeps {@link ReportTotals} of the sales in the current register
+ * period, which is updated with every payment, so an X-report or Z-report can be
+ * made at any time without going through the sales again. Every register has
+ * a random ID, and the receipts it registers are marked with that ID and the
+ * number of the period, so the sales of one register period can be told apart
+ * from other registers' sales in a shared sale log. A receipt is marked before
+ * it is written to the sale log and registered after, and a Z-report waits
+ * for the marked sales, so a period never closes without the sales that are
+ * marked with it.
  *
  */
 public class CashRegister {
 	private Random random = new Random();
 	private Amount balance = new Amount(random.nextDouble() * 500 + 500);
+	private final long registerID = createRegisterID(random);
+
+	private long periodNumber = 1;
+	private LocalDateTime periodStart = LocalDateTime.now();
+	private Amount openingBalance = balance;
+	private ReportTotals periodTotals = new ReportTotals();
+	private Amount otherDeposits = new Amount(0);
+	private Amount withdrawals = new Amount(0);
+	private int markedSales;
+
+	/**
+	 * Registers the payment of a completed sale. The amount paid minus the change
+	 * is added to the balance, and the sale is added to the totals of the
+	 * current period.
+	 * 
+	 * @param receipt The receipt of the sale.
+	 * @return The current amount stored in the register after the payment.
+	 */
+	public synchronized Amount registerPayment(Receipt receipt) {
+		balance = balance.add(receipt.getAmountPaid()).subtract(receipt.getAmountOfChange());
+		periodTotals.record(receipt);
+
+		return balance;
+	}
+	
+	/**
+	 * Marks the receipt of a completed sale with this register's ID and the
+	 * number of the current period. The payment is not registered yet; call
+	 * {@link #registerSale(Receipt)} with the marked receipt once it has been
+	 * written to the sale log, or {@link #cancelSale(Receipt)} if it could not
+	 * be. The current period is not closed until then.
+	 * 
+	 * @param receipt The receipt of the sale.
+	 * @return The marked receipt, which should be written to the sale log.
+	 */
+	public synchronized Receipt markSale(Receipt receipt) {
+		markedSales++;
+		return receipt.registeredIn(registerID, periodNumber);
+	}
+
+	/**
+	 * Registers the payment of a sale that was marked with
+	 * {@link #markSale(Receipt)}, see {@link #registerPayment(Receipt)}.
+	 * 
+	 * @param markedReceipt The marked receipt of the sale.
+	 * @return The current amount stored in the register after the payment.
+	 */
+	public synchronized Amount registerSale(Receipt markedReceipt) {
+		Amount balanceAfterPayment = registerPayment(markedReceipt);
+		unmarkSale();
+
+		return balanceAfterPayment;
+	}
+
+	/**
+	 * Drops a sale that was marked with {@link #markSale(Receipt)} but will not
+	 * be paid, for example because it could not be written to the sale log.
+	 * 
+	 * @param markedReceipt The marked receipt of the sale.
+	 */
+	public synchronized void cancelSale(Receipt markedReceipt) {
+		unmarkSale();
+	}
+
+	/**
+	 * @return the ID that the receipts registered by this register are marked
+	 *         with.
+	 */
+	public long getRegisterID() {
+		return registerID;
+	}
 	
 	/**
 	 * Adds the specified amount to the cash registers balance.
 	 * @param amountToAdd The amount to add to the register balance.
 	 * @return The current amount stored in the register after the deposit.
 	 */
-	public Amount depositAmountToRegister(Amount amountToAdd) {
+	public synchronized Amount depositAmountToRegister(Amount amountToAdd) {
 		balance = balance.add(amountToAdd);
+		otherDeposits = otherDeposits.add(amountToAdd);
 		
 		return balance;
 	}
@@ -28,8 +113,9 @@ public class CashRegister {
 	 * @param amountToSubtract The amount to withdraw from the register.
 	 * @return The current amount left in the register after the withdrawal.
 	 */
-	public Amount withdrawAmountFromRegister(Amount amountToSubtract) {
+	public synchronized Amount withdrawAmountFromRegister(Amount amountToSubtract) {
 		balance = balance.subtract(amountToSubtract);
+		withdrawals = withdrawals.add(amountToSubtract);
 		
 		return balance;
 	}
@@ -38,7 +124,73 @@ public class CashRegister {
 	 * Returns the current balance in the register.
 	 * @return The balance as an <code>Amount</code>.
 	 */
-	public Amount getBalance() {
+	public synchronized Amount getBalance() {
 		return balance;
 	}
+
+	/**
+	 * Makes an X-report of the current period. The period stays open.
+	 * 
+	 * @return The {@link RegisterReport}.
+	 */
+	public synchronized RegisterReport createXReport() {
+		return createReport(RegisterReport.Type.X, LocalDateTime.now());
+	}
+
+	/**
+	 * Makes a Z-report of the current period, which closes it. A new period,
+	 * which starts with the current balance, is opened. Waits until every sale
+	 * that has been marked with the current period has been registered or
+	 * cancelled.
+	 * 
+	 * @return The {@link RegisterReport}.
+	 */
+	public synchronized RegisterReport createZReport() {
+		awaitMarkedSales();
+		LocalDateTime periodEnd = LocalDateTime.now();
+		RegisterReport report = createReport(RegisterReport.Type.Z, periodEnd);
+
+		periodNumber++;
+		periodStart = periodEnd;
+		openingBalance = balance;
+		periodTotals = new ReportTotals();
+		otherDeposits = new Amount(0);
+		withdrawals = new Amount(0);
+
+		return report;
+	}
+
+	private RegisterReport createReport(RegisterReport.Type type, LocalDateTime createdAt) {
+		return new RegisterReport(type, registerID, periodNumber, periodStart, createdAt, periodTotals,
+				otherDeposits, withdrawals, openingBalance, balance);
+	}
+
+	private void unmarkSale() {
+		markedSales--;
+		notifyAll();
+	}
+
+	private void awaitMarkedSales() {
+		boolean interrupted = false;
+		while (markedSales > 0) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static long createRegisterID(Random random) {
+		long id;
+		do {
+			id = random.nextLong();
+		} while (id == 0);
+
+		return id;
+	}
 }
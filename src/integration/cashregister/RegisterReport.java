@@ -0,0 +1,269 @@
+package integration.cashregister;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import model.util.Amount;
+
+/**
+ * An immutable X-report or Z-report of a {@link CashRegister}. It sums up the
+ * sales, VAT, discounts and payments of the current register period, and
+ * compares how much the cash drawer has changed with how much it should have
+ * changed.
+ */
+public final class RegisterReport {
+
+	/**
+	 * The kind of report.
+	 */
+	public enum Type {
+		/**
+		 * A report made during the period, which leaves the period open.
+		 */
+		X,
+
+		/**
+		 * A report made when the register is closed, which ends the period.
+		 */
+		Z
+	}
+
+	private final Type type;
+	private final long registerID;
+	private final long periodNumber;
+	private final LocalDateTime periodStart;
+	private final LocalDateTime createdAt;
+	private final long transactionCount;
+	private final long itemCount;
+	private final Amount grossSales;
+	private final Amount vat;
+	private final Map<Amount, Amount> vatPerRate;
+	private final Amount discounts;
+	private final Amount amountPaid;
+	private final Amount changeGiven;
+	private final Amount otherDeposits;
+	private final Amount withdrawals;
+	private final Amount openingBalance;
+	private final Amount drawerBalance;
+
+	/**
+	 * Creates a new report.
+	 * 
+	 * @param type           The kind of report.
+	 * @param registerID     The ID of the register that made the report.
+	 * @param periodNumber   The number of the register period, which is also the
+	 *                       number of the Z-report that closes it.
+	 * @param periodStart    When the period started.
+	 * @param createdAt      When the report was made.
+	 * @param totals         The totals of the sales in the period.
+	 * @param otherDeposits  Cash put in the drawer that was not a payment.
+	 * @param withdrawals    Cash taken out of the drawer.
+	 * @param openingBalance The drawer balance when the period started.
+	 * @param drawerBalance  The drawer balance when the report was made.
+	 */
+	RegisterReport(Type type, long registerID, long periodNumber, LocalDateTime periodStart,
+			LocalDateTime createdAt, ReportTotals totals, Amount otherDeposits, Amount withdrawals,
+			Amount openingBalance, Amount drawerBalance) {
+		this.type = type;
+		this.registerID = registerID;
+		this.periodNumber = periodNumber;
+		this.periodStart = periodStart;
+		this.createdAt = createdAt;
+		this.transactionCount = totals.getTransactionCount();
+		this.itemCount = totals.getItemCount();
+		this.grossSales = totals.getGrossSales();
+		this.vat = totals.getVat();
+		this.vatPerRate = Collections.unmodifiableMap(totals.getVatPerRate());
+		this.discounts = totals.getDiscounts();
+		this.amountPaid = totals.getAmountPaid();
+		this.changeGiven = totals.getChangeGiven();
+		this.otherDeposits = otherDeposits;
+		this.withdrawals = withdrawals;
+		this.openingBalance = openingBalance;
+		this.drawerBalance = drawerBalance;
+	}
+
+	/**
+	 * Compares the sales in this report with the totals of the same sales added
+	 * up again, for example from the sale log.
+	 * 
+	 * @param recounted The recounted totals.
+	 * @return A description of each figure that differs, empty if the report
+	 *         agrees with the recounted totals.
+	 */
+	public List<String> reconcile(ReportTotals recounted) {
+		List<String> differences = new ArrayList<>();
+
+		compare(differences, "transactions", transactionCount, recounted.getTransactionCount());
+		compare(differences, "items", itemCount, recounted.getItemCount());
+		compare(differences, "gross sales", grossSales, recounted.getGrossSales());
+		compare(differences, "VAT", vat, recounted.getVat());
+		compare(differences, "VAT per rate", vatPerRate, recounted.getVatPerRate());
+		compare(differences, "discounts", discounts, recounted.getDiscounts());
+		compare(differences, "amount paid", amountPaid, recounted.getAmountPaid());
+		compare(differences, "change given", changeGiven, recounted.getChangeGiven());
+
+		return differences;
+	}
+
+	/**
+	 * @return whether this is an X-report or a Z-report.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the ID of the register that made the report.
+	 */
+	public long getRegisterID() {
+		return registerID;
+	}
+
+	/**
+	 * @return the number of the register period.
+	 */
+	public long getPeriodNumber() {
+		return periodNumber;
+	}
+
+	/**
+	 * @return when the register period started.
+	 */
+	public LocalDateTime getPeriodStart() {
+		return periodStart;
+	}
+
+	/**
+	 * @return when the report was made, which for a Z-report is when the period
+	 *         ended.
+	 */
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	/**
+	 * @return the number of sales in the period.
+	 */
+	public long getTransactionCount() {
+		return transactionCount;
+	}
+
+	/**
+	 * @return the number of units sold in the period.
+	 */
+	public long getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * @return the total price of the sales in the period, VAT included.
+	 */
+	public Amount getGrossSales() {
+		return grossSales;
+	}
+
+	/**
+	 * @return the VAT tax included in the gross sales.
+	 */
+	public Amount getVat() {
+		return vat;
+	}
+
+	/**
+	 * @return the VAT tax per VAT rate, in ascending order of the rate.
+	 */
+	public Map<Amount, Amount> getVatPerRate() {
+		return vatPerRate;
+	}
+
+	/**
+	 * @return the amount that was deducted from the prices by discounts.
+	 */
+	public Amount getDiscounts() {
+		return discounts;
+	}
+
+	/**
+	 * @return the amount tendered by the customers.
+	 */
+	public Amount getAmountPaid() {
+		return amountPaid;
+	}
+
+	/**
+	 * @return the change given back to the customers.
+	 */
+	public Amount getChangeGiven() {
+		return changeGiven;
+	}
+
+	/**
+	 * @return the drawer balance when the period started.
+	 */
+	public Amount getOpeningBalance() {
+		return openingBalance;
+	}
+
+	/**
+	 * @return the drawer balance when the report was made.
+	 */
+	public Amount getDrawerBalance() {
+		return drawerBalance;
+	}
+
+	/**
+	 * @return how much the drawer balance has changed during the period.
+	 */
+	public Amount getDrawerDelta() {
+		return drawerBalance.subtract(openingBalance);
+	}
+
+	/**
+	 * @return how much the drawer balance should have changed during the period,
+	 *         from the payments, change, deposits and withdrawals.
+	 */
+	public Amount getExpectedDrawerDelta() {
+		return amountPaid.subtract(changeGiven).add(otherDeposits).subtract(withdrawals);
+	}
+
+	/**
+	 * @return the difference between the actual and the expected drawer delta,
+	 *         zero if the drawer is correct.
+	 */
+	public Amount getDrawerDifference() {
+		return getDrawerDelta().subtract(getExpectedDrawerDelta());
+	}
+
+	/**
+	 * A string representation of the report.
+	 */
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(String.format("%s-report, period %d, %s - %s%n", type, periodNumber, periodStart, createdAt));
+		sb.append(String.format("%-20s %d%n", "Transactions:", transactionCount));
+		sb.append(String.format("%-20s %d%n", "Items:", itemCount));
+		sb.append(String.format("%-20s %s%n", "Gross sales:", grossSales));
+		for (Map.Entry<Amount, Amount> rate : vatPerRate.entrySet()) {
+			sb.append(String.format("%-20s %s%n", "VAT " + rate.getKey() + ":", rate.getValue()));
+		}
+		sb.append(String.format("%-20s %s%n", "VAT:", vat));
+		sb.append(String.format("%-20s %s%n", "Discounts:", discounts));
+		sb.append(String.format("%-20s %s%n", "Paid:", amountPaid));
+		sb.append(String.format("%-20s %s%n", "Change:", changeGiven));
+		sb.append(String.format("%-20s %s%n", "Drawer delta:", getDrawerDelta()));
+		sb.append(String.format("%-20s %s", "Drawer difference:", getDrawerDifference()));
+
+		return sb.toString();
+	}
+
+	private static void compare(List<String> differences, String figure, Object reported, Object recounted) {
+		if (!reported.equals(recounted)) {
+			differences.add(figure + ": reported " + reported + ", recounted " + recounted);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package integration.cashregister;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.dto.BundleDiscountInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.util.Amount;
+
+/**
+ * Running totals of the sales in one register period, the figures that an
+ * X-report or Z-report is made from. Every recorded sale updates the totals
+ * directly, so a report can be made at any time without going through the
+ * sales again, and the totals take the same space no matter how many sales
+ * they cover. The same class is used to add up the sales read back from the
+ * sale log, when a report is reconciled.
+ * <p>
+ * This class is not thread safe. The {@link CashRegister} only uses it while
+ * holding its lock.
+ */
+public class ReportTotals {
+	private static final int INITIAL_RATE_CAPACITY = 4;
+
+	private long transactionCount;
+	private long itemCount;
+	private long grossSalesUnits;
+	private long vatUnits;
+	private long discountUnits;
+	private long amountPaidUnits;
+	private long changeUnits;
+
+	private long[] vatRates = new long[INITIAL_RATE_CAPACITY];
+	private long[] vatPerRateUnits = new long[INITIAL_RATE_CAPACITY];
+	private int rateCount;
+
+	/**
+	 * Adds a completed sale to the totals.
+	 * 
+	 * @param receipt The receipt of the sale.
+	 */
+	public void record(Receipt receipt) {
+		transactionCount++;
+		grossSalesUnits += receipt.getPriceInfo().getTotalPrice().getMinorUnits();
+		vatUnits += receipt.getPriceInfo().getTotalVat().getMinorUnits();
+		amountPaidUnits += receipt.getAmountPaid().getMinorUnits();
+		changeUnits += receipt.getAmountOfChange().getMinorUnits();
+
+		for (PurchasedItemInformation line : receipt.getListOfSoldItems()) {
+			itemCount += line.getQuantity();
+			if (line.getDiscountState()) {
+				discountUnits += line.getAccumulatedDiscount().getMinorUnits();
+			}
+			addVat(line.getItemDescription().getVatRate().getMinorUnits(),
+					line.getAccumulatedVatTax().getMinorUnits());
+		}
+		for (BundleDiscountInformation bundleDiscount : receipt.getBundleDiscounts()) {
+			discountUnits += bundleDiscount.getDiscount().getMinorUnits();
+			addVat(bundleDiscount.getVatRate().getMinorUnits(), -bundleDiscount.getVatDiscount().getMinorUnits());
+		}
+	}
+
+	/**
+	 * @return the number of sales.
+	 */
+	public long getTransactionCount() {
+		return transactionCount;
+	}
+
+	/**
+	 * @return the number of sold units.
+	 */
+	public long getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * @return the total price of all sales, VAT included.
+	 */
+	public Amount getGrossSales() {
+		return Amount.ofMinorUnits(grossSalesUnits);
+	}
+
+	/**
+	 * @return the VAT tax included in the gross sales.
+	 */
+	public Amount getVat() {
+		return Amount.ofMinorUnits(vatUnits);
+	}
+
+	/**
+	 * @return the VAT tax of the items sold at each VAT rate, in ascending order
+	 *         of the rate.
+	 */
+	public Map<Amount, Amount> getVatPerRate() {
+		long[] sortedRates = Arrays.copyOf(vatRates, rateCount);
+		Arrays.sort(sortedRates);
+
+		Map<Amount, Amount> vatPerRate = new LinkedHashMap<>();
+		for (long rate : sortedRates) {
+			vatPerRate.put(Amount.ofMinorUnits(rate), Amount.ofMinorUnits(vatPerRateUnits[indexOfRate(rate)]));
+		}
+
+		return vatPerRate;
+	}
+
+	/**
+	 * @return the amount that was deducted from the prices by discounts.
+	 */
+	public Amount getDiscounts() {
+		return Amount.ofMinorUnits(discountUnits);
+	}
+
+	/**
+	 * @return the amount paid by the customers.
+	 */
+	public Amount getAmountPaid() {
+		return Amount.ofMinorUnits(amountPaidUnits);
+	}
+
+	/**
+	 * @return the change given back to the customers.
+	 */
+	public Amount getChangeGiven() {
+		return Amount.ofMinorUnits(changeUnits);
+	}
+
+	private void addVat(long rate, long vat) {
+		int index = indexOfRate(rate);
+		if (index < 0) {
+			if (rateCount == vatRates.length) {
+				vatRates = Arrays.copyOf(vatRates, rateCount * 2);
+				vatPerRateUnits = Arrays.copyOf(vatPerRateUnits, rateCount * 2);
+			}
+			index = rateCount++;
+			vatRates[index] = rate;
+		}
+
+		vatPerRateUnits[index] += vat;
+	}
+
+	private int indexOfRate(long rate) {
+		for (int i = 0; i < rateCount; i++) {
+			if (vatRates[i] == rate) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+}
@@ -1,13 +1,19 @@
 package integration.dbhandler;
 
+import integration.dbhandler.accounting.Ledger;
+import integration.dbhandler.accounting.LedgerSnapshot;
 import model.dto.Receipt;
 
 /**
- * The class handles the external accounting system.
+ * The class handles the external accounting system. Completed sales are added
+ * to a {@link Ledger} of running totals.
  *
  */
 public class AccountingSystem {
 	private static final AccountingSystem ACCOUNTING_SYSTEM = new AccountingSystem();
+
+	private final Ledger ledger = new Ledger();
+
 	/**
 	 * Constructs a new object.
 	 */
@@ -22,6 +28,17 @@ public class AccountingSystem {
 	 *                                 completed sale.
 	 */
 	public void updateAccounting(Receipt completedSaleInformation) {
+		ledger.record(completedSaleInformation);
+	}
+
+	/**
+	 * Returns the current ledger totals, for all sales, per hour of each date and
+	 * per VAT rate. Does not block lanes that are recording sales.
+	 * 
+	 * @return A {@link LedgerSnapshot} of the totals.
+	 */
+	public LedgerSnapshot getLedgerSnapshot() {
+		return ledger.snapshot();
 	}
 	
 	/**
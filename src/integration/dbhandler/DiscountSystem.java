@@ -1,62 +1,92 @@
 package integration.dbhandler;
 
-import java.util.Hashtable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-import integration.dbhandler.discount.Discount;
-import integration.dbhandler.discount.PriceDiscount;
-import integration.dbhandler.discount.QuantityDiscount;
-import model.dto.PurchasedItemInformation;
+import integration.dbhandler.catalog.CatalogDelta;
+import integration.dbhandler.discount.BundleMatcher;
+import integration.dbhandler.discount.BundleRequirement;
+import integration.dbhandler.discount.BundleRule;
+import integration.dbhandler.discount.DiscountRule;
+import integration.dbhandler.discount.DiscountRuleRegistry;
+import integration.dbhandler.discount.DiscountRules;
 import model.util.Amount;
-import model.util.IdentificationNumber;
 
 /**
- * External system that stores the available discounts. This implementation only
- * has discounts for specific items.
+ * External system that stores the available discounts. This implementation has
+ * discounts for specific items and bundles of items. The discounts are kept as
+ * compiled {@link DiscountRules}, which sales evaluate themselves. Changing the
+ * rules replaces them with a new version, and a sale keeps the version that
+ * was in effect when it started.
  */
 public class DiscountSystem {
-	private Hashtable<IdentificationNumber, Discount> itemDiscounts;
+	private static final long BUNDLE_TIME_BUDGET = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private final DiscountRuleRegistry ruleRegistry = new DiscountRuleRegistry();
+	private volatile DiscountRules discountRules;
 
 	private static final DiscountSystem DISCOUNT_SYSTEM = new DiscountSystem();
 
 	/**
-	 * Constructor. Creates a new table with items and their corresponding
+	 * Constructor. Creates the rules for the items and bundles that have
 	 * discounts.
 	 */
 	private DiscountSystem() {
-		itemDiscounts = new Hashtable<>();
+		List<DiscountRule> rules = new ArrayList<>();
+		List<BundleRule> bundles = new ArrayList<>();
+
+		rules.add(ruleRegistry.create("quantity", 666, "3", "0.2"));
+		rules.add(ruleRegistry.create("price", 876, "0.4"));
 
-		itemDiscounts.put(new IdentificationNumber(666), new QuantityDiscount((short) 3, new Amount(0.2)));
-		itemDiscounts.put(new IdentificationNumber(876), new PriceDiscount(new Amount(0.4)));
+		bundles.add(new BundleRule("coffee + chocolate bar", new Amount(0.1), new BundleRequirement(1, 666),
+				new BundleRequirement(1, 876)));
+
+		discountRules = DiscountRules.compile(rules, BundleMatcher.compile(bundles, BUNDLE_TIME_BUDGET));
 	}
 
 	/**
-	 * Returns a table of items with their corresponding discounts. The included
-	 * items will only be items that is contained in the provided item list.
+	 * Constructs a new object with the specified rules, for example rules that
+	 * are loaded when the program starts.
 	 * 
-	 * @param itemList A list of items that was purchased in the sale.
-	 * @return a table of items and their available discount.
+	 * @param discountRules The compiled discount rules.
 	 */
-	public Hashtable<IdentificationNumber, Discount> getDiscounts(List<PurchasedItemInformation> itemList) {
-		Hashtable<IdentificationNumber, Discount> availableDiscounts = new Hashtable<>();
+	public DiscountSystem(DiscountRules discountRules) {
+		this.discountRules = discountRules;
+	}
 
-		for (PurchasedItemInformation item : itemList) {
-			IdentificationNumber id = item.getItemDescription().getID();
-			if (itemDiscounts.containsKey(id)) {
-				Discount discount = itemDiscounts.get(id);
+	/**
+	 * Returns the compiled discount rules. The rules are immutable, so they can
+	 * be evaluated by any number of sales at the same time.
+	 * 
+	 * @return The {@link DiscountRules}.
+	 */
+	public DiscountRules getDiscountRules() {
+		return discountRules;
+	}
 
-				if (!(discount instanceof QuantityDiscount
-						&& item.getQuantity() < ((QuantityDiscount) discount).getLimit())) {
-					if (discount instanceof QuantityDiscount) {
-						int quantity = item.getQuantity();
-						((QuantityDiscount) discount).setQuantity(quantity);
-					}
-					availableDiscounts.put(id, discount);
-				}
-			}
+	/**
+	 * Adds, replaces and removes the discount rules of a catalog delta. The
+	 * current rules are not changed, so sales that use them are not affected.
+	 * Sales that start afterwards get the new version.
+	 * 
+	 * @param delta The changes to make.
+	 * @return The version of the rules after the changes.
+	 */
+	public synchronized long applyDelta(CatalogDelta delta) {
+		if (delta.hasDiscountChanges()) {
+			discountRules = discountRules.withChanges(delta.getDiscountRules(), delta.getRemovedDiscountItemIDs());
 		}
 
-		return availableDiscounts;
+		return discountRules.getVersion();
+	}
+
+	/**
+	 * @return the registry of discount rule types that this system creates its
+	 *         rules with.
+	 */
+	public DiscountRuleRegistry getRuleRegistry() {
+		return ruleRegistry;
 	}
 
 	/**
@@ -7,7 +7,7 @@ import model.util.IdentificationNumber;
  * description from the external inventory system.
  */
 public class InvalidItemIDException extends Exception {
-	private IdentificationNumber invalidID;
+	private final IdentificationNumber invalidID;
 
 	/**
 	 * Constructs a new instance of this exception with a a message that specifies
@@ -16,11 +16,32 @@ public class InvalidItemIDException extends Exception {
 	 * @param invalidID The ID that was used in the search.
 	 */
 	public InvalidItemIDException(IdentificationNumber invalidID) {
-		super("User-entered item ID \'" + invalidID + "\' did not correspond to any item in inventory.");
+		this.invalidID = invalidID;
+	}
+
+	/**
+	 * Constructs a new instance of this exception without a stack trace. Scanning
+	 * an invalid ID is an expected event, so the cost of filling in the stack
+	 * trace can be avoided. The message is not formatted until it is requested.
+	 * 
+	 * @param invalidID          The ID that was used in the search.
+	 * @param writableStackTrace <code>false</code> if no stack trace should be
+	 *                           recorded.
+	 */
+	public InvalidItemIDException(IdentificationNumber invalidID, boolean writableStackTrace) {
+		super(null, null, false, writableStackTrace);
 
 		this.invalidID = invalidID;
 	}
 
+	/**
+	 * @return a message that specifies the invalid item ID.
+	 */
+	@Override
+	public String getMessage() {
+		return "User-entered item ID \'" + invalidID + "\' did not correspond to any item in inventory.";
+	}
+
 	/**
 	 * @return the ID that was used in the search.
 	 */
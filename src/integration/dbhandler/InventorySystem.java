@@ -1,11 +1,22 @@
 package integration.dbhandler;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import integration.dbhandler.cache.CacheStatistics;
+import integration.dbhandler.cache.ItemCache;
+import integration.dbhandler.cache.ItemIDFilter;
+import integration.dbhandler.cache.RejectedIDCache;
+import integration.dbhandler.catalog.CatalogDelta;
 import integration.dbhandler.data.ItemData;
 import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.data.LongIndex;
+import integration.dbhandler.data.StockUpdate;
+import integration.dbhandler.store.InMemoryItemStore;
+import integration.dbhandler.store.ItemStore;
 import model.dto.PurchasedItemInformation;
 import model.dto.Receipt;
 import model.util.Amount;
@@ -13,11 +24,34 @@ import model.util.IdentificationNumber;
 
 /**
  * A class that handles the external inventory system. The database connected to
- * this is represented by an internal array list.
+ * this is represented by an {@link ItemStore}. Item descriptions are read
+ * through an {@link ItemCache}, so frequently scanned items do not have to be
+ * fetched from the store. Invalid item IDs are rejected by an
+ * {@link ItemIDFilter} over all valid IDs, or by a {@link RejectedIDCache} of
+ * recently rejected IDs, without consulting the cache or store. The store
+ * reports when items are added to it, see
+ * {@link ItemStore#addModificationListener(Runnable)}, and the filter is then
+ * rebuilt and the rejected ID cache emptied on the thread that changed the
+ * store, so scans never rebuild the filter or wait for it.
+ * <p>
+ * Changes to the catalog, see {@link #applyDelta(CatalogDelta)}, are kept in a
+ * versioned snapshot that is consulted before the store. A change creates a new
+ * snapshot that replaces the current one in a single write, so scans never wait
+ * for a change and always see either all or none of it.
  *
  */
 public class InventorySystem {
-	private List<ItemData> itemDB;
+	private static final int CACHE_SIZE = 10_000;
+	private static final long CACHE_TIME_TO_LIVE = TimeUnit.MINUTES.toNanos(5);
+	private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+	private static final int REJECTED_ID_SLOTS = 1024;
+	private static final long REJECTED_ID_TIME_TO_LIVE = TimeUnit.SECONDS.toNanos(30);
+
+	private final ItemStore itemDB;
+	private final ItemCache itemCache;
+	private final AtomicLong storeModificationCount = new AtomicLong();
+	private volatile ValidIDs validIDs;
+	private volatile CatalogSnapshot catalog;
 	private final Amount stdVatRate = new Amount(0.16);
 
 	private final IdentificationNumber dbError = new IdentificationNumber(987987);
@@ -28,20 +62,40 @@ public class InventorySystem {
 	 * Constructs a new object and adds some data entries.
 	 */
 	private InventorySystem() {
-		itemDB = new ArrayList<>();
+		InMemoryItemStore inMemoryDB = new InMemoryItemStore();
 
-		createDatabaseEntry(new ItemData(
+		createDatabaseEntry(inMemoryDB, new ItemData(
 				new ItemDescription("apple", new Amount(5), stdVatRate, new IdentificationNumber(123)), 54));
-		createDatabaseEntry(new ItemData(
+		createDatabaseEntry(inMemoryDB, new ItemData(
 				new ItemDescription("coffee", new Amount(42), stdVatRate, new IdentificationNumber(666)), 87));
-		createDatabaseEntry(new ItemData(
+		createDatabaseEntry(inMemoryDB, new ItemData(
 				new ItemDescription("orange juice", new Amount(12), stdVatRate, new IdentificationNumber(492)), 56));
-		createDatabaseEntry(new ItemData(
+		createDatabaseEntry(inMemoryDB, new ItemData(
 				new ItemDescription("chocolate bar", new Amount(10), stdVatRate, new IdentificationNumber(876)), 100));
+
+		itemDB = inMemoryDB;
+		itemCache = new ItemCache(itemDB, CACHE_SIZE, CACHE_TIME_TO_LIVE);
+		validIDs = createIDFilter(itemDB);
+		catalog = new CatalogSnapshot(0, new LongIndex<ItemData>(), createRejectedIDCache());
+		itemDB.addModificationListener(this::storeModified);
+	}
+
+	/**
+	 * Constructs a new object that reads its items from the specified store, for
+	 * example a catalog that is loaded when the program starts.
+	 * 
+	 * @param itemStore The store that holds the item data.
+	 */
+	public InventorySystem(ItemStore itemStore) {
+		itemDB = itemStore;
+		itemCache = new ItemCache(itemDB, CACHE_SIZE, CACHE_TIME_TO_LIVE);
+		validIDs = createIDFilter(itemDB);
+		catalog = new CatalogSnapshot(0, new LongIndex<ItemData>(), createRejectedIDCache());
+		itemDB.addModificationListener(this::storeModified);
 	}
 
 	/**
-	 * Searches the database(internal ArrayList) for an {@link ItemDescription} with
+	 * Searches the item cache, and the database if the item is not cached, for an {@link ItemDescription} with
 	 * the specified <code>itemID</code>.
 	 * 
 	 * @param itemID <code>IdentificationNumber</code> that will be used in the
@@ -58,12 +112,24 @@ public class InventorySystem {
 			throw new InventoryException("Could not establish a connection to the database.");
 		}
 
-		for (ItemData itemDataObject : itemDB) {
-			if (itemDataObject.getItemDescription().getID().equals(itemID))
-				return itemDataObject.getItemDescription();
+		long id = itemID.getID();
+		CatalogSnapshot current = catalog;
+		ItemData changedItem = current.changedItems.get(id);
+		if (changedItem != null) {
+			return changedItem.getItemDescription();
+		}
+
+		if (!validIDs.filter.mightContain(id) || current.rejectedIDs.isRecentlyRejected(id)) {
+			throw new InvalidItemIDException(itemID, false);
+		}
+
+		ItemDescription description = itemCache.get(id);
+		if (description != null) {
+			return description;
 		}
 
-		throw new InvalidItemIDException(itemID);
+		current.rejectedIDs.recordRejected(id);
+		throw new InvalidItemIDException(itemID, false);
 	}
 
 	/**
@@ -71,21 +137,66 @@ public class InventorySystem {
 	 * 
 	 * @param saleInfo The information about the completed sale. Contains the list
 	 *                 of sold items.
+	 * @return One {@link StockUpdate} per sold item, in the order they appear on
+	 *         the receipt.
+	 * @throws InventoryException If a connection to the inventory database could
+	 *                            not be established.
+	 */
+	public List<StockUpdate> updateQuantityOfItems(Receipt saleInfo) {
+		return updateQuantityOfItems(Collections.singletonList(saleInfo));
+	}
+
+	/**
+	 * Updates the quantity of the items that was processed in a batch of sales.
+	 * Items that were sold in more than one sale are combined, so the stock of
+	 * each item is decreased only once, with the total sold quantity. Every item
+	 * is looked up before any stock is decreased, so if the lookup fails nothing
+	 * has been changed and the update can be tried again.
+	 * 
+	 * @param completedSales The receipts of the completed sales.
+	 * @return One {@link StockUpdate} per unique sold item, in the order each
+	 *         item first appears in the batch.
 	 * @throws InventoryException If a connection to the inventory database could
 	 *                            not be established.
 	 */
-	public void updateQuantityOfItems(Receipt saleInfo) {
-		List<PurchasedItemInformation> itemList = saleInfo.getListOfSoldItems();
+	public List<StockUpdate> updateQuantityOfItems(List<Receipt> completedSales) {
+		LongIndex<SoldQuantity> soldQuantities = new LongIndex<>();
+		List<SoldQuantity> soldInOrder = new ArrayList<>();
 
-		for (PurchasedItemInformation itemInfo : itemList) {
-			for (ItemData itemData : itemDB) {
-				IdentificationNumber searchedItemID = itemInfo.getItemDescription().getID();
+		for (Receipt saleInfo : completedSales) {
+			for (PurchasedItemInformation itemInfo : saleInfo.getListOfSoldItems()) {
+				IdentificationNumber itemID = itemInfo.getItemDescription().getID();
+				SoldQuantity sold = soldQuantities.get(itemID.getID());
 
-				if (matches(searchedItemID, itemData)) {
-					itemData.decreaseQuantity(itemInfo.getQuantity());
+				if (sold == null) {
+					sold = new SoldQuantity(itemID);
+					soldQuantities.put(itemID.getID(), sold);
+					soldInOrder.add(sold);
 				}
+				sold.quantity += itemInfo.getQuantity();
 			}
 		}
+
+		ItemData[] soldItems = new ItemData[soldInOrder.size()];
+		CatalogSnapshot current = catalog;
+		for (int i = 0; i < soldItems.length; i++) {
+			soldItems[i] = findItem(current, soldInOrder.get(i).itemID.getID());
+		}
+
+		List<StockUpdate> updates = new ArrayList<>(soldInOrder.size());
+		for (int i = 0; i < soldItems.length; i++) {
+			SoldQuantity sold = soldInOrder.get(i);
+			ItemData itemData = soldItems[i];
+
+			if (itemData != null) {
+				int remainingQuantity = itemData.decreaseQuantity(sold.quantity);
+				updates.add(new StockUpdate(sold.itemID, sold.quantity, remainingQuantity, true));
+			} else {
+				updates.add(new StockUpdate(sold.itemID, sold.quantity, 0, false));
+			}
+		}
+
+		return updates;
 	}
 
 	/**
@@ -97,25 +208,152 @@ public class InventorySystem {
 	 *                            not be established.
 	 */
 	public int getAvailableQuantityOfItem(IdentificationNumber itemID) {
-		for (ItemData itemData : itemDB) {
-			if (matches(itemID, itemData)) {
-				return itemData.getAvailableQuantity();
-			}
+		ItemData itemData = findItem(catalog, itemID.getID());
+		if (itemData != null) {
+			return itemData.getAvailableQuantity();
 		}
 
 		return 0;
 	}
 
-	private boolean matches(IdentificationNumber searchedItemID, ItemData itemData) {
-		IdentificationNumber storedItemID = itemData.getItemDescription().getID();
+	/**
+	 * Adds the items of a catalog delta, and changes the descriptions of the
+	 * items that already exist. The changes are made to a copy of the current
+	 * snapshot, which then replaces it, so scans made meanwhile are not blocked
+	 * and do not see a partly applied delta. The stock of a changed item is kept
+	 * and is shared with the snapshot it replaces, so sales finished meanwhile
+	 * are not lost.
+	 * 
+	 * @param delta The changes to make.
+	 * @return The version of the catalog after the changes.
+	 */
+	public synchronized long applyDelta(CatalogDelta delta) {
+		CatalogSnapshot current = catalog;
+		LongIndex<ItemData> changedItems = new LongIndex<>(current.changedItems);
+		boolean itemsAdded = false;
 
-		return searchedItemID.equals(storedItemID);
+		for (ItemData item : delta.getItems()) {
+			long id = item.getItemDescription().getID().getID();
+			ItemData existing = findItem(current, id);
+			if (existing != null) {
+				changedItems.put(id, existing.withDescription(item.getItemDescription()));
+			} else {
+				changedItems.put(id, item);
+				itemsAdded = true;
+			}
+		}
+
+		RejectedIDCache rejectedIDs = itemsAdded ? createRejectedIDCache() : current.rejectedIDs;
+		catalog = new CatalogSnapshot(current.version + 1, changedItems, rejectedIDs);
+
+		for (ItemData item : delta.getItems()) {
+			itemCache.invalidate(item.getItemDescription().getID().getID());
+		}
+
+		return current.version + 1;
 	}
 
-	private void createDatabaseEntry(ItemData itemDataObject) {
-		itemDB.add(itemDataObject);
+	/**
+	 * @return the version of the catalog, which is increased by every applied
+	 *         delta.
+	 */
+	public long getCatalogVersion() {
+		return catalog.version;
+	}
+
+	/**
+	 * Returns the hit, miss and eviction counts of the item description cache.
+	 * 
+	 * @return A {@link CacheStatistics} snapshot.
+	 */
+	public CacheStatistics getCacheStatistics() {
+		return itemCache.getStatistics();
+	}
+
+	private void storeModified() {
+		storeModificationCount.incrementAndGet();
+		rebuildIDFilter();
+	}
+
+	/**
+	 * Rebuilds the filter unless a listener that ran after this one already has.
+	 * The filter is published before the emptied rejected ID cache, so a scan
+	 * that sees the new cache also sees the new filter.
+	 */
+	private synchronized void rebuildIDFilter() {
+		long modificationCount = storeModificationCount.get();
+		if (validIDs.storeModificationCount == modificationCount) {
+			return;
+		}
+
+		validIDs = createIDFilter(itemDB, modificationCount);
+		CatalogSnapshot current = catalog;
+		catalog = new CatalogSnapshot(current.version, current.changedItems, createRejectedIDCache());
+	}
+
+	private static ValidIDs createIDFilter(ItemStore itemStore) {
+		return createIDFilter(itemStore, 0);
+	}
+
+	private static ValidIDs createIDFilter(ItemStore itemStore, long modificationCount) {
+		ItemIDFilter filter = new ItemIDFilter(itemStore.getItemCount(), FILTER_FALSE_POSITIVE_RATE);
+		itemStore.forEachItemID(filter::add);
+
+		return new ValidIDs(filter, modificationCount);
+	}
+
+	private ItemData findItem(CatalogSnapshot snapshot, long itemID) {
+		ItemData changedItem = snapshot.changedItems.get(itemID);
+		if (changedItem != null) {
+			return changedItem;
+		}
+
+		return itemDB.findItem(itemID);
+	}
+
+	private static RejectedIDCache createRejectedIDCache() {
+		return new RejectedIDCache(REJECTED_ID_SLOTS, REJECTED_ID_TIME_TO_LIVE);
+	}
+
+	private void createDatabaseEntry(InMemoryItemStore inMemoryDB, ItemData itemDataObject) {
+		inMemoryDB.addItem(itemDataObject);
 	}
 	
+	/**
+	 * The items that were added or changed since the store was loaded. A
+	 * snapshot is never changed once it is published.
+	 */
+	private static class CatalogSnapshot {
+		private final long version;
+		private final LongIndex<ItemData> changedItems;
+		private final RejectedIDCache rejectedIDs;
+
+		private CatalogSnapshot(long version, LongIndex<ItemData> changedItems, RejectedIDCache rejectedIDs) {
+			this.version = version;
+			this.changedItems = changedItems;
+			this.rejectedIDs = rejectedIDs;
+		}
+	}
+
+	private static class ValidIDs {
+		private final ItemIDFilter filter;
+		private final long storeModificationCount;
+
+		private ValidIDs(ItemIDFilter filter, long storeModificationCount) {
+			this.filter = filter;
+			this.storeModificationCount = storeModificationCount;
+		}
+	}
+
+	private static class SoldQuantity {
+		private final IdentificationNumber itemID;
+		private int quantity;
+
+		private SoldQuantity(IdentificationNumber itemID) {
+			this.itemID = itemID;
+		}
+	}
+
 	/**
 	 * @return the instance of this class as a singleton.
 	 */
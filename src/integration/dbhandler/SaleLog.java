@@ -1,27 +1,76 @@
 package integration.dbhandler;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import integration.dbhandler.journal.SaleJournal;
 import model.dto.Receipt;
 
 /**
- * This class handles the external sale log.
+ * This class handles the external sale log. Completed sales are written to a
+ * {@link SaleJournal}, so they are not lost if the program stops unexpectedly.
  *
  */
 public class SaleLog {
+	private static final String DEFAULT_JOURNAL_DIRECTORY = "pos-sale-journal";
+	private static final long DEFAULT_BATCH_WINDOW = 0;
+
 	private static final SaleLog SALE_LOG = new SaleLog();
+
+	private final SaleJournal journal;
+	private final IOException openFailure;
 	
 	/**
-	 * Constructor.
+	 * Constructor. Opens the journal in the default directory.
 	 */
 	private SaleLog() {
+		SaleJournal openedJournal = null;
+		IOException failure = null;
+		try {
+			openedJournal = SaleJournal.open(Paths.get(DEFAULT_JOURNAL_DIRECTORY), DEFAULT_BATCH_WINDOW);
+		} catch (IOException e) {
+			failure = e;
+		}
+
+		this.journal = openedJournal;
+		this.openFailure = failure;
 	}
 
 	/**
-	 * Logs the relevant information in the sale log.
+	 * Constructs a sale log that writes to the specified journal.
+	 * 
+	 * @param journal The journal that completed sales are written to.
+	 */
+	public SaleLog(SaleJournal journal) {
+		this.journal = journal;
+		this.openFailure = null;
+	}
+
+	/**
+	 * Logs the relevant information in the sale log. Returns when the sale has
+	 * been stored durably.
 	 * 
 	 * @param completedSaleInformation Information about the completed sale.
+	 * @throws SaleLogException If the sale could not be written to the log.
 	 */
 	public void logSale(Receipt completedSaleInformation) {
+		if (journal == null) {
+			throw new SaleLogException("The sale log could not be opened.", openFailure);
+		}
+
+		try {
+			journal.append(completedSaleInformation);
+		} catch (IOException e) {
+			throw new SaleLogException("The sale could not be written to the sale log.", e);
+		}
+	}
 
+	/**
+	 * @return the journal that completed sales are written to, or
+	 *         <code>null</code> if it could not be opened.
+	 */
+	public SaleJournal getJournal() {
+		return journal;
 	}
 	
 	/**
@@ -0,0 +1,17 @@
+package integration.dbhandler;
+
+/**
+ * An exception that gets thrown if a completed sale could not be written to
+ * the external sale log.
+ */
+public class SaleLogException extends RuntimeException {
+
+	/**
+	 * Constructs a new instance that contains the specified message and cause.
+	 * @param msg   String explaining this exception.
+	 * @param cause The exception that caused this exception.
+	 */
+	public SaleLogException(String msg, Throwable cause) {
+		super(msg, cause);
+	}
+}
@@ -0,0 +1,124 @@
+package integration.dbhandler.accounting;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.dto.BundleDiscountInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.util.Amount;
+
+/**
+ * Keeps running totals of revenue, VAT, discounts and sold items, for all
+ * sales, per hour of each date and per VAT rate. Each recorded sale updates
+ * the totals directly, so the cost of recording a sale only depends on the
+ * number of lines in it, and a report never has to go through earlier sales.
+ * The hourly totals are kept per date of sale, so sales made at the same hour
+ * on different days are never added together.
+ * <p>
+ * The totals are kept in {@link LongAdder} counters, so any number of lanes can
+ * record sales at the same time without locking, and taking a
+ * {@link #snapshot()} never blocks them. A snapshot taken while sales are being
+ * recorded may include only part of those sales.
+ */
+public class Ledger {
+	private final LedgerCells total = new LedgerCells();
+	private final LongAdder saleCount = new LongAdder();
+	private final ConcurrentHashMap<LocalDate, LedgerDay> byDate = new ConcurrentHashMap<>();
+	private volatile LedgerDay latestDay = new LedgerDay(LocalDate.MIN);
+	private final ConcurrentHashMap<Long, LedgerCells> byVatRate = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs an empty ledger.
+	 */
+	public Ledger() {
+	}
+
+	/**
+	 * Adds a completed sale to the totals.
+	 * 
+	 * @param receipt The receipt of the sale.
+	 */
+	public void record(Receipt receipt) {
+		int hour = receipt.getTimeOfSale().getHour();
+		LedgerDay day = dayOf(receipt.getDateOfSale());
+		LedgerCells hourCells = day.cellsForHour(hour);
+
+		for (PurchasedItemInformation line : receipt.getListOfSoldItems()) {
+			long revenue = line.getAccumulatedPrice().getMinorUnits();
+			long vat = line.getAccumulatedVatTax().getMinorUnits();
+			long discount = line.getAccumulatedDiscount().getMinorUnits();
+			int quantity = line.getQuantity();
+
+			total.add(revenue, vat, discount, quantity);
+			hourCells.add(revenue, vat, discount, quantity);
+			cellsForVatRate(line.getItemDescription().getVatRate()).add(revenue, vat, discount, quantity);
+		}
+		for (BundleDiscountInformation bundleDiscount : receipt.getBundleDiscounts()) {
+			long discount = bundleDiscount.getDiscount().getMinorUnits();
+			long vatDiscount = bundleDiscount.getVatDiscount().getMinorUnits();
+
+			total.add(-discount, -vatDiscount, discount, 0);
+			hourCells.add(-discount, -vatDiscount, discount, 0);
+			cellsForVatRate(bundleDiscount.getVatRate()).add(-discount, -vatDiscount, discount, 0);
+		}
+
+		saleCount.increment();
+		day.countSale(hour);
+	}
+
+	/**
+	 * Returns the current totals.
+	 * 
+	 * @return A {@link LedgerSnapshot} of the totals.
+	 */
+	public LedgerSnapshot snapshot() {
+		Map<LocalDate, LedgerTotals[]> hourlyTotals = new TreeMap<>();
+		Map<LocalDate, long[]> hourlySales = new TreeMap<>();
+		for (LedgerDay day : byDate.values()) {
+			hourlyTotals.put(day.getDate(), day.snapshotTotals());
+			hourlySales.put(day.getDate(), day.snapshotSaleCounts());
+		}
+
+		List<Long> rates = new ArrayList<>(byVatRate.keySet());
+		Collections.sort(rates);
+		Map<Amount, LedgerTotals> vatRateTotals = new LinkedHashMap<>();
+		for (Long rate : rates) {
+			vatRateTotals.put(Amount.ofMinorUnits(rate), byVatRate.get(rate).snapshot());
+		}
+
+		return new LedgerSnapshot(total.snapshot(), saleCount.sum(), hourlyTotals, hourlySales, vatRateTotals);
+	}
+
+	/**
+	 * Returns the buckets of a date. The buckets of the latest date are kept at
+	 * hand, so the map is only searched when the date of sale changes.
+	 */
+	private LedgerDay dayOf(LocalDate date) {
+		LedgerDay day = latestDay;
+		if (day.getDate().equals(date)) {
+			return day;
+		}
+
+		day = byDate.computeIfAbsent(date, LedgerDay::new);
+		latestDay = day;
+		return day;
+	}
+
+	private LedgerCells cellsForVatRate(Amount vatRate) {
+		Long rate = vatRate.getMinorUnits();
+		LedgerCells cells = byVatRate.get(rate);
+		if (cells == null) {
+			cells = byVatRate.computeIfAbsent(rate, key -> new LedgerCells());
+		}
+
+		return cells;
+	}
+}
@@ -0,0 +1,43 @@
+package integration.dbhandler.accounting;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import model.util.Amount;
+
+/**
+ * The counters of one bucket of the {@link Ledger}. Each counter is a
+ * {@link LongAdder}, which spreads concurrent updates over several cells and
+ * only adds them together when the counter is read, so lanes that record sales
+ * at the same time do not have to wait for each other.
+ */
+class LedgerCells {
+	private final LongAdder revenueUnits = new LongAdder();
+	private final LongAdder vatUnits = new LongAdder();
+	private final LongAdder discountUnits = new LongAdder();
+	private final LongAdder itemCount = new LongAdder();
+
+	/**
+	 * Adds one line of a sale to the bucket.
+	 * 
+	 * @param revenue  The price of the line in minor units, VAT included.
+	 * @param vat      The VAT tax of the line in minor units.
+	 * @param discount The discount given on the line in minor units.
+	 * @param quantity The number of units sold.
+	 */
+	void add(long revenue, long vat, long discount, int quantity) {
+		revenueUnits.add(revenue);
+		vatUnits.add(vat);
+		if (discount != 0) {
+			discountUnits.add(discount);
+		}
+		itemCount.add(quantity);
+	}
+
+	/**
+	 * @return the current totals of the bucket.
+	 */
+	LedgerTotals snapshot() {
+		return new LedgerTotals(Amount.ofMinorUnits(revenueUnits.sum()), Amount.ofMinorUnits(vatUnits.sum()),
+				Amount.ofMinorUnits(discountUnits.sum()), itemCount.sum());
+	}
+}
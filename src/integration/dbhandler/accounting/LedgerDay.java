@@ -0,0 +1,77 @@
+package integration.dbhandler.accounting;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The hourly buckets of the {@link Ledger} for one date, so sales made at the
+ * same hour on different days are kept apart.
+ */
+class LedgerDay {
+	private static final int HOURS_PER_DAY = 24;
+
+	private final LocalDate date;
+	private final LedgerCells[] hourly = new LedgerCells[HOURS_PER_DAY];
+	private final LongAdder[] hourlySaleCount = new LongAdder[HOURS_PER_DAY];
+
+	/**
+	 * Creates empty buckets for a date.
+	 * 
+	 * @param date The date of the sales that are added to the buckets.
+	 */
+	LedgerDay(LocalDate date) {
+		this.date = date;
+		for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+			hourly[hour] = new LedgerCells();
+			hourlySaleCount[hour] = new LongAdder();
+		}
+	}
+
+	/**
+	 * @return the date of the sales in the buckets.
+	 */
+	LocalDate getDate() {
+		return date;
+	}
+
+	/**
+	 * @param hour The hour of the day, from 0 to 23.
+	 * @return the bucket of that hour.
+	 */
+	LedgerCells cellsForHour(int hour) {
+		return hourly[hour];
+	}
+
+	/**
+	 * Counts one sale made during an hour.
+	 * 
+	 * @param hour The hour of the day, from 0 to 23.
+	 */
+	void countSale(int hour) {
+		hourlySaleCount[hour].increment();
+	}
+
+	/**
+	 * @return the current totals of each hour.
+	 */
+	LedgerTotals[] snapshotTotals() {
+		LedgerTotals[] totals = new LedgerTotals[HOURS_PER_DAY];
+		for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+			totals[hour] = hourly[hour].snapshot();
+		}
+
+		return totals;
+	}
+
+	/**
+	 * @return the current number of sales in each hour.
+	 */
+	long[] snapshotSaleCounts() {
+		long[] saleCounts = new long[HOURS_PER_DAY];
+		for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+			saleCounts[hour] = hourlySaleCount[hour].sum();
+		}
+
+		return saleCounts;
+	}
+}
@@ -0,0 +1,104 @@
+package integration.dbhandler.accounting;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import model.util.Amount;
+
+/**
+ * An immutable snapshot of the totals in a {@link Ledger}.
+ */
+public final class LedgerSnapshot {
+	private static final LedgerTotals NO_SALES = new LedgerTotals(new Amount(0), new Amount(0), new Amount(0), 0);
+
+	private final LedgerTotals totals;
+	private final long saleCount;
+	private final Map<LocalDate, LedgerTotals[]> hourlyTotals;
+	private final Map<LocalDate, long[]> hourlySaleCount;
+	private final Map<Amount, LedgerTotals> vatRateTotals;
+
+	/**
+	 * Creates a new snapshot.
+	 * 
+	 * @param totals          The totals of all sales.
+	 * @param saleCount       The number of sales.
+	 * @param hourlyTotals    The totals of the sales made in each hour of the
+	 *                        day, per date of sale, in ascending order of the
+	 *                        date.
+	 * @param hourlySaleCount The number of sales made in each hour of the day,
+	 *                        per date of sale.
+	 * @param vatRateTotals   The totals of the items sold at each VAT rate, in
+	 *                        ascending order of the rate.
+	 */
+	LedgerSnapshot(LedgerTotals totals, long saleCount, Map<LocalDate, LedgerTotals[]> hourlyTotals,
+			Map<LocalDate, long[]> hourlySaleCount, Map<Amount, LedgerTotals> vatRateTotals) {
+		this.totals = totals;
+		this.saleCount = saleCount;
+		this.hourlyTotals = Collections.unmodifiableMap(hourlyTotals);
+		this.hourlySaleCount = Collections.unmodifiableMap(hourlySaleCount);
+		this.vatRateTotals = Collections.unmodifiableMap(vatRateTotals);
+	}
+
+	/**
+	 * @return the totals of all sales.
+	 */
+	public LedgerTotals getTotals() {
+		return totals;
+	}
+
+	/**
+	 * @return the number of sales.
+	 */
+	public long getSaleCount() {
+		return saleCount;
+	}
+
+	/**
+	 * @return the dates that sales were made on, in ascending order.
+	 */
+	public Set<LocalDate> getDates() {
+		return hourlyTotals.keySet();
+	}
+
+	/**
+	 * Returns the totals of the sales made during one hour of a date.
+	 * 
+	 * @param date The date of sale.
+	 * @param hour The hour of the day, from 0 to 23.
+	 * @return The totals of that hour, which are zero if no sales were made on
+	 *         the date.
+	 */
+	public LedgerTotals getHourlyTotals(LocalDate date, int hour) {
+		LedgerTotals[] totalsOfDate = hourlyTotals.get(date);
+		return totalsOfDate == null ? NO_SALES : totalsOfDate[hour];
+	}
+
+	/**
+	 * Returns the number of sales made during one hour of a date.
+	 * 
+	 * @param date The date of sale.
+	 * @param hour The hour of the day, from 0 to 23.
+	 * @return The number of sales in that hour.
+	 */
+	public long getHourlySaleCount(LocalDate date, int hour) {
+		long[] saleCountOfDate = hourlySaleCount.get(date);
+		return saleCountOfDate == null ? 0 : saleCountOfDate[hour];
+	}
+
+	/**
+	 * @return the totals of the items sold at each VAT rate, in ascending order
+	 *         of the rate.
+	 */
+	public Map<Amount, LedgerTotals> getVatRateTotals() {
+		return vatRateTotals;
+	}
+
+	/**
+	 * A string representation of the snapshot.
+	 */
+	public String toString() {
+		return String.format("sales: %d, %s", saleCount, totals);
+	}
+}
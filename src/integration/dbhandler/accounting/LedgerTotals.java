@@ -0,0 +1,66 @@
+package integration.dbhandler.accounting;
+
+import model.util.Amount;
+
+/**
+ * An immutable snapshot of the totals of one bucket of the {@link Ledger}, for
+ * example one hour of the day or one VAT rate.
+ */
+public final class LedgerTotals {
+	private final Amount revenue;
+	private final Amount vat;
+	private final Amount discounts;
+	private final long itemCount;
+
+	/**
+	 * Creates a new snapshot.
+	 * 
+	 * @param revenue   The amount paid for the sold items, VAT included.
+	 * @param vat       The VAT tax included in the revenue.
+	 * @param discounts The amount that was deducted from the sold items' prices
+	 *                  by discounts.
+	 * @param itemCount The number of sold units.
+	 */
+	public LedgerTotals(Amount revenue, Amount vat, Amount discounts, long itemCount) {
+		this.revenue = revenue;
+		this.vat = vat;
+		this.discounts = discounts;
+		this.itemCount = itemCount;
+	}
+
+	/**
+	 * @return the amount paid for the sold items, VAT included.
+	 */
+	public Amount getRevenue() {
+		return revenue;
+	}
+
+	/**
+	 * @return the VAT tax included in the revenue.
+	 */
+	public Amount getVat() {
+		return vat;
+	}
+
+	/**
+	 * @return the amount that was deducted from the sold items' prices by
+	 *         discounts.
+	 */
+	public Amount getDiscounts() {
+		return discounts;
+	}
+
+	/**
+	 * @return the number of sold units.
+	 */
+	public long getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * A string representation of the totals.
+	 */
+	public String toString() {
+		return String.format("revenue: %s, VAT: %s, discounts: %s, items: %d", revenue, vat, discounts, itemCount);
+	}
+}
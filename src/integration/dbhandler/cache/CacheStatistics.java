@@ -0,0 +1,73 @@
+package integration.dbhandler.cache;
+
+/**
+ * An immutable snapshot of the statistics of an {@link ItemCache}.
+ */
+public final class CacheStatistics {
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final int size;
+
+	/**
+	 * Creates a new snapshot.
+	 * 
+	 * @param hitCount      Number of lookups that were answered by the cache.
+	 * @param missCount     Number of lookups that had to go to the backing store.
+	 * @param evictionCount Number of entries removed because the cache was full
+	 *                      or the entry had expired.
+	 * @param size          Number of entries in the cache.
+	 */
+	public CacheStatistics(long hitCount, long missCount, long evictionCount, int size) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.size = size;
+	}
+
+	/**
+	 * @return the number of lookups that were answered by the cache.
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return the number of lookups that had to go to the backing store.
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return the number of entries removed because the cache was full or the
+	 *         entry had expired.
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return the number of entries in the cache when the snapshot was taken.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the share of lookups that were answered by the cache, between 0
+	 *         and 1.
+	 */
+	public double getHitRate() {
+		long lookups = hitCount + missCount;
+		return lookups == 0 ? 0 : (double) hitCount / lookups;
+	}
+
+	/**
+	 * A string representation of the statistics.
+	 */
+	public String toString() {
+		return String.format("hits: %d, misses: %d, evictions: %d, size: %d", hitCount, missCount, evictionCount,
+				size);
+	}
+}
@@ -0,0 +1,204 @@
+package integration.dbhandler.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import integration.dbhandler.data.ItemData;
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.store.ItemStore;
+
+/**
+ * A bounded read-through cache of {@link ItemDescription}s in front of an
+ * {@link ItemStore}. Entries expire after a fixed time to live. When the cache
+ * is full, a small sample of entries is inspected and the one that has been
+ * used the least is evicted, so frequently scanned items stay cached. Each
+ * sample continues where the previous one ended, so that over time every
+ * entry is sampled, not only the ones that come first in the map.
+ */
+public class ItemCache {
+	private static final int EVICTION_SAMPLE_SIZE = 8;
+
+	private final ItemStore store;
+	private final int maxSize;
+	private final long timeToLiveNanos;
+	private final LongSupplier clock;
+
+	private final Map<Long, CacheEntry> entries;
+	private final AtomicInteger lookupsSinceAging = new AtomicInteger();
+	private final Object evictionLock = new Object();
+	private Iterator<Map.Entry<Long, CacheEntry>> evictionCursor;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Constructs a new cache in front of the specified store.
+	 * 
+	 * @param store           The store to read from when an item is not cached.
+	 * @param maxSize         The maximum number of cached items.
+	 * @param timeToLiveNanos How long an item stays cached, in nanoseconds.
+	 */
+	public ItemCache(ItemStore store, int maxSize, long timeToLiveNanos) {
+		this(store, maxSize, timeToLiveNanos, System::nanoTime);
+	}
+
+	/**
+	 * Constructs a new cache that reads the time from the specified clock.
+	 * 
+	 * @param store           The store to read from when an item is not cached.
+	 * @param maxSize         The maximum number of cached items.
+	 * @param timeToLiveNanos How long an item stays cached, in nanoseconds.
+	 * @param clock           Returns the current time in nanoseconds.
+	 */
+	public ItemCache(ItemStore store, int maxSize, long timeToLiveNanos, LongSupplier clock) {
+		this.store = store;
+		this.maxSize = maxSize;
+		this.timeToLiveNanos = timeToLiveNanos;
+		this.clock = clock;
+
+		entries = new ConcurrentHashMap<>(Math.min(maxSize, 1 << 16));
+	}
+
+	/**
+	 * Returns the description of the item with the specified ID, reading it from
+	 * the backing store if it is not cached or has expired.
+	 * 
+	 * @param itemID The unique ID of the item.
+	 * @return The {@link ItemDescription}, or <code>null</code> if the backing
+	 *         store has no item with that ID.
+	 * @throws integration.dbhandler.InventoryException If the backing store could
+	 *                                                  not be reached.
+	 */
+	public ItemDescription get(long itemID) {
+		long now = clock.getAsLong();
+		CacheEntry entry = entries.get(itemID);
+
+		if (entry != null) {
+			if (!entry.hasExpired(now)) {
+				entry.recordUse();
+				hits.increment();
+				ageFrequenciesIfDue();
+				return entry.description;
+			}
+			if (entries.remove(itemID, entry)) {
+				evictions.increment();
+			}
+		}
+
+		misses.increment();
+		ItemData itemData = store.findItem(itemID);
+		if (itemData == null) {
+			return null;
+		}
+
+		ItemDescription description = itemData.getItemDescription();
+		makeRoomForNewEntry(now);
+		entries.put(itemID, new CacheEntry(description, now + timeToLiveNanos));
+
+		return description;
+	}
+
+	/**
+	 * Removes the item with the specified ID from the cache, so that the next
+	 * lookup reads it from the backing store.
+	 * 
+	 * @param itemID The unique ID of the item.
+	 */
+	public void invalidate(long itemID) {
+		entries.remove(itemID);
+	}
+
+	/**
+	 * Removes all items from the cache.
+	 */
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	/**
+	 * @return a snapshot of the hit, miss and eviction counts of this cache.
+	 */
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+	}
+
+	private void makeRoomForNewEntry(long now) {
+		while (entries.size() >= maxSize) {
+			Map.Entry<Long, CacheEntry> victim = sampleVictim(now);
+			if (victim == null) {
+				return;
+			}
+			if (entries.remove(victim.getKey(), victim.getValue())) {
+				evictions.increment();
+			}
+		}
+	}
+
+	private Map.Entry<Long, CacheEntry> sampleVictim(long now) {
+		synchronized (evictionLock) {
+			Map.Entry<Long, CacheEntry> victim = null;
+			boolean restarted = false;
+
+			for (int sampled = 0; sampled < EVICTION_SAMPLE_SIZE; sampled++) {
+				if (evictionCursor == null || !evictionCursor.hasNext()) {
+					if (restarted) {
+						break;
+					}
+					evictionCursor = entries.entrySet().iterator();
+					restarted = true;
+					if (!evictionCursor.hasNext()) {
+						break;
+					}
+				}
+
+				Map.Entry<Long, CacheEntry> candidate = evictionCursor.next();
+				if (candidate.getValue().hasExpired(now)) {
+					return candidate;
+				}
+				if (victim == null || candidate.getValue().uses < victim.getValue().uses) {
+					victim = candidate;
+				}
+			}
+
+			return victim;
+		}
+	}
+
+	private void ageFrequenciesIfDue() {
+		if (lookupsSinceAging.incrementAndGet() < maxSize * 10) {
+			return;
+		}
+
+		lookupsSinceAging.set(0);
+		for (CacheEntry entry : entries.values()) {
+			entry.uses >>>= 1;
+		}
+	}
+
+	private static class CacheEntry {
+		private final ItemDescription description;
+		private final long expiresAt;
+		private volatile int uses;
+
+		private CacheEntry(ItemDescription description, long expiresAt) {
+			this.description = description;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean hasExpired(long now) {
+			return now - expiresAt >= 0;
+		}
+
+		private void recordUse() {
+			int current = uses;
+			if (current < Integer.MAX_VALUE) {
+				uses = current + 1;
+			}
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package integration.dbhandler.cache;
+
+/**
+ * A Bloom filter over item IDs. It answers whether an ID might belong to a
+ * valid item. A negative answer is always correct, so an ID that is rejected by
+ * the filter does not have to be looked up anywhere else. A positive answer is
+ * wrong for a small, configurable share of the invalid IDs.
+ */
+public class ItemIDFilter {
+	private final long[] bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * Constructs an empty filter sized for the specified number of IDs.
+	 * 
+	 * @param expectedIDs       How many IDs will be added to the filter.
+	 * @param falsePositiveRate The share of invalid IDs that may pass the filter
+	 *                          when it holds <code>expectedIDs</code> IDs, for
+	 *                          example <code>0.01</code>.
+	 */
+	public ItemIDFilter(int expectedIDs, double falsePositiveRate) {
+		int ids = Math.max(expectedIDs, 1);
+		long optimalBits = (long) Math.ceil(-ids * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int words = (int) Math.max(1, (optimalBits + 63) >>> 6);
+
+		bits = new long[words];
+		bitCount = (long) words << 6;
+		hashCount = Math.max(1, (int) Math.round((double) bitCount / ids * Math.log(2)));
+	}
+
+	/**
+	 * Adds an ID to the filter.
+	 * 
+	 * @param itemID The ID to add.
+	 */
+	public void add(long itemID) {
+		long hash = mix(itemID);
+		int firstHash = (int) hash;
+		int secondHash = (int) (hash >>> 32);
+
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Integer.toUnsignedLong(firstHash + i * secondHash) % bitCount;
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	/**
+	 * Checks if the specified ID might have been added to the filter.
+	 * 
+	 * @param itemID The ID to check.
+	 * @return <code>false</code> if the ID has certainly not been added,
+	 *         <code>true</code> if it probably has.
+	 */
+	public boolean mightContain(long itemID) {
+		long hash = mix(itemID);
+		int firstHash = (int) hash;
+		int secondHash = (int) (hash >>> 32);
+
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Integer.toUnsignedLong(firstHash + i * secondHash) % bitCount;
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static long mix(long key) {
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+
+		return h;
+	}
+}
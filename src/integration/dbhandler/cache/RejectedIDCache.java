@@ -0,0 +1,92 @@
+package integration.dbhandler.cache;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A small, short-lived cache of item IDs that were recently found to be invalid.
+ * The IDs are kept in a fixed number of slots, where a new ID simply replaces
+ * whatever ID was stored in its slot, so the cache never grows and never
+ * allocates after it has been constructed.
+ * <p>
+ * Only IDs that were not found in the inventory may be recorded. A lost or
+ * overwritten entry only means that the next scan of that ID is looked up again.
+ */
+public class RejectedIDCache {
+	private final long[] rejectedIDs;
+	private final long[] expiryTimes;
+	private final int mask;
+	private final long timeToLiveNanos;
+	private final LongSupplier clock;
+
+	/**
+	 * Constructs an empty cache.
+	 * 
+	 * @param slots           The number of IDs that can be remembered, rounded up
+	 *                        to a power of two.
+	 * @param timeToLiveNanos How long an ID is remembered, in nanoseconds.
+	 */
+	public RejectedIDCache(int slots, long timeToLiveNanos) {
+		this(slots, timeToLiveNanos, System::nanoTime);
+	}
+
+	/**
+	 * Constructs an empty cache that reads the time from the specified clock.
+	 * 
+	 * @param slots           The number of IDs that can be remembered, rounded up
+	 *                        to a power of two.
+	 * @param timeToLiveNanos How long an ID is remembered, in nanoseconds.
+	 * @param clock           Returns the current time in nanoseconds.
+	 */
+	public RejectedIDCache(int slots, long timeToLiveNanos, LongSupplier clock) {
+		int capacity = Integer.highestOneBit(Math.max(slots - 1, 1)) << 1;
+
+		rejectedIDs = new long[capacity];
+		expiryTimes = new long[capacity];
+		mask = capacity - 1;
+		this.timeToLiveNanos = timeToLiveNanos;
+		this.clock = clock;
+
+		clear();
+	}
+
+	/**
+	 * Remembers that the specified ID is invalid.
+	 * 
+	 * @param itemID The invalid ID.
+	 */
+	public void recordRejected(long itemID) {
+		int slot = slotOf(itemID);
+
+		expiryTimes[slot] = clock.getAsLong() + timeToLiveNanos;
+		rejectedIDs[slot] = itemID;
+	}
+
+	/**
+	 * Checks if the specified ID was recently found to be invalid.
+	 * 
+	 * @param itemID The ID to check.
+	 * @return <code>true</code> if the ID is remembered as invalid.
+	 */
+	public boolean isRecentlyRejected(long itemID) {
+		int slot = slotOf(itemID);
+
+		return rejectedIDs[slot] == itemID && clock.getAsLong() - expiryTimes[slot] < 0;
+	}
+
+	/**
+	 * Forgets every remembered ID, for example after new items have been added to
+	 * the inventory.
+	 */
+	public void clear() {
+		long now = clock.getAsLong();
+		for (int slot = 0; slot < expiryTimes.length; slot++) {
+			expiryTimes[slot] = now;
+		}
+	}
+
+	private int slotOf(long itemID) {
+		int hash = (int) (itemID ^ (itemID >>> 32)) * 0x9E3779B9;
+
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
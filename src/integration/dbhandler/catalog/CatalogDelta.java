@@ -0,0 +1,163 @@
+package integration.dbhandler.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import integration.dbhandler.data.ItemData;
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.DiscountRule;
+import integration.dbhandler.discount.DiscountRuleRegistry;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+/**
+ * An immutable set of changes to the item catalog and the discount rules, read
+ * from a text file. Each line of the file is empty, a comment that starts with
+ * <code>#</code>, or one of these changes:
+ *
+ * <pre>
+ * item &lt;id&gt; &lt;price&gt; &lt;vat rate&gt; &lt;stock&gt; &lt;name&gt;
+ * discount &lt;item id&gt; &lt;rule type&gt; &lt;parameters...&gt;
+ * nodiscount &lt;item id&gt;
+ * </pre>
+ *
+ * An <code>item</code> line adds an item, or changes the name, price and VAT
+ * rate of an existing one. The stock is only used for added items, since the
+ * stock of existing items changes as they are sold. A <code>discount</code>
+ * line adds or replaces the rule of an item, and the rule types are the ones
+ * known by a {@link DiscountRuleRegistry}.
+ */
+public final class CatalogDelta {
+	private static final Pattern FIELD_SEPARATOR = Pattern.compile("\\s+");
+	private static final CatalogDelta EMPTY = new CatalogDelta(Collections.<ItemData>emptyList(),
+			Collections.<DiscountRule>emptyList(), new long[0]);
+
+	private final List<ItemData> items;
+	private final List<DiscountRule> discountRules;
+	private final long[] removedDiscountItemIDs;
+
+	private CatalogDelta(List<ItemData> items, List<DiscountRule> discountRules, long[] removedDiscountItemIDs) {
+		this.items = items;
+		this.discountRules = discountRules;
+		this.removedDiscountItemIDs = removedDiscountItemIDs;
+	}
+
+	/**
+	 * @return a delta that changes nothing.
+	 */
+	public static CatalogDelta empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Reads a delta from a file. The file is read line by line, so a large delta
+	 * is never held in memory as text.
+	 *
+	 * @param file         The file to read.
+	 * @param ruleRegistry Creates the discount rules of the delta.
+	 * @return The delta.
+	 * @throws IOException If the file could not be read, or a line is invalid.
+	 *                     The message of an invalid line contains its number.
+	 */
+	public static CatalogDelta read(Path file, DiscountRuleRegistry ruleRegistry) throws IOException {
+		List<ItemData> items = new ArrayList<>();
+		List<DiscountRule> discountRules = new ArrayList<>();
+		long[] removedDiscountItemIDs = new long[16];
+		int removedCount = 0;
+
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			int lineNumber = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+
+				String[] fields = FIELD_SEPARATOR.split(line);
+				try {
+					switch (fields[0]) {
+					case "item":
+						items.add(parseItem(fields, line));
+						break;
+					case "discount":
+						requireFields(fields, 3);
+						discountRules.add(ruleRegistry.create(fields[2], Long.parseLong(fields[1]),
+								Arrays.copyOfRange(fields, 3, fields.length)));
+						break;
+					case "nodiscount":
+						requireFields(fields, 2);
+						if (removedCount == removedDiscountItemIDs.length) {
+							removedDiscountItemIDs = Arrays.copyOf(removedDiscountItemIDs, removedCount * 2);
+						}
+						removedDiscountItemIDs[removedCount++] = Long.parseLong(fields[1]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown change: " + fields[0]);
+					}
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Invalid catalog change on line " + lineNumber + " of " + file + ".", e);
+				}
+			}
+		}
+
+		return new CatalogDelta(Collections.unmodifiableList(items), Collections.unmodifiableList(discountRules),
+				Arrays.copyOf(removedDiscountItemIDs, removedCount));
+	}
+
+	/**
+	 * @return the added and changed items. The available quantity of an item is
+	 *         only used if the item is added.
+	 */
+	public List<ItemData> getItems() {
+		return items;
+	}
+
+	/**
+	 * @return the added and replaced discount rules.
+	 */
+	public List<DiscountRule> getDiscountRules() {
+		return discountRules;
+	}
+
+	/**
+	 * @return the IDs of the items whose discount rule is removed.
+	 */
+	public long[] getRemovedDiscountItemIDs() {
+		return removedDiscountItemIDs.clone();
+	}
+
+	/**
+	 * @return <code>true</code> if the delta changes any discount rule.
+	 */
+	public boolean hasDiscountChanges() {
+		return !discountRules.isEmpty() || removedDiscountItemIDs.length > 0;
+	}
+
+	private static ItemData parseItem(String[] fields, String line) {
+		requireFields(fields, 6);
+		long itemID = Long.parseLong(fields[1]);
+		Amount price = new Amount(new BigDecimal(fields[2]));
+		Amount vatRate = new Amount(new BigDecimal(fields[3]));
+		int stock = Integer.parseInt(fields[4]);
+		String name = FIELD_SEPARATOR.split(line, 6)[5];
+
+		return new ItemData(new ItemDescription(name, price, vatRate, new IdentificationNumber(itemID)), stock);
+	}
+
+	private static void requireFields(String[] fields, int count) {
+		if (fields.length < count) {
+			throw new IllegalArgumentException("Expected at least " + count + " fields.");
+		}
+	}
+}
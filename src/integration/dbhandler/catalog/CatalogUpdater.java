@@ -0,0 +1,80 @@
+package integration.dbhandler.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import integration.dbhandler.DiscountSystem;
+import integration.dbhandler.InventorySystem;
+
+/**
+ * Loads catalog deltas into the inventory and discount systems while the
+ * program is running. A delta is read and applied by a background thread, one
+ * delta at a time, so loading a large delta does not pause the checkout lanes.
+ * Each system replaces its snapshot in a single write once the delta has been
+ * applied to a copy of it.
+ */
+public class CatalogUpdater {
+	private final InventorySystem inventorySystem;
+	private final DiscountSystem discountSystem;
+	private final ExecutorService loader;
+
+	/**
+	 * Creates a new updater and starts its background thread.
+	 *
+	 * @param inventorySystem The system whose items are changed.
+	 * @param discountSystem  The system whose discount rules are changed.
+	 */
+	public CatalogUpdater(InventorySystem inventorySystem, DiscountSystem discountSystem) {
+		this.inventorySystem = inventorySystem;
+		this.discountSystem = discountSystem;
+
+		loader = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "catalog-updater");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * Reads a delta from a file, see {@link CatalogDelta}, and applies it. The
+	 * items are changed before the discount rules.
+	 *
+	 * @param deltaFile The file to read.
+	 * @return A future that is completed with the applied delta, or
+	 *         exceptionally with an {@link UncheckedIOException} if the file
+	 *         could not be read. Nothing is changed if the file is invalid.
+	 */
+	public CompletableFuture<CatalogDelta> loadDelta(Path deltaFile) {
+		return CompletableFuture.supplyAsync(() -> {
+			CatalogDelta delta;
+			try {
+				delta = CatalogDelta.read(deltaFile, discountSystem.getRuleRegistry());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+
+			inventorySystem.applyDelta(delta);
+			discountSystem.applyDelta(delta);
+			return delta;
+		}, loader);
+	}
+
+	/**
+	 * Stops accepting deltas and waits for the ones that are being loaded.
+	 *
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if all deltas were loaded in time.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		loader.shutdown();
+		return loader.awaitTermination(timeout, unit);
+	}
+}
@@ -1,14 +1,17 @@
 package integration.dbhandler.data;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * This class represents a item data object in the "database". It contains the description
  * and the available quantity of the item. Its attributes are mutable so that they could
- * be updated in the future.
+ * be updated in the future. The stock quantity is an atomic counter, so it can be
+ * updated by several registers at the same time without any lock.
  *
  */
 public class ItemData {
 	private ItemDescription description;
-	private int availableQuantity;
+	private final AtomicInteger availableQuantity;
 
 	/**
 	 * Creates a new item data object that stores the description and stock quantity. 
@@ -16,9 +19,24 @@ public class ItemData {
 	 * @param availableQuantity The amount of the item that's in stock.
 	 */
 	public ItemData(ItemDescription description, int availableQuantity) {
+		this(description, new AtomicInteger(availableQuantity));
+	}
+
+	private ItemData(ItemDescription description, AtomicInteger availableQuantity) {
 		this.description = description;
 		this.availableQuantity = availableQuantity;
 	}
+
+	/**
+	 * Creates a new item data object with a new description, for example a new
+	 * price, that shares the stock quantity of this object. Stock changes made
+	 * through either object are seen by both.
+	 * @param newDescription The new description of the item.
+	 * @return The new item data object.
+	 */
+	public ItemData withDescription(ItemDescription newDescription) {
+		return new ItemData(newDescription, availableQuantity);
+	}
 	
 	/**
 	 * Returns the description of the item data object..
@@ -33,23 +51,45 @@ public class ItemData {
 	 * @return The quantity in stock as an <code>int</code>.
 	 */
 	public int getAvailableQuantity() {
-		return availableQuantity;
+		return availableQuantity.get();
 	}
 	
 	/**
 	 * Increases the stock quantity of the stored item.
 	 * @param quantityToAdd How much to increase quantity.
+	 * @return The quantity in stock after the increase.
 	 */
-	public void increaseQuantity(int quantityToAdd) {
-		availableQuantity += quantityToAdd;
+	public int increaseQuantity(int quantityToAdd) {
+		return availableQuantity.addAndGet(quantityToAdd);
 	}
 	
 	/**
-	 * Decreases the stock quantity of the stored item.
+	 * Decreases the stock quantity of the stored item. The quantity may become
+	 * negative if more is sold than was registered in stock.
 	 * @param quantityToSubtract How much to decrease quantity.
+	 * @return The quantity in stock after the decrease.
+	 */
+	public int decreaseQuantity(int quantityToSubtract) {
+		return availableQuantity.addAndGet(-quantityToSubtract);
+	}
+	
+	/**
+	 * Decreases the stock quantity of the stored item, but only if there is
+	 * enough in stock. The check and the decrease is one atomic operation.
+	 * @param quantityToReserve How much to decrease quantity.
+	 * @return <code>true</code> if the quantity was decreased, <code>false</code>
+	 * if there was not enough in stock.
 	 */
-	public void decreaseQuantity(int quantityToSubtract) {
-		availableQuantity -= quantityToSubtract;
+	public boolean reserveIfAvailable(int quantityToReserve) {
+		int current;
+		do {
+			current = availableQuantity.get();
+			if (current < quantityToReserve) {
+				return false;
+			}
+		} while (!availableQuantity.compareAndSet(current, current - quantityToReserve));
+		
+		return true;
 	}
 	
 	/**
@@ -57,6 +97,6 @@ public class ItemData {
 	 * @return <code>true</code> if the quantity in stock is greater than 0, otherwise false.
 	 */
 	public boolean inStock() {
-		return availableQuantity > 0;
+		return availableQuantity.get() > 0;
 	}
 }
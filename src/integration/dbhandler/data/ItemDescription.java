@@ -86,4 +86,9 @@ public class ItemDescription {
 
 		return false;
 	}
+
+	@Override
+	public int hashCode() {
+		return id.hashCode();
+	}
 }
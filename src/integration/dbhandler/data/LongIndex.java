@@ -0,0 +1,201 @@
+package integration.dbhandler.data;
+
+import java.util.Arrays;
+
+/**
+ * A hash table that maps primitive <code>long</code> keys, such as item IDs, to
+ * records. The keys are stored in a plain <code>long</code> array and collisions
+ * are resolved with linear probing, so lookups neither box the key nor allocate
+ * any objects.
+ * <p>
+ * This class is not thread safe for writers. An index that is fully built before
+ * it is shared can be read by any number of threads.
+ *
+ * @param <V> The type of the records stored in the index.
+ */
+public class LongIndex<V> {
+	private static final int MIN_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private long[] keys;
+	private Object[] values;
+	private int size;
+	private int mask;
+	private int resizeThreshold;
+
+	/**
+	 * Constructs an empty index.
+	 */
+	public LongIndex() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty index that can hold the specified number of records
+	 * without having to grow.
+	 *
+	 * @param expectedSize How many records the index is expected to hold.
+	 */
+	public LongIndex(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Constructs a new index containing the same records as <code>other</code>.
+	 *
+	 * @param other The index to copy.
+	 */
+	public LongIndex(LongIndex<V> other) {
+		this.keys = Arrays.copyOf(other.keys, other.keys.length);
+		this.values = Arrays.copyOf(other.values, other.values.length);
+		this.size = other.size;
+		this.mask = other.mask;
+		this.resizeThreshold = other.resizeThreshold;
+	}
+
+	/**
+	 * Returns the record stored with the specified key.
+	 *
+	 * @param key The key to look up.
+	 * @return The record, or <code>null</code> if there is no record with that key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int slot = hash(key) & mask;
+
+		while (values[slot] != null) {
+			if (keys[slot] == key) {
+				return (V) values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Checks if a record is stored with the specified key.
+	 *
+	 * @param key The key to look up.
+	 * @return <code>true</code> if the index has a record with that key.
+	 */
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Stores a record with the specified key, replacing any record that was
+	 * already stored with the same key.
+	 *
+	 * @param key   The key of the record.
+	 * @param value The record to store, must not be <code>null</code>.
+	 * @return The record that was replaced, or <code>null</code> if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Null records can not be stored in the index.");
+		}
+
+		int slot = hash(key) & mask;
+		while (values[slot] != null) {
+			if (keys[slot] == key) {
+				V previous = (V) values[slot];
+				values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size > resizeThreshold) {
+			grow();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the number of records in the index.
+	 *
+	 * @return The number of records as an <code>int</code>.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Performs an action for every record in the index, in no particular order.
+	 *
+	 * @param action The action to perform.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryConsumer<? super V> action) {
+		for (int slot = 0; slot < values.length; slot++) {
+			if (values[slot] != null) {
+				action.accept(keys[slot], (V) values[slot]);
+			}
+		}
+	}
+
+	/**
+	 * An action that is performed on the key and record of an index entry.
+	 *
+	 * @param <V> The type of the records.
+	 */
+	public interface EntryConsumer<V> {
+
+		/**
+		 * Performs this action on one entry.
+		 *
+		 * @param key   The key of the entry.
+		 * @param value The record of the entry.
+		 */
+		void accept(long key, V value);
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		allocate(oldValues.length * 2);
+		for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+			if (oldValues[oldSlot] != null) {
+				int slot = hash(oldKeys[oldSlot]) & mask;
+				while (values[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[oldSlot];
+				values[slot] = oldValues[oldSlot];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity * LOAD_FACTOR < expectedSize) {
+			capacity <<= 1;
+		}
+
+		return capacity;
+	}
+
+	private static int hash(long key) {
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+
+		return (int) h;
+	}
+}
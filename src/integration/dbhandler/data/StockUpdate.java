@@ -0,0 +1,77 @@
+package integration.dbhandler.data;
+
+import model.util.IdentificationNumber;
+
+/**
+ * An immutable data container describing how the stock of one item was changed
+ * when a batch of completed sales was applied to the inventory.
+ */
+public final class StockUpdate {
+	private final IdentificationNumber itemID;
+	private final int soldQuantity;
+	private final int remainingQuantity;
+	private final boolean applied;
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param itemID            The ID of the item whose stock was updated.
+	 * @param soldQuantity      The total quantity sold of the item in the batch.
+	 * @param remainingQuantity The stock quantity after the update.
+	 * @param applied           <code>true</code> if the item existed in the
+	 *                          inventory and its stock was decreased.
+	 */
+	public StockUpdate(IdentificationNumber itemID, int soldQuantity, int remainingQuantity, boolean applied) {
+		this.itemID = itemID;
+		this.soldQuantity = soldQuantity;
+		this.remainingQuantity = remainingQuantity;
+		this.applied = applied;
+	}
+
+	/**
+	 * @return the ID of the item whose stock was updated.
+	 */
+	public IdentificationNumber getItemID() {
+		return itemID;
+	}
+
+	/**
+	 * @return the total quantity sold of the item, summed over every sale in the
+	 *         batch.
+	 */
+	public int getSoldQuantity() {
+		return soldQuantity;
+	}
+
+	/**
+	 * @return the stock quantity of the item after the update.
+	 */
+	public int getRemainingQuantity() {
+		return remainingQuantity;
+	}
+
+	/**
+	 * @return <code>true</code> if the item was found in the inventory and its
+	 *         stock was decreased, otherwise <code>false</code>.
+	 */
+	public boolean isApplied() {
+		return applied;
+	}
+
+	/**
+	 * @return <code>true</code> if the decrease left the item with a negative
+	 *         stock quantity, meaning more was sold than was registered in stock.
+	 */
+	public boolean wentNegative() {
+		return applied && remainingQuantity < 0;
+	}
+
+	/**
+	 * A string representation of this update, containing the item ID, sold
+	 * quantity and the remaining stock.
+	 */
+	public String toString() {
+		return "[" + itemID + ": sold " + soldQuantity + ", remaining " + remainingQuantity
+				+ (applied ? "" : ", not in inventory") + "]";
+	}
+}
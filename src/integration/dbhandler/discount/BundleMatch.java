@@ -0,0 +1,62 @@
+package integration.dbhandler.discount;
+
+import java.util.Collections;
+import java.util.List;
+
+import model.dto.BundleDiscountInformation;
+import model.util.Amount;
+
+/**
+ * The bundles that a sale gets, as found by {@link BundleMatcher#match(List)}.
+ * This class is immutable.
+ */
+public final class BundleMatch {
+	/**
+	 * The result for a sale that does not get any bundle.
+	 */
+	public static final BundleMatch NONE = new BundleMatch(Collections.<BundleDiscountInformation>emptyList(),
+			new Amount(0), new Amount(0), true);
+
+	private final List<BundleDiscountInformation> discounts;
+	private final Amount totalDiscount;
+	private final Amount totalVatDiscount;
+	private final boolean optimal;
+
+	BundleMatch(List<BundleDiscountInformation> discounts, Amount totalDiscount, Amount totalVatDiscount,
+			boolean optimal) {
+		this.discounts = Collections.unmodifiableList(discounts);
+		this.totalDiscount = totalDiscount;
+		this.totalVatDiscount = totalVatDiscount;
+		this.optimal = optimal;
+	}
+
+	/**
+	 * @return the discount on each item that is part of a bundle.
+	 */
+	public List<BundleDiscountInformation> getDiscounts() {
+		return discounts;
+	}
+
+	/**
+	 * @return the total discount of all bundles, VAT included.
+	 */
+	public Amount getTotalDiscount() {
+		return totalDiscount;
+	}
+
+	/**
+	 * @return how much of the total discount is VAT.
+	 */
+	public Amount getTotalVatDiscount() {
+		return totalVatDiscount;
+	}
+
+	/**
+	 * @return <code>true</code> if every combination of bundles was searched
+	 *         within the time budget, or <code>false</code> if the search was
+	 *         stopped and the best combination found so far was used.
+	 */
+	public boolean isOptimal() {
+		return optimal;
+	}
+}
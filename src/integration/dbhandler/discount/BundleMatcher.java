@@ -0,0 +1,706 @@
+package integration.dbhandler.discount;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import integration.dbhandler.data.LongIndex;
+import model.dto.BundleDiscountInformation;
+import model.dto.PurchasedItemInformation;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+/**
+ * A compiled, immutable set of {@link BundleRule}s, which finds the best
+ * combination of bundles for a sale. It is built once and can then be used by
+ * any number of lanes at the same time without locking.
+ * <p>
+ * Every item that is part of a bundle is given a slot number when the rules are
+ * compiled. A requirement is stored as a compact bitset over the slots of its
+ * items, and each slot lists the bundles that use it. The requirements of all
+ * bundles are kept next to each other in a few primitive arrays, rather than
+ * in one object per bundle, so checking thousands of bundles reads memory in
+ * order instead of following a reference for every bundle. To match a sale, the
+ * slots of the sale's items are set in a bitset, only the bundles listed by
+ * those slots are considered, and a bundle is rejected as soon as one of its
+ * requirements does not intersect the sale. The bitsets are kept in a
+ * {@link Workspace} that a sale reuses for every match, and only the bits that
+ * a match set are cleared afterwards. The time it takes therefore depends on
+ * the bundles that the sale's items are part of, not on the total number of
+ * rules.
+ * <p>
+ * The applicable bundles are then combined so that no unit is part of more than
+ * one bundle and the total discount is as large as possible. Each time a bundle
+ * is applied, it takes the most valuable units that its requirements allow, one
+ * requirement at a time, and gives them back if a requirement cannot be met. The
+ * combination is
+ * searched for with branch and bound, starting with the greedy combination of
+ * the bundles with the largest discounts. The search stops when its time budget
+ * is used up, and the best combination found so far, which is never worse than
+ * the greedy one, is used.
+ */
+public final class BundleMatcher {
+	private static final BundleMatcher EMPTY = new BundleMatcher(Collections.<BundleRule>emptyList(), 0);
+	private static final RoundingMode DISCOUNT_ROUNDING = RoundingMode.HALF_EVEN;
+	private static final int NODES_BETWEEN_DEADLINE_CHECKS = 32;
+
+	private final LongIndex<Slot> slotsByItemID = new LongIndex<>();
+	private final int slotCount;
+	private final long timeBudgetNanos;
+
+	private final BundleRule[] rules;
+	private final long[] rates;
+	private final int[] firstRequirement;
+	private final int[] requiredQuantities;
+	private final int[] firstSlot;
+	private final int[] requirementSlots;
+	private final int[] firstWord;
+	private final int[] words;
+	private final long[] masks;
+
+	private BundleMatcher(Collection<BundleRule> bundleRules, long timeBudgetNanos) {
+		this.rules = removeDuplicates(bundleRules).toArray(new BundleRule[0]);
+		this.timeBudgetNanos = timeBudgetNanos;
+
+		int requirementCount = 0;
+		int requirementSlotCount = 0;
+		for (BundleRule rule : rules) {
+			for (BundleRequirement requirement : rule.getRequirements()) {
+				requirementCount++;
+				requirementSlotCount += requirement.getItemCount();
+			}
+		}
+
+		rates = new long[rules.length];
+		firstRequirement = new int[rules.length + 1];
+		requiredQuantities = new int[requirementCount];
+		firstSlot = new int[requirementCount + 1];
+		requirementSlots = new int[requirementSlotCount];
+		firstWord = new int[requirementCount + 1];
+		int[] requirementWords = new int[requirementSlotCount];
+		long[] requirementMasks = new long[requirementSlotCount];
+
+		List<Slot> slots = new ArrayList<>();
+		int requirementIndex = 0;
+		int slotIndex = 0;
+		int wordIndex = 0;
+		for (int bundle = 0; bundle < rules.length; bundle++) {
+			rates[bundle] = rules[bundle].getRate().getMinorUnits();
+			firstRequirement[bundle] = requirementIndex;
+
+			for (BundleRequirement requirement : rules[bundle].getRequirements()) {
+				requiredQuantities[requirementIndex] = requirement.getQuantity();
+				firstSlot[requirementIndex] = slotIndex;
+				firstWord[requirementIndex] = wordIndex;
+
+				for (int i = 0; i < requirement.getItemCount(); i++) {
+					Slot slot = slotOf(requirement.getItemID(i), slots);
+					slot.addBundle(bundle);
+					requirementSlots[slotIndex + i] = slot.number;
+				}
+				Arrays.sort(requirementSlots, slotIndex, slotIndex + requirement.getItemCount());
+
+				for (int i = slotIndex; i < slotIndex + requirement.getItemCount(); i++) {
+					int word = requirementSlots[i] >>> 6;
+					if (wordIndex == firstWord[requirementIndex] || requirementWords[wordIndex - 1] != word) {
+						requirementWords[wordIndex++] = word;
+					}
+					requirementMasks[wordIndex - 1] |= 1L << requirementSlots[i];
+				}
+
+				slotIndex += requirement.getItemCount();
+				requirementIndex++;
+			}
+		}
+		firstRequirement[rules.length] = requirementIndex;
+		firstSlot[requirementCount] = slotIndex;
+		firstWord[requirementCount] = wordIndex;
+
+		this.words = Arrays.copyOf(requirementWords, wordIndex);
+		this.masks = Arrays.copyOf(requirementMasks, wordIndex);
+		this.slotCount = slots.size();
+		for (Slot slot : slots) {
+			slot.trim();
+		}
+	}
+
+	/**
+	 * Compiles a set of bundle rules. Rules that consist of exactly the same
+	 * requirements can never both be used better than the one with the highest
+	 * rate alone, so only that one is kept.
+	 *
+	 * @param rules           The rules to compile.
+	 * @param timeBudgetNanos How long, in nanoseconds, {@link #match(List)} may
+	 *                        search for a better combination than the greedy one.
+	 * @return The compiled rules.
+	 */
+	public static BundleMatcher compile(Collection<BundleRule> rules, long timeBudgetNanos) {
+		return new BundleMatcher(rules, timeBudgetNanos);
+	}
+
+	/**
+	 * @return a matcher without any bundles.
+	 */
+	public static BundleMatcher empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Tells whether an item is part of any bundle. A sale only has to be matched
+	 * again when such an item is added.
+	 *
+	 * @param itemID The ID of the item.
+	 * @return <code>true</code> if the item is part of a bundle.
+	 */
+	public boolean isBundled(long itemID) {
+		return slotsByItemID.containsKey(itemID);
+	}
+
+	/**
+	 * @return the number of bundle rules, not counting removed duplicates.
+	 */
+	public int size() {
+		return rules.length;
+	}
+
+	/**
+	 * Finds the combination of bundles that gives the largest discount on the
+	 * specified items. The discount of a bundle is calculated from the unit prices
+	 * of its items, so item discounts have to be applied first.
+	 *
+	 * @param items The items of the sale.
+	 * @return The bundles that the sale gets.
+	 */
+	public BundleMatch match(List<PurchasedItemInformation> items) {
+		return match(items, new Workspace());
+	}
+
+	/**
+	 * Finds the combination of bundles that gives the largest discount on the
+	 * specified items, using the bitsets of a workspace that the sale keeps
+	 * between matches. Items that are not part of any bundle are skipped, so it
+	 * is enough to pass the bundled items.
+	 *
+	 * @param items     The items of the sale.
+	 * @param workspace The sale's workspace. It must not be used by another match
+	 *                  at the same time.
+	 * @return The bundles that the sale gets.
+	 */
+	public BundleMatch match(List<PurchasedItemInformation> items, Workspace workspace) {
+		if (rules.length == 0) {
+			return BundleMatch.NONE;
+		}
+
+		workspace.ensureCapacity(slotCount, rules.length);
+		Search search = new Search(items, workspace);
+		try {
+			return search.run();
+		} finally {
+			search.clearWorkspace();
+		}
+	}
+
+	private static List<BundleRule> removeDuplicates(Collection<BundleRule> rules) {
+		Map<String, Integer> indexByRequirements = new HashMap<>();
+		List<BundleRule> distinctRules = new ArrayList<>(rules.size());
+
+		for (BundleRule rule : rules) {
+			String key = requirementKey(rule);
+			Integer index = indexByRequirements.get(key);
+			if (index == null) {
+				indexByRequirements.put(key, distinctRules.size());
+				distinctRules.add(rule);
+			} else if (rule.getRate().getMinorUnits() > distinctRules.get(index).getRate().getMinorUnits()) {
+				distinctRules.set(index, rule);
+			}
+		}
+
+		return distinctRules;
+	}
+
+	private static String requirementKey(BundleRule rule) {
+		List<String> requirementKeys = new ArrayList<>();
+		for (BundleRequirement requirement : rule.getRequirements()) {
+			long[] itemIDs = requirement.getItemIDs();
+			Arrays.sort(itemIDs);
+			requirementKeys.add(requirement.getQuantity() + ":" + Arrays.toString(itemIDs));
+		}
+		Collections.sort(requirementKeys);
+
+		return requirementKeys.toString();
+	}
+
+	private Slot slotOf(long itemID, List<Slot> slots) {
+		Slot slot = slotsByItemID.get(itemID);
+		if (slot == null) {
+			slot = new Slot(slots.size());
+			slotsByItemID.put(itemID, slot);
+			slots.add(slot);
+		}
+
+		return slot;
+	}
+
+	private static long unitDiscount(long unitUnits, long rate) {
+		return Amount.multiplyUnits(unitUnits, rate, DISCOUNT_ROUNDING);
+	}
+
+	/**
+	 * The bitsets that a sale reuses between matches, so a match does not have
+	 * to allocate arrays sized by the number of bundled items and rules. A match
+	 * clears the bits it set before it returns. The arrays grow if the sale is
+	 * later matched against a larger set of rules.
+	 */
+	public static final class Workspace {
+		private long[] basketBits = new long[0];
+		private int[] lineBySlot = new int[0];
+		private long[] considered = new long[0];
+
+		private void ensureCapacity(int slotCount, int ruleCount) {
+			if (lineBySlot.length < slotCount) {
+				basketBits = new long[(slotCount + 63) >>> 6];
+				lineBySlot = new int[slotCount];
+			}
+			if (considered.length < (ruleCount + 63) >>> 6) {
+				considered = new long[(ruleCount + 63) >>> 6];
+			}
+		}
+	}
+
+	/**
+	 * An item that is part of at least one bundle.
+	 */
+	private static class Slot {
+		private final int number;
+		private int[] bundles = new int[2];
+		private int bundleCount;
+
+		private Slot(int number) {
+			this.number = number;
+		}
+
+		private void addBundle(int bundle) {
+			if (bundleCount > 0 && bundles[bundleCount - 1] == bundle) {
+				return;
+			}
+			if (bundleCount == bundles.length) {
+				bundles = Arrays.copyOf(bundles, bundleCount * 2);
+			}
+			bundles[bundleCount++] = bundle;
+		}
+
+		private void trim() {
+			bundles = Arrays.copyOf(bundles, bundleCount);
+		}
+	}
+
+	/**
+	 * A bundle that the sale contains at least once, with the sale's units of
+	 * each requirement ordered from the most to the least valuable.
+	 */
+	private static class Candidate {
+		private final int bundle;
+		private final int[][] units;
+		private final long[] unitDiscounts;
+		private long bestDiscount;
+		private int maxApplications;
+
+		private Candidate(int bundle, int[][] units, long[] unitDiscounts) {
+			this.bundle = bundle;
+			this.units = units;
+			this.unitDiscounts = unitDiscounts;
+		}
+	}
+
+	/**
+	 * The state of matching one sale. The sale's bundled items are numbered in
+	 * the order they appear, and that number is used to index the arrays.
+	 */
+	private class Search {
+		private final List<PurchasedItemInformation> lines = new ArrayList<>();
+		private final List<Slot> lineSlots = new ArrayList<>();
+		private final long[] basketBits;
+		private int[] quantities;
+		private final int[] lineBySlot;
+		private final long[] considered;
+
+		private Candidate[] candidates;
+		private long[] bounds;
+		private long[][] unitBounds;
+		private int[] remaining;
+
+		private int[] undoLines = new int[16];
+		private int[] undoCounts = new int[16];
+		private int undoSize;
+		private int[] applied = new int[16];
+		private int[] appliedUndoMarks = new int[16];
+		private long[] appliedDiscounts = new long[16];
+		private int appliedCount;
+
+		private int[] best = new int[0];
+		private long bestDiscount;
+		private boolean greedyFound;
+		private boolean timedOut;
+		private long nodes;
+		private long deadline;
+
+		private Search(List<PurchasedItemInformation> items, Workspace workspace) {
+			basketBits = workspace.basketBits;
+			lineBySlot = workspace.lineBySlot;
+			considered = workspace.considered;
+			quantities = new int[Math.max(1, items.size())];
+			for (PurchasedItemInformation item : items) {
+				Slot slot = slotsByItemID.get(item.getItemDescription().getID().getID());
+				if (slot == null) {
+					continue;
+				}
+
+				long bit = 1L << slot.number;
+				if ((basketBits[slot.number >>> 6] & bit) == 0) {
+					basketBits[slot.number >>> 6] |= bit;
+					lineBySlot[slot.number] = lines.size();
+					quantities[lines.size()] = item.getQuantity();
+					lines.add(item);
+					lineSlots.add(slot);
+				} else {
+					quantities[lineBySlot[slot.number]] += item.getQuantity();
+				}
+			}
+
+			quantities = Arrays.copyOf(quantities, lines.size());
+		}
+
+		private BundleMatch run() {
+			remaining = quantities.clone();
+			findCandidates();
+			if (candidates.length == 0) {
+				return BundleMatch.NONE;
+			}
+
+			deadline = System.nanoTime() + timeBudgetNanos;
+			search(0, 0);
+
+			return createMatch();
+		}
+
+		/**
+		 * Clears the bits that this match set in the workspace, so the next match
+		 * starts from empty bitsets.
+		 */
+		private void clearWorkspace() {
+			for (Slot slot : lineSlots) {
+				basketBits[slot.number >>> 6] = 0;
+				for (int bundle : slot.bundles) {
+					considered[bundle >>> 6] = 0;
+				}
+			}
+		}
+
+		private void findCandidates() {
+			List<Candidate> found = new ArrayList<>();
+
+			for (Slot slot : lineSlots) {
+				for (int bundle : slot.bundles) {
+					long bit = 1L << bundle;
+					if ((considered[bundle >>> 6] & bit) != 0) {
+						continue;
+					}
+					considered[bundle >>> 6] |= bit;
+
+					Candidate candidate = createCandidate(bundle);
+					if (candidate != null) {
+						found.add(candidate);
+					}
+				}
+			}
+
+			found.sort((first, second) -> first.bestDiscount != second.bestDiscount
+					? Long.compare(second.bestDiscount, first.bestDiscount)
+					: Integer.compare(first.bundle, second.bundle));
+			candidates = found.toArray(new Candidate[0]);
+
+			bounds = new long[candidates.length + 1];
+			unitBounds = new long[candidates.length + 1][lines.size()];
+			for (int i = candidates.length - 1; i >= 0; i--) {
+				Candidate candidate = candidates[i];
+				bounds[i] = bounds[i + 1] + candidate.bestDiscount * candidate.maxApplications;
+				for (int line = 0; line < lines.size(); line++) {
+					unitBounds[i][line] = Math.max(unitBounds[i + 1][line], candidate.unitDiscounts[line]);
+				}
+			}
+		}
+
+		private Candidate createCandidate(int bundle) {
+			int first = firstRequirement[bundle];
+			int end = firstRequirement[bundle + 1];
+			for (int requirement = first; requirement < end; requirement++) {
+				if (!intersectsBasket(requirement)) {
+					return null;
+				}
+			}
+
+			long[] unitDiscounts = new long[lines.size()];
+			int[][] units = new int[end - first][];
+			int maxApplications = Integer.MAX_VALUE;
+			for (int requirement = first; requirement < end; requirement++) {
+				units[requirement - first] = linesOf(requirement, rates[bundle], unitDiscounts);
+				int applications = availableUnits(requirement) / requiredQuantities[requirement];
+				maxApplications = Math.min(maxApplications, applications);
+			}
+			if (maxApplications == 0) {
+				return null;
+			}
+
+			Candidate candidate = new Candidate(bundle, units, unitDiscounts);
+			int undoMark = undoSize;
+			long bestDiscount = apply(candidate);
+			undo(undoMark);
+			if (bestDiscount <= 0) {
+				return null;
+			}
+
+			candidate.bestDiscount = bestDiscount;
+			candidate.maxApplications = maxApplications;
+			return candidate;
+		}
+
+		private boolean intersectsBasket(int requirement) {
+			for (int i = firstWord[requirement]; i < firstWord[requirement + 1]; i++) {
+				if ((basketBits[words[i]] & masks[i]) != 0) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		private boolean inBasket(int slot) {
+			return (basketBits[slot >>> 6] & (1L << slot)) != 0;
+		}
+
+		private int availableUnits(int requirement) {
+			int available = 0;
+			for (int i = firstSlot[requirement]; i < firstSlot[requirement + 1]; i++) {
+				int slot = requirementSlots[i];
+				if (inBasket(slot)) {
+					available += quantities[lineBySlot[slot]];
+				}
+			}
+
+			return available;
+		}
+
+		private int[] linesOf(int requirement, long rate, long[] unitDiscounts) {
+			int[] found = new int[firstSlot[requirement + 1] - firstSlot[requirement]];
+			int count = 0;
+			for (int i = firstSlot[requirement]; i < firstSlot[requirement + 1]; i++) {
+				int slot = requirementSlots[i];
+				if (!inBasket(slot)) {
+					continue;
+				}
+				int line = lineBySlot[slot];
+				unitDiscounts[line] = unitDiscount(lines.get(line).getUnitPrice().getMinorUnits(), rate);
+				found[count++] = line;
+			}
+
+			for (int i = 1; i < count; i++) {
+				int line = found[i];
+				int j = i - 1;
+				while (j >= 0 && unitDiscounts[found[j]] < unitDiscounts[line]) {
+					found[j + 1] = found[j];
+					j--;
+				}
+				found[j + 1] = line;
+			}
+
+			return Arrays.copyOf(found, count);
+		}
+
+		/**
+		 * Tries every combination of the candidates from <code>index</code> on,
+		 * applying each candidate as many times as possible before trying fewer
+		 * times. The first combination reached is therefore the greedy one, and the
+		 * time budget only applies after it has been found. All the applications of
+		 * one candidate are tried in the same call, so the depth of the recursion
+		 * is the number of candidates, not the number of units in the sale. A
+		 * branch is cut when it cannot beat the best combination found, even if
+		 * every remaining candidate could be applied as often as the whole sale
+		 * allows, or every remaining unit got the largest discount that any remaining
+		 * candidate gives it.
+		 */
+		private void search(int index, long discount) {
+			if (greedyFound && ++nodes % NODES_BETWEEN_DEADLINE_CHECKS == 0 && System.nanoTime() > deadline) {
+				timedOut = true;
+			}
+			if (timedOut) {
+				return;
+			}
+			if (discount > bestDiscount) {
+				bestDiscount = discount;
+				best = Arrays.copyOf(applied, appliedCount);
+			}
+			if (index == candidates.length || discount + bounds[index] <= bestDiscount
+					|| discount + remainingBound(index) <= bestDiscount) {
+				greedyFound = true;
+				return;
+			}
+
+			int firstApplied = appliedCount;
+			long total = discount;
+			while (true) {
+				int undoMark = undoSize;
+				long gained = apply(candidates[index]);
+				if (gained < 0) {
+					break;
+				}
+				pushApplied(index, undoMark, total);
+				total += gained;
+			}
+
+			while (true) {
+				search(index + 1, total);
+				if (appliedCount == firstApplied || timedOut) {
+					break;
+				}
+				appliedCount--;
+				undo(appliedUndoMarks[appliedCount]);
+				total = appliedDiscounts[appliedCount];
+			}
+			if (appliedCount > firstApplied) {
+				undo(appliedUndoMarks[firstApplied]);
+				appliedCount = firstApplied;
+			}
+		}
+
+		private long remainingBound(int index) {
+			long[] unitBound = unitBounds[index];
+			long bound = 0;
+			for (int line = 0; line < remaining.length; line++) {
+				bound += unitBound[line] * remaining[line];
+			}
+
+			return bound;
+		}
+
+		/**
+		 * Takes the units of one application of a candidate from the remaining
+		 * units, one requirement at a time. If a requirement cannot be met, the
+		 * units already taken are given back.
+		 *
+		 * @return The discount of the application, or <code>-1</code> if the
+		 *         remaining units do not make up the bundle.
+		 */
+		private long apply(Candidate candidate) {
+			int first = firstRequirement[candidate.bundle];
+			int undoMark = undoSize;
+			long discount = 0;
+			for (int r = 0; r < candidate.units.length; r++) {
+				int needed = requiredQuantities[first + r];
+				for (int i = 0; i < candidate.units[r].length && needed > 0; i++) {
+					int line = candidate.units[r][i];
+					int taken = Math.min(needed, remaining[line]);
+					if (taken > 0) {
+						remaining[line] -= taken;
+						pushUndo(line, taken);
+						discount += candidate.unitDiscounts[line] * taken;
+						needed -= taken;
+					}
+				}
+				if (needed > 0) {
+					undo(undoMark);
+					return -1;
+				}
+			}
+
+			return discount;
+		}
+
+		private void undo(int undoMark) {
+			while (undoSize > undoMark) {
+				undoSize--;
+				remaining[undoLines[undoSize]] += undoCounts[undoSize];
+			}
+		}
+
+		private void pushUndo(int line, int count) {
+			if (undoSize == undoLines.length) {
+				undoLines = Arrays.copyOf(undoLines, undoSize * 2);
+				undoCounts = Arrays.copyOf(undoCounts, undoSize * 2);
+			}
+			undoLines[undoSize] = line;
+			undoCounts[undoSize] = count;
+			undoSize++;
+		}
+
+		private void pushApplied(int index, int undoMark, long discountBefore) {
+			if (appliedCount == applied.length) {
+				applied = Arrays.copyOf(applied, appliedCount * 2);
+				appliedUndoMarks = Arrays.copyOf(appliedUndoMarks, appliedCount * 2);
+				appliedDiscounts = Arrays.copyOf(appliedDiscounts, appliedCount * 2);
+			}
+			applied[appliedCount] = index;
+			appliedUndoMarks[appliedCount] = undoMark;
+			appliedDiscounts[appliedCount] = discountBefore;
+			appliedCount++;
+		}
+
+		/**
+		 * Applies the best combination again, from the whole sale, and adds up the
+		 * units that each bundle took of each item.
+		 */
+		private BundleMatch createMatch() {
+			remaining = quantities.clone();
+			undoSize = 0;
+
+			List<Candidate> usedCandidates = new ArrayList<>();
+			List<int[]> unitsTaken = new ArrayList<>();
+			for (int index : best) {
+				Candidate candidate = candidates[index];
+				int undoMark = undoSize;
+				apply(candidate);
+
+				int used = usedCandidates.indexOf(candidate);
+				if (used < 0) {
+					used = usedCandidates.size();
+					usedCandidates.add(candidate);
+					unitsTaken.add(new int[lines.size()]);
+				}
+				for (int i = undoMark; i < undoSize; i++) {
+					unitsTaken.get(used)[undoLines[i]] += undoCounts[i];
+				}
+			}
+
+			List<BundleDiscountInformation> discounts = new ArrayList<>();
+			long discountUnits = 0;
+			long vatDiscountUnits = 0;
+			for (int used = 0; used < usedCandidates.size(); used++) {
+				Candidate candidate = usedCandidates.get(used);
+				int[] taken = unitsTaken.get(used);
+				for (int line = 0; line < taken.length; line++) {
+					if (taken[line] == 0) {
+						continue;
+					}
+
+					PurchasedItemInformation item = lines.get(line);
+					long discount = candidate.unitDiscounts[line] * taken[line];
+					long vatDiscount = unitDiscount(item.getUnitVatTax().getMinorUnits(), rates[candidate.bundle])
+							* taken[line];
+					IdentificationNumber itemID = item.getItemDescription().getID();
+					discounts.add(new BundleDiscountInformation(rules[candidate.bundle].getDescription(), itemID,
+							item.getItemDescription().getVatRate(), taken[line], Amount.ofMinorUnits(discount),
+							Amount.ofMinorUnits(vatDiscount)));
+					discountUnits += discount;
+					vatDiscountUnits += vatDiscount;
+				}
+			}
+
+			return new BundleMatch(discounts, Amount.ofMinorUnits(discountUnits),
+					Amount.ofMinorUnits(vatDiscountUnits), !timedOut);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package integration.dbhandler.discount;
+
+import java.util.Arrays;
+
+/**
+ * One part of a {@link BundleRule}: a number of units that have to be bought of
+ * a set of items. If the set has one item, the requirement is a fixed item, for
+ * example one coffee. If it has several, any mix of them counts, which is how a
+ * group of items, for example all chocolate bars, is mixed and matched.
+ */
+public final class BundleRequirement {
+	private final int quantity;
+	private final long[] itemIDs;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param quantity How many units the requirement takes.
+	 * @param itemIDs  The IDs of the items that the units can be taken from.
+	 * @throws IllegalArgumentException If the quantity is not positive, or if no
+	 *                                  item ID is specified.
+	 */
+	public BundleRequirement(int quantity, long... itemIDs) {
+		if (quantity <= 0) {
+			throw new IllegalArgumentException("A bundle requirement must take at least one unit.");
+		}
+		if (itemIDs.length == 0) {
+			throw new IllegalArgumentException("A bundle requirement must have at least one item.");
+		}
+
+		this.quantity = quantity;
+		this.itemIDs = Arrays.stream(itemIDs).distinct().toArray();
+	}
+
+	/**
+	 * @return how many units the requirement takes.
+	 */
+	public int getQuantity() {
+		return quantity;
+	}
+
+	/**
+	 * @return the IDs of the items that the units can be taken from.
+	 */
+	public long[] getItemIDs() {
+		return itemIDs.clone();
+	}
+
+	int getItemCount() {
+		return itemIDs.length;
+	}
+
+	long getItemID(int index) {
+		return itemIDs[index];
+	}
+}
@@ -0,0 +1,75 @@
+package integration.dbhandler.discount;
+
+import java.util.Arrays;
+import java.util.List;
+
+import integration.dbhandler.data.LongIndex;
+import model.util.Amount;
+
+/**
+ * A promotion for a combination of items, for example "coffee and a chocolate
+ * bar" or "3 for 2 on any juice". A sale gets the bundle when it contains all
+ * of the rule's {@link BundleRequirement}s, and then gets the rule's rate off
+ * the units that make up the bundle. A sale can get the same bundle several
+ * times, but a unit is only ever part of one bundle.
+ */
+public final class BundleRule {
+	private final String description;
+	private final Amount rate;
+	private final List<BundleRequirement> requirements;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param description  A description of the bundle, shown on the receipt.
+	 * @param rate         The discount rate on the units of the bundle, for example
+	 *                     <code>0.3333</code> for 3 for 2.
+	 * @param requirements What the bundle consists of.
+	 * @throws IllegalArgumentException If there are no requirements, if two
+	 *                                  requirements share an item, or if the rate
+	 *                                  is not between 0 and 1.
+	 */
+	public BundleRule(String description, Amount rate, BundleRequirement... requirements) {
+		if (requirements.length == 0) {
+			throw new IllegalArgumentException("A bundle must have at least one requirement.");
+		}
+		if (rate.getMinorUnits() <= 0 || rate.getMinorUnits() > new Amount(1).getMinorUnits()) {
+			throw new IllegalArgumentException("Invalid bundle discount rate " + rate + ".");
+		}
+
+		LongIndex<BundleRequirement> requirementByItemID = new LongIndex<>();
+		for (BundleRequirement requirement : requirements) {
+			for (int i = 0; i < requirement.getItemCount(); i++) {
+				if (requirementByItemID.put(requirement.getItemID(i), requirement) != null) {
+					throw new IllegalArgumentException(
+							"Item " + requirement.getItemID(i) + " is part of more than one requirement.");
+				}
+			}
+		}
+
+		this.description = description;
+		this.rate = rate;
+		this.requirements = Arrays.asList(requirements.clone());
+	}
+
+	/**
+	 * @return the description of the bundle.
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @return the discount rate on the units of the bundle.
+	 */
+	public Amount getRate() {
+		return rate;
+	}
+
+	/**
+	 * @return what the bundle consists of.
+	 */
+	public List<BundleRequirement> getRequirements() {
+		return requirements;
+	}
+}
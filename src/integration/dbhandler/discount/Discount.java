@@ -3,7 +3,8 @@ package integration.dbhandler.discount;
 import model.util.Amount;
 
 /**
- * A discount that can be applied to an item.
+ * A discount that can be applied to an item. A discount can be shared by several
+ * sales at the same time, so implementations must be immutable.
  */
 public interface Discount {
 	
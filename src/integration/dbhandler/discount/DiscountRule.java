@@ -0,0 +1,22 @@
+package integration.dbhandler.discount;
+
+/**
+ * A promotion for one item, which decides whether a sale gets a {@link Discount}
+ * on that item, and which one. New kinds of promotions are added by implementing
+ * this interface and registering a factory in a {@link DiscountRuleRegistry}.
+ */
+public interface DiscountRule {
+
+	/**
+	 * @return the ID of the item that this rule applies to.
+	 */
+	public long getItemID();
+
+	/**
+	 * Decides which discount a sale gets on the item.
+	 * 
+	 * @param quantity The quantity of the item in the sale.
+	 * @return The discount, or <code>null</code> if the sale does not qualify.
+	 */
+	public Discount evaluate(int quantity);
+}
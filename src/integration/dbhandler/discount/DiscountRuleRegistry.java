@@ -0,0 +1,75 @@
+package integration.dbhandler.discount;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.util.Amount;
+
+/**
+ * Knows how to create each kind of {@link DiscountRule} from its type name and
+ * parameters, for example when promotions are read from a file. The built-in
+ * types are <code>price</code>, which takes a rate, and <code>quantity</code>,
+ * which takes a minimum quantity and a maximum rate. Other types are added with
+ * {@link #register(String, Factory)}.
+ */
+public class DiscountRuleRegistry {
+	private final Map<String, Factory> factories = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a registry that knows the built-in rule types.
+	 */
+	public DiscountRuleRegistry() {
+		register("price", (itemID, parameters) -> new PriceDiscountRule(itemID,
+				new PriceDiscount(new Amount(Double.parseDouble(parameters[0])))));
+		register("quantity", (itemID, parameters) -> new QuantityDiscountRule(itemID,
+				new QuantityDiscount(Short.parseShort(parameters[0]), new Amount(Double.parseDouble(parameters[1])))));
+	}
+
+	/**
+	 * Adds a rule type, or replaces the factory of an existing type.
+	 * 
+	 * @param typeName The name of the rule type.
+	 * @param factory  Creates rules of the type.
+	 */
+	public void register(String typeName, Factory factory) {
+		factories.put(typeName, factory);
+	}
+
+	/**
+	 * Creates a rule.
+	 * 
+	 * @param typeName   The name of the rule type.
+	 * @param itemID     The ID of the item that the rule applies to.
+	 * @param parameters The parameters of the rule, as text.
+	 * @return The created rule.
+	 * @throws IllegalArgumentException If the type is unknown or the parameters
+	 *                                  are invalid for the type.
+	 */
+	public DiscountRule create(String typeName, long itemID, String... parameters) {
+		Factory factory = factories.get(typeName);
+		if (factory == null) {
+			throw new IllegalArgumentException("Unknown discount rule type: " + typeName);
+		}
+
+		try {
+			return factory.create(itemID, parameters);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Invalid parameters for discount rule type " + typeName + ".", e);
+		}
+	}
+
+	/**
+	 * Creates rules of one type.
+	 */
+	public interface Factory {
+
+		/**
+		 * Creates a rule.
+		 * 
+		 * @param itemID     The ID of the item that the rule applies to.
+		 * @param parameters The parameters of the rule, as text.
+		 * @return The created rule.
+		 */
+		DiscountRule create(long itemID, String[] parameters);
+	}
+}
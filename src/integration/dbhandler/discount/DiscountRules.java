@@ -0,0 +1,129 @@
+package integration.dbhandler.discount;
+
+import java.util.Collection;
+
+import integration.dbhandler.data.LongIndex;
+
+/**
+ * A compiled, immutable set of {@link DiscountRule}s, indexed by item ID, and
+ * of the {@link BundleRule}s that combine several items. It is built once and
+ * can then be read by any number of lanes at the same time without locking.
+ * Finding the rule of an item takes the same time no matter how many rules
+ * there are, so a whole sale is evaluated in one pass over its items.
+ * <p>
+ * Each set of rules has a version. Changing the rules creates a new set with
+ * a higher version, see {@link #withChanges(Collection, long[])}, and leaves
+ * this one as it is, so a sale that is using it is not affected.
+ */
+public final class DiscountRules {
+	private static final DiscountRules EMPTY = new DiscountRules(new LongIndex<DiscountRule>(),
+			BundleMatcher.empty(), 0);
+
+	private final LongIndex<DiscountRule> rulesByItemID;
+	private final BundleMatcher bundles;
+	private final long version;
+
+	private DiscountRules(LongIndex<DiscountRule> rulesByItemID, BundleMatcher bundles, long version) {
+		this.rulesByItemID = rulesByItemID;
+		this.bundles = bundles;
+		this.version = version;
+	}
+
+	/**
+	 * Compiles a set of rules. If several rules apply to the same item, the last
+	 * one is used.
+	 * 
+	 * @param rules The rules to compile.
+	 * @return The compiled rules.
+	 */
+	public static DiscountRules compile(Collection<? extends DiscountRule> rules) {
+		return compile(rules, BundleMatcher.empty());
+	}
+
+	/**
+	 * Compiles a set of rules together with bundles that have already been
+	 * compiled. If several rules apply to the same item, the last one is used.
+	 * 
+	 * @param rules   The rules to compile.
+	 * @param bundles The bundles.
+	 * @return The compiled rules.
+	 */
+	public static DiscountRules compile(Collection<? extends DiscountRule> rules, BundleMatcher bundles) {
+		LongIndex<DiscountRule> rulesByItemID = new LongIndex<>(rules.size());
+		for (DiscountRule rule : rules) {
+			rulesByItemID.put(rule.getItemID(), rule);
+		}
+
+		return new DiscountRules(rulesByItemID, bundles, 1);
+	}
+
+	/**
+	 * Creates a new set of rules, with the next version, where some rules are
+	 * added, replaced or removed. The bundles are kept.
+	 * 
+	 * @param changedRules   Rules that are added, or that replace the rule of
+	 *                       their item.
+	 * @param removedItemIDs The IDs of items whose rule is removed.
+	 * @return The new rules.
+	 */
+	public DiscountRules withChanges(Collection<? extends DiscountRule> changedRules, long[] removedItemIDs) {
+		LongIndex<Boolean> replacedItemIDs = new LongIndex<>(changedRules.size() + removedItemIDs.length);
+		for (DiscountRule rule : changedRules) {
+			replacedItemIDs.put(rule.getItemID(), Boolean.TRUE);
+		}
+		for (long itemID : removedItemIDs) {
+			replacedItemIDs.put(itemID, Boolean.TRUE);
+		}
+
+		LongIndex<DiscountRule> newRules = new LongIndex<>(rulesByItemID.size() + changedRules.size());
+		rulesByItemID.forEach((itemID, rule) -> {
+			if (!replacedItemIDs.containsKey(itemID)) {
+				newRules.put(itemID, rule);
+			}
+		});
+		for (DiscountRule rule : changedRules) {
+			newRules.put(rule.getItemID(), rule);
+		}
+
+		return new DiscountRules(newRules, bundles, version + 1);
+	}
+
+	/**
+	 * @return a rule set without any rules.
+	 */
+	public static DiscountRules empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Finds the rule that applies to an item.
+	 * 
+	 * @param itemID The ID of the item.
+	 * @return The rule, or <code>null</code> if the item has no rule.
+	 */
+	public DiscountRule find(long itemID) {
+		return rulesByItemID.get(itemID);
+	}
+
+	/**
+	 * @return the bundles that combine several items.
+	 */
+	public BundleMatcher getBundles() {
+		return bundles;
+	}
+
+	/**
+	 * @return the version of this set of rules. A set that was changed from
+	 *         another has a higher version than that one.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the number of rules.
+	 */
+	public int size() {
+		return rulesByItemID.size();
+	}
+}
@@ -0,0 +1,30 @@
+package integration.dbhandler.discount;
+
+/**
+ * A rule that always gives a {@link PriceDiscount} on its item.
+ */
+public class PriceDiscountRule implements DiscountRule {
+	private final long itemID;
+	private final PriceDiscount discount;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param itemID   The ID of the item that the rule applies to.
+	 * @param discount The discount that the item gets.
+	 */
+	public PriceDiscountRule(long itemID, PriceDiscount discount) {
+		this.itemID = itemID;
+		this.discount = discount;
+	}
+
+	@Override
+	public long getItemID() {
+		return itemID;
+	}
+
+	@Override
+	public Discount evaluate(int quantity) {
+		return discount;
+	}
+}
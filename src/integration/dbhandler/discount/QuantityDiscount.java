@@ -3,14 +3,18 @@ package integration.dbhandler.discount;
 import model.util.Amount;
 
 /**
- * A item discount that depends on the amount of items bought.
+ * A item discount that depends on the amount of items bought. Instances are
+ * immutable, so the same discount can be shared by any number of sales. The
+ * discount for a certain quantity is created with {@link #withQuantity(int)}.
  */
-public class QuantityDiscount implements Discount {
-	private Amount rate;
+public final class QuantityDiscount implements Discount {
+	private static final Amount RATE_PER_ITEM = new Amount(0.02);
+
+	private final Amount rate;
 	private final Amount maxRate;
 
 	private final short limit;
-	private int quantity;
+	private final int quantity;
 
 	/**
 	 * Constructor.
@@ -20,22 +24,37 @@ public class QuantityDiscount implements Discount {
 	 * @param maxRate The maximum rate this discount can have.
 	 */
 	public QuantityDiscount(short limit, Amount maxRate) {
+		this(limit, maxRate, 0);
+	}
+
+	private QuantityDiscount(short limit, Amount maxRate, int quantity) {
 		this.limit = limit;
 		this.maxRate = maxRate;
+		this.quantity = quantity;
+		this.rate = calculateRate(maxRate, quantity);
+	}
+
+	/**
+	 * Returns the discount that a sale with the specified quantity of the item
+	 * gets. This discount is not changed.
+	 * 
+	 * @param quantity The quantity of the item that the discount will be applied
+	 *                 to.
+	 * @return A new <code>QuantityDiscount</code> with the rate for that quantity.
+	 */
+	public QuantityDiscount withQuantity(int quantity) {
+		return new QuantityDiscount(limit, maxRate, quantity);
 	}
 
 	@Override
 	public Amount getRate() {
-		rate = calculateRate();
 		return rate;
 	}
 
-	private Amount calculateRate() {
-		double cRate = new Amount(((double) (2.0 * quantity)) / 100).getValue().doubleValue();
-		double mRate = maxRate.getValue().doubleValue();
-		double finalRate = Math.min(mRate, cRate);
+	private static Amount calculateRate(Amount maxRate, int quantity) {
+		long quantityRate = RATE_PER_ITEM.getMinorUnits() * quantity;
 
-		return new Amount(finalRate);
+		return Amount.ofMinorUnits(Math.min(maxRate.getMinorUnits(), quantityRate));
 	}
 
 	public String toString() {
@@ -43,11 +62,10 @@ public class QuantityDiscount implements Discount {
 	}
 
 	/**
-	 * @param quantity The quantity of the item that this discount will be applied
-	 *                 to.
+	 * @return the quantity of the item that this discount is for.
 	 */
-	public void setQuantity(int quantity) {
-		this.quantity = quantity;
+	public int getQuantity() {
+		return quantity;
 	}
 
 	/**
@@ -0,0 +1,36 @@
+package integration.dbhandler.discount;
+
+/**
+ * A rule that gives a {@link QuantityDiscount} on its item when enough of the
+ * item is bought. Every evaluation returns a new discount for the quantity in
+ * that sale, so the rule itself is never changed.
+ */
+public class QuantityDiscountRule implements DiscountRule {
+	private final long itemID;
+	private final QuantityDiscount discount;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param itemID   The ID of the item that the rule applies to.
+	 * @param discount The discount that the item gets.
+	 */
+	public QuantityDiscountRule(long itemID, QuantityDiscount discount) {
+		this.itemID = itemID;
+		this.discount = discount;
+	}
+
+	@Override
+	public long getItemID() {
+		return itemID;
+	}
+
+	@Override
+	public Discount evaluate(int quantity) {
+		if (quantity < discount.getLimit()) {
+			return null;
+		}
+
+		return discount.withQuantity(quantity);
+	}
+}
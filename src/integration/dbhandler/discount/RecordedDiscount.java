@@ -0,0 +1,32 @@
+package integration.dbhandler.discount;
+
+import model.util.Amount;
+
+/**
+ * A discount that was applied to an item in an earlier sale, as it was read
+ * back from the sale log. It keeps the rate and the description that the
+ * discount had when the sale was completed.
+ */
+public final class RecordedDiscount implements Discount {
+	private final Amount rate;
+	private final String description;
+
+	/**
+	 * Constructor.
+	 * @param rate        The rate that the discount had.
+	 * @param description The description of the discount, as shown on the receipt.
+	 */
+	public RecordedDiscount(Amount rate, String description) {
+		this.rate = rate;
+		this.description = description;
+	}
+
+	@Override
+	public Amount getRate() {
+		return rate;
+	}
+
+	public String toString() {
+		return description;
+	}
+}
@@ -0,0 +1,388 @@
+package integration.dbhandler.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import model.dto.Receipt;
+
+/**
+ * One file of a {@link SaleJournal}. A segment starts with a header holding the
+ * sequence number of its first record, followed by the records. Each record is
+ * stored as its payload length, a CRC32 checksum, its sequence number, its sale
+ * time and the receipt encoded by {@link ReceiptCodec}. The checksum covers
+ * everything after itself.
+ * <p>
+ * Only the newest segment is written to. When it is full it is sealed, which
+ * writes its {@link SparseIndex} to a file next to it so it does not have to be
+ * scanned the next time the journal is opened. Segments are read through
+ * memory-mapped buffers.
+ */
+class JournalSegment {
+	static final int MAGIC = 0x504F534A;
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 16;
+	static final int RECORD_HEADER_SIZE = 24;
+	static final int MAX_PAYLOAD_SIZE = 1 << 24;
+
+	private static final String FILE_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String INDEX_SUFFIX = ".idx";
+
+	private final Path file;
+	private final long firstSequence;
+	private final SparseIndex index;
+	private FileChannel channel;
+
+	private JournalSegment(Path file, long firstSequence, SparseIndex index, FileChannel channel) {
+		this.file = file;
+		this.firstSequence = firstSequence;
+		this.index = index;
+		this.channel = channel;
+	}
+
+	/**
+	 * Creates a new, empty segment that records are appended to.
+	 *
+	 * @param directory     The directory of the journal.
+	 * @param firstSequence The sequence number of the first record.
+	 * @param blockSize     The block size of the segment's index.
+	 * @return The created segment.
+	 * @throws IOException If the file could not be created.
+	 */
+	static JournalSegment create(Path directory, long firstSequence, int blockSize) throws IOException {
+		Path file = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, firstSequence, SEGMENT_SUFFIX));
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putLong(firstSequence).flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			channel.force(true);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+
+		return new JournalSegment(file, firstSequence, new SparseIndex(blockSize, HEADER_SIZE, firstSequence),
+				channel);
+	}
+
+	/**
+	 * Opens a segment that was sealed earlier. Its index is read from the index
+	 * file, or rebuilt by scanning the segment if the index file is missing or
+	 * damaged.
+	 *
+	 * @param file      The segment file.
+	 * @param blockSize The block size used if the index has to be rebuilt.
+	 * @return The opened segment, which can only be read.
+	 * @throws IOException If the segment could not be read.
+	 */
+	static JournalSegment openSealed(Path file, int blockSize) throws IOException {
+		try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+			long firstSequence = readFirstSequence(reader);
+			SparseIndex index = SparseIndex.read(indexFileOf(file));
+
+			if (index == null || index.getEndPosition() > reader.size()) {
+				index = scan(reader, firstSequence, blockSize);
+				index.write(indexFileOf(file));
+			}
+
+			return new JournalSegment(file, firstSequence, index, null);
+		}
+	}
+
+	/**
+	 * Opens the newest segment so more records can be appended to it. The segment
+	 * is scanned, and an incomplete or damaged record at the end, left by a crash
+	 * during a write, is removed together with everything after it.
+	 *
+	 * @param file      The segment file.
+	 * @param blockSize The block size of the segment's index.
+	 * @return The opened segment.
+	 * @throws IOException If the segment could not be opened.
+	 */
+	static JournalSegment openActive(Path file, int blockSize) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			long firstSequence = readFirstSequence(channel);
+			SparseIndex index = scan(channel, firstSequence, blockSize);
+			if (index.getEndPosition() < channel.size()) {
+				channel.truncate(index.getEndPosition());
+				channel.force(true);
+			}
+			channel.position(index.getEndPosition());
+			Files.deleteIfExists(indexFileOf(file));
+
+			return new JournalSegment(file, firstSequence, index, channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param file A file in the journal directory.
+	 * @return <code>true</code> if the file is a segment.
+	 */
+	static boolean isSegmentFile(Path file) {
+		String name = file.getFileName().toString();
+		return name.startsWith(FILE_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * Builds a record that can be appended to a segment.
+	 *
+	 * @param sequence The sequence number of the record.
+	 * @param saleTime The sale time of the receipt.
+	 * @param payload  The encoded receipt.
+	 * @return A buffer holding the record, ready to be written.
+	 */
+	static ByteBuffer createRecord(long sequence, long saleTime, byte[] payload) {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+		record.putInt(payload.length);
+		record.putInt(0);
+		record.putLong(sequence);
+		record.putLong(saleTime);
+		record.put(payload);
+
+		CRC32 checksum = new CRC32();
+		checksum.update(record.array(), 8, record.capacity() - 8);
+		record.putInt(4, (int) checksum.getValue());
+		record.flip();
+
+		return record;
+	}
+
+	/**
+	 * Writes records at the end of the segment and forces them to the storage
+	 * device. The index is not changed, see {@link #recordAppended}.
+	 *
+	 * @param records The records to write.
+	 * @throws IOException If the records could not be written.
+	 */
+	void write(ByteBuffer[] records) throws IOException {
+		long remaining = 0;
+		for (ByteBuffer record : records) {
+			remaining += record.remaining();
+		}
+
+		while (remaining > 0) {
+			remaining -= channel.write(records);
+		}
+		channel.force(false);
+	}
+
+	/**
+	 * Removes everything after the last record in the segment's index, such as
+	 * records that were only partly written, so the next records are written
+	 * right after the last committed one.
+	 *
+	 * @throws IOException If the segment could not be truncated.
+	 */
+	void truncateToEnd() throws IOException {
+		if (channel == null) {
+			throw new IOException("The segment is closed.");
+		}
+
+		channel.truncate(index.getEndPosition());
+		channel.position(index.getEndPosition());
+		channel.force(true);
+	}
+
+	/**
+	 * Adds a record that has been written and forced to the segment's index, which
+	 * makes it visible to readers.
+	 *
+	 * @param sequence   The sequence number of the record.
+	 * @param position   Where the record starts.
+	 * @param saleTime   The sale time of the receipt.
+	 * @param recordSize The size of the record.
+	 */
+	void recordAppended(long sequence, long position, long saleTime, int recordSize) {
+		index.add(sequence, position, saleTime, recordSize);
+	}
+
+	/**
+	 * Writes the index file and closes the segment for writing.
+	 *
+	 * @throws IOException If the index file could not be written.
+	 */
+	void seal() throws IOException {
+		index.write(indexFileOf(file));
+		close();
+	}
+
+	/**
+	 * Closes the file that records are written to, if it is open.
+	 *
+	 * @throws IOException If the file could not be closed.
+	 */
+	void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Returns a read-only copy of this segment, with the records that have been
+	 * appended so far, that a reader can use while more records are appended.
+	 *
+	 * @return The copy.
+	 */
+	JournalSegment snapshot() {
+		return new JournalSegment(file, firstSequence, new SparseIndex(index), null);
+	}
+
+	/**
+	 * @return the sequence number of the first record.
+	 */
+	long getFirstSequence() {
+		return firstSequence;
+	}
+
+	/**
+	 * @return the sequence number of the last record, or one less than the first
+	 *         sequence number if the segment is empty.
+	 */
+	long getLastSequence() {
+		return index.getLastSequence();
+	}
+
+	/**
+	 * @return the size of the records in the segment, including its header.
+	 */
+	long getSize() {
+		return index.getEndPosition();
+	}
+
+	/**
+	 * Reads the receipts in this segment that have a sequence number of at least
+	 * <code>fromSequence</code> and a sale time in
+	 * [<code>fromTime</code>, <code>toTime</code>), in the order they were
+	 * appended. Blocks that can not hold any such receipt are skipped without
+	 * being read, and receipts outside the range are not decoded.
+	 *
+	 * @param fromSequence The lowest sequence number to read.
+	 * @param fromTime     The earliest sale time to read.
+	 * @param toTime       The sale time to stop before.
+	 * @param action       What to do with each receipt.
+	 * @return The number of receipts that were read.
+	 * @throws IOException If the segment could not be read or is damaged.
+	 */
+	long read(long fromSequence, long fromTime, long toTime, Consumer<Receipt> action) throws IOException {
+		if (index.size() == 0 || index.getLastSequence() < fromSequence) {
+			return 0;
+		}
+
+		long receiptCount = 0;
+		try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = reader.map(FileChannel.MapMode.READ_ONLY, 0, index.getEndPosition());
+			CRC32 checksum = new CRC32();
+
+			for (int block = Math.max(0, index.findBlock(fromSequence)); block < index.size(); block++) {
+				if (index.getMaxTime(block) < fromTime || index.getMinTime(block) >= toTime) {
+					continue;
+				}
+
+				int position = (int) index.getPosition(block);
+				int blockEnd = (int) index.getEndPosition(block);
+				while (position < blockEnd) {
+					int recordSize = validRecordSize(mapped, position, blockEnd, checksum);
+					if (recordSize < 0) {
+						throw new IOException("Damaged record at position " + position + " of " + file + ".");
+					}
+
+					long sequence = mapped.getLong(position + 8);
+					long saleTime = mapped.getLong(position + 16);
+					if (sequence >= fromSequence && saleTime >= fromTime && saleTime < toTime) {
+						action.accept(ReceiptCodec.decode(payloadOf(mapped, position, recordSize)));
+						receiptCount++;
+					}
+					position += recordSize;
+				}
+			}
+		}
+
+		return receiptCount;
+	}
+
+	private static SparseIndex scan(FileChannel channel, long firstSequence, int blockSize) throws IOException {
+		SparseIndex index = new SparseIndex(blockSize, HEADER_SIZE, firstSequence);
+		long size = Math.min(channel.size(), Integer.MAX_VALUE);
+		MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		CRC32 checksum = new CRC32();
+
+		int position = HEADER_SIZE;
+		long expectedSequence = firstSequence;
+		while (true) {
+			int recordSize = validRecordSize(mapped, position, (int) size, checksum);
+			if (recordSize < 0 || mapped.getLong(position + 8) != expectedSequence) {
+				break;
+			}
+
+			index.add(expectedSequence, position, mapped.getLong(position + 16), recordSize);
+			position += recordSize;
+			expectedSequence++;
+		}
+
+		return index;
+	}
+
+	private static int validRecordSize(ByteBuffer segment, int position, int end, CRC32 checksum) {
+		if (end - position < RECORD_HEADER_SIZE) {
+			return -1;
+		}
+		int payloadSize = segment.getInt(position);
+		if (payloadSize < 0 || payloadSize > MAX_PAYLOAD_SIZE || end - position - RECORD_HEADER_SIZE < payloadSize) {
+			return -1;
+		}
+
+		ByteBuffer checked = segment.duplicate();
+		checked.limit(position + RECORD_HEADER_SIZE + payloadSize).position(position + 8);
+		checksum.reset();
+		checksum.update(checked);
+		if ((int) checksum.getValue() != segment.getInt(position + 4)) {
+			return -1;
+		}
+
+		return RECORD_HEADER_SIZE + payloadSize;
+	}
+
+	private static ByteBuffer payloadOf(ByteBuffer segment, int position, int recordSize) {
+		ByteBuffer payload = segment.duplicate();
+		payload.limit(position + recordSize).position(position + RECORD_HEADER_SIZE);
+		return payload.slice();
+	}
+
+	private static long readFirstSequence(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				break;
+			}
+		}
+		header.flip();
+		if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+			throw new IOException("The file is not a sale journal segment.");
+		}
+
+		return header.getLong();
+	}
+
+	private static Path indexFileOf(Path segmentFile) {
+		String name = segmentFile.getFileName().toString();
+		return segmentFile.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+	}
+}
@@ -0,0 +1,132 @@
+package integration.dbhandler.journal;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.Discount;
+import integration.dbhandler.discount.RecordedDiscount;
+import model.dto.BundleDiscountInformation;
+import model.dto.PriceInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.dto.Store;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+/**
+ * Decodes receipts that were written in the first format of the
+ * {@link SaleJournal}, before {@link ReceiptCodec} wrote a format version. That
+ * format is written with a <code>DataOutputStream</code>, with fixed-size
+ * numbers and modified UTF-8 strings. The bundle discounts of a receipt come
+ * after its items, and are missing in receipts written before bundles existed.
+ */
+final class LegacyReceiptDecoder {
+
+	private LegacyReceiptDecoder() {
+	}
+
+	/**
+	 * Decodes a receipt in the first format.
+	 *
+	 * @param encoded The encoded receipt, between the buffer's position and limit.
+	 * @return The decoded receipt.
+	 * @throws IOException If the data is not a valid encoded receipt.
+	 */
+	static Receipt decode(ByteBuffer encoded) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteBufferInputStream(encoded))) {
+			LocalDate dateOfSale = LocalDate.ofEpochDay(in.readLong());
+			LocalTime timeOfSale = LocalTime.ofNanoOfDay(in.readLong());
+			Store store = new Store(in.readUTF(), in.readUTF());
+			PriceInformation priceInfo = new PriceInformation(readAmount(in), readAmount(in));
+			Amount amountPaid = readAmount(in);
+			Amount changeAmount = readAmount(in);
+
+			int itemCount = in.readInt();
+			List<PurchasedItemInformation> itemList = new ArrayList<>(itemCount);
+			for (int i = 0; i < itemCount; i++) {
+				itemList.add(readItem(in));
+			}
+
+			List<BundleDiscountInformation> bundleDiscounts = new ArrayList<>();
+			if (in.available() > 0) {
+				int bundleDiscountCount = in.readInt();
+				for (int i = 0; i < bundleDiscountCount; i++) {
+					bundleDiscounts.add(readBundleDiscount(in));
+				}
+			}
+
+			return new Receipt(itemList, bundleDiscounts, priceInfo, amountPaid, changeAmount, store, timeOfSale,
+					dateOfSale);
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid encoded receipt.", e);
+		}
+	}
+
+	private static PurchasedItemInformation readItem(DataInputStream in) throws IOException {
+		IdentificationNumber id = new IdentificationNumber(in.readLong());
+		String name = in.readUTF();
+		ItemDescription description = new ItemDescription(name, readAmount(in), readAmount(in), id);
+		Amount unitPrice = readAmount(in);
+		Amount unitVatTax = readAmount(in);
+		int quantity = in.readInt();
+
+		Discount discount = null;
+		if (in.readBoolean()) {
+			discount = new RecordedDiscount(readAmount(in), in.readUTF());
+		}
+
+		return new PurchasedItemInformation(description, unitPrice, unitVatTax, quantity, discount);
+	}
+
+	private static BundleDiscountInformation readBundleDiscount(DataInputStream in) throws IOException {
+		String description = in.readUTF();
+		IdentificationNumber itemID = new IdentificationNumber(in.readLong());
+		Amount vatRate = readAmount(in);
+		int quantity = in.readInt();
+
+		return new BundleDiscountInformation(description, itemID, vatRate, quantity, readAmount(in), readAmount(in));
+	}
+
+	private static Amount readAmount(DataInputStream in) throws IOException {
+		return Amount.ofMinorUnits(in.readLong());
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] destination, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(destination, offset, count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
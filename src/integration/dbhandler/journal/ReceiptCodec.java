@@ -0,0 +1,442 @@
+package integration.dbhandler.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.Discount;
+import integration.dbhandler.discount.RecordedDiscount;
+import model.dto.BundleDiscountInformation;
+import model.dto.PriceInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.dto.Store;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+/**
+ * Converts a {@link Receipt} to and from the binary form that is stored in the
+ * {@link SaleJournal}. An encoded receipt starts with a format marker and a
+ * format version. Whole numbers are written as variable-length integers, so
+ * small IDs and quantities take a single byte. Amounts are written as their
+ * minor units with the trailing decimal zeros removed, so that a price in
+ * whole units takes as few bytes as a small number. Every distinct text of a
+ * receipt, such as item names and discount descriptions, is written once in a
+ * table at the start and is referred to by its index. The ID of the cash
+ * register and the register period that the payment was registered in come
+ * last.
+ * <p>
+ * Receipts written in the first format, which has no format marker, and in
+ * the second format, which ends before the register ID, can still be
+ * decoded.
+ */
+public class ReceiptCodec {
+	private static final byte FORMAT_MARKER = 'R';
+	private static final byte FORMAT_VERSION = 3;
+	private static final byte FORMAT_VERSION_WITHOUT_REGISTER = 2;
+	private static final int INITIAL_CAPACITY = 256;
+	private static final int NO_DISCOUNT = 0;
+	private static final int MAX_REMOVED_ZEROS = Amount.SCALE;
+	private static final int UNSCALED_AMOUNT = 7;
+	private static final int AMOUNT_TAG_BITS = 3;
+	private static final long MAX_SCALED_AMOUNT = Long.MAX_VALUE >> AMOUNT_TAG_BITS;
+
+	private ReceiptCodec() {
+	}
+
+	/**
+	 * Encodes a receipt.
+	 *
+	 * @param receipt The receipt to encode.
+	 * @return The encoded receipt.
+	 */
+	public static byte[] encode(Receipt receipt) {
+		StringTable strings = new StringTable();
+		Output body = new Output(INITIAL_CAPACITY);
+
+		body.writeSignedVarLong(receipt.getDateOfSale().toEpochDay());
+		body.writeVarInt(receipt.getTimeOfSale().toSecondOfDay());
+		body.writeVarInt(receipt.getTimeOfSale().getNano());
+		body.writeVarInt(strings.indexOf(receipt.getStore().getName()));
+		body.writeVarInt(strings.indexOf(receipt.getStore().getAddress()));
+		writeAmount(body, receipt.getPriceInfo().getTotalPrice());
+		writeAmount(body, receipt.getPriceInfo().getTotalVat());
+		writeAmount(body, receipt.getAmountPaid());
+		writeAmount(body, receipt.getAmountOfChange());
+
+		List<PurchasedItemInformation> itemList = receipt.getListOfSoldItems();
+		body.writeVarInt(itemList.size());
+		for (int i = 0; i < itemList.size(); i++) {
+			writeItem(body, strings, itemList.get(i));
+		}
+
+		List<BundleDiscountInformation> bundleDiscounts = receipt.getBundleDiscounts();
+		body.writeVarInt(bundleDiscounts.size());
+		for (int i = 0; i < bundleDiscounts.size(); i++) {
+			writeBundleDiscount(body, strings, bundleDiscounts.get(i));
+		}
+		body.writeVarLong(receipt.getRegisterID());
+		body.writeVarLong(receipt.getRegisterPeriod());
+
+		Output out = new Output(body.size() + strings.getEncodedSizeEstimate() + 2);
+		out.writeByte(FORMAT_MARKER);
+		out.writeByte(FORMAT_VERSION);
+		strings.writeTo(out);
+		out.write(body);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes a receipt that was encoded with {@link #encode(Receipt)}.
+	 *
+	 * @param encoded The encoded receipt.
+	 * @return The decoded receipt.
+	 * @throws IOException If the data is not a valid encoded receipt.
+	 */
+	public static Receipt decode(byte[] encoded) throws IOException {
+		return decode(ByteBuffer.wrap(encoded));
+	}
+
+	/**
+	 * Decodes a receipt that was encoded with {@link #encode(Receipt)}, reading it
+	 * directly from a buffer, for example a memory-mapped journal segment, without
+	 * copying it to an array first.
+	 *
+	 * @param encoded The encoded receipt, between the buffer's position and limit.
+	 * @return The decoded receipt.
+	 * @throws IOException If the data is not a valid encoded receipt.
+	 */
+	public static Receipt decode(ByteBuffer encoded) throws IOException {
+		if (!encoded.hasRemaining() || encoded.get(encoded.position()) != FORMAT_MARKER) {
+			return LegacyReceiptDecoder.decode(encoded);
+		}
+
+		try {
+			encoded.get();
+			byte version = encoded.get();
+			if (version != FORMAT_VERSION && version != FORMAT_VERSION_WITHOUT_REGISTER) {
+				throw new IOException("Unsupported receipt format version " + version + ".");
+			}
+
+			return decodeReceipt(new Input(encoded), version != FORMAT_VERSION_WITHOUT_REGISTER);
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid encoded receipt.", e);
+		}
+	}
+
+	private static Receipt decodeReceipt(Input in, boolean hasRegister) throws IOException {
+		String[] strings = in.readStringTable();
+		LocalDate dateOfSale = LocalDate.ofEpochDay(in.readSignedVarLong());
+		LocalTime timeOfSale = LocalTime.ofSecondOfDay(in.readVarInt()).withNano(in.readVarInt());
+		Store store = new Store(strings[in.readVarInt()], strings[in.readVarInt()]);
+		PriceInformation priceInfo = new PriceInformation(readAmount(in), readAmount(in));
+		Amount amountPaid = readAmount(in);
+		Amount changeAmount = readAmount(in);
+
+		int itemCount = in.readCount();
+		List<PurchasedItemInformation> itemList = new ArrayList<>(itemCount);
+		for (int i = 0; i < itemCount; i++) {
+			itemList.add(readItem(in, strings));
+		}
+
+		int bundleDiscountCount = in.readCount();
+		List<BundleDiscountInformation> bundleDiscounts = new ArrayList<>(bundleDiscountCount);
+		for (int i = 0; i < bundleDiscountCount; i++) {
+			bundleDiscounts.add(readBundleDiscount(in, strings));
+		}
+
+		long registerID = 0;
+		long registerPeriod = 0;
+		if (hasRegister) {
+			registerID = in.readVarLong();
+			registerPeriod = in.readVarLong();
+		}
+
+		return new Receipt(itemList, bundleDiscounts, priceInfo, amountPaid, changeAmount, store, timeOfSale,
+				dateOfSale, registerID, registerPeriod);
+	}
+
+	private static void writeItem(Output out, StringTable strings, PurchasedItemInformation item) {
+		ItemDescription description = item.getItemDescription();
+
+		out.writeVarLong(description.getID().getID());
+		out.writeVarInt(strings.indexOf(description.getName()));
+		writeAmount(out, description.getPrice());
+		writeAmount(out, description.getVatRate());
+		writeAmount(out, item.getUnitPrice());
+		writeAmount(out, item.getUnitVatTax());
+		out.writeSignedVarLong(item.getQuantity());
+
+		if (item.getDiscountState()) {
+			out.writeVarInt(strings.indexOf(String.valueOf(item.getDiscount())) + 1);
+			writeAmount(out, item.getDiscount().getRate());
+		} else {
+			out.writeVarInt(NO_DISCOUNT);
+		}
+	}
+
+	private static PurchasedItemInformation readItem(Input in, String[] strings) throws IOException {
+		IdentificationNumber id = new IdentificationNumber(in.readVarLong());
+		String name = strings[in.readVarInt()];
+		ItemDescription description = new ItemDescription(name, readAmount(in), readAmount(in), id);
+		Amount unitPrice = readAmount(in);
+		Amount unitVatTax = readAmount(in);
+		int quantity = Math.toIntExact(in.readSignedVarLong());
+
+		Discount discount = null;
+		int discountDescription = in.readVarInt();
+		if (discountDescription != NO_DISCOUNT) {
+			discount = new RecordedDiscount(readAmount(in), strings[discountDescription - 1]);
+		}
+
+		return new PurchasedItemInformation(description, unitPrice, unitVatTax, quantity, discount);
+	}
+
+	private static void writeBundleDiscount(Output out, StringTable strings,
+			BundleDiscountInformation bundleDiscount) {
+		out.writeVarInt(strings.indexOf(bundleDiscount.getDescription()));
+		out.writeVarLong(bundleDiscount.getItemID().getID());
+		writeAmount(out, bundleDiscount.getVatRate());
+		out.writeSignedVarLong(bundleDiscount.getQuantity());
+		writeAmount(out, bundleDiscount.getDiscount());
+		writeAmount(out, bundleDiscount.getVatDiscount());
+	}
+
+	private static BundleDiscountInformation readBundleDiscount(Input in, String[] strings) throws IOException {
+		String description = strings[in.readVarInt()];
+		IdentificationNumber itemID = new IdentificationNumber(in.readVarLong());
+		Amount vatRate = readAmount(in);
+		int quantity = Math.toIntExact(in.readSignedVarLong());
+
+		return new BundleDiscountInformation(description, itemID, vatRate, quantity, readAmount(in), readAmount(in));
+	}
+
+	/**
+	 * Writes the minor units without their trailing decimal zeros, with the
+	 * number of removed zeros in the lowest bits. A value that is too large for
+	 * that is written as it is, after a tag of its own.
+	 */
+	private static void writeAmount(Output out, Amount amount) {
+		long units = amount.getMinorUnits();
+		int removedZeros = 0;
+		while (removedZeros < MAX_REMOVED_ZEROS && units != 0 && units % 10 == 0) {
+			units /= 10;
+			removedZeros++;
+		}
+
+		if (units > MAX_SCALED_AMOUNT || units < -MAX_SCALED_AMOUNT) {
+			out.writeSignedVarLong(UNSCALED_AMOUNT);
+			out.writeSignedVarLong(amount.getMinorUnits());
+		} else {
+			out.writeSignedVarLong(units << AMOUNT_TAG_BITS | removedZeros);
+		}
+	}
+
+	private static Amount readAmount(Input in) throws IOException {
+		long tagged = in.readSignedVarLong();
+		int removedZeros = (int) (tagged & UNSCALED_AMOUNT);
+		if (removedZeros == UNSCALED_AMOUNT) {
+			return Amount.ofMinorUnits(in.readSignedVarLong());
+		}
+
+		long units = tagged >> AMOUNT_TAG_BITS;
+		for (int i = 0; i < removedZeros; i++) {
+			units = Math.multiplyExact(units, 10);
+		}
+		return Amount.ofMinorUnits(units);
+	}
+
+	/**
+	 * The distinct texts of a receipt, in the order they were first used.
+	 */
+	private static class StringTable {
+		private final Map<String, Integer> indexes = new HashMap<>();
+		private final List<String> strings = new ArrayList<>();
+		private int encodedSizeEstimate;
+
+		private int indexOf(String string) {
+			Integer index = indexes.get(string);
+			if (index == null) {
+				index = strings.size();
+				indexes.put(string, index);
+				strings.add(string);
+				encodedSizeEstimate += string.length() + 1;
+			}
+			return index;
+		}
+
+		private int getEncodedSizeEstimate() {
+			return encodedSizeEstimate + 1;
+		}
+
+		private void writeTo(Output out) {
+			out.writeVarInt(strings.size());
+			for (int i = 0; i < strings.size(); i++) {
+				out.writeString(strings.get(i));
+			}
+		}
+	}
+
+	/**
+	 * A growable byte array that numbers and texts are written to.
+	 */
+	private static class Output {
+		private byte[] bytes;
+		private int size;
+
+		private Output(int initialCapacity) {
+			bytes = new byte[initialCapacity];
+		}
+
+		private void writeByte(int value) {
+			ensureCapacity(1);
+			bytes[size++] = (byte) value;
+		}
+
+		private void writeVarInt(int value) {
+			writeVarLong(value & 0xFFFFFFFFL);
+		}
+
+		/**
+		 * Writes seven bits per byte, least significant first, with the high bit
+		 * set on every byte but the last.
+		 */
+		private void writeVarLong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		/**
+		 * Writes a value that may be negative, zigzag encoded so that values close
+		 * to zero are short whatever their sign.
+		 */
+		private void writeSignedVarLong(long value) {
+			writeVarLong((value << 1) ^ (value >> 63));
+		}
+
+		private void writeString(String string) {
+			int length = string.length();
+			for (int i = 0; i < length; i++) {
+				if (string.charAt(i) >= 0x80) {
+					byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+					writeVarInt(utf8.length);
+					ensureCapacity(utf8.length);
+					System.arraycopy(utf8, 0, bytes, size, utf8.length);
+					size += utf8.length;
+					return;
+				}
+			}
+
+			writeVarInt(length);
+			ensureCapacity(length);
+			for (int i = 0; i < length; i++) {
+				bytes[size++] = (byte) string.charAt(i);
+			}
+		}
+
+		private void write(Output other) {
+			ensureCapacity(other.size);
+			System.arraycopy(other.bytes, 0, bytes, size, other.size);
+			size += other.size;
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private byte[] toByteArray() {
+			return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+		}
+
+		private void ensureCapacity(int additionalBytes) {
+			if (size + additionalBytes > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additionalBytes));
+			}
+		}
+	}
+
+	/**
+	 * Reads numbers and texts directly from a buffer. Texts are decoded from the
+	 * buffer's array when it has one, and are otherwise copied out first.
+	 */
+	private static class Input {
+		private final ByteBuffer buffer;
+		private byte[] scratch;
+
+		private Input(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private int readVarInt() throws IOException {
+			long value = readVarLong();
+			if (value > Integer.MAX_VALUE) {
+				throw new IOException("Number out of range: " + value);
+			}
+			return (int) value;
+		}
+
+		/**
+		 * Reads a count of elements, which cannot be more than the remaining bytes.
+		 */
+		private int readCount() throws IOException {
+			int count = readVarInt();
+			if (count > buffer.remaining()) {
+				throw new IOException("Count larger than the remaining data: " + count);
+			}
+			return count;
+		}
+
+		private long readVarLong() throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte next = buffer.get();
+				value |= (long) (next & 0x7F) << shift;
+				if (next >= 0) {
+					return value;
+				}
+			}
+			throw new IOException("Variable-length number longer than 10 bytes.");
+		}
+
+		private long readSignedVarLong() throws IOException {
+			long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private String[] readStringTable() throws IOException {
+			String[] strings = new String[readCount()];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = readString();
+			}
+			return strings;
+		}
+
+		private String readString() throws IOException {
+			int length = readCount();
+			int position = buffer.position();
+
+			if (buffer.hasArray()) {
+				buffer.position(position + length);
+				return new String(buffer.array(), buffer.arrayOffset() + position, length, StandardCharsets.UTF_8);
+			}
+
+			if (scratch == null || scratch.length < length) {
+				scratch = new byte[Math.max(length, 64)];
+			}
+			buffer.get(scratch, 0, length);
+			return new String(scratch, 0, length, StandardCharsets.UTF_8);
+		}
+	}
+}
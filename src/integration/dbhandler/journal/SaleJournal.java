@@ -0,0 +1,489 @@
+package integration.dbhandler.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import model.dto.Receipt;
+
+/**
+ * An append-only log of completed sales. Every appended receipt is given a
+ * sequence number, written to disk and forced to the storage device before
+ * {@link #append(Receipt)} returns. Receipts that are appended by several
+ * threads at about the same time are written together and forced with a single
+ * call, a group commit, so the cost of forcing the file is shared by the whole
+ * group.
+ * <p>
+ * The journal is a directory of rolling {@link JournalSegment} files. When the
+ * newest segment has grown past the maximum segment size, it is sealed and a
+ * new one is started. Each segment has a sparse index of sequence numbers and
+ * sale times, so a range of sales can be read without scanning the whole
+ * journal. Receipts are read back through memory-mapped buffers and handed to
+ * the caller one at a time, so reading a day of sales does not need more
+ * memory than reading a single one.
+ * <p>
+ * When a journal is opened, the newest segment is scanned and any incomplete or
+ * damaged records at its end, left by a crash during a write, are removed.
+ * <p>
+ * If a group cannot be written, the receipts of that group, and those that
+ * were waiting to be written after it, are refused, and the newest segment is
+ * truncated back to its last committed record. Later receipts are written as
+ * usual, so a passing failure, such as a full disk, does not stop the journal.
+ * Only if the segment cannot be truncated is every later receipt refused, until
+ * the journal is opened again.
+ */
+public class SaleJournal implements Closeable {
+	/**
+	 * The size a segment can grow to before a new one is started, unless another
+	 * size is specified when the journal is opened.
+	 */
+	public static final long DEFAULT_MAX_SEGMENT_SIZE = 64L << 20;
+
+	private static final int INDEX_BLOCK_SIZE = 64 << 10;
+	private static final long NANOS_PER_DAY = TimeUnit.DAYS.toNanos(1);
+
+	private final Path directory;
+	private final long maxSegmentSize;
+	private final long batchWindowNanos;
+	private final Thread committer;
+
+	private final List<JournalSegment> segments = new ArrayList<>();
+	private JournalSegment activeSegment;
+	private final List<PendingRecord> pendingRecords = new ArrayList<>();
+	private long nextSequence;
+	private long committedSequence;
+	private long recoveredCount;
+	private IOException fatalFailure;
+	private boolean closed;
+
+	private SaleJournal(Path directory, long batchWindowNanos, long maxSegmentSize) {
+		this.directory = directory;
+		this.batchWindowNanos = batchWindowNanos;
+		this.maxSegmentSize = maxSegmentSize;
+
+		committer = new Thread(this::commitPendingRecords, "sale-journal-committer");
+		committer.setDaemon(true);
+	}
+
+	/**
+	 * Opens the journal in the specified directory, creating the directory if it
+	 * does not exist. Segments are rolled at {@link #DEFAULT_MAX_SEGMENT_SIZE}.
+	 *
+	 * @param directory        Path to the journal directory.
+	 * @param batchWindowNanos How long the committer waits for more receipts
+	 *                         before writing a group, in nanoseconds. Zero writes
+	 *                         whatever has arrived as soon as possible.
+	 * @return The opened journal.
+	 * @throws IOException If the journal could not be opened.
+	 */
+	public static SaleJournal open(Path directory, long batchWindowNanos) throws IOException {
+		return open(directory, batchWindowNanos, DEFAULT_MAX_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Opens the journal in the specified directory, creating the directory if it
+	 * does not exist.
+	 *
+	 * @param directory        Path to the journal directory.
+	 * @param batchWindowNanos How long the committer waits for more receipts
+	 *                         before writing a group, in nanoseconds. Zero writes
+	 *                         whatever has arrived as soon as possible.
+	 * @param maxSegmentSize   How large a segment can grow, in bytes, before a new
+	 *                         one is started.
+	 * @return The opened journal.
+	 * @throws IOException If the journal could not be opened.
+	 */
+	public static SaleJournal open(Path directory, long batchWindowNanos, long maxSegmentSize) throws IOException {
+		if (maxSegmentSize <= JournalSegment.HEADER_SIZE || maxSegmentSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid maximum segment size: " + maxSegmentSize);
+		}
+
+		Files.createDirectories(directory);
+		SaleJournal journal = new SaleJournal(directory, batchWindowNanos, maxSegmentSize);
+		try {
+			journal.recover();
+		} catch (IOException | RuntimeException e) {
+			journal.closeSegments();
+			throw e;
+		}
+		journal.committer.start();
+
+		return journal;
+	}
+
+	/**
+	 * Returns the sale time of a receipt as it is stored in the journal, the
+	 * number of nanoseconds since 1970-01-01T00:00 in the store's local time.
+	 *
+	 * @param dateTime The date and time of a sale.
+	 * @return The sale time.
+	 */
+	static long saleTimeOf(LocalDateTime dateTime) {
+		return dateTime.toLocalDate().toEpochDay() * NANOS_PER_DAY + dateTime.toLocalTime().toNanoOfDay();
+	}
+
+	/**
+	 * Writes a receipt to the journal and waits until it has been forced to the
+	 * storage device.
+	 *
+	 * @param receipt The receipt to write.
+	 * @return The sequence number the receipt was stored with.
+	 * @throws IOException If the receipt could not be written, or the journal is
+	 *                     closed. A receipt that is accepted before the journal
+	 *                     is closed is still written.
+	 */
+	public long append(Receipt receipt) throws IOException {
+		byte[] payload = ReceiptCodec.encode(receipt);
+		long saleTime = saleTimeOf(LocalDateTime.of(receipt.getDateOfSale(), receipt.getTimeOfSale()));
+		boolean interrupted = false;
+		PendingRecord record;
+
+		synchronized (this) {
+			checkWritable();
+			record = new PendingRecord(nextSequence++, saleTime, payload);
+			pendingRecords.add(record);
+			notifyAll();
+
+			while (!record.done) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (record.failure != null) {
+			throw new IOException("The receipt could not be written to the sale journal.", record.failure);
+		}
+		return record.sequence;
+	}
+
+	/**
+	 * Reads every receipt in the journal, in the order they were appended, and
+	 * hands them one at a time to the specified action. Used to rebuild state
+	 * after a restart.
+	 *
+	 * @param action What to do with each receipt.
+	 * @return The number of receipts that were read.
+	 * @throws IOException If the journal could not be read.
+	 */
+	public long replay(Consumer<Receipt> action) throws IOException {
+		return read(Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, action);
+	}
+
+	/**
+	 * Reads the receipts with the specified sequence number and all later ones,
+	 * in the order they were appended. Earlier segments and blocks are skipped
+	 * without being read.
+	 *
+	 * @param fromSequence The sequence number of the first receipt to read.
+	 * @param action       What to do with each receipt.
+	 * @return The number of receipts that were read.
+	 * @throws IOException If the journal could not be read.
+	 */
+	public long replayFrom(long fromSequence, Consumer<Receipt> action) throws IOException {
+		return read(fromSequence, Long.MIN_VALUE, Long.MAX_VALUE, action);
+	}
+
+	/**
+	 * Reads the receipts of the sales made from <code>from</code>, inclusive, to
+	 * <code>to</code>, exclusive, in the order they were appended. Segments and
+	 * blocks that do not hold any sale in that period are skipped without being
+	 * read.
+	 *
+	 * @param from   The start of the period.
+	 * @param to     The end of the period.
+	 * @param action What to do with each receipt.
+	 * @return The number of receipts that were read.
+	 * @throws IOException If the journal could not be read.
+	 */
+	public long replayBetween(LocalDateTime from, LocalDateTime to, Consumer<Receipt> action) throws IOException {
+		return read(Long.MIN_VALUE, saleTimeOf(from), saleTimeOf(to), action);
+	}
+
+	/**
+	 * Reads the receipts of the sales made on the specified day.
+	 *
+	 * @param day    The day to read.
+	 * @param action What to do with each receipt.
+	 * @return The number of receipts that were read.
+	 * @throws IOException If the journal could not be read.
+	 */
+	public long replayDay(LocalDate day, Consumer<Receipt> action) throws IOException {
+		return replayBetween(LocalDateTime.of(day, LocalTime.MIDNIGHT), LocalDateTime.of(day.plusDays(1),
+				LocalTime.MIDNIGHT), action);
+	}
+
+	/**
+	 * @return the number of complete receipts that were found in the journal
+	 *         when it was opened.
+	 */
+	public synchronized long getRecoveredCount() {
+		return recoveredCount;
+	}
+
+	/**
+	 * @return the sequence number that the next appended receipt will get.
+	 */
+	public synchronized long getNextSequence() {
+		return nextSequence;
+	}
+
+	/**
+	 * @return the number of segment files in the journal.
+	 */
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Writes any receipts that are still pending and closes the journal.
+	 *
+	 * @throws IOException If the journal could not be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			notifyAll();
+		}
+
+		try {
+			committer.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		closeSegments();
+	}
+
+	private long read(long fromSequence, long fromTime, long toTime, Consumer<Receipt> action) throws IOException {
+		List<JournalSegment> snapshot = new ArrayList<>();
+		synchronized (this) {
+			for (JournalSegment segment : segments) {
+				snapshot.add(segment == activeSegment ? segment.snapshot() : segment);
+			}
+		}
+
+		long receiptCount = 0;
+		for (JournalSegment segment : snapshot) {
+			receiptCount += segment.read(fromSequence, fromTime, toTime, action);
+		}
+
+		return receiptCount;
+	}
+
+	private void recover() throws IOException {
+		List<Path> segmentFiles = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				if (JournalSegment.isSegmentFile(file)) {
+					segmentFiles.add(file);
+				}
+			}
+		}
+		Collections.sort(segmentFiles);
+
+		int last = segmentFiles.size() - 1;
+		if (last >= 0 && Files.size(segmentFiles.get(last)) < JournalSegment.HEADER_SIZE) {
+			Files.delete(segmentFiles.remove(last--));
+		}
+
+		for (int i = 0; i < last; i++) {
+			segments.add(JournalSegment.openSealed(segmentFiles.get(i), INDEX_BLOCK_SIZE));
+		}
+		if (last >= 0) {
+			activeSegment = JournalSegment.openActive(segmentFiles.get(last), INDEX_BLOCK_SIZE);
+		} else {
+			activeSegment = JournalSegment.create(directory, 1, INDEX_BLOCK_SIZE);
+		}
+		segments.add(activeSegment);
+
+		nextSequence = activeSegment.getLastSequence() + 1;
+		committedSequence = activeSegment.getLastSequence();
+		recoveredCount = nextSequence - segments.get(0).getFirstSequence();
+	}
+
+	private void commitPendingRecords() {
+		List<PendingRecord> group = new ArrayList<>();
+
+		while (true) {
+			synchronized (this) {
+				while (pendingRecords.isEmpty() && !closed) {
+					waitForRecords(0);
+				}
+				if (pendingRecords.isEmpty()) {
+					return;
+				}
+				if (batchWindowNanos > 0 && !closed) {
+					waitForRecords(batchWindowNanos);
+				}
+
+				group.addAll(pendingRecords);
+				pendingRecords.clear();
+			}
+
+			try {
+				writeGroup(group);
+			} catch (IOException e) {
+				if (!discardUncommittedRecords(group, e)) {
+					return;
+				}
+			}
+			group.clear();
+		}
+	}
+
+	private boolean discardUncommittedRecords(List<PendingRecord> group, IOException failure) {
+		IOException truncateFailure = null;
+		try {
+			activeSegment.truncateToEnd();
+		} catch (IOException e) {
+			e.addSuppressed(failure);
+			truncateFailure = e;
+		}
+
+		synchronized (this) {
+			for (PendingRecord record : group) {
+				if (!record.done) {
+					record.fail(failure);
+				}
+			}
+			for (PendingRecord record : pendingRecords) {
+				record.fail(failure);
+			}
+			pendingRecords.clear();
+			nextSequence = committedSequence + 1;
+			fatalFailure = truncateFailure;
+			notifyAll();
+		}
+
+		return truncateFailure == null;
+	}
+
+	private void writeGroup(List<PendingRecord> group) throws IOException {
+		List<ByteBuffer> batch = new ArrayList<>(group.size());
+		int batchStart = 0;
+		long position = activeSegment.getSize();
+
+		for (int i = 0; i < group.size(); i++) {
+			PendingRecord record = group.get(i);
+			ByteBuffer buffer = JournalSegment.createRecord(record.sequence, record.saleTime, record.payload);
+
+			boolean segmentHasRecords = position > JournalSegment.HEADER_SIZE;
+			if (segmentHasRecords && position + buffer.remaining() > maxSegmentSize) {
+				commitBatch(batch, group.subList(batchStart, i));
+				rollSegment(record.sequence);
+				batch.clear();
+				batchStart = i;
+				position = activeSegment.getSize();
+			}
+
+			record.position = position;
+			record.size = buffer.remaining();
+			position += record.size;
+			batch.add(buffer);
+		}
+
+		commitBatch(batch, group.subList(batchStart, group.size()));
+	}
+
+	private void commitBatch(List<ByteBuffer> batch, List<PendingRecord> records) throws IOException {
+		if (records.isEmpty()) {
+			return;
+		}
+
+		activeSegment.write(batch.toArray(new ByteBuffer[0]));
+
+		synchronized (this) {
+			for (PendingRecord record : records) {
+				activeSegment.recordAppended(record.sequence, record.position, record.saleTime, record.size);
+			}
+			for (PendingRecord record : records) {
+				record.done = true;
+			}
+			committedSequence = records.get(records.size() - 1).sequence;
+			notifyAll();
+		}
+	}
+
+	private void rollSegment(long firstSequence) throws IOException {
+		JournalSegment sealedSegment = activeSegment;
+		JournalSegment newSegment = JournalSegment.create(directory, firstSequence, INDEX_BLOCK_SIZE);
+
+		synchronized (this) {
+			activeSegment = newSegment;
+			segments.add(newSegment);
+		}
+		try {
+			sealedSegment.seal();
+		} finally {
+			sealedSegment.close();
+		}
+	}
+
+	private void waitForRecords(long nanos) {
+		try {
+			if (nanos == 0) {
+				wait();
+			} else {
+				TimeUnit.NANOSECONDS.timedWait(this, nanos);
+			}
+		} catch (InterruptedException e) {
+			closed = true;
+		}
+	}
+
+	private void checkWritable() throws IOException {
+		if (fatalFailure != null) {
+			throw new IOException("The sale journal could not recover from a failed write.", fatalFailure);
+		}
+		if (closed) {
+			throw new IOException("The sale journal is closed.");
+		}
+	}
+
+	private synchronized void closeSegments() throws IOException {
+		for (JournalSegment segment : segments) {
+			segment.close();
+		}
+	}
+
+	private static class PendingRecord {
+		private final long sequence;
+		private final long saleTime;
+		private final byte[] payload;
+		private long position;
+		private int size;
+		private boolean done;
+		private IOException failure;
+
+		private PendingRecord(long sequence, long saleTime, byte[] payload) {
+			this.sequence = sequence;
+			this.saleTime = saleTime;
+			this.payload = payload;
+		}
+
+		private void fail(IOException cause) {
+			failure = cause;
+			done = true;
+		}
+	}
+}
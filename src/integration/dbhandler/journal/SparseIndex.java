@@ -0,0 +1,254 @@
+package integration.dbhandler.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A sparse index over the records of one {@link JournalSegment}. The records
+ * are divided into blocks of roughly {@link #getBlockSize()} bytes, and only
+ * the first sequence number, file position and the earliest and latest sale
+ * time of each block are kept. A reader uses the index to jump directly to the
+ * block that holds a sequence number, and to skip blocks whose sales all fall
+ * outside a time range.
+ * <p>
+ * This class is not thread safe. The owning {@link SaleJournal} only changes an
+ * index while holding its lock, and hands readers a copy.
+ */
+class SparseIndex {
+	private static final int MAGIC = 0x504F5349;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int ENTRY_SIZE = 32;
+	private static final int MIN_CAPACITY = 16;
+
+	private final int blockSize;
+	private long[] sequences;
+	private long[] positions;
+	private long[] minTimes;
+	private long[] maxTimes;
+	private int count;
+	private long endPosition;
+	private long lastSequence;
+
+	/**
+	 * Constructs an index of a segment that does not contain any records yet.
+	 *
+	 * @param blockSize     How many bytes of records each index entry covers.
+	 * @param startPosition Where the first record of the segment starts.
+	 * @param firstSequence The sequence number of the first record.
+	 */
+	SparseIndex(int blockSize, long startPosition, long firstSequence) {
+		this.blockSize = blockSize;
+		this.endPosition = startPosition;
+		this.lastSequence = firstSequence - 1;
+		allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new index containing the same entries as <code>other</code>.
+	 *
+	 * @param other The index to copy.
+	 */
+	SparseIndex(SparseIndex other) {
+		this.blockSize = other.blockSize;
+		this.sequences = Arrays.copyOf(other.sequences, other.count);
+		this.positions = Arrays.copyOf(other.positions, other.count);
+		this.minTimes = Arrays.copyOf(other.minTimes, other.count);
+		this.maxTimes = Arrays.copyOf(other.maxTimes, other.count);
+		this.count = other.count;
+		this.endPosition = other.endPosition;
+		this.lastSequence = other.lastSequence;
+	}
+
+	/**
+	 * Adds a record that was written at the end of the segment. A new entry is
+	 * started when the current block has grown past the block size.
+	 *
+	 * @param sequence   The sequence number of the record.
+	 * @param position   Where the record starts.
+	 * @param saleTime   The sale time of the record, see
+	 *                   {@link SaleJournal#saleTimeOf(java.time.LocalDateTime)}.
+	 * @param recordSize The size of the record including its header.
+	 */
+	void add(long sequence, long position, long saleTime, int recordSize) {
+		if (count == 0 || position - positions[count - 1] >= blockSize) {
+			if (count == sequences.length) {
+				allocate(Math.max(MIN_CAPACITY, count * 2));
+			}
+			sequences[count] = sequence;
+			positions[count] = position;
+			minTimes[count] = saleTime;
+			maxTimes[count] = saleTime;
+			count++;
+		} else {
+			minTimes[count - 1] = Math.min(minTimes[count - 1], saleTime);
+			maxTimes[count - 1] = Math.max(maxTimes[count - 1], saleTime);
+		}
+
+		endPosition = position + recordSize;
+		lastSequence = sequence;
+	}
+
+	/**
+	 * Finds the block that holds the record with the specified sequence number.
+	 *
+	 * @param sequence The sequence number to look for.
+	 * @return The number of the last block that starts at or before
+	 *         <code>sequence</code>, or -1 if all blocks start after it.
+	 */
+	int findBlock(long sequence) {
+		int low = 0;
+		int high = count - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (sequences[middle] <= sequence) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		return high;
+	}
+
+	/**
+	 * @return the number of blocks in the index.
+	 */
+	int size() {
+		return count;
+	}
+
+	/**
+	 * @return how many bytes of records each block covers.
+	 */
+	int getBlockSize() {
+		return blockSize;
+	}
+
+	long getPosition(int block) {
+		return positions[block];
+	}
+
+	/**
+	 * Returns where the specified block ends, which is where the next block
+	 * starts, or the end of the records for the last block.
+	 *
+	 * @param block The number of the block.
+	 * @return The position after the last record of the block.
+	 */
+	long getEndPosition(int block) {
+		return block + 1 < count ? positions[block + 1] : endPosition;
+	}
+
+	long getMinTime(int block) {
+		return minTimes[block];
+	}
+
+	long getMaxTime(int block) {
+		return maxTimes[block];
+	}
+
+	/**
+	 * @return the position after the last record in the segment.
+	 */
+	long getEndPosition() {
+		return endPosition;
+	}
+
+	/**
+	 * @return the sequence number of the last record in the segment, or one less
+	 *         than the first sequence number if the segment is empty.
+	 */
+	long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * Writes the index to a file and forces it to the storage device. The file is
+	 * first written under a temporary name and then renamed, so a reader never
+	 * sees a partly written index.
+	 *
+	 * @param indexFile The file to write.
+	 * @throws IOException If the file could not be written.
+	 */
+	void write(Path indexFile) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + count * ENTRY_SIZE + 4);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(blockSize).putInt(count);
+		buffer.putLong(endPosition).putLong(lastSequence);
+		for (int i = 0; i < count; i++) {
+			buffer.putLong(sequences[i]).putLong(positions[i]).putLong(minTimes[i]).putLong(maxTimes[i]);
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) checksum.getValue());
+		buffer.flip();
+
+		Path temporaryFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temporaryFile, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Reads an index that was written by {@link #write(Path)}.
+	 *
+	 * @param indexFile The file to read.
+	 * @return The index, or <code>null</code> if the file does not exist or is
+	 *         damaged, in which case the index has to be rebuilt from the segment.
+	 * @throws IOException If the file exists but could not be read.
+	 */
+	static SparseIndex read(Path indexFile) throws IOException {
+		if (!Files.exists(indexFile)) {
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+		if (buffer.remaining() < HEADER_SIZE + 4 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+			return null;
+		}
+		int blockSize = buffer.getInt();
+		int count = buffer.getInt();
+		if (count < 0 || buffer.capacity() != HEADER_SIZE + (long) count * ENTRY_SIZE + 4) {
+			return null;
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(buffer.array(), 0, buffer.capacity() - 4);
+		if ((int) checksum.getValue() != buffer.getInt(buffer.capacity() - 4)) {
+			return null;
+		}
+
+		SparseIndex index = new SparseIndex(blockSize, 0, 0);
+		index.allocate(Math.max(MIN_CAPACITY, count));
+		index.endPosition = buffer.getLong();
+		index.lastSequence = buffer.getLong();
+		for (int i = 0; i < count; i++) {
+			index.sequences[i] = buffer.getLong();
+			index.positions[i] = buffer.getLong();
+			index.minTimes[i] = buffer.getLong();
+			index.maxTimes[i] = buffer.getLong();
+		}
+		index.count = count;
+
+		return index;
+	}
+
+	private void allocate(int capacity) {
+		sequences = sequences == null ? new long[capacity] : Arrays.copyOf(sequences, capacity);
+		positions = positions == null ? new long[capacity] : Arrays.copyOf(positions, capacity);
+		minTimes = minTimes == null ? new long[capacity] : Arrays.copyOf(minTimes, capacity);
+		maxTimes = maxTimes == null ? new long[capacity] : Arrays.copyOf(maxTimes, capacity);
+	}
+}
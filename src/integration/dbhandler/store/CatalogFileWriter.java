@@ -0,0 +1,113 @@
+package integration.dbhandler.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import integration.dbhandler.data.ItemData;
+import integration.dbhandler.data.ItemDescription;
+
+/**
+ * Writes item data to a binary catalog file that can be opened with
+ * {@link MappedCatalogStore}.
+ */
+public class CatalogFileWriter {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private CatalogFileWriter() {
+	}
+
+	/**
+	 * Writes the specified items to a catalog file, replacing the file if it
+	 * already exists.
+	 * 
+	 * @param catalogFile Path to the file to write.
+	 * @param items       The items to include in the catalog.
+	 * @throws IOException              If the file could not be written.
+	 * @throws IllegalArgumentException If two items have the same ID.
+	 */
+	public static void write(Path catalogFile, Collection<ItemData> items) throws IOException {
+		List<ItemData> sortedItems = new ArrayList<>(items);
+		sortedItems.sort(Comparator.comparingLong(item -> item.getItemDescription().getID().getID()));
+
+		List<byte[]> names = new ArrayList<>(sortedItems.size());
+		long heapLength = 0;
+		for (int i = 0; i < sortedItems.size(); i++) {
+			if (i > 0 && idOf(sortedItems.get(i)) == idOf(sortedItems.get(i - 1))) {
+				throw new IllegalArgumentException("Item ID " + idOf(sortedItems.get(i)) + " occurs more than once.");
+			}
+			byte[] name = sortedItems.get(i).getItemDescription().getName().getBytes(StandardCharsets.UTF_8);
+			names.add(name);
+			heapLength += name.length;
+		}
+		long totalSize = MappedCatalogStore.HEADER_SIZE + (long) sortedItems.size() * MappedCatalogStore.RECORD_SIZE
+				+ heapLength;
+		if (totalSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The catalog is too large to be mapped.");
+		}
+
+		try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+			buffer.putInt(MappedCatalogStore.MAGIC);
+			buffer.putInt(MappedCatalogStore.VERSION);
+			buffer.putInt(sortedItems.size());
+			buffer.putInt(0);
+			buffer.putLong(heapLength);
+			buffer.putLong(0);
+
+			int nameOffset = 0;
+			for (int i = 0; i < sortedItems.size(); i++) {
+				ensureRemaining(channel, buffer, MappedCatalogStore.RECORD_SIZE);
+				ItemDescription description = sortedItems.get(i).getItemDescription();
+
+				buffer.putLong(description.getID().getID());
+				buffer.putLong(description.getPrice().getMinorUnits());
+				buffer.putLong(description.getVatRate().getMinorUnits());
+				buffer.putInt(sortedItems.get(i).getAvailableQuantity());
+				buffer.putInt(nameOffset);
+				buffer.putInt(names.get(i).length);
+				buffer.putInt(0);
+				nameOffset += names.get(i).length;
+			}
+
+			for (byte[] name : names) {
+				int written = 0;
+				while (written < name.length) {
+					ensureRemaining(channel, buffer, 1);
+					int length = Math.min(buffer.remaining(), name.length - written);
+					buffer.put(name, written, length);
+					written += length;
+				}
+			}
+
+			flush(channel, buffer);
+		}
+	}
+
+	private static long idOf(ItemData item) {
+		return item.getItemDescription().getID().getID();
+	}
+
+	private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush(channel, buffer);
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
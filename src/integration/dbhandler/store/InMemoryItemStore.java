@@ -0,0 +1,57 @@
+package integration.dbhandler.store;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+import integration.dbhandler.data.ItemData;
+import integration.dbhandler.data.LongIndex;
+
+/**
+ * An {@link ItemStore} that keeps all item data in memory, in a {@link LongIndex}
+ * keyed by item ID.
+ */
+public class InMemoryItemStore implements ItemStore {
+	private final LongIndex<ItemData> itemDB;
+	private final List<Runnable> modificationListeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Constructs an empty store.
+	 */
+	public InMemoryItemStore() {
+		itemDB = new LongIndex<>();
+	}
+
+	/**
+	 * Adds an item to the store, replacing any item with the same ID, and then
+	 * runs the modification listeners.
+	 * 
+	 * @param itemData The item to add.
+	 */
+	public void addItem(ItemData itemData) {
+		itemDB.put(itemData.getItemDescription().getID().getID(), itemData);
+		for (Runnable listener : modificationListeners) {
+			listener.run();
+		}
+	}
+
+	@Override
+	public ItemData findItem(long itemID) {
+		return itemDB.get(itemID);
+	}
+
+	@Override
+	public int getItemCount() {
+		return itemDB.size();
+	}
+
+	@Override
+	public void forEachItemID(LongConsumer action) {
+		itemDB.forEach((itemID, itemData) -> action.accept(itemID));
+	}
+
+	@Override
+	public void addModificationListener(Runnable listener) {
+		modificationListeners.add(listener);
+	}
+}
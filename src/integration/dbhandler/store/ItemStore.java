@@ -0,0 +1,48 @@
+package integration.dbhandler.store;
+
+import java.util.function.LongConsumer;
+
+import integration.dbhandler.InventoryException;
+import integration.dbhandler.data.ItemData;
+
+/**
+ * The storage that holds the inventory's item data, for example the remote
+ * inventory database or a local stand-in for it.
+ */
+public interface ItemStore {
+
+	/**
+	 * Retrieves the item data stored with the specified item ID.
+	 * 
+	 * @param itemID The unique ID of the item, see
+	 *               {@link model.util.IdentificationNumber#getID()}.
+	 * @return The {@link ItemData}, or <code>null</code> if the store has no item
+	 *         with that ID.
+	 * @throws InventoryException If the store could not be reached.
+	 */
+	public ItemData findItem(long itemID);
+
+	/**
+	 * @return the number of items in the store.
+	 * @throws InventoryException If the store could not be reached.
+	 */
+	public int getItemCount();
+
+	/**
+	 * Performs an action for the ID of every item in the store.
+	 * 
+	 * @param action The action to perform for each item ID.
+	 * @throws InventoryException If the store could not be reached.
+	 */
+	public void forEachItemID(LongConsumer action);
+
+	/**
+	 * Registers a listener that is run whenever items are added to the store, so
+	 * that information kept about the stored IDs can be brought up to date
+	 * without asking the store. The listener is run on the thread that changed
+	 * the store. A store whose items never change never runs it.
+	 * 
+	 * @param listener The listener to run after each change.
+	 */
+	public void addModificationListener(Runnable listener);
+}
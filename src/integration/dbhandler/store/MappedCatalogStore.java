@@ -0,0 +1,160 @@
+package integration.dbhandler.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+import integration.dbhandler.data.ItemData;
+import integration.dbhandler.data.ItemDescription;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+/**
+ * An {@link ItemStore} that reads a binary catalog file, written by
+ * {@link CatalogFileWriter}, through a read-only memory mapping. Opening the
+ * store only maps the file, and nothing is read into the heap until an item is
+ * looked up.
+ * <p>
+ * The file starts with a header, followed by one fixed-width record per item,
+ * sorted by item ID, and a heap with the UTF-8 encoded item names. An item is
+ * found with a binary search over the records. Its {@link ItemData} is created
+ * the first time it is looked up and then kept, so that its stock quantity can
+ * be updated. The stock quantities in the file are the quantities at startup.
+ * <p>
+ * A single mapping can be at most 2 GB, which is about 50 million items.
+ */
+public class MappedCatalogStore implements ItemStore {
+	static final int MAGIC = 0x504F5343;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int RECORD_SIZE = 40;
+
+	static final int ID_OFFSET = 0;
+	static final int PRICE_OFFSET = 8;
+	static final int VAT_RATE_OFFSET = 16;
+	static final int QUANTITY_OFFSET = 24;
+	static final int NAME_OFFSET = 28;
+	static final int NAME_LENGTH_OFFSET = 32;
+
+	private final MappedByteBuffer catalog;
+	private final int itemCount;
+	private final int heapPosition;
+	private final Map<Long, ItemData> loadedItems = new ConcurrentHashMap<>();
+
+	private MappedCatalogStore(MappedByteBuffer catalog) throws IOException {
+		this.catalog = catalog;
+
+		if (catalog.capacity() < HEADER_SIZE || catalog.getInt(0) != MAGIC) {
+			throw new IOException("The file is not a catalog file.");
+		}
+		if (catalog.getInt(4) != VERSION) {
+			throw new IOException("Unsupported catalog file version " + catalog.getInt(4) + ".");
+		}
+
+		itemCount = catalog.getInt(8);
+		heapPosition = HEADER_SIZE + itemCount * RECORD_SIZE;
+		if (heapPosition + catalog.getLong(16) > catalog.capacity()) {
+			throw new IOException("The catalog file is truncated.");
+		}
+	}
+
+	/**
+	 * Maps the specified catalog file into memory.
+	 * 
+	 * @param catalogFile Path to a file written by {@link CatalogFileWriter}.
+	 * @return A store that reads items from the file.
+	 * @throws IOException If the file could not be opened or is not a valid
+	 *                     catalog file.
+	 */
+	public static MappedCatalogStore open(Path catalogFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.READ)) {
+			return new MappedCatalogStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	@Override
+	public ItemData findItem(long itemID) {
+		ItemData itemData = loadedItems.get(itemID);
+		if (itemData != null) {
+			return itemData;
+		}
+
+		int record = findRecord(itemID);
+		if (record < 0) {
+			return null;
+		}
+
+		return loadedItems.computeIfAbsent(itemID, id -> readItem(record));
+	}
+
+	@Override
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	@Override
+	public void forEachItemID(LongConsumer action) {
+		for (int record = 0; record < itemCount; record++) {
+			action.accept(catalog.getLong(recordPosition(record) + ID_OFFSET));
+		}
+	}
+
+	/**
+	 * The catalog file is mapped read-only, so its items never change and the
+	 * listener is never run.
+	 */
+	@Override
+	public void addModificationListener(Runnable listener) {
+	}
+
+	private int findRecord(long itemID) {
+		int low = 0;
+		int high = itemCount - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long middleID = catalog.getLong(recordPosition(middle) + ID_OFFSET);
+
+			if (middleID < itemID) {
+				low = middle + 1;
+			} else if (middleID > itemID) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+
+		return -1;
+	}
+
+	private ItemData readItem(int record) {
+		int position = recordPosition(record);
+		long itemID = catalog.getLong(position + ID_OFFSET);
+		Amount price = Amount.ofMinorUnits(catalog.getLong(position + PRICE_OFFSET));
+		Amount vatRate = Amount.ofMinorUnits(catalog.getLong(position + VAT_RATE_OFFSET));
+		int quantity = catalog.getInt(position + QUANTITY_OFFSET);
+		String name = readName(catalog.getInt(position + NAME_OFFSET), catalog.getInt(position + NAME_LENGTH_OFFSET));
+
+		return new ItemData(new ItemDescription(name, price, vatRate, new IdentificationNumber(itemID)), quantity);
+	}
+
+	private String readName(int nameOffset, int nameLength) {
+		byte[] name = new byte[nameLength];
+		ByteBuffer heap = catalog.duplicate();
+		heap.position(heapPosition + nameOffset);
+		heap.get(name);
+
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	private static int recordPosition(int record) {
+		return HEADER_SIZE + record * RECORD_SIZE;
+	}
+}
@@ -1,17 +1,62 @@
 package integration.printer;
 
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
 import model.dto.Receipt;
 
 /**
- * Represents the printer system.
+ * Represents the printer system. Receipts are rendered by a
+ * {@link ReceiptRenderer} and encoded into a byte buffer, both of which are
+ * reused for every receipt. This printer prints to system output, see
+ * {@link SpoolingPrinter} for a receipt printer device.
  */
 public class Printer {
-	
+	private static final int INITIAL_CAPACITY = 2048;
+
+	private final ReceiptRenderer renderer = new ReceiptRenderer();
+	private final TextEncoder encoder = new TextEncoder(Charset.defaultCharset(), INITIAL_CAPACITY);
+
 	/**
 	 * Prints the receipt to system output.
 	 * @param receipt The receipt to print.
 	 */
-	public void printReceipt(Receipt receipt) {
-		System.out.println(receipt.toString());
+	public synchronized void printReceipt(Receipt receipt) {
+		encoder.clear();
+		encoder.encode(renderer.render(receipt));
+
+		ByteBuffer bytes = encoder.getBytes();
+		PrintStream out = System.out;
+		out.write(bytes.array(), 0, bytes.position());
+		out.println();
+	}
+
+	/**
+	 * Waits until every receipt that has been handed to this printer has been
+	 * printed. Receipts are printed before {@link #printReceipt(Receipt)}
+	 * returns, so this printer never has to wait.
+	 *
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if all receipts were printed in time.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		return true;
+	}
+
+	/**
+	 * Stops accepting receipts and waits for the ones that have not been
+	 * printed yet.
+	 *
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if all receipts were printed in time.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		return true;
 	}
 }
@@ -0,0 +1,17 @@
+package integration.printer;
+
+/**
+ * An exception that gets thrown if receipts could not be written to the
+ * printer device.
+ */
+public class PrinterException extends RuntimeException {
+
+	/**
+	 * Constructs a new instance that contains the specified message and cause.
+	 * @param msg   String explaining this exception.
+	 * @param cause The exception that caused this exception.
+	 */
+	public PrinterException(String msg, Throwable cause) {
+		super(msg, cause);
+	}
+}
@@ -0,0 +1,290 @@
+package integration.printer;
+
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import integration.dbhandler.discount.Discount;
+import integration.dbhandler.discount.PriceDiscount;
+import integration.dbhandler.discount.QuantityDiscount;
+import model.dto.BundleDiscountInformation;
+import model.dto.PriceInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.dto.Store;
+import model.util.Amount;
+
+/**
+ * Renders receipts as text, with the same layout as {@link Receipt#toString()},
+ * into a buffer that is reused for every receipt. Amounts are formatted from
+ * their minor units and columns are padded in place, so rendering a receipt
+ * does not allocate anything once the buffer is large enough. Amounts are
+ * rounded half up to two decimals, like <code>Amount.toString()</code>. The
+ * text of price and quantity discounts, and the date, are written from their
+ * fields in the same way, rather than through their <code>toString()</code>.
+ * <p>
+ * A renderer is not thread safe. Each thread that renders receipts must use its
+ * own renderer.
+ */
+public class ReceiptRenderer {
+	private static final int INITIAL_CAPACITY = 2048;
+	private static final long UNITS_PER_CENT = Amount.UNITS_PER_WHOLE / 100;
+	private static final String RULER = "-----------------------------------------";
+
+	private char[] buffer = new char[INITIAL_CAPACITY];
+	private CharBuffer view = CharBuffer.wrap(buffer);
+	private int length;
+
+	/**
+	 * Renders a receipt.
+	 *
+	 * @param receipt The receipt to render.
+	 * @return The text of the receipt, without a final line separator. The
+	 *         buffer is reused, so its content is only valid until the next
+	 *         receipt is rendered.
+	 */
+	public CharBuffer render(Receipt receipt) {
+		length = 0;
+
+		append("-----------------Receipt-----------------\n");
+		appendTime(receipt.getTimeOfSale());
+		append(' ');
+		int start = length;
+		appendDate(receipt.getDateOfSale());
+		alignRight(start, 35);
+		append("\n\n");
+		appendItemColumns("name", "qty*price", "total");
+		append("\n\n");
+
+		List<PurchasedItemInformation> items = receipt.getListOfSoldItems();
+		for (int i = 0; i < items.size(); i++) {
+			appendItem(items.get(i));
+			append('\n');
+		}
+		List<BundleDiscountInformation> bundleDiscounts = receipt.getBundleDiscounts();
+		for (int i = 0; i < bundleDiscounts.size(); i++) {
+			appendBundleDiscount(bundleDiscounts.get(i));
+			append('\n');
+		}
+
+		append('\n').append(RULER).append('\n');
+		appendPriceInformation(receipt.getPriceInfo());
+		append('\n').append(RULER).append('\n');
+		append("Amount paid: ").appendAmount(receipt.getAmountPaid()).append('\n');
+		append("Change received: ").appendAmount(receipt.getAmountOfChange()).append('\n');
+		append('\n');
+		start = length;
+		append("Thank you, come again!");
+		alignRight(start, 30);
+		append("\n\n");
+
+		Store store = receipt.getStore();
+		start = length;
+		append("Store: ").append(store.getName());
+		alignRight(start, 27);
+		append(" \n");
+		start = length;
+		append("Address: ").append(store.getAddress());
+		alignRight(start, 30);
+		append('\n');
+
+		view.clear();
+		view.limit(length);
+		return view;
+	}
+
+	private void appendItemColumns(String name, String quantityAndPrice, String total) {
+		int start = length;
+		append(name);
+		alignLeft(start, 15);
+		append(' ');
+		start = length;
+		append(quantityAndPrice);
+		alignLeft(start, 15);
+		append(' ').append(total);
+	}
+
+	private void appendItem(PurchasedItemInformation item) {
+		int start = length;
+		append(item.getItemDescription().getName());
+		alignLeft(start, 15);
+		append(' ');
+		start = length;
+		appendLong(item.getQuantity());
+		append('*').appendAmount(item.getUnitPrice());
+		alignLeft(start, 15);
+		append(' ').appendAmount(item.getAccumulatedPrice());
+
+		if (item.getDiscountState()) {
+			append('\n');
+			start = length;
+			appendDiscount(item.getDiscount());
+			alignRight(start, 46);
+		}
+	}
+
+	/**
+	 * Appends the same text as <code>toString()</code> of the discount. Other
+	 * discounts than price and quantity discounts, such as recorded ones, keep
+	 * their text as a string, which is appended as it is.
+	 */
+	private void appendDiscount(Discount discount) {
+		if (discount instanceof PriceDiscount) {
+			append("Price discount! ").appendUnits(discount.getRate().getMinorUnits() * 100).append("% off!");
+		} else if (discount instanceof QuantityDiscount) {
+			append("Quantity discount! ").appendUnits(discount.getRate().getMinorUnits() * 100).append("% off!");
+		} else {
+			append(String.valueOf(discount));
+		}
+	}
+
+	private void appendBundleDiscount(BundleDiscountInformation bundleDiscount) {
+		int start = length;
+		append(bundleDiscount.getDescription());
+		alignLeft(start, 31);
+		append(" -").appendAmount(bundleDiscount.getDiscount());
+	}
+
+	private void appendPriceInformation(PriceInformation priceInfo) {
+		append("TOTAL: ").appendAmount(priceInfo.getTotalPrice());
+		append(' ');
+		int start = length;
+		append("VAT tax: ").appendAmount(priceInfo.getTotalVat());
+		alignRight(start, 25);
+	}
+
+	private void appendTime(LocalTime time) {
+		appendTwoDigits(time.getHour());
+		append(':');
+		appendTwoDigits(time.getMinute());
+	}
+
+	/**
+	 * Appends the date in the ISO format of <code>LocalDate.toString()</code>.
+	 * Years are written with at least four digits, with a sign if they are
+	 * negative or have more than four digits.
+	 */
+	private void appendDate(LocalDate date) {
+		int year = date.getYear();
+		int absoluteYear = Math.abs(year);
+		if (year < 0) {
+			append('-');
+		} else if (year > 9999) {
+			append('+');
+		}
+		if (absoluteYear > 9999) {
+			appendLong(absoluteYear);
+		} else {
+			appendTwoDigits(absoluteYear / 100);
+			appendTwoDigits(absoluteYear % 100);
+		}
+		append('-');
+		appendTwoDigits(date.getMonthValue());
+		append('-');
+		appendTwoDigits(date.getDayOfMonth());
+	}
+
+	/**
+	 * Appends an amount rounded half up to two decimals. A negative amount that
+	 * rounds to zero is shown as <code>-0.00</code>, as it is by
+	 * <code>String.format</code>.
+	 */
+	private ReceiptRenderer appendAmount(Amount amount) {
+		return appendUnits(amount.getMinorUnits());
+	}
+
+	private ReceiptRenderer appendUnits(long units) {
+		long cents = units / UNITS_PER_CENT;
+		long remainder = units % UNITS_PER_CENT;
+		if (units < 0) {
+			append('-');
+			cents = -cents;
+			remainder = -remainder;
+		}
+		if (remainder * 2 >= UNITS_PER_CENT) {
+			cents++;
+		}
+
+		appendLong(cents / 100);
+		append('.');
+		appendTwoDigits((int) (cents % 100));
+		return this;
+	}
+
+	private void appendLong(long value) {
+		if (value < 0) {
+			append('-');
+			if (value == Long.MIN_VALUE) {
+				append("9223372036854775808");
+				return;
+			}
+			value = -value;
+		}
+
+		int digits = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			digits++;
+		}
+		ensureCapacity(digits);
+		for (int i = length + digits - 1; i >= length; i--) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		length += digits;
+	}
+
+	private void appendTwoDigits(int value) {
+		ensureCapacity(2);
+		buffer[length++] = (char) ('0' + value / 10);
+		buffer[length++] = (char) ('0' + value % 10);
+	}
+
+	/**
+	 * Pads the text written since <code>start</code> with spaces after it, up to
+	 * <code>width</code> characters.
+	 */
+	private void alignLeft(int start, int width) {
+		int padding = width - (length - start);
+		if (padding > 0) {
+			ensureCapacity(padding);
+			Arrays.fill(buffer, length, length + padding, ' ');
+			length += padding;
+		}
+	}
+
+	/**
+	 * Pads the text written since <code>start</code> with spaces before it, up to
+	 * <code>width</code> characters.
+	 */
+	private void alignRight(int start, int width) {
+		int padding = width - (length - start);
+		if (padding > 0) {
+			ensureCapacity(padding);
+			System.arraycopy(buffer, start, buffer, start + padding, length - start);
+			Arrays.fill(buffer, start, start + padding, ' ');
+			length += padding;
+		}
+	}
+
+	private ReceiptRenderer append(String text) {
+		ensureCapacity(text.length());
+		text.getChars(0, text.length(), buffer, length);
+		length += text.length();
+		return this;
+	}
+
+	private ReceiptRenderer append(char character) {
+		ensureCapacity(1);
+		buffer[length++] = character;
+		return this;
+	}
+
+	private void ensureCapacity(int additionalChars) {
+		if (length + additionalChars > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additionalChars));
+			view = CharBuffer.wrap(buffer);
+		}
+	}
+}
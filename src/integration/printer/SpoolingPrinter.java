@@ -0,0 +1,308 @@
+package integration.printer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import log.ErrorLogHandler;
+import model.dto.Receipt;
+
+/**
+ * A receipt printer that spools receipts and prints them from a writer thread
+ * of its own. Receipts are put in a bounded spool, so handing over a receipt
+ * only waits if the spool is full, which slows down the sender instead of
+ * letting the spool grow without limit. The writer takes all spooled receipts,
+ * up to a batch size, renders them as ESC/POS commands into one reused buffer
+ * and writes the whole batch to the device with as few writes as possible.
+ * <p>
+ * The device is a {@link WritableByteChannel}, usually a {@link FileChannel}
+ * for a device file, a named pipe or a plain file. Text is encoded as ISO
+ * 8859-1, which the printer is told to print with its WPC1252 code page.
+ * <p>
+ * If a batch could not be written, its receipts are logged as failed and
+ * kept, so they can be printed again with {@link #reprintFailed()}.
+ */
+public class SpoolingPrinter extends Printer {
+	private static final byte ESC = 0x1B;
+	private static final byte GS = 0x1D;
+	private static final byte[] RECEIPT_START = { ESC, '@', ESC, 't', 16 };
+	private static final byte[] RECEIPT_END = { ESC, 'd', 4, GS, 'V', 1 };
+	private static final int INITIAL_CAPACITY = 16 * 1024;
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	private final WritableByteChannel device;
+	private final ErrorLogHandler errorLog;
+	private final BlockingQueue<Receipt> spool;
+	private final int maxBatchSize;
+	private final Thread writer;
+	private final ReceiptRenderer renderer = new ReceiptRenderer();
+	private final TextEncoder encoder = new TextEncoder(StandardCharsets.ISO_8859_1, INITIAL_CAPACITY);
+	private final ConcurrentLinkedQueue<Receipt> failedReceipts = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong spooledCount = new AtomicLong();
+	private final AtomicLong printedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new printer that writes to a device and starts its writer
+	 * thread.
+	 *
+	 * @param device        The device to write to. It is closed when the printer
+	 *                      is shut down.
+	 * @param spoolCapacity The maximum number of receipts waiting to be printed.
+	 * @param maxBatchSize  The maximum number of receipts written to the device
+	 *                      at once.
+	 */
+	public SpoolingPrinter(WritableByteChannel device, int spoolCapacity, int maxBatchSize) {
+		this(device, spoolCapacity, maxBatchSize, null);
+	}
+
+	/**
+	 * Creates a new printer that writes to a device, logs the batches that could
+	 * not be written, and starts its writer thread.
+	 *
+	 * @param device        The device to write to. It is closed when the printer
+	 *                      is shut down.
+	 * @param spoolCapacity The maximum number of receipts waiting to be printed.
+	 * @param maxBatchSize  The maximum number of receipts written to the device
+	 *                      at once.
+	 * @param errorLog      The log that failed writes are logged to, or
+	 *                      <code>null</code> if they should only be counted and
+	 *                      kept.
+	 */
+	public SpoolingPrinter(WritableByteChannel device, int spoolCapacity, int maxBatchSize,
+			ErrorLogHandler errorLog) {
+		this.device = device;
+		this.errorLog = errorLog;
+		this.spool = new ArrayBlockingQueue<>(spoolCapacity);
+		this.maxBatchSize = maxBatchSize;
+
+		writer = new Thread(this::printSpooledReceipts, "receipt-printer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Opens a device file, named pipe or plain file and creates a printer that
+	 * writes to it. Bytes are added to the end of a plain file.
+	 *
+	 * @param devicePath    The path of the device.
+	 * @param spoolCapacity The maximum number of receipts waiting to be printed.
+	 * @param maxBatchSize  The maximum number of receipts written to the device
+	 *                      at once.
+	 * @return The new printer.
+	 * @throws IOException If the device could not be opened.
+	 */
+	public static SpoolingPrinter open(Path devicePath, int spoolCapacity, int maxBatchSize) throws IOException {
+		return open(devicePath, spoolCapacity, maxBatchSize, null);
+	}
+
+	/**
+	 * Opens a device file, named pipe or plain file and creates a printer that
+	 * writes to it and logs the batches that could not be written. Bytes are
+	 * added to the end of a plain file.
+	 *
+	 * @param devicePath    The path of the device.
+	 * @param spoolCapacity The maximum number of receipts waiting to be printed.
+	 * @param maxBatchSize  The maximum number of receipts written to the device
+	 *                      at once.
+	 * @param errorLog      The log that failed writes are logged to, or
+	 *                      <code>null</code>.
+	 * @return The new printer.
+	 * @throws IOException If the device could not be opened.
+	 */
+	public static SpoolingPrinter open(Path devicePath, int spoolCapacity, int maxBatchSize,
+			ErrorLogHandler errorLog) throws IOException {
+		FileChannel device = FileChannel.open(devicePath, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+		return new SpoolingPrinter(device, spoolCapacity, maxBatchSize, errorLog);
+	}
+
+	/**
+	 * Adds the receipt to the spool. Waits while the spool is full. A receipt
+	 * that is still in the spool when the printer has been shut down is taken
+	 * back out, since the writer may already have printed the last receipts.
+	 *
+	 * @param receipt The receipt to print.
+	 * @throws IllegalStateException If the printer has been shut down, or the
+	 *                               thread was interrupted while waiting.
+	 */
+	@Override
+	public void printReceipt(Receipt receipt) {
+		if (closed) {
+			throw new IllegalStateException("The printer has been shut down.");
+		}
+
+		spooledCount.incrementAndGet();
+		try {
+			spool.put(receipt);
+		} catch (InterruptedException e) {
+			spooledCount.decrementAndGet();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for room in the spool.", e);
+		}
+
+		if (closed && spool.remove(receipt)) {
+			spooledCount.decrementAndGet();
+			notifyIdleWaiters();
+			throw new IllegalStateException("The printer has been shut down.");
+		}
+	}
+
+	/**
+	 * Waits until every spooled receipt has been written to the device, or has
+	 * failed.
+	 */
+	@Override
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		synchronized (this) {
+			while (printedCount.get() + failedCount.get() < spooledCount.get()) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Stops accepting receipts, waits for the spooled ones to be written and
+	 * closes the device.
+	 */
+	@Override
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		closed = true;
+		unit.timedJoin(writer, timeout);
+		if (writer.isAlive()) {
+			return false;
+		}
+
+		try {
+			device.close();
+		} catch (IOException e) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of receipts that have been written to the device.
+	 */
+	public long getPrintedCount() {
+		return printedCount.get();
+	}
+
+	/**
+	 * @return the number of receipts that could not be written to the device.
+	 */
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	/**
+	 * @return the receipts that could not be written to the device and have not
+	 *         been printed again, oldest first.
+	 */
+	public List<Receipt> getFailedReceipts() {
+		return new ArrayList<>(failedReceipts);
+	}
+
+	/**
+	 * Spools the receipts that could not be written to the device again, oldest
+	 * first. A receipt that fails again is kept again.
+	 *
+	 * @return The number of receipts that were spooled.
+	 * @throws IllegalStateException If the printer has been shut down.
+	 */
+	public int reprintFailed() {
+		int reprinted = 0;
+		for (Receipt receipt = failedReceipts.poll(); receipt != null; receipt = failedReceipts.poll()) {
+			printReceipt(receipt);
+			reprinted++;
+		}
+
+		return reprinted;
+	}
+
+	/**
+	 * @return the number of writes of one or more receipts to the device.
+	 */
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	/**
+	 * @return the number of receipts that are waiting in the spool.
+	 */
+	public int getSpooledReceipts() {
+		return spool.size();
+	}
+
+	private void printSpooledReceipts() {
+		List<Receipt> batch = new ArrayList<>(maxBatchSize);
+
+		while (!closed || !spool.isEmpty()) {
+			try {
+				Receipt first = spool.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+			} catch (InterruptedException e) {
+				continue;
+			}
+			spool.drainTo(batch, maxBatchSize - 1);
+
+			printBatch(batch);
+			batch.clear();
+		}
+	}
+
+	private void printBatch(List<Receipt> batch) {
+		encoder.clear();
+		for (int i = 0; i < batch.size(); i++) {
+			encoder.put(RECEIPT_START);
+			encoder.encode(renderer.render(batch.get(i)));
+			encoder.put(RECEIPT_END);
+		}
+
+		ByteBuffer bytes = encoder.getBytes();
+		bytes.flip();
+		try {
+			while (bytes.hasRemaining()) {
+				device.write(bytes);
+			}
+			printedCount.addAndGet(batch.size());
+		} catch (IOException e) {
+			failedReceipts.addAll(batch);
+			failedCount.addAndGet(batch.size());
+			if (errorLog != null) {
+				errorLog.logException(new PrinterException("Could not print " + batch.size()
+						+ " receipt(s). They were kept to be printed again.", e));
+			}
+		}
+		batchCount.incrementAndGet();
+		notifyIdleWaiters();
+	}
+
+	private synchronized void notifyIdleWaiters() {
+		notifyAll();
+	}
+}
@@ -0,0 +1,85 @@
+package integration.printer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Collects bytes for a printer in a buffer that is reused, and grown when
+ * needed. Text is encoded with a reusable {@link CharsetEncoder}, and
+ * characters that the charset cannot represent are replaced.
+ */
+final class TextEncoder {
+	private final CharsetEncoder encoder;
+	private ByteBuffer bytes;
+
+	/**
+	 * Creates a new encoder.
+	 *
+	 * @param charset         The charset that text is encoded with.
+	 * @param initialCapacity The initial size of the buffer, in bytes.
+	 */
+	TextEncoder(Charset charset, int initialCapacity) {
+		encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		bytes = ByteBuffer.allocate(initialCapacity);
+	}
+
+	/**
+	 * Removes all bytes from the buffer.
+	 */
+	void clear() {
+		bytes.clear();
+	}
+
+	/**
+	 * Adds bytes as they are, for example printer commands.
+	 *
+	 * @param command The bytes to add.
+	 */
+	void put(byte[] command) {
+		while (bytes.remaining() < command.length) {
+			growBuffer();
+		}
+		bytes.put(command);
+	}
+
+	/**
+	 * Encodes text and adds it to the buffer.
+	 *
+	 * @param text The text to encode. Its position is moved to its limit.
+	 */
+	void encode(CharBuffer text) {
+		encoder.reset();
+
+		CoderResult result = encoder.encode(text, bytes, true);
+		while (result.isOverflow()) {
+			growBuffer();
+			result = encoder.encode(text, bytes, true);
+		}
+		result = encoder.flush(bytes);
+		while (result.isOverflow()) {
+			growBuffer();
+			result = encoder.flush(bytes);
+		}
+	}
+
+	/**
+	 * @return the buffer, with the added bytes between index zero and its
+	 *         position. The buffer is reused, and may be replaced by a larger
+	 *         one when more bytes are added.
+	 */
+	ByteBuffer getBytes() {
+		return bytes;
+	}
+
+	private void growBuffer() {
+		ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+		bytes.flip();
+		larger.put(bytes);
+		bytes = larger;
+	}
+}
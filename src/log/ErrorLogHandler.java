@@ -4,65 +4,348 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
 
 /**
  * Outputs the exception's error message to the log file.
+ * <p>
+ * Logging does not write to the file on the calling thread. The exception and
+ * the time it was logged are put in a bounded ring buffer, and a writer thread
+ * formats the buffered entries and flushes the file once for each batch. If
+ * the buffer is full the entry is dropped and counted, and the writer notes
+ * in the log how many entries were dropped. Call
+ * {@link #shutdown(long, TimeUnit)} to write the remaining entries and close
+ * the file.
+ * <p>
+ * The same error is often logged many times in a row. The writer takes the
+ * {@link ExceptionFingerprint} of every exception and writes the full stack
+ * trace only for the first one with a fingerprint in each repeat window. The
+ * ones that follow in the window are only counted, and when the window ends
+ * the writer notes how many times the error was repeated.
  */
 public class ErrorLogHandler {
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final long WRITE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	private static final long DEFAULT_REPEAT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+	private static final DateTimeFormatter DATE_AND_TIME = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+
 	private final String filepath;
-	private PrintWriter writer;
+	private final PrintWriter writer;
+	private final RingBuffer<Entry> entries;
+	private final Thread writerThread;
+	private final long repeatWindowMillis;
+	private final LongSupplier clock;
+	private final Map<ExceptionFingerprint, Repeats> repeats = new HashMap<>();
+
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicInteger loggingThreads = new AtomicInteger();
+	private volatile long writtenCount;
+	private volatile long repeatedCount;
+	private long reportedDroppedCount;
+	private volatile boolean closed;
+	private volatile boolean stopping;
 
 	/**
 	 * Constructs a new instance to a standard file path specified in this class.
-	 * 
+	 *
 	 * @throws IOException if the named file exists but is a directory rather than a
 	 *                     regular file, does not exist but cannot be created, or
 	 *                     cannot be opened for any other reason
 	 */
 	public ErrorLogHandler() throws IOException {
-		this.filepath = "pos-error-log.txt";
-		writer = new PrintWriter(new BufferedWriter(new FileWriter(filepath, true)));
+		this("pos-error-log.txt");
 	}
 
 	/**
 	 * Constructs a new instance that writes to the file specified with
 	 * <code>path</code>.
-	 * 
+	 *
 	 * @param path Path to the file that should be written to.
 	 * @throws IOException if the named file exists but is a directory rather than a
 	 *                     regular file, does not exist but cannot be created, or
 	 *                     cannot be opened for any other reason.
 	 */
 	public ErrorLogHandler(String path) throws IOException {
+		this(path, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new instance that writes to the file specified with
+	 * <code>path</code>, and buffers at most <code>capacity</code> entries that
+	 * are waiting to be written.
+	 *
+	 * @param path     Path to the file that should be written to.
+	 * @param capacity The least number of entries that can wait to be written. It
+	 *                 is rounded up to a power of two.
+	 * @throws IOException if the named file exists but is a directory rather than a
+	 *                     regular file, does not exist but cannot be created, or
+	 *                     cannot be opened for any other reason.
+	 */
+	public ErrorLogHandler(String path, int capacity) throws IOException {
+		this(path, capacity, DEFAULT_REPEAT_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Constructs a new instance that writes to the file specified with
+	 * <code>path</code>, buffers at most <code>capacity</code> entries that are
+	 * waiting to be written, and writes the stack trace of a repeated error at
+	 * most once per <code>repeatWindow</code>.
+	 *
+	 * @param path         Path to the file that should be written to.
+	 * @param capacity     The least number of entries that can wait to be written.
+	 *                     It is rounded up to a power of two.
+	 * @param repeatWindow How long repeats of an error are only counted after its
+	 *                     stack trace was written. Zero writes every stack trace.
+	 * @param unit         The unit of <code>repeatWindow</code>.
+	 * @throws IOException if the named file exists but is a directory rather than a
+	 *                     regular file, does not exist but cannot be created, or
+	 *                     cannot be opened for any other reason.
+	 */
+	public ErrorLogHandler(String path, int capacity, long repeatWindow, TimeUnit unit) throws IOException {
+		this(path, capacity, repeatWindow, unit, System::currentTimeMillis);
+	}
+
+	/**
+	 * Constructs a new instance that reads the time of each entry, and the time
+	 * that repeat windows are compared with, from the specified clock.
+	 *
+	 * @param path         Path to the file that should be written to.
+	 * @param capacity     The least number of entries that can wait to be written.
+	 *                     It is rounded up to a power of two.
+	 * @param repeatWindow How long repeats of an error are only counted after its
+	 *                     stack trace was written. Zero writes every stack trace.
+	 * @param unit         The unit of <code>repeatWindow</code>.
+	 * @param clock        Returns the current time in milliseconds since the
+	 *                     epoch.
+	 * @throws IOException if the named file exists but is a directory rather than a
+	 *                     regular file, does not exist but cannot be created, or
+	 *                     cannot be opened for any other reason.
+	 */
+	public ErrorLogHandler(String path, int capacity, long repeatWindow, TimeUnit unit, LongSupplier clock)
+			throws IOException {
 		this.filepath = path;
+		this.entries = new RingBuffer<>(capacity);
+		this.repeatWindowMillis = unit.toMillis(repeatWindow);
+		this.clock = clock;
 		writer = new PrintWriter(new BufferedWriter(new FileWriter(filepath, true)));
+
+		writerThread = new Thread(this::writeEntries, "error-log-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
 	}
 
 	/**
 	 * Prints the specified exception's error message, followed by the stack trace,
 	 * to the log file. If text already exists in the log, the message will be appended
-	 * and printed on a new line.
-	 * 
+	 * and printed on a new line. The entry is written by the writer thread; this
+	 * method never waits. If too many entries are waiting to be written, or the log
+	 * has been shut down, the entry is dropped and counted.
+	 *
 	 * @param exceptionToLog The exception that should be logged.
 	 */
 	public void logException(Exception exceptionToLog) {
-		StringBuilder sb = new StringBuilder("[" + getLocalTimeAndDate() + "]\n");
+		loggingThreads.incrementAndGet();
+		try {
+			if (closed || !entries.offer(new Entry(exceptionToLog, clock.getAsLong()))) {
+				droppedCount.incrementAndGet();
+			}
+		} finally {
+			loggingThreads.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Stops accepting entries, waits for the buffered ones to be written and
+	 * closes the log file. The writer is only told to stop once every thread
+	 * that was logging when the log was closed has buffered or dropped its
+	 * entry, so no entry is buffered after the writer's last look.
+	 *
+	 * @param timeout The longest time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if every buffered entry was written and the file
+	 *         was closed, <code>false</code> if the time ran out.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		closed = true;
+		while (loggingThreads.get() > 0) {
+			if (System.nanoTime() - deadline >= 0) {
+				return false;
+			}
+			Thread.yield();
+		}
+
+		stopping = true;
+		LockSupport.unpark(writerThread);
+		TimeUnit.NANOSECONDS.timedJoin(writerThread, deadline - System.nanoTime());
+		if (writerThread.isAlive()) {
+			return false;
+		}
+
+		writer.close();
+		return true;
+	}
+
+	/**
+	 * @return the number of entries that have been written to the log file with
+	 *         their stack trace.
+	 */
+	public long getWrittenCount() {
+		return writtenCount;
+	}
+
+	/**
+	 * @return the number of entries that were not written because they repeated
+	 *         an error that had been written, and were only counted.
+	 */
+	public long getRepeatedCount() {
+		return repeatedCount;
+	}
+
+	/**
+	 * @return the number of entries that were dropped because the buffer was full
+	 *         or the log had been shut down.
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	private void writeEntries() {
+		boolean wasStopping;
+		do {
+			wasStopping = stopping;
+			if (writeBufferedEntries() == 0 && !wasStopping) {
+				LockSupport.parkNanos(this, WRITE_INTERVAL_NANOS);
+			}
+		} while (!wasStopping);
+
+		writeExpiredRepeats(Long.MAX_VALUE);
+		writer.flush();
+	}
+
+	private int writeBufferedEntries() {
+		int taken = 0;
+		int written = 0;
+		for (Entry entry = entries.poll(); entry != null; entry = entries.poll()) {
+			taken++;
+			if (isRepeat(entry)) {
+				repeatedCount++;
+			} else {
+				writeEntry(entry);
+				written++;
+			}
+		}
+		boolean wroteNotes = writeExpiredRepeats(clock.getAsLong());
+		wroteNotes |= writeDroppedCount();
+
+		if (written > 0 || wroteNotes) {
+			writer.flush();
+			writtenCount += written;
+		}
+		return taken;
+	}
+
+	private boolean isRepeat(Entry entry) {
+		ExceptionFingerprint fingerprint = ExceptionFingerprint.of(entry.exception);
+		Repeats repeatsOfEntry = repeats.get(fingerprint);
+		if (repeatsOfEntry != null && entry.timeMillis < repeatsOfEntry.windowEndMillis) {
+			repeatsOfEntry.count++;
+			return true;
+		}
+
+		if (repeatsOfEntry != null) {
+			writeRepeats(repeatsOfEntry);
+		}
+		repeats.put(fingerprint, new Repeats(entry, repeatWindowMillis));
+		return false;
+	}
+
+	private boolean writeExpiredRepeats(long nowMillis) {
+		boolean wrote = false;
+		for (Iterator<Repeats> it = repeats.values().iterator(); it.hasNext();) {
+			Repeats repeatsOfEntry = it.next();
+			if (repeatsOfEntry.windowEndMillis <= nowMillis) {
+				wrote |= writeRepeats(repeatsOfEntry);
+				it.remove();
+			}
+		}
+		return wrote;
+	}
+
+	private boolean writeRepeats(Repeats repeatsOfEntry) {
+		if (repeatsOfEntry.count == 0) {
+			return false;
+		}
+
+		writer.println("[" + formatTime(clock.getAsLong()) + "]");
+		writer.println("REPEATED:");
+		writer.println(repeatsOfEntry.first.exception);
+		writer.println("Repeated " + repeatsOfEntry.count + " more time(s) since "
+				+ formatTime(repeatsOfEntry.first.timeMillis) + ".");
+		writer.println();
+		return true;
+	}
+
+	private void writeEntry(Entry entry) {
+		StringBuilder sb = new StringBuilder("[" + formatTime(entry.timeMillis) + "]\n");
 		sb.append("ERROR:\n");
-		sb.append(exceptionToLog.getMessage() + "\n");
+		sb.append(entry.exception.getMessage() + "\n");
 		sb.append("Stack trace:");
 		writer.println(sb.toString());
-		exceptionToLog.printStackTrace(writer);
+		entry.exception.printStackTrace(writer);
 		writer.println();
+	}
 
-		writer.flush();
+	private boolean writeDroppedCount() {
+		long dropped = droppedCount.get();
+		if (dropped == reportedDroppedCount) {
+			return false;
+		}
+
+		writer.println("[" + formatTime(clock.getAsLong()) + "]");
+		writer.println("WARNING:");
+		writer.println((dropped - reportedDroppedCount) + " error(s) were dropped without being logged.");
+		writer.println();
+		reportedDroppedCount = dropped;
+		return true;
+	}
+
+	private static String formatTime(long timeMillis) {
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), ZoneId.systemDefault()).format(DATE_AND_TIME);
+	}
+
+	private static class Entry {
+		private final Exception exception;
+		private final long timeMillis;
+
+		private Entry(Exception exception, long timeMillis) {
+			this.exception = exception;
+			this.timeMillis = timeMillis;
+		}
 	}
 
-	private String getLocalTimeAndDate() {
-		DateTimeFormatter dateAndTime = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+	private static class Repeats {
+		private final Entry first;
+		private final long windowEndMillis;
+		private long count;
 
-		return LocalDateTime.now().format(dateAndTime);
+		private Repeats(Entry first, long windowMillis) {
+			this.first = first;
+			this.windowEndMillis = windowMillis < Long.MAX_VALUE - first.timeMillis ? first.timeMillis + windowMillis
+					: Long.MAX_VALUE;
+		}
 	}
 }
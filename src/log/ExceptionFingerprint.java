@@ -0,0 +1,59 @@
+package log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Identifies exceptions that were thrown the same way: with the same type, from
+ * the same stack frames, and with causes that were thrown the same way. The
+ * messages are not part of the fingerprint, so the same error with a different
+ * item ID has the same fingerprint.
+ */
+final class ExceptionFingerprint {
+	private final Object[] parts;
+	private final int hash;
+
+	private ExceptionFingerprint(Object[] parts) {
+		this.parts = parts;
+		this.hash = Arrays.hashCode(parts);
+	}
+
+	/**
+	 * Takes the fingerprint of an exception and its causes.
+	 *
+	 * @param exception The exception.
+	 * @return The fingerprint of the exception.
+	 */
+	static ExceptionFingerprint of(Throwable exception) {
+		List<Object> parts = new ArrayList<>();
+		Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+
+		for (Throwable current = exception; current != null && visited.add(current); current = current.getCause()) {
+			parts.add(current.getClass().getName());
+			Collections.addAll(parts, (Object[]) current.getStackTrace());
+		}
+		return new ExceptionFingerprint(parts.toArray());
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof ExceptionFingerprint)) {
+			return false;
+		}
+
+		ExceptionFingerprint fingerprint = (ExceptionFingerprint) other;
+		return hash == fingerprint.hash && Arrays.equals(parts, fingerprint.parts);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
@@ -0,0 +1,101 @@
+package log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded ring buffer that any number of threads can add elements to and
+ * that one thread takes them from. Adding never waits and never takes a lock:
+ * a producer claims a slot with one compare-and-set and publishes its element
+ * by advancing the slot's sequence number. When the buffer is full the element
+ * is refused, so the caller decides what happens to it.
+ *
+ * @param <E> The type of the elements.
+ */
+final class RingBuffer<E> {
+	private final AtomicReferenceArray<E> elements;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private long head;
+
+	/**
+	 * Creates a new, empty buffer.
+	 *
+	 * @param minCapacity The least number of elements the buffer can hold. It is
+	 *                    rounded up to a power of two, and to at least two, since
+	 *                    a slot's sequence number could not tell a full buffer of
+	 *                    one slot from an empty one.
+	 */
+	RingBuffer(int minCapacity) {
+		if (minCapacity < 1 || minCapacity > 1 << 30) {
+			throw new IllegalArgumentException("Invalid capacity: " + minCapacity);
+		}
+		int capacity = Integer.highestOneBit(Math.max(minCapacity, 2));
+		if (capacity < minCapacity) {
+			capacity <<= 1;
+		}
+
+		elements = new AtomicReferenceArray<>(capacity);
+		sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Adds an element, unless the buffer is full. Can be called by any thread.
+	 *
+	 * @param element The element to add.
+	 * @return <code>true</code> if the element was added, <code>false</code> if
+	 *         the buffer was full.
+	 */
+	boolean offer(E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.lazySet(index, element);
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Takes the oldest element. Must only be called by the consuming thread.
+	 *
+	 * @return The oldest element, or <code>null</code> if no element has been
+	 *         published yet.
+	 */
+	E poll() {
+		int index = (int) head & mask;
+		if (sequences.get(index) != head + 1) {
+			return null;
+		}
+
+		E element = elements.get(index);
+		elements.lazySet(index, null);
+		sequences.lazySet(index, head + mask + 1);
+		head++;
+		return element;
+	}
+
+	/**
+	 * @return the number of elements the buffer can hold.
+	 */
+	int capacity() {
+		return mask + 1;
+	}
+}
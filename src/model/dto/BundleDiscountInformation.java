@@ -0,0 +1,88 @@
+package model.dto;
+
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+/**
+ * An immutable data container for the discount that a sale got on one item
+ * because the item was part of a bundle. If a bundle takes units of several
+ * items, the sale has one of these for each item, so that the discount can be
+ * accounted for at the VAT rate of the item.
+ */
+public final class BundleDiscountInformation {
+	private final String description;
+	private final IdentificationNumber itemID;
+	private final Amount vatRate;
+	private final int quantity;
+	private final Amount discount;
+	private final Amount vatDiscount;
+
+	/**
+	 * Creates an instance.
+	 *
+	 * @param description A description of the bundle.
+	 * @param itemID      The ID of the discounted item.
+	 * @param vatRate     The VAT rate of the discounted item.
+	 * @param quantity    How many units of the item were part of the bundle.
+	 * @param discount    The total discount on those units, VAT included.
+	 * @param vatDiscount How much of the discount is VAT.
+	 */
+	public BundleDiscountInformation(String description, IdentificationNumber itemID, Amount vatRate, int quantity,
+			Amount discount, Amount vatDiscount) {
+		this.description = description;
+		this.itemID = itemID;
+		this.vatRate = vatRate;
+		this.quantity = quantity;
+		this.discount = discount;
+		this.vatDiscount = vatDiscount;
+	}
+
+	/**
+	 * @return the description of the bundle.
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @return the ID of the discounted item.
+	 */
+	public IdentificationNumber getItemID() {
+		return itemID;
+	}
+
+	/**
+	 * @return the VAT rate of the discounted item.
+	 */
+	public Amount getVatRate() {
+		return vatRate;
+	}
+
+	/**
+	 * @return how many units of the item were part of the bundle.
+	 */
+	public int getQuantity() {
+		return quantity;
+	}
+
+	/**
+	 * @return the total discount on the units, VAT included.
+	 */
+	public Amount getDiscount() {
+		return discount;
+	}
+
+	/**
+	 * @return how much of the discount is VAT.
+	 */
+	public Amount getVatDiscount() {
+		return vatDiscount;
+	}
+
+	/**
+	 * A string representation of this object, as it is shown on the receipt.
+	 */
+	public String toString() {
+		return String.format("%-31s %s", description, "-" + discount);
+	}
+}
@@ -36,6 +36,29 @@ public final class PurchasedItemInformation {
 		this.discountType = item.getDiscount();
 	}
 
+	/**
+	 * Constructs an <code>ItemInformation</code> from previously stored values,
+	 * for example when a sold item is read back from the sale log.
+	 * 
+	 * @param description The description of the item.
+	 * @param unitPrice   The price per unit, including VAT tax and discounts.
+	 * @param unitVatTax  The VAT tax per unit.
+	 * @param quantity    The quantity sold.
+	 * @param discount    The discount applied to the item, or <code>null</code>
+	 *                    if it was not discounted.
+	 */
+	public PurchasedItemInformation(ItemDescription description, Amount unitPrice, Amount unitVatTax, int quantity,
+			Discount discount) {
+		this.description = description;
+		this.unitPrice = unitPrice;
+		this.unitVatTax = unitVatTax;
+		this.quantity = quantity;
+		this.accumulatedPrice = unitPrice.multiply(quantity);
+		this.accumulatedVatTax = unitVatTax.multiply(quantity);
+		this.discounted = discount != null;
+		this.discountType = discount;
+	}
+
 	/**
 	 * Returns the item description contained in this object.
 	 * 
@@ -104,6 +127,25 @@ public final class PurchasedItemInformation {
 	public Discount getDiscount() {
 		return discountType;
 	}
+
+	/**
+	 * Returns how much was deducted from the total price of the item by its
+	 * discount. That is the difference between what the items would have cost
+	 * without the discount, with VAT calculated the same way as in {@link Item},
+	 * and what they cost.
+	 * 
+	 * @return The deducted amount, zero if the item was not discounted.
+	 */
+	public Amount getAccumulatedDiscount() {
+		if (!discounted) {
+			return new Amount(0);
+		}
+
+		Amount listUnitPrice = description.getPrice()
+				.add(description.getPrice().multiply(description.getVatRate(), Item.VAT_ROUNDING));
+		return listUnitPrice.subtract(unitPrice).multiply(quantity);
+	}
+
 	/**
 	 * Compares an <code>Object</code> and an <code>ItemInformation</code> object.
 	 * 
@@ -122,6 +164,11 @@ public final class PurchasedItemInformation {
 		return false;
 	}
 
+	@Override
+	public int hashCode() {
+		return description.getID().hashCode();
+	}
+
 	/**
 	 * Gives a string representation of this object containing its name, total
 	 * quantity, unit price and accumulated price.
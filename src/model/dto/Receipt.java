@@ -3,6 +3,7 @@ package model.dto;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import model.pos.Item;
@@ -14,12 +15,15 @@ import model.util.Amount;
  */
 public class Receipt {
 	private final List<PurchasedItemInformation> itemList;
+	private final List<BundleDiscountInformation> bundleDiscounts;
 	private final PriceInformation priceInfo;
 	private final Amount amountPaid;
 	private final Amount changeAmount;
 	private final Store store;
 	private final LocalTime timeOfSale;
 	private final LocalDate dateOfSale;
+	private final long registerID;
+	private final long registerPeriod;
 
 	/**
 	 * Constructs an instance of <code>Receipt</code> that contains information
@@ -33,16 +37,117 @@ public class Receipt {
 	 *                     payment.
 	 */
 	public Receipt(List<PurchasedItemInformation> itemList, PriceInformation priceInfo, Amount amountPaid, Amount changeAmount) {
+		this(itemList, Collections.<BundleDiscountInformation>emptyList(), priceInfo, amountPaid, changeAmount);
+	}
+
+	/**
+	 * Constructs an instance of <code>Receipt</code> for a sale that got bundle
+	 * discounts.
+	 * 
+	 * @param itemList        A list containing the sold items.
+	 * @param bundleDiscounts The discounts that the sale got on bundled items.
+	 * @param priceInfo       Price information from the sale.
+	 * @param amountPaid      The amount paid by the customer in the sale.
+	 * @param changeAmount    The amount of change the customer should receive
+	 *                        after payment.
+	 */
+	public Receipt(List<PurchasedItemInformation> itemList, List<BundleDiscountInformation> bundleDiscounts,
+			PriceInformation priceInfo, Amount amountPaid, Amount changeAmount) {
 		this.itemList = itemList;
+		this.bundleDiscounts = bundleDiscounts;
 		this.priceInfo = priceInfo;
 		this.amountPaid = amountPaid;
 		this.changeAmount = changeAmount;
 		this.timeOfSale = LocalTime.now();
 		this.dateOfSale = LocalDate.now();
+		this.registerID = 0;
+		this.registerPeriod = 0;
 
 		this.store = new Store("Real Store", "Real Street 123");
 	}
 
+	/**
+	 * Constructs an instance of <code>Receipt</code> for a sale that was completed
+	 * earlier, for example when it is read back from the sale log.
+	 * 
+	 * @param itemList     A list containing the sold items.
+	 * @param priceInfo    Price information from the sale.
+	 * @param amountPaid   The amount paid by the customer in the sale.
+	 * @param changeAmount The amount of change the customer received.
+	 * @param store        The store that the sale was made in.
+	 * @param timeOfSale   The time of the sale.
+	 * @param dateOfSale   The date of the sale.
+	 */
+	public Receipt(List<PurchasedItemInformation> itemList, PriceInformation priceInfo, Amount amountPaid,
+			Amount changeAmount, Store store, LocalTime timeOfSale, LocalDate dateOfSale) {
+		this(itemList, Collections.<BundleDiscountInformation>emptyList(), priceInfo, amountPaid, changeAmount, store,
+				timeOfSale, dateOfSale);
+	}
+
+	/**
+	 * Constructs an instance of <code>Receipt</code> for a sale that was completed
+	 * earlier and got bundle discounts.
+	 * 
+	 * @param itemList        A list containing the sold items.
+	 * @param bundleDiscounts The discounts that the sale got on bundled items.
+	 * @param priceInfo       Price information from the sale.
+	 * @param amountPaid      The amount paid by the customer in the sale.
+	 * @param changeAmount    The amount of change the customer received.
+	 * @param store           The store that the sale was made in.
+	 * @param timeOfSale      The time of the sale.
+	 * @param dateOfSale      The date of the sale.
+	 */
+	public Receipt(List<PurchasedItemInformation> itemList, List<BundleDiscountInformation> bundleDiscounts,
+			PriceInformation priceInfo, Amount amountPaid, Amount changeAmount, Store store, LocalTime timeOfSale,
+			LocalDate dateOfSale) {
+		this(itemList, bundleDiscounts, priceInfo, amountPaid, changeAmount, store, timeOfSale, dateOfSale, 0, 0);
+	}
+
+	/**
+	 * Constructs an instance of <code>Receipt</code> for a sale that was completed
+	 * earlier and was registered in a cash register.
+	 * 
+	 * @param itemList        A list containing the sold items.
+	 * @param bundleDiscounts The discounts that the sale got on bundled items.
+	 * @param priceInfo       Price information from the sale.
+	 * @param amountPaid      The amount paid by the customer in the sale.
+	 * @param changeAmount    The amount of change the customer received.
+	 * @param store           The store that the sale was made in.
+	 * @param timeOfSale      The time of the sale.
+	 * @param dateOfSale      The date of the sale.
+	 * @param registerID      The ID of the cash register that registered the
+	 *                        payment, or 0 if it is not known.
+	 * @param registerPeriod  The number of the register period the payment was
+	 *                        registered in, or 0 if it is not known.
+	 */
+	public Receipt(List<PurchasedItemInformation> itemList, List<BundleDiscountInformation> bundleDiscounts,
+			PriceInformation priceInfo, Amount amountPaid, Amount changeAmount, Store store, LocalTime timeOfSale,
+			LocalDate dateOfSale, long registerID, long registerPeriod) {
+		this.itemList = itemList;
+		this.bundleDiscounts = bundleDiscounts;
+		this.priceInfo = priceInfo;
+		this.amountPaid = amountPaid;
+		this.changeAmount = changeAmount;
+		this.store = store;
+		this.timeOfSale = timeOfSale;
+		this.dateOfSale = dateOfSale;
+		this.registerID = registerID;
+		this.registerPeriod = registerPeriod;
+	}
+
+	/**
+	 * Returns a copy of this receipt that tells which cash register and register
+	 * period the payment was registered in.
+	 * 
+	 * @param registerID     The ID of the cash register.
+	 * @param registerPeriod The number of the register period.
+	 * @return The registered receipt.
+	 */
+	public Receipt registeredIn(long registerID, long registerPeriod) {
+		return new Receipt(itemList, bundleDiscounts, priceInfo, amountPaid, changeAmount, store, timeOfSale,
+				dateOfSale, registerID, registerPeriod);
+	}
+
 	/**
 	 * Returns a list that contains immutable data objects of the sold items.
 	 * 
@@ -52,6 +157,17 @@ public class Receipt {
 		return itemList;
 	}
 
+	/**
+	 * Returns the discounts that the sale got because items were part of bundles.
+	 * The discounts are already included in the price information.
+	 * 
+	 * @return A list of {@link BundleDiscountInformation} objects, which is empty
+	 *         if the sale did not get any bundle.
+	 */
+	public List<BundleDiscountInformation> getBundleDiscounts() {
+		return bundleDiscounts;
+	}
+
 	/**
 	 * Returns the price information of the sale.
 	 * 
@@ -88,6 +204,15 @@ public class Receipt {
 		return timeOfSale;
 	}
 
+	/**
+	 * Returns the date of the sale.
+	 * 
+	 * @return Date of the sale as a <code>LocalDate</code> object.
+	 */
+	public LocalDate getDateOfSale() {
+		return dateOfSale;
+	}
+
 	/**
 	 * Returns an instance of a {@link Store} object that contains information about
 	 * the store's address and name.
@@ -98,6 +223,26 @@ public class Receipt {
 		return store;
 	}
 
+	/**
+	 * Returns the ID of the cash register that registered the payment.
+	 * 
+	 * @return The register ID, or 0 if the receipt has not been registered or
+	 *         was written before register IDs were recorded.
+	 */
+	public long getRegisterID() {
+		return registerID;
+	}
+
+	/**
+	 * Returns the number of the register period that the payment was registered
+	 * in, see {@link #getRegisterID()}.
+	 * 
+	 * @return The period number, or 0 if it is not known.
+	 */
+	public long getRegisterPeriod() {
+		return registerPeriod;
+	}
+
 	/**
 	 * The string representation for the receipt.
 	 */
@@ -110,6 +255,9 @@ public class Receipt {
 		for (PurchasedItemInformation productInfo : itemList) {
 			sb.append(productInfo.toString() + "\n");
 		}
+		for (BundleDiscountInformation bundleDiscount : bundleDiscounts) {
+			sb.append(bundleDiscount.toString() + "\n");
+		}
 		sb.append("\n-----------------------------------------\n");
 		sb.append(String.format("%s\n", priceInfo.toString()));
 		sb.append("-----------------------------------------\n");
@@ -1,5 +1,7 @@
 package model.pos;
 
+import java.math.RoundingMode;
+
 import integration.dbhandler.data.ItemDescription;
 import integration.dbhandler.discount.Discount;
 import model.dto.PurchasedItemInformation;
@@ -11,8 +13,17 @@ import model.util.Amount;
  */
 
 public class Item {
+	/**
+	 * The rounding mode used when the VAT of a price is calculated.
+	 */
+	public static final RoundingMode VAT_ROUNDING = RoundingMode.HALF_UP;
+
+	private static final RoundingMode DISCOUNT_ROUNDING = RoundingMode.HALF_EVEN;
+
 	private ItemDescription description;
 	private int quantity;
+	private final Amount baseUnitPrice;
+	private final Amount baseUnitVatTax;
 	private Amount unitPrice;
 	private Amount unitVatTax;
 
@@ -32,8 +43,10 @@ public class Item {
 		this.description = description;
 		this.quantity = quantity;
 
-		unitVatTax = calculateVatTax(description.getPrice(), description.getVatRate());
-		unitPrice = calculateItemPrice(description.getPrice());
+		baseUnitVatTax = calculateVatTax(description.getPrice(), description.getVatRate());
+		baseUnitPrice = description.getPrice().add(baseUnitVatTax);
+		unitVatTax = baseUnitVatTax;
+		unitPrice = baseUnitPrice;
 	}
 
 	/**
@@ -99,20 +112,32 @@ public class Item {
 	}
 
 	/**
-	 * Applies the specified discount to this items unit price and vat tax.
+	 * Applies the specified discount to this items unit price and vat tax. The
+	 * discount replaces any discount that was applied before, and is calculated
+	 * from the undiscounted price, so discounts never add up.
 	 * 
 	 * @param discount The discount that should be applied.
 	 */
 	public void applyDiscount(Discount discount) {
-		if (!discounted) {
-			discountType = discount;
-			discounted = true;
-		}
+		discountType = discount;
+		discounted = true;
+
+		Amount rate = discount.getRate();
+		Amount priceDiscount = baseUnitPrice.multiply(rate, DISCOUNT_ROUNDING);
+		Amount taxDiscount = baseUnitVatTax.multiply(rate, DISCOUNT_ROUNDING);
+		unitPrice = baseUnitPrice.subtract(priceDiscount);
+		unitVatTax = baseUnitVatTax.subtract(taxDiscount);
+	}
 
-		Amount priceDiscount = unitPrice.multiply(discount.getRate());
-		Amount taxDiscount = unitVatTax.multiply(discount.getRate());
-		unitPrice = unitPrice.subtract(priceDiscount);
-		unitVatTax = unitVatTax.subtract(taxDiscount);
+	/**
+	 * Removes the discount of this item, if it has one, and restores its
+	 * undiscounted unit price and vat tax.
+	 */
+	public void removeDiscount() {
+		discountType = null;
+		discounted = false;
+		unitPrice = baseUnitPrice;
+		unitVatTax = baseUnitVatTax;
 	}
 
 	/**
@@ -124,12 +149,8 @@ public class Item {
 		quantity += quantityToAdd;
 	}
 
-	private Amount calculateItemPrice(Amount price) {
-		return price.add(unitVatTax);
-	}
-
 	private Amount calculateVatTax(Amount price, Amount vatRate) {
-		return price.multiply(vatRate);
+		return price.multiply(vatRate, VAT_ROUNDING);
 	}
 
 	/**
@@ -145,9 +166,14 @@ public class Item {
 	public boolean equals(Object anObject) {
 		if (anObject instanceof Item) {
 			Item item = (Item) anObject;
-			return this.description.equals(item.getItemInformation().getItemDescription());
+			return this.description.equals(item.getItemDescription());
 		}
 
 		return false;
 	}
+
+	@Override
+	public int hashCode() {
+		return description.hashCode();
+	}
 }
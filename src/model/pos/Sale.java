@@ -1,12 +1,17 @@
 package model.pos;
 
 import java.util.ArrayList;
-import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import integration.dbhandler.InventorySystem;
 import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.BundleMatch;
+import integration.dbhandler.discount.BundleMatcher;
 import integration.dbhandler.discount.Discount;
+import integration.dbhandler.discount.DiscountRule;
+import integration.dbhandler.discount.DiscountRules;
 import model.dto.PriceInformation;
 import model.dto.PurchasedItemInformation;
 import model.dto.Receipt;
@@ -15,58 +20,101 @@ import model.util.Amount;
 import model.util.IdentificationNumber;
 
 /**
- * This class represents the ongoing sale. It has an internal array list that
- * stores the sold items.
+ * This class represents the ongoing sale. It has an internal map that stores
+ * the sold items by their item ID, in the order they were first scanned. The
+ * sale keeps the {@link DiscountRules} that were in effect when it started, and
+ * updates the discount of an item every time the item is added. When an item
+ * that is part of a bundle is added, the bundles of the sale are matched again,
+ * using only the sale's bundled items and a workspace that the sale keeps for
+ * every match.
  */
 public class Sale {
-	private List<Item> itemList;
+	private Map<IdentificationNumber, Item> itemsByID;
 	private TotalPrice totalPrice;
+	private DiscountRules discountRules;
+	private BundleMatch bundleMatch = BundleMatch.NONE;
+	private final List<Item> bundledItems = new ArrayList<>();
+	private final BundleMatcher.Workspace bundleWorkspace = new BundleMatcher.Workspace();
 
 	private List<CurrentSaleObserver> saleObservers = new ArrayList<>();
 
 	/**
 	 * Creates a new instance. The instance will have a list that contains the items
-	 * that's being purchased and the total price of the sale
+	 * that's being purchased and the total price of the sale. No discounts are
+	 * applied while items are added.
 	 */
 	public Sale() {
-		itemList = new ArrayList<>();
+		this(DiscountRules.empty());
+	}
+
+	/**
+	 * Creates a new instance that applies the specified discount rules as items
+	 * are added, so the running total always includes the discounts that the
+	 * sale qualifies for.
+	 * 
+	 * @param discountRules The discount rules to apply.
+	 */
+	public Sale(DiscountRules discountRules) {
+		itemsByID = new LinkedHashMap<>();
 		totalPrice = new TotalPrice();
+		this.discountRules = discountRules;
 	}
 
 	/**
 	 * Creates a new {@link Item} object containing the <code>itemDescription</code>
 	 * and the <code>quantity</code> and adds it to the internal item list. If an
 	 * identical item already exists in the list, the program will instead update
-	 * the quantity of that item.
+	 * the quantity of that item. Only the discount rule of the added item is
+	 * evaluated again, so the cost does not depend on the size of the sale.
 	 * 
 	 * @param itemDescription   description of the item that's stored in the
 	 *                          {@link InventorySystem}.
 	 * @param purchasedQuantity Amount of the corresponding item being purchased.
 	 * 
-	 * @return Information about the most recently purchased item.
+	 * @return Information about the sale's line of the most recently purchased
+	 *         item, with its total quantity and the discount it has been given.
 	 */
 	public PurchasedItemInformation addItemToSale(ItemDescription itemDescription, int purchasedQuantity) {
 		Item purchasedItem = new Item(itemDescription, purchasedQuantity);
+		Item itemInList = itemsByID.get(itemDescription.getID());
+		DiscountRule rule = discountRules.find(itemDescription.getID().getID());
 
-		if (itemList.contains(purchasedItem)) {
-			Item itemInList = getItemFromList(purchasedItem);
+		boolean bundled = discountRules.getBundles().isBundled(itemDescription.getID().getID());
 
+		if (itemInList == null) {
+			addItemToList(purchasedItem);
+			itemInList = purchasedItem;
+			if (bundled) {
+				bundledItems.add(itemInList);
+			}
+			if (rule != null) {
+				applyDiscountRule(itemInList, rule);
+			}
+			totalPrice.addToTotalPrice(itemInList);
+		} else if (rule == null) {
 			updateQuantityOfItemInList(itemInList, purchasedQuantity);
+			totalPrice.addToTotalPrice(itemInList, purchasedQuantity);
 		} else {
-			addItemToList(purchasedItem);
+			totalPrice.subtractFromTotalPrice(itemInList);
+			updateQuantityOfItemInList(itemInList, purchasedQuantity);
+			applyDiscountRule(itemInList, rule);
+			totalPrice.addToTotalPrice(itemInList);
+		}
+
+		if (bundled) {
+			matchBundles();
 		}
 
-		return purchasedItem.getItemInformation();
+		return itemInList.getItemInformation();
 	}
 
 	/**
-	 * Updates the total price from the items that have been sold so far.Returns
-	 * price information about this sale.
+	 * Returns price information about this sale. The total price is kept up to
+	 * date as items are added and discounted, so it is not recalculated here.
 	 * 
 	 * @return A {@link PriceInformation} object.
 	 */
 	public PriceInformation getPriceInformation() {
-		updateTotalPrice();
 		return totalPrice.getPriceInfo();
 	}
 
@@ -79,12 +127,36 @@ public class Sale {
 	 * @return
 	 */
 	public Receipt processSale(Amount amountPaid, Amount amountOfChange) {
-		Receipt receipt = new Receipt(getImmutableItemList(), totalPrice.getPriceInfo(), amountPaid, amountOfChange);
+		Receipt receipt = createReceipt(amountPaid, amountOfChange);
 
-		notifySaleObservers(amountPaid.subtract(amountOfChange));
+		completePayment(receipt);
 		return receipt;
 	}
 
+	/**
+	 * Creates a receipt containing the complete sale information, without
+	 * notifying the observers. Call {@link #completePayment(Receipt)} once the
+	 * payment has been accepted.
+	 * 
+	 * @param amountPaid     The amount paid by the customer.
+	 * @param amountOfChange The amount of change that the customer should receive.
+	 * @return The receipt of the sale.
+	 */
+	public Receipt createReceipt(Amount amountPaid, Amount amountOfChange) {
+		return new Receipt(getImmutableItemList(), bundleMatch.getDiscounts(), totalPrice.getPriceInfo(),
+				amountPaid, amountOfChange);
+	}
+
+	/**
+	 * Notifies the observers of the payment of a receipt that was created with
+	 * {@link #createReceipt(Amount, Amount)}.
+	 * 
+	 * @param receipt The receipt of the accepted payment.
+	 */
+	public void completePayment(Receipt receipt) {
+		notifySaleObservers(receipt.getAmountPaid().subtract(receipt.getAmountOfChange()));
+	}
+
 	/**
 	 * Adds the list of the provided {@link CurrentSaleObserver}s to this object.
 	 * 
@@ -95,20 +167,44 @@ public class Sale {
 	}
 
 	/**
-	 * Apply the discounts contained in the table to the item with the corresponding
-	 * ID numbers.
+	 * Evaluates the discount rules that the sale was created with for every item
+	 * in the sale, and applies the discounts that the sale qualifies for. Rules
+	 * that have been changed since the sale started are not used, so the sale
+	 * keeps a consistent set of discounts from start to end.
+	 */
+	public void applyDiscounts() {
+		applyDiscounts(discountRules);
+	}
+
+	/**
+	 * Evaluates the discount rules for every item in the sale, in one pass, and
+	 * applies the discounts that the sale qualifies for. The rules replace the
+	 * ones that the sale was created with, and are also used for items added
+	 * later. Discounts are always calculated from the item's undiscounted price,
+	 * so evaluating the same rules again does not change the sale.
 	 * 
-	 * @param itemDiscounts A table that specifies item IDs and their corresponding
-	 *                      discount.
+	 * @param discountRules The discount rules to evaluate.
 	 */
-	public void applyItemDiscounts(Hashtable<IdentificationNumber, Discount> itemDiscounts) {
-		for (Item item : itemList) {
-			IdentificationNumber id = item.getItemDescription().getID();
+	public void applyDiscounts(DiscountRules discountRules) {
+		this.discountRules = discountRules;
+		bundledItems.clear();
 
-			if (itemDiscounts.containsKey(id)) {
-				item.applyDiscount(itemDiscounts.get(id));
+		for (Item item : itemsByID.values()) {
+			if (discountRules.getBundles().isBundled(item.getItemDescription().getID().getID())) {
+				bundledItems.add(item);
 			}
+
+			DiscountRule rule = discountRules.find(item.getItemDescription().getID().getID());
+			if (rule == null && !item.getDiscountState()) {
+				continue;
+			}
+
+			totalPrice.subtractFromTotalPrice(item);
+			applyDiscountRule(item, rule);
+			totalPrice.addToTotalPrice(item);
 		}
+
+		matchBundles();
 	}
 
 	/**
@@ -118,8 +214,8 @@ public class Sale {
 	 * @return a new list containing immutable data about each sold item
 	 */
 	public List<PurchasedItemInformation> getImmutableItemList() {
-		List<PurchasedItemInformation> newList = new ArrayList<>();
-		for (Item i : itemList) {
+		List<PurchasedItemInformation> newList = new ArrayList<>(itemsByID.size());
+		for (Item i : itemsByID.values()) {
 			newList.add(i.getItemInformation());
 		}
 
@@ -132,24 +228,34 @@ public class Sale {
 		}
 	}
 
-	private void updateTotalPrice() {
-		totalPrice = new TotalPrice();
+	private void updateQuantityOfItemInList(Item item, int quantity) {
+		item.addToQuantity(quantity);
+	}
 
-		for (Item item : itemList) {
-			totalPrice.addToTotalPrice(item);
+	private void applyDiscountRule(Item item, DiscountRule rule) {
+		Discount discount = rule == null ? null : rule.evaluate(item.getQuantity());
+
+		if (discount != null) {
+			item.applyDiscount(discount);
+		} else {
+			item.removeDiscount();
 		}
 	}
 
-	private void updateQuantityOfItemInList(Item item, int quantity) {
-		item.addToQuantity(quantity);
-	}
+	private void matchBundles() {
+		List<PurchasedItemInformation> bundledLines = new ArrayList<>(bundledItems.size());
+		for (Item item : bundledItems) {
+			bundledLines.add(item.getItemInformation());
+		}
+		BundleMatch match = discountRules.getBundles().match(bundledLines, bundleWorkspace);
 
-	private Item getItemFromList(Item item) {
-		return itemList.get(itemList.indexOf(item));
+		totalPrice.subtractDiscount(match.getTotalDiscount().subtract(bundleMatch.getTotalDiscount()),
+				match.getTotalVatDiscount().subtract(bundleMatch.getTotalVatDiscount()));
+		bundleMatch = match;
 	}
 
 	private void addItemToList(Item item) {
-		itemList.add(item);
+		itemsByID.put(item.getItemDescription().getID(), item);
 	}
 
 }
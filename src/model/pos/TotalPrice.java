@@ -5,19 +5,20 @@ import model.util.Amount;
 
 /**
  * Represents the total price of the ongoing sale. Includes the total price including
- * VAT tax but also the VAT tax as a separate amount.
+ * VAT tax but also the VAT tax as a separate amount. The totals are accumulated in
+ * minor units, see {@link Amount#getMinorUnits()}.
  */
 public class TotalPrice {
-	private Amount totalPriceAmount;
-	private Amount totalVatAmount;
+	private long totalPriceUnits;
+	private long totalVatUnits;
 	
 	/**
 	 * Creates a new instance with total price and total VAT tax
 	 * at an initial amount of 0.
 	 */
 	TotalPrice() {
-		totalPriceAmount = new Amount(0);
-		totalVatAmount = new Amount(0);
+		totalPriceUnits = 0;
+		totalVatUnits = 0;
 	}
 	
 	/**
@@ -26,7 +27,7 @@ public class TotalPrice {
 	 * @return the price information.
 	 */
 	PriceInformation getPriceInfo() {
-		return new PriceInformation(totalPriceAmount, totalVatAmount);
+		return new PriceInformation(Amount.ofMinorUnits(totalPriceUnits), Amount.ofMinorUnits(totalVatUnits));
 	}
 	
 	/**
@@ -36,15 +37,58 @@ public class TotalPrice {
 	 * @param item Item whose price is getting added to the total. 
 	 */
 	void addToTotalPrice(Item item) {
-		Amount itemUnitPrice = item.getUnitPrice();
-		Amount itemUnitVat = item.getUnitVatTax();
+		addToTotalPrice(item, item.getQuantity());
+	}
+	
+	/**
+	 * Increments the total price of the sale by the price of an item
+	 * times the specified quantity. Used when more of an item that
+	 * is already included in the total is purchased.
+	 * @param item Item whose price is getting added to the total.
+	 * @param quantity How many units of the item to add.
+	 */
+	void addToTotalPrice(Item item, int quantity) {
+		totalPriceUnits = Math.addExact(totalPriceUnits, linePriceUnits(item, quantity));
+		
+		addToTotalVat(lineVatUnits(item, quantity));
+	}
+	
+	/**
+	 * Decrements the total price of the sale by the price of an item
+	 * times the quantity of the item. Also removes the items VAT tax
+	 * from the total.
+	 * @param item Item whose price is getting removed from the total.
+	 */
+	void subtractFromTotalPrice(Item item) {
+		int quantity = item.getQuantity();
 		
-		totalPriceAmount = totalPriceAmount.add(itemUnitPrice.multiply(item.getQuantity()));
+		totalPriceUnits = Math.subtractExact(totalPriceUnits, linePriceUnits(item, quantity));
 		
-		addToTotalVat(itemUnitVat.multiply(item.getQuantity()));
+		addToTotalVat(-lineVatUnits(item, quantity));
+	}
+	
+	/**
+	 * Decrements the total price and total VAT tax of the sale by a discount
+	 * that is not tied to the unit price of an item, such as a bundle discount.
+	 * A negative discount gives back a discount that was subtracted earlier.
+	 * @param discount The discount, VAT included.
+	 * @param vatDiscount How much of the discount is VAT.
+	 */
+	void subtractDiscount(Amount discount, Amount vatDiscount) {
+		totalPriceUnits = Math.subtractExact(totalPriceUnits, discount.getMinorUnits());
+		
+		addToTotalVat(-vatDiscount.getMinorUnits());
+	}
+	
+	private void addToTotalVat(long itemVatUnits) {
+		totalVatUnits = Math.addExact(totalVatUnits, itemVatUnits);
+	}
+	
+	private long linePriceUnits(Item item, int quantity) {
+		return Math.multiplyExact(item.getUnitPrice().getMinorUnits(), (long) quantity);
 	}
 	
-	private void addToTotalVat(Amount itemVatAmount) {
-		totalVatAmount = totalVatAmount.add(itemVatAmount);
+	private long lineVatUnits(Item item, int quantity) {
+		return Math.multiplyExact(item.getUnitVatTax().getMinorUnits(), (long) quantity);
 	}
 }
@@ -1,88 +1,172 @@
 package model.util;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * Represents an amount of any kind. For example an item price or a VAT rate.
+ * The value is stored as a fixed-point <code>long</code> of minor units, where
+ * one unit is 10<sup>-{@value #SCALE}</sup>, so that arithmetic does not have
+ * to allocate any {@link BigDecimal} objects. <code>BigDecimal</code> is only
+ * used when converting to and from other representations.
  */
 public class Amount {
-	private BigDecimal amount;
-	
+	/**
+	 * The number of decimals that an <code>Amount</code> is stored with.
+	 */
+	public static final int SCALE = 6;
+
+	/**
+	 * The number of minor units in one whole unit.
+	 */
+	public static final long UNITS_PER_WHOLE = 1_000_000L;
+
+	/**
+	 * The rounding mode used by the operations that do not take an explicit one.
+	 */
+	public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_EVEN;
+
+	private static final long MAX_EXACT_DOUBLE_UNITS = 1L << 53;
+
+	private final long units;
+
 	/**
 	 * Constructs a new <code>Amount</code> and initializes its value to the provided
 	 * <code>amount</code>.
-	 * 
+	 *
 	 * @param amount The amount that the instance will represent.
 	 */
 	public Amount(double amount) {
-		this.amount = new BigDecimal(String.valueOf(amount)); 
+		double scaled = amount * UNITS_PER_WHOLE;
+		if (Math.abs(scaled) < MAX_EXACT_DOUBLE_UNITS) {
+			this.units = Math.round(scaled);
+		} else {
+			this.units = toUnits(new BigDecimal(String.valueOf(amount)), DEFAULT_ROUNDING);
+		}
 	}
-	
+
 	/**
 	 * Constructs a new <code>Amount</code> that represents the same value
 	 * as <code>otherAmount</code>.
 	 * @param otherAmount The amount to copy.
 	 */
 	public Amount(Amount otherAmount) {
-		this.amount = otherAmount.getValue();
+		this.units = otherAmount.units;
 	}
-	
+
 	/**
 	 * Constructs a new <code>Amount</code> from a {@link BigDecimal}
-	 * object.
+	 * object. Decimals beyond {@value #SCALE} places are rounded with
+	 * {@link #DEFAULT_ROUNDING}.
 	 * @param amount A <code>BigDecimal</code> value.
 	 */
 	public Amount(BigDecimal amount) {
-		this.amount = new BigDecimal(amount.toPlainString());
+		this.units = toUnits(amount, DEFAULT_ROUNDING);
 	}
-	
+
+	private Amount(long units) {
+		this.units = units;
+	}
+
+	/**
+	 * Creates an <code>Amount</code> directly from a number of minor units.
+	 *
+	 * @param units The value in minor units, see {@link #UNITS_PER_WHOLE}.
+	 * @return A new <code>Amount</code> representing <code>units</code>.
+	 */
+	public static Amount ofMinorUnits(long units) {
+		return new Amount(units);
+	}
+
 	/**
 	 * Adds together two <code>Amount</code> values.
 	 * @param amountToAdd The amount to add to this amount.
 	 * @return A new <code>Amount</code> with the resulting sum as its value.
 	 */
 	public Amount add(Amount amountToAdd) {
-		return new Amount(amount.add(amountToAdd.getValue()));
+		return ofMinorUnits(Math.addExact(units, amountToAdd.units));
 	}
-	
+
 	/**
 	 * Subtracts one <code>Amount</code> from another <code>Amount</code>.
-	 * @param amountToAdd The amount to subtract from this amount, should be greater than 0 to
-	 * correctly perform subtraction.
+	 * @param amountToSubtract The amount to subtract from this amount.
 	 * @return A new <code>Amount</code> with the resulting difference as its value.
 	 */
 	public Amount subtract(Amount amountToSubtract) {
-		return new Amount(amount.subtract(amountToSubtract.getValue()));
+		return ofMinorUnits(Math.subtractExact(units, amountToSubtract.units));
 	}
-	
+
 	/**
-	 * Multiplies two <code>Amount</code> values.
+	 * Multiplies two <code>Amount</code> values. The product is rounded with
+	 * {@link #DEFAULT_ROUNDING}.
 	 * @param multiplicand How much to multiply this amount by.
 	 * @return A new <code>Amount</code> with the resulting product as its value.
 	 */
 	public Amount multiply(Amount multiplicand) {
-		return new Amount(amount.multiply(multiplicand.getValue()));
+		return multiply(multiplicand, DEFAULT_ROUNDING);
+	}
+
+	/**
+	 * Multiplies two <code>Amount</code> values, rounding the product to
+	 * {@value #SCALE} decimals with the specified rounding mode. Used for
+	 * VAT and discount rates, where the rounding rule matters.
+	 * @param multiplicand How much to multiply this amount by.
+	 * @param roundingMode How to round decimals that do not fit.
+	 * @return A new <code>Amount</code> with the resulting product as its value.
+	 */
+	public Amount multiply(Amount multiplicand, RoundingMode roundingMode) {
+		return ofMinorUnits(multiplyUnits(units, multiplicand.units, roundingMode));
 	}
-	
+
 	/**
 	 * Multiplies an <code>Amount</code> value by an <code>int</code>.
 	 * @param multiplicand How much to multiply this amount by.
 	 * @return A new <code>Amount</code> with the resulting product as its value.
 	 */
 	public Amount multiply(int multiplicand) {
-		return new Amount(amount.multiply(new BigDecimal(multiplicand)));
+		return ofMinorUnits(Math.multiplyExact(units, (long) multiplicand));
+	}
+
+	/**
+	 * Multiplies two values given in minor units and rounds the product back
+	 * to minor units. Does not create any objects unless the intermediate
+	 * product overflows a <code>long</code>.
+	 *
+	 * @param units        The first factor in minor units.
+	 * @param otherUnits   The second factor in minor units.
+	 * @param roundingMode How to round decimals that do not fit.
+	 * @return The product in minor units.
+	 */
+	public static long multiplyUnits(long units, long otherUnits, RoundingMode roundingMode) {
+		long product;
+		try {
+			product = Math.multiplyExact(units, otherUnits);
+		} catch (ArithmeticException overflow) {
+			BigDecimal exact = BigDecimal.valueOf(units, SCALE).multiply(BigDecimal.valueOf(otherUnits, SCALE));
+			return toUnits(exact, roundingMode);
+		}
+
+		return divideRounded(product, UNITS_PER_WHOLE, roundingMode);
 	}
-	
+
 	/**
 	 * Returns the value that the <code>Amount</code> represents.
-	 * @return The value as a <code>double</code>.
+	 * @return The value as a <code>BigDecimal</code>.
 	 */
 	public BigDecimal getValue() {
-		return amount;
+		return BigDecimal.valueOf(units, SCALE);
 	}
-	
+
+	/**
+	 * Returns the value that the <code>Amount</code> represents in minor units.
+	 * @return The value as a <code>long</code>, see {@link #UNITS_PER_WHOLE}.
+	 */
+	public long getMinorUnits() {
+		return units;
+	}
+
 	/**
-	 * Compares an object and an <code>Amount</code>. 
+	 * Compares an object and an <code>Amount</code>.
 	 * @return <code>true</code> if the object is an instance of <code>Amount</code> and has the
 	 * same value as the other <code>Amount</code>, <code>false</code> otherwise.
 	 */
@@ -90,16 +174,65 @@ public class Amount {
 	public boolean equals(Object o) {
 		if(o instanceof Amount) {
 			Amount amt = (Amount) o;
-			return this.amount.doubleValue() == amt.getValue().doubleValue();
+			return this.units == amt.units;
 		}
-		
+
 		return false;
 	}
-	
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(units);
+	}
+
 	/**
 	 * Returns the amount value as a <code>String</code>.
 	 */
 	public String toString() {
-		return String.format("%.2f", amount.doubleValue());
+		return String.format("%.2f", getValue().doubleValue());
+	}
+
+	private static long toUnits(BigDecimal amount, RoundingMode roundingMode) {
+		return amount.setScale(SCALE, roundingMode).unscaledValue().longValueExact();
+	}
+
+	private static long divideRounded(long dividend, long divisor, RoundingMode roundingMode) {
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+		if (remainder == 0) {
+			return quotient;
+		}
+
+		int signum = dividend < 0 ? -1 : 1;
+		long twiceRemainder = Math.abs(remainder) * 2;
+		boolean roundAway;
+
+		switch (roundingMode) {
+		case UP:
+			roundAway = true;
+			break;
+		case DOWN:
+			roundAway = false;
+			break;
+		case CEILING:
+			roundAway = signum > 0;
+			break;
+		case FLOOR:
+			roundAway = signum < 0;
+			break;
+		case HALF_UP:
+			roundAway = twiceRemainder >= divisor;
+			break;
+		case HALF_DOWN:
+			roundAway = twiceRemainder > divisor;
+			break;
+		case HALF_EVEN:
+			roundAway = twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0);
+			break;
+		default:
+			throw new ArithmeticException("Rounding necessary.");
+		}
+
+		return roundAway ? quotient + signum : quotient;
 	}
 }
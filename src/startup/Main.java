@@ -1,15 +1,20 @@
 package startup;
 
+import java.util.concurrent.TimeUnit;
+
 import controller.Controller;
 import integration.dbhandler.SystemCreator;
+import integration.printer.Printer;
+import log.ErrorLogHandler;
 import view.View;
 
 public class Main {
-	public static void main(String[] args) {
+	public static void main(String[] args) throws InterruptedException {
 		SystemCreator creator = SystemCreator.getCreator();
 		
-		Controller controller = new Controller(creator);
-		View view = new View(controller);
+		ErrorLogHandler errorLog = View.createErrorLog();
+		Controller controller = new Controller(creator, new Printer(), errorLog);
+		View view = new View(controller, errorLog);
 
 //		view.testRunWithInvalidID(new IdentificationNumber(98734342));
 //		view.testRunWithDatabaseError();
@@ -19,5 +24,8 @@ public class Main {
 //		view.testRun();
 		
 		view.testRunWithDiscounts();
+
+		controller.shutdown(10, TimeUnit.SECONDS);
+		view.shutdown(10, TimeUnit.SECONDS);
 	}
 }
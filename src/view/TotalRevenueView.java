@@ -15,7 +15,7 @@ public class TotalRevenueView implements CurrentSaleObserver{
 	}
 	
 	@Override
-	public void newPayment(Amount amountPaid) {
+	public synchronized void newPayment(Amount amountPaid) {
 		totalRevenue = totalRevenue.add(amountPaid);
 		printState();
 	}
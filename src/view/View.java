@@ -2,6 +2,7 @@ package view;
 
 import java.io.IOException;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import controller.Controller;
 import controller.OperationFailedException;
@@ -27,18 +28,50 @@ public class View {
 	 * @param controller The controller for the system.
 	 */
 	public View(Controller controller) {
+		this(controller, createErrorLog());
+	}
+
+	/**
+	 * Constructor for a view that shares its error log with the controller.
+	 * 
+	 * @param controller The controller for the system.
+	 * @param errorLog   The error log, or <code>null</code> if there is none.
+	 */
+	public View(Controller controller, ErrorLogHandler errorLog) {
 		this.controller = controller;
 		controller.addSaleObserver(new TotalRevenueView());
 
 		errorMsgHandler = new DisplayErrorMessageHandler();
+		this.errorLog = errorLog;
+	}
+
+	/**
+	 * Creates an error log that writes to the standard file.
+	 * 
+	 * @return The error log, or <code>null</code> if it could not be created.
+	 */
+	public static ErrorLogHandler createErrorLog() {
 		try {
-			errorLog = new ErrorLogHandler();
+			return new ErrorLogHandler();
 		} catch (IOException e) {
 			System.out.println("Error when creating the error log handler.");
 			e.printStackTrace();
+			return null;
 		}
 	}
 
+	/**
+	 * Writes the errors that are waiting to be logged and closes the error log.
+	 * 
+	 * @param timeout The longest time to wait.
+	 * @param unit    The unit of <code>timeout</code>.
+	 * @return <code>true</code> if the error log was closed in time.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		return errorLog == null || errorLog.shutdown(timeout, unit);
+	}
+
 	/**
 	 * Starts a new sale.
 	 */
@@ -2,6 +2,13 @@ package controller;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -9,8 +16,11 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import controller.pipeline.StageStatistics;
+import integration.cashregister.RegisterReport;
 import integration.dbhandler.InvalidItemIDException;
 import integration.dbhandler.InventoryException;
+import integration.dbhandler.InventorySystem;
 import integration.dbhandler.SystemCreator;
 import integration.dbhandler.data.ItemDescription;
 import integration.dbhandler.discount.Discount;
@@ -139,4 +149,145 @@ class ControllerTest {
 		}
 	}
 
+	@Test
+	void testManyLanesConcurrently() throws Exception {
+		int lanes = 64;
+		int salesPerLane = 10;
+		InventorySystem inventory = SystemCreator.getCreator().getInventorySystem();
+		int appleQuantityBefore = inventory.getAvailableQuantityOfItem(existingDescriptionApple.getID());
+		Amount balanceBefore = controller.getCashRegisterBalance();
+		Amount amountPaid = new Amount(500);
+
+		ExecutorService executor = Executors.newFixedThreadPool(lanes);
+		List<Future<Amount>> laneTotals = new ArrayList<>();
+		long startTime = System.nanoTime();
+		for (int laneNr = 0; laneNr < lanes; laneNr++) {
+			Lane lane = controller.openLane();
+			laneTotals.add(executor.submit(() -> {
+				Amount laneTotal = new Amount(0);
+				for (int saleNr = 0; saleNr < salesPerLane; saleNr++) {
+					lane.startSale();
+					lane.processItem(existingDescriptionApple.getID(), 1);
+					lane.processItem(existingDescriptionCoffee.getID(), 2);
+					Amount totalPrice = lane.endSale().getTotalPrice();
+
+					Amount change = lane.processSale(amountPaid);
+					assertEquals(amountPaid.subtract(totalPrice), change, "Incorrect change in concurrent lane.");
+					laneTotal = laneTotal.add(totalPrice);
+				}
+				return laneTotal;
+			}));
+		}
+
+		Amount expectedRevenue = new Amount(0);
+		for (Future<Amount> laneTotal : laneTotals) {
+			expectedRevenue = expectedRevenue.add(laneTotal.get(1, TimeUnit.MINUTES));
+		}
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		executor.shutdown();
+		assertTrue(controller.awaitPostPaymentStages(1, TimeUnit.MINUTES), "Completed sales were not handled in time.");
+
+		assertEquals(balanceBefore.add(expectedRevenue), controller.getCashRegisterBalance(),
+				"Deposits to the shared cash register were lost.");
+		assertEquals(appleQuantityBefore - lanes * salesPerLane,
+				inventory.getAvailableQuantityOfItem(existingDescriptionApple.getID()),
+				"Stock updates from concurrent lanes were lost. " + lanes * salesPerLane + " sales took "
+						+ elapsedMillis + " ms.");
+	}
+
+	@Test
+	void testSaleIsHandledAfterPayment() throws Exception {
+		InventorySystem inventory = SystemCreator.getCreator().getInventorySystem();
+		int quantityBefore = inventory.getAvailableQuantityOfItem(existingDescriptionCoffee.getID());
+
+		controller.startSale();
+		controller.processItem(existingDescriptionCoffee.getID(), 2);
+		controller.processSale(new Amount(200));
+		assertTrue(controller.awaitPostPaymentStages(10, TimeUnit.SECONDS), "Completed sale was not handled in time.");
+
+		assertEquals(quantityBefore - 2, inventory.getAvailableQuantityOfItem(existingDescriptionCoffee.getID()),
+				"Inventory was not updated after payment.");
+		for (StageStatistics stage : controller.getPostPaymentStatistics()) {
+			assertEquals(1, stage.getCompletedCount(), "Stage " + stage.getStageName() + " did not handle the sale.");
+			assertEquals(0, stage.getQueueDepth(), "Stage " + stage.getStageName() + " has queued sales.");
+		}
+	}
+
+	@Test
+	void testZReportReconcilesWithSaleLog() throws Exception {
+		controller.createZReport();
+		for (int sale = 0; sale < 3; sale++) {
+			controller.startSale();
+			controller.processItem(existingDescriptionApple.getID(), 2);
+			controller.processItem(existingDescriptionCoffee.getID(), 1);
+			controller.processSale(new Amount(100));
+		}
+
+		RegisterReport report = controller.createZReport();
+
+		assertEquals(3, report.getTransactionCount(), "Incorrect number of transactions.");
+		assertEquals(new Amount(0), report.getDrawerDifference(), "Drawer does not match the sales.");
+		assertEquals(new ArrayList<String>(), controller.reconcileReport(report),
+				"Report does not match the sale log.");
+	}
+
+	@Test
+	void testReconcileIgnoresOtherRegistersSales() throws Exception {
+		Controller otherRegister = new Controller(SystemCreator.getCreator());
+		controller.createZReport();
+		otherRegister.createZReport();
+
+		controller.startSale();
+		controller.processItem(existingDescriptionApple.getID(), 2);
+		controller.processSale(new Amount(100));
+		for (int sale = 0; sale < 2; sale++) {
+			otherRegister.startSale();
+			otherRegister.processItem(existingDescriptionCoffee.getID(), 1);
+			otherRegister.processSale(new Amount(100));
+		}
+		assertTrue(otherRegister.awaitPostPaymentStages(10, TimeUnit.SECONDS),
+				"Other register's sales were not handled in time.");
+
+		RegisterReport report = controller.createZReport();
+
+		assertEquals(1, report.getTransactionCount(), "Incorrect number of transactions.");
+		assertEquals(new ArrayList<String>(), controller.reconcileReport(report),
+				"Other register's sales were counted as differences.");
+		otherRegister.shutdown(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testManyLanesShareQuantityDiscount() throws Exception {
+		int lanes = 32;
+		int salesPerLane = 50;
+		CyclicBarrier start = new CyclicBarrier(lanes);
+		ExecutorService executor = Executors.newFixedThreadPool(lanes);
+		List<Future<?>> results = new ArrayList<>();
+
+		for (int i = 0; i < lanes; i++) {
+			Lane lane = controller.openLane();
+			int quantity = 3 + i % 8;
+			Item expectedItem = new Item(existingDescriptionCoffee, quantity);
+			expectedItem.applyDiscount(new QuantityDiscount((short) 3, new Amount(0.2)).withQuantity(quantity));
+			Amount expectedTotal = expectedItem.getUnitPrice().multiply(quantity);
+
+			results.add(executor.submit(() -> {
+				start.await();
+				for (int sale = 0; sale < salesPerLane; sale++) {
+					lane.startSale();
+					lane.processItem(existingDescriptionCoffee.getID(), quantity);
+					Amount total = lane.applyDiscounts().getTotalPrice();
+					assertEquals(expectedTotal, total, "Lane with " + quantity + " items got another lane's discount.");
+					lane.processSale(total);
+				}
+				return null;
+			}));
+		}
+
+		executor.shutdown();
+		for (Future<?> result : results) {
+			result.get(60, TimeUnit.SECONDS);
+		}
+		assertTrue(controller.awaitPostPaymentStages(30, TimeUnit.SECONDS), "Completed sales were not handled in time.");
+	}
 }
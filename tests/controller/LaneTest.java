@@ -0,0 +1,139 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import controller.pipeline.PostPaymentPipeline;
+import integration.cashregister.CashRegister;
+import integration.dbhandler.DiscountSystem;
+import integration.dbhandler.InventorySystem;
+import integration.dbhandler.SaleLog;
+import integration.dbhandler.SystemCreator;
+import integration.dbhandler.catalog.CatalogUpdater;
+import integration.dbhandler.data.ItemData;
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.DiscountRuleRegistry;
+import integration.dbhandler.discount.DiscountRules;
+import integration.dbhandler.journal.SaleJournal;
+import integration.dbhandler.store.InMemoryItemStore;
+import integration.printer.Printer;
+import model.observer.CurrentSaleObserver;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class LaneTest {
+	private static final IdentificationNumber COFFEE_ID = new IdentificationNumber(666);
+	private static final Amount UNDISCOUNTED_TOTAL = new Amount(3 * 42 * 1.16);
+
+	private Path deltaFile;
+	private DiscountSystem discountSystem;
+	private InventorySystem inventorySystem;
+	private CatalogUpdater updater;
+	private Lane lane;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		InMemoryItemStore store = new InMemoryItemStore();
+		store.addItem(new ItemData(new ItemDescription("coffee", new Amount(42), new Amount(0.16), COFFEE_ID), 87));
+
+		DiscountRuleRegistry registry = new DiscountRuleRegistry();
+		inventorySystem = new InventorySystem(store);
+		discountSystem = new DiscountSystem(
+				DiscountRules.compile(Arrays.asList(registry.create("quantity", 666, "3", "0.2"))));
+		updater = new CatalogUpdater(inventorySystem, discountSystem);
+		lane = new Lane(inventorySystem, discountSystem, null, new CashRegister(),
+				new CopyOnWriteArrayList<CurrentSaleObserver>());
+		deltaFile = Files.createTempFile("catalog", ".delta");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		updater.shutdown(1, TimeUnit.SECONDS);
+		Files.deleteIfExists(deltaFile);
+	}
+
+	@Test
+	void testStartedSaleKeepsItsDiscountRules() throws Exception {
+		lane.startSale();
+		lane.processItem(COFFEE_ID, 3);
+		Amount discountedTotal = lane.applyDiscounts().getTotalPrice();
+		assertNotEquals(UNDISCOUNTED_TOTAL, discountedTotal, "Discount was not applied before the change.");
+
+		Files.write(deltaFile, Arrays.asList("nodiscount 666"), StandardCharsets.UTF_8);
+		updater.loadDelta(deltaFile).get(5, TimeUnit.SECONDS);
+
+		assertEquals(discountedTotal, lane.applyDiscounts().getTotalPrice(),
+				"Started sale did not keep the discount rules it started with.");
+
+		lane.startSale();
+		lane.processItem(COFFEE_ID, 3);
+		assertEquals(UNDISCOUNTED_TOTAL, lane.applyDiscounts().getTotalPrice(),
+				"New sale did not use the changed discount rules.");
+	}
+
+	@Test
+	void testSaleThatIsNotLoggedIsNotRegistered() throws Exception {
+		Path journalDirectory = Files.createTempDirectory("journal");
+		SaleJournal journal = SaleJournal.open(journalDirectory, 0);
+		journal.close();
+		PostPaymentPipeline pipeline = new PostPaymentPipeline(new SaleLog(journal), inventorySystem,
+				SystemCreator.getCreator().getAccountingSystem(), new Printer(), null);
+		CashRegister cashRegister = new CashRegister();
+		Amount balanceBefore = cashRegister.getBalance();
+		List<Amount> payments = new CopyOnWriteArrayList<>();
+		Lane failingLane = new Lane(inventorySystem, discountSystem, pipeline, cashRegister,
+				new CopyOnWriteArrayList<CurrentSaleObserver>(Arrays.asList(payments::add)));
+
+		failingLane.startSale();
+		failingLane.processItem(COFFEE_ID, 1);
+		assertThrows(OperationFailedException.class, () -> failingLane.processSale(new Amount(100)),
+				"Sale that could not be logged was accepted.");
+
+		assertEquals(balanceBefore, cashRegister.getBalance(), "Sale that was not logged changed the balance.");
+		assertEquals(0, cashRegister.createXReport().getTransactionCount(),
+				"Sale that was not logged was counted in the report.");
+		assertTrue(payments.isEmpty(), "Observers were told about a sale that was not logged.");
+		assertTrue(pipeline.shutdown(5, TimeUnit.SECONDS), "Pipeline did not shut down.");
+	}
+
+	@Test
+	void testSaleAfterPipelineShutdownIsKept() throws Exception {
+		Path journalDirectory = Files.createTempDirectory("journal");
+		SaleJournal journal = SaleJournal.open(journalDirectory, 0);
+		PostPaymentPipeline pipeline = new PostPaymentPipeline(new SaleLog(journal), inventorySystem,
+				SystemCreator.getCreator().getAccountingSystem(), new Printer(), null);
+		CashRegister cashRegister = new CashRegister();
+		Lane closedLane = new Lane(inventorySystem, discountSystem, pipeline, cashRegister,
+				new CopyOnWriteArrayList<CurrentSaleObserver>());
+		assertTrue(pipeline.shutdown(5, TimeUnit.SECONDS), "Pipeline did not shut down.");
+
+		closedLane.startSale();
+		closedLane.processItem(COFFEE_ID, 1);
+		closedLane.processSale(new Amount(100));
+
+		assertEquals(3, pipeline.getFailedItems().size(), "Sale was not kept for every stage that refused it.");
+		assertEquals(1, cashRegister.createXReport().getTransactionCount(), "Logged sale was not registered.");
+		journal.close();
+	}
+}
@@ -0,0 +1,133 @@
+package controller.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import log.ErrorLogHandler;
+
+class PipelineStageTest {
+	private Path logFile;
+	private ErrorLogHandler errorLog;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		logFile = Files.createTempFile("pipeline-error-log", ".txt");
+		errorLog = new ErrorLogHandler(logFile.toString());
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		errorLog.shutdown(5, TimeUnit.SECONDS);
+		Files.deleteIfExists(logFile);
+	}
+
+	@Test
+	void testFailedItemIsLoggedAndKept() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		PipelineStage<String> stage = new PipelineStage<>("test", item -> {
+			attempts.incrementAndGet();
+			throw new IllegalStateException("unreachable");
+		}, 1, 4, 2, errorLog);
+
+		stage.submit("sale");
+
+		assertTrue(stage.awaitIdle(5, TimeUnit.SECONDS), "Stage did not finish.");
+		assertEquals(2, attempts.get(), "Incorrect number of attempts.");
+		List<FailedItem<String>> failedItems = stage.getFailedItems();
+		assertEquals(1, failedItems.size(), "Failed item was not kept.");
+		assertEquals("sale", failedItems.get(0).getItem(), "Incorrect failed item.");
+		assertEquals("test", failedItems.get(0).getStageName(), "Incorrect stage of failed item.");
+		assertEquals("unreachable", failedItems.get(0).getCause().getMessage(), "Incorrect cause of failure.");
+		assertEquals(1, stage.getStatistics().getFailedCount(), "Failed item was not counted.");
+
+		assertTrue(errorLog.shutdown(5, TimeUnit.SECONDS), "Error log did not shut down.");
+		String log = new String(Files.readAllBytes(logFile), StandardCharsets.UTF_8);
+		assertTrue(log.contains("The test stage could not process an item"), "Failed item was not logged.");
+		assertTrue(log.contains("unreachable"), "Cause of failure was not logged.");
+		stage.shutdown(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testReplayedItemIsProcessed() throws Exception {
+		AtomicInteger processed = new AtomicInteger();
+		AtomicInteger attempts = new AtomicInteger();
+		PipelineStage<String> stage = new PipelineStage<>("test", item -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IllegalStateException("unreachable");
+			}
+			processed.incrementAndGet();
+		}, 1, 4, 1, errorLog);
+
+		stage.submit("sale");
+		assertTrue(stage.awaitIdle(5, TimeUnit.SECONDS), "Stage did not finish.");
+		assertEquals(1, stage.getFailedItems().size(), "Failed item was not kept.");
+
+		assertEquals(1, stage.replayFailed(), "Incorrect number of replayed items.");
+		assertTrue(stage.awaitIdle(5, TimeUnit.SECONDS), "Stage did not finish.");
+
+		assertEquals(1, processed.get(), "Replayed item was not processed exactly once.");
+		assertTrue(stage.getFailedItems().isEmpty(), "Replayed item was still kept.");
+		stage.shutdown(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testTaskQueuedAfterTerminationIsRejected() throws Exception {
+		AtomicReference<ThreadPoolExecutor> workers = new AtomicReference<>();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(1) {
+					@Override
+					public void put(Runnable task) throws InterruptedException {
+						workers.get().shutdown();
+						workers.get().awaitTermination(5, TimeUnit.SECONDS);
+						super.put(task);
+					}
+				});
+		workers.set(executor);
+		Runnable task = () -> {
+		};
+
+		assertThrows(RejectedExecutionException.class, () -> PipelineStage.waitForRoomInQueue(task, executor),
+				"Task queued after the workers stopped was accepted.");
+		assertTrue(executor.getQueue().isEmpty(), "Rejected task was left in the queue.");
+	}
+
+	@Test
+	void testRejectedItemIsKept() throws Exception {
+		PipelineStage<String> stage = new PipelineStage<>("test", item -> {
+		}, 1, 4, 1, errorLog);
+		assertTrue(stage.shutdown(5, TimeUnit.SECONDS), "Stage did not shut down.");
+
+		RejectedExecutionException rejection = assertThrows(RejectedExecutionException.class,
+				() -> stage.submit("sale"), "Item was accepted after shutdown.");
+		stage.keepRejected("sale", rejection);
+
+		assertTrue(stage.awaitIdle(0, TimeUnit.SECONDS), "Rejected item was counted as pending.");
+		assertEquals(1, stage.getFailedItems().size(), "Rejected item was not kept.");
+		assertThrows(RejectedExecutionException.class, () -> stage.replayFailed(), "Item was replayed after shutdown.");
+		assertEquals(1, stage.getFailedItems().size(), "Item that could not be replayed was lost.");
+	}
+}
@@ -0,0 +1,191 @@
+package integration.cashregister;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.DiscountRules;
+import integration.dbhandler.discount.PriceDiscount;
+import integration.dbhandler.discount.PriceDiscountRule;
+import model.dto.Receipt;
+import model.pos.Sale;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class CashRegisterTest {
+	private CashRegister cashRegister;
+	private List<Receipt> receipts;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		cashRegister = new CashRegister();
+		receipts = new ArrayList<>();
+
+		Sale firstSale = new Sale();
+		firstSale.addItemToSale(new ItemDescription("apple", new Amount(5), new Amount(0.16),
+				new IdentificationNumber(123)), 3);
+		firstSale.addItemToSale(new ItemDescription("bread", new Amount(20), new Amount(0.06),
+				new IdentificationNumber(321)), 1);
+		receipts.add(firstSale.processSale(new Amount(50),
+				new Amount(50).subtract(firstSale.getPriceInformation().getTotalPrice())));
+
+		Sale secondSale = new Sale(DiscountRules.compile(Collections.singletonList(
+				new PriceDiscountRule(666, new PriceDiscount(new Amount(0.1))))));
+		secondSale.addItemToSale(new ItemDescription("coffee", new Amount(42), new Amount(0.16),
+				new IdentificationNumber(666)), 2);
+		receipts.add(secondSale.processSale(new Amount(100),
+				new Amount(100).subtract(secondSale.getPriceInformation().getTotalPrice())));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		cashRegister = null;
+		receipts = null;
+	}
+
+	@Test
+	void testXReport() {
+		for (Receipt receipt : receipts) {
+			cashRegister.registerPayment(receipt);
+		}
+
+		RegisterReport report = cashRegister.createXReport();
+
+		assertEquals(RegisterReport.Type.X, report.getType(), "Incorrect report type.");
+		assertEquals(2, report.getTransactionCount(), "Incorrect number of transactions.");
+		assertEquals(6, report.getItemCount(), "Incorrect item count.");
+		assertEquals(new Amount(38.6 + 87.696), report.getGrossSales(), "Incorrect gross sales.");
+		assertEquals(new Amount(2.4 + 1.2 + 12.096), report.getVat(), "Incorrect VAT.");
+		assertEquals(new Amount(1.2), report.getVatPerRate().get(new Amount(0.06)), "Incorrect VAT at 6 %.");
+		assertEquals(new Amount(14.496), report.getVatPerRate().get(new Amount(0.16)), "Incorrect VAT at 16 %.");
+		assertEquals(new Amount(9.744), report.getDiscounts(), "Incorrect discounts.");
+		assertEquals(new Amount(150), report.getAmountPaid(), "Incorrect amount paid.");
+		assertEquals(new Amount(150 - 38.6 - 87.696), report.getChangeGiven(), "Incorrect change given.");
+		assertEquals(report.getGrossSales(), report.getDrawerDelta(), "Incorrect drawer delta.");
+		assertEquals(cashRegister.getBalance(), report.getDrawerBalance(), "Incorrect drawer balance.");
+	}
+
+	@Test
+	void testXReportKeepsPeriodOpen() {
+		cashRegister.registerPayment(receipts.get(0));
+		cashRegister.createXReport();
+		cashRegister.registerPayment(receipts.get(1));
+
+		RegisterReport report = cashRegister.createXReport();
+
+		assertEquals(2, report.getTransactionCount(), "X-report closed the period.");
+		assertEquals(1, report.getPeriodNumber(), "X-report started a new period.");
+	}
+
+	@Test
+	void testSaleIsMarkedWithRegisterAndPeriod() {
+		Receipt first = cashRegister.markSale(receipts.get(0));
+		cashRegister.registerSale(first);
+		RegisterReport closing = cashRegister.createZReport();
+		Receipt second = cashRegister.markSale(receipts.get(1));
+
+		assertEquals(cashRegister.getRegisterID(), first.getRegisterID(), "Receipt not marked with the register.");
+		assertEquals(closing.getRegisterID(), first.getRegisterID(), "Report not marked with the register.");
+		assertEquals(closing.getPeriodNumber(), first.getRegisterPeriod(), "Receipt marked with another period.");
+		assertEquals(closing.getPeriodNumber() + 1, second.getRegisterPeriod(), "Receipt marked with closed period.");
+		assertEquals(1, closing.getTransactionCount(), "Registered sale was not counted.");
+	}
+
+	@Test
+	void testZReportWaitsForMarkedSale() throws Exception {
+		Receipt marked = cashRegister.markSale(receipts.get(0));
+		AtomicReference<RegisterReport> closing = new AtomicReference<>();
+		Thread reporter = new Thread(() -> closing.set(cashRegister.createZReport()));
+		reporter.start();
+		reporter.join(200);
+		assertTrue(reporter.isAlive(), "Period was closed while a marked sale was being logged.");
+
+		cashRegister.registerSale(marked);
+		reporter.join(5_000);
+
+		assertFalse(reporter.isAlive(), "Z-report did not finish after the marked sale was registered.");
+		assertEquals(1, closing.get().getTransactionCount(), "Marked sale was not counted in its period.");
+	}
+
+	@Test
+	void testCancelledSaleIsNotCounted() {
+		cashRegister.cancelSale(cashRegister.markSale(receipts.get(0)));
+
+		RegisterReport closing = cashRegister.createZReport();
+
+		assertEquals(0, closing.getTransactionCount(), "Cancelled sale was counted.");
+	}
+
+	@Test
+	void testZReportStartsNewPeriod() {
+		cashRegister.registerPayment(receipts.get(0));
+		RegisterReport closing = cashRegister.createZReport();
+		cashRegister.registerPayment(receipts.get(1));
+
+		RegisterReport report = cashRegister.createXReport();
+
+		assertEquals(RegisterReport.Type.Z, closing.getType(), "Incorrect report type.");
+		assertEquals(1, closing.getTransactionCount(), "Incorrect number of transactions in the closed period.");
+		assertEquals(2, report.getPeriodNumber(), "No new period was started.");
+		assertEquals(1, report.getTransactionCount(), "Sales from the closed period were counted again.");
+		assertEquals(closing.getDrawerBalance(), report.getOpeningBalance(),
+				"New period did not start with the closing balance.");
+		assertEquals(new Amount(87.696), report.getDrawerDelta(), "Incorrect drawer delta.");
+	}
+
+	@Test
+	void testDrawerDifference() {
+		cashRegister.registerPayment(receipts.get(0));
+		cashRegister.withdrawAmountFromRegister(new Amount(20));
+		cashRegister.depositAmountToRegister(new Amount(5));
+
+		RegisterReport report = cashRegister.createXReport();
+
+		assertEquals(new Amount(0), report.getDrawerDifference(), "Withdrawals and deposits were not accounted for.");
+		assertEquals(new Amount(38.6 - 20 + 5), report.getDrawerDelta(), "Incorrect drawer delta.");
+	}
+
+	@Test
+	void testReconcile() {
+		ReportTotals recounted = new ReportTotals();
+		for (Receipt receipt : receipts) {
+			cashRegister.registerPayment(receipt);
+			recounted.record(receipt);
+		}
+
+		assertTrue(cashRegister.createXReport().reconcile(recounted).isEmpty(),
+				"Report differs from the recounted totals.");
+	}
+
+	@Test
+	void testReconcileFindsMissingSale() {
+		ReportTotals recounted = new ReportTotals();
+		for (Receipt receipt : receipts) {
+			cashRegister.registerPayment(receipt);
+		}
+		recounted.record(receipts.get(0));
+
+		List<String> differences = cashRegister.createXReport().reconcile(recounted);
+
+		assertFalse(differences.isEmpty(), "Missing sale was not found.");
+		assertTrue(differences.get(0).startsWith("transactions"), "Incorrect difference: " + differences.get(0));
+	}
+}
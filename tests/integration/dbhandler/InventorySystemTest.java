@@ -1,16 +1,26 @@
 package integration.dbhandler;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import integration.dbhandler.data.ItemData;
 import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.data.StockUpdate;
+import integration.dbhandler.store.InMemoryItemStore;
+import integration.dbhandler.store.ItemStore;
 import model.dto.Receipt;
 import model.pos.Sale;
 import model.util.Amount;
@@ -82,6 +92,21 @@ class InventorySystemTest {
 		}
 	}
 	
+	@Test
+	void testRepeatedInvalidIDHasNoStackTrace() {
+		IdentificationNumber invalidID = new IdentificationNumber(98734342);
+
+		for (int scan = 0; scan < 2; scan++) {
+			try {
+				inventory.retrieveItemDescription(invalidID);
+				fail("Description got retrieved using invalid item ID. No exception was thrown.");
+			} catch (InvalidItemIDException e) {
+				assertEquals(invalidID, e.getInvalidID(), "Exception does not contain the invalid ID.");
+				assertEquals(0, e.getStackTrace().length, "Expected rejection of invalid ID recorded a stack trace.");
+			}
+		}
+	}
+	
 	@Test
 	void testNoExceptionWithValidID() {
 		try {
@@ -100,4 +125,155 @@ class InventorySystemTest {
 			
 		}
 	}
+
+	@Test
+	void testUpdateQuantityOfItemsInBatch() throws InvalidItemIDException {
+		IdentificationNumber coffeeID = new IdentificationNumber(666);
+		IdentificationNumber unknownID = new IdentificationNumber(424242);
+		int appleQuantityBeforeUpdate = inventory.getAvailableQuantityOfItem(existingItemID);
+		int coffeeQuantityBeforeUpdate = inventory.getAvailableQuantityOfItem(coffeeID);
+
+		Sale firstSale = new Sale();
+		firstSale.addItemToSale(inventory.retrieveItemDescription(existingItemID), 2);
+		firstSale.addItemToSale(inventory.retrieveItemDescription(coffeeID), 1);
+		Sale secondSale = new Sale();
+		secondSale.addItemToSale(inventory.retrieveItemDescription(existingItemID), 3);
+		secondSale.addItemToSale(new ItemDescription("unknown", new Amount(1), new Amount(0.16), unknownID), 1);
+
+		List<StockUpdate> updates = inventory.updateQuantityOfItems(Arrays.asList(
+				firstSale.processSale(new Amount(100), new Amount(0)),
+				secondSale.processSale(new Amount(100), new Amount(0))));
+
+		assertEquals(3, updates.size(), "Repeated item IDs in the batch were not combined.");
+
+		StockUpdate appleUpdate = updates.get(0);
+		assertEquals(existingItemID, appleUpdate.getItemID(), "Updates are not in the order of the batch.");
+		assertEquals(5, appleUpdate.getSoldQuantity(), "Sold quantity was not summed over the batch.");
+		assertEquals(appleQuantityBeforeUpdate - 5, appleUpdate.getRemainingQuantity(), "Incorrect remaining quantity.");
+		assertEquals(appleQuantityBeforeUpdate - 5, inventory.getAvailableQuantityOfItem(existingItemID),
+				"Quantity in inventory stock has not been updated for purchased item.");
+		assertEquals(coffeeQuantityBeforeUpdate - 1, inventory.getAvailableQuantityOfItem(coffeeID),
+				"Quantity in inventory stock has not been updated for purchased item.");
+
+		StockUpdate unknownUpdate = updates.get(2);
+		assertFalse(unknownUpdate.isApplied(), "Update was applied to an item that is not in the inventory.");
+		assertFalse(unknownUpdate.wentNegative(), "Item that is not in the inventory went negative.");
+	}
+
+	@Test
+	void testUpdateReportsNegativeStock() throws InvalidItemIDException {
+		IdentificationNumber juiceID = new IdentificationNumber(492);
+		int quantityBeforeUpdate = inventory.getAvailableQuantityOfItem(juiceID);
+
+		Sale sale = new Sale();
+		sale.addItemToSale(inventory.retrieveItemDescription(juiceID), quantityBeforeUpdate + 1);
+		List<StockUpdate> updates = inventory.updateQuantityOfItems(sale.processSale(new Amount(100), new Amount(0)));
+
+		assertTrue(updates.get(0).wentNegative(), "Selling more than in stock was not reported as negative stock.");
+	}
+
+	@Test
+	void testFailedUpdateChangesNoStock() throws InvalidItemIDException {
+		InMemoryItemStore items = new InMemoryItemStore();
+		ItemData apple = new ItemData(new ItemDescription("apple", new Amount(5), new Amount(0.16),
+				new IdentificationNumber(1)), 10);
+		ItemData pear = new ItemData(new ItemDescription("pear", new Amount(6), new Amount(0.16),
+				new IdentificationNumber(2)), 10);
+		items.addItem(apple);
+		items.addItem(pear);
+		UnreachableItemStore store = new UnreachableItemStore(items, 2);
+		InventorySystem remoteInventory = new InventorySystem(store);
+
+		Sale sale = new Sale();
+		sale.addItemToSale(apple.getItemDescription(), 3);
+		sale.addItemToSale(pear.getItemDescription(), 1);
+		Receipt receipt = sale.processSale(new Amount(100), new Amount(0));
+		store.unreachable = true;
+
+		assertThrows(InventoryException.class, () -> remoteInventory.updateQuantityOfItems(receipt),
+				"Update did not fail when the store could not be reached.");
+		assertEquals(10, apple.getAvailableQuantity(), "Stock was changed by a failed update.");
+
+		store.unreachable = false;
+		remoteInventory.updateQuantityOfItems(receipt);
+		assertEquals(7, apple.getAvailableQuantity(), "Retried update was not applied exactly once.");
+		assertEquals(9, pear.getAvailableQuantity(), "Retried update was not applied exactly once.");
+	}
+
+	@Test
+	void testItemAddedToStoreIsFound() throws InvalidItemIDException {
+		InMemoryItemStore store = new InMemoryItemStore();
+		store.addItem(new ItemData(
+				new ItemDescription("apple", new Amount(5), new Amount(0.16), new IdentificationNumber(1)), 10));
+		InventorySystem storeInventory = new InventorySystem(store);
+		IdentificationNumber pearID = new IdentificationNumber(2);
+		for (int i = 0; i < 2; i++) {
+			assertThrows(InvalidItemIDException.class, () -> storeInventory.retrieveItemDescription(pearID),
+					"Item that is not in the store was found.");
+		}
+
+		store.addItem(new ItemData(new ItemDescription("pear", new Amount(7), new Amount(0.16), pearID), 10));
+
+		assertEquals(pearID, storeInventory.retrieveItemDescription(pearID).getID(),
+				"Item added to the store after the inventory was created was rejected.");
+	}
+
+	@Test
+	void testInvalidIDIsRejectedWithoutTheStore() throws InvalidItemIDException {
+		InMemoryItemStore items = new InMemoryItemStore();
+		IdentificationNumber appleID = new IdentificationNumber(1);
+		items.addItem(new ItemData(new ItemDescription("apple", new Amount(5), new Amount(0.16), appleID), 10));
+		UnreachableItemStore store = new UnreachableItemStore(items, 2);
+		InventorySystem remoteInventory = new InventorySystem(store);
+		IdentificationNumber pearID = new IdentificationNumber(2);
+		remoteInventory.retrieveItemDescription(appleID);
+		store.unreachable = true;
+
+		for (int i = 0; i < 3; i++) {
+			assertThrows(InvalidItemIDException.class, () -> remoteInventory.retrieveItemDescription(pearID),
+					"Invalid item ID was not rejected while the store could not be reached.");
+		}
+
+		store.unreachable = false;
+		items.addItem(new ItemData(new ItemDescription("pear", new Amount(7), new Amount(0.16), pearID), 10));
+		assertEquals(pearID, remoteInventory.retrieveItemDescription(pearID).getID(),
+				"Item added to the store was rejected after the store reported the change.");
+	}
+
+	/**
+	 * A store that fails to find one item while it is unreachable.
+	 */
+	private static class UnreachableItemStore implements ItemStore {
+		private final ItemStore items;
+		private final long failingItemID;
+		private volatile boolean unreachable;
+
+		private UnreachableItemStore(ItemStore items, long failingItemID) {
+			this.items = items;
+			this.failingItemID = failingItemID;
+		}
+
+		@Override
+		public ItemData findItem(long itemID) {
+			if (unreachable && itemID == failingItemID) {
+				throw new InventoryException("Could not establish a connection to the database.");
+			}
+			return items.findItem(itemID);
+		}
+
+		@Override
+		public int getItemCount() {
+			return items.getItemCount();
+		}
+
+		@Override
+		public void forEachItemID(LongConsumer action) {
+			items.forEachItemID(action);
+		}
+
+		@Override
+		public void addModificationListener(Runnable listener) {
+			items.addModificationListener(listener);
+		}
+	}
 }
@@ -0,0 +1,178 @@
+package integration.dbhandler.accounting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.RecordedDiscount;
+import model.dto.PriceInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.dto.Store;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class LedgerTest {
+	private static final ItemDescription APPLE = new ItemDescription("apple", new Amount(5), new Amount(0.16),
+			new IdentificationNumber(123));
+	private static final ItemDescription BREAD = new ItemDescription("bread", new Amount(20), new Amount(0.06),
+			new IdentificationNumber(321));
+	private static final ItemDescription COFFEE = new ItemDescription("coffee", new Amount(42), new Amount(0.16),
+			new IdentificationNumber(666));
+
+	private static final LocalDate SALE_DATE = LocalDate.of(2024, 3, 1);
+
+	private Ledger ledger;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		ledger = new Ledger();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		ledger = null;
+	}
+
+	@Test
+	void testTotals() {
+		ledger.record(createReceipt(LocalTime.of(9, 15), apples(3), bread(1)));
+		ledger.record(createReceipt(LocalTime.of(14, 5), discountedCoffee(2)));
+
+		LedgerSnapshot snapshot = ledger.snapshot();
+		LedgerTotals totals = snapshot.getTotals();
+
+		assertEquals(2, snapshot.getSaleCount(), "Incorrect number of sales.");
+		assertEquals(new Amount(17.4 + 21.2 + 87.696), totals.getRevenue(), "Incorrect revenue.");
+		assertEquals(new Amount(2.4 + 1.2 + 12.096), totals.getVat(), "Incorrect VAT.");
+		assertEquals(new Amount(9.744), totals.getDiscounts(), "Incorrect discounts.");
+		assertEquals(6, totals.getItemCount(), "Incorrect item count.");
+	}
+
+	@Test
+	void testHourlyTotals() {
+		ledger.record(createReceipt(LocalTime.of(9, 15), apples(3)));
+		ledger.record(createReceipt(LocalTime.of(9, 59), apples(1)));
+		ledger.record(createReceipt(LocalTime.of(14, 5), bread(2)));
+
+		LedgerSnapshot snapshot = ledger.snapshot();
+
+		assertEquals(2, snapshot.getHourlySaleCount(SALE_DATE, 9), "Incorrect number of sales at 9.");
+		assertEquals(new Amount(23.2), snapshot.getHourlyTotals(SALE_DATE, 9).getRevenue(), "Incorrect revenue at 9.");
+		assertEquals(1, snapshot.getHourlySaleCount(SALE_DATE, 14), "Incorrect number of sales at 14.");
+		assertEquals(2, snapshot.getHourlyTotals(SALE_DATE, 14).getItemCount(), "Incorrect item count at 14.");
+		assertEquals(0, snapshot.getHourlySaleCount(SALE_DATE, 10), "Sales were recorded in the wrong hour.");
+		assertEquals(new Amount(0), snapshot.getHourlyTotals(SALE_DATE, 10).getRevenue(), "Revenue was recorded in the wrong hour.");
+	}
+
+	@Test
+	void testHourlyTotalsOfTwoDates() {
+		LocalDate nextDay = SALE_DATE.plusDays(1);
+		ledger.record(createReceipt(LocalTime.of(9, 15), apples(3)));
+		ledger.record(createReceipt(nextDay, LocalTime.of(9, 30), bread(2)));
+		ledger.record(createReceipt(LocalTime.of(9, 45), apples(1)));
+
+		LedgerSnapshot snapshot = ledger.snapshot();
+
+		assertEquals(Arrays.asList(SALE_DATE, nextDay), new ArrayList<>(snapshot.getDates()),
+				"Dates of sale are not in order.");
+		assertEquals(2, snapshot.getHourlySaleCount(SALE_DATE, 9), "Sales of another date were counted.");
+		assertEquals(new Amount(23.2), snapshot.getHourlyTotals(SALE_DATE, 9).getRevenue(),
+				"Revenue of another date was added.");
+		assertEquals(1, snapshot.getHourlySaleCount(nextDay, 9), "Incorrect number of sales on the next day.");
+		assertEquals(2, snapshot.getHourlyTotals(nextDay, 9).getItemCount(), "Incorrect item count on the next day.");
+		assertEquals(0, snapshot.getHourlySaleCount(nextDay.plusDays(1), 9), "Sales found on a date without sales.");
+		assertEquals(3, snapshot.getSaleCount(), "Incorrect number of sales.");
+	}
+
+	@Test
+	void testVatRateTotals() {
+		ledger.record(createReceipt(LocalTime.of(9, 15), apples(3), bread(1), discountedCoffee(1)));
+
+		List<Amount> rates = new ArrayList<>(ledger.snapshot().getVatRateTotals().keySet());
+		LedgerTotals standardRate = ledger.snapshot().getVatRateTotals().get(new Amount(0.16));
+		LedgerTotals reducedRate = ledger.snapshot().getVatRateTotals().get(new Amount(0.06));
+
+		assertEquals(Arrays.asList(new Amount(0.06), new Amount(0.16)), rates, "VAT rates are not in order.");
+		assertEquals(new Amount(17.4 + 43.848), standardRate.getRevenue(), "Incorrect revenue at 16 %.");
+		assertEquals(new Amount(4.872), standardRate.getDiscounts(), "Incorrect discounts at 16 %.");
+		assertEquals(new Amount(1.2), reducedRate.getVat(), "Incorrect VAT at 6 %.");
+		assertEquals(1, reducedRate.getItemCount(), "Incorrect item count at 6 %.");
+	}
+
+	@Test
+	void testConcurrentLanes() throws Exception {
+		int laneCount = 16;
+		int salesPerLane = 2_000;
+		Receipt receipt = createReceipt(LocalTime.of(12, 0), apples(2), discountedCoffee(1));
+		Thread[] lanes = new Thread[laneCount];
+
+		for (int i = 0; i < laneCount; i++) {
+			lanes[i] = new Thread(() -> {
+				for (int sale = 0; sale < salesPerLane; sale++) {
+					ledger.record(receipt);
+				}
+			});
+			lanes[i].start();
+		}
+		for (Thread lane : lanes) {
+			lane.join();
+		}
+
+		long sales = laneCount * salesPerLane;
+		LedgerSnapshot snapshot = ledger.snapshot();
+		assertEquals(sales, snapshot.getSaleCount(), "Sales were lost.");
+		assertEquals(new Amount(11.6 + 43.848).multiply((int) sales), snapshot.getTotals().getRevenue(),
+				"Revenue was lost.");
+		assertEquals(sales * 3, snapshot.getHourlyTotals(SALE_DATE, 12).getItemCount(), "Items were lost.");
+	}
+
+	private static PurchasedItemInformation apples(int quantity) {
+		return new PurchasedItemInformation(APPLE, new Amount(5.8), new Amount(0.8), quantity, null);
+	}
+
+	private static PurchasedItemInformation bread(int quantity) {
+		return new PurchasedItemInformation(BREAD, new Amount(21.2), new Amount(1.2), quantity, null);
+	}
+
+	private static PurchasedItemInformation discountedCoffee(int quantity) {
+		return new PurchasedItemInformation(COFFEE, new Amount(43.848), new Amount(6.048), quantity,
+				new RecordedDiscount(new Amount(0.1), "10% off"));
+	}
+
+	private static Receipt createReceipt(LocalTime timeOfSale, PurchasedItemInformation... items) {
+		return createReceipt(SALE_DATE, timeOfSale, items);
+	}
+
+	private static Receipt createReceipt(LocalDate dateOfSale, LocalTime timeOfSale,
+			PurchasedItemInformation... items) {
+		Amount total = new Amount(0);
+		Amount vat = new Amount(0);
+		for (PurchasedItemInformation item : items) {
+			total = total.add(item.getAccumulatedPrice());
+			vat = vat.add(item.getAccumulatedVatTax());
+		}
+
+		return new Receipt(Arrays.asList(items), new PriceInformation(total, vat), total, new Amount(0),
+				new Store("ICA", "Kungsgatan 1"), timeOfSale, dateOfSale);
+	}
+}
@@ -0,0 +1,145 @@
+package integration.dbhandler.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.data.ItemData;
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.store.InMemoryItemStore;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class ItemCacheTest {
+	private static final int CACHE_SIZE = 4;
+	private static final long TIME_TO_LIVE = 1_000;
+
+	private CountingItemStore store;
+	private long now;
+	private ItemCache cache;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		store = new CountingItemStore();
+		for (long id = 1; id <= 100; id++) {
+			store.addItem(new ItemData(
+					new ItemDescription("item " + id, new Amount(1), new Amount(0.16), new IdentificationNumber(id)), 10));
+		}
+		now = 0;
+		cache = new ItemCache(store, CACHE_SIZE, TIME_TO_LIVE, () -> now);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		cache = null;
+		store = null;
+	}
+
+	@Test
+	void testCachedItemIsNotReadFromStore() {
+		ItemDescription first = cache.get(1);
+		ItemDescription second = cache.get(1);
+
+		assertEquals(new IdentificationNumber(1), first.getID(), "Incorrect item returned from cache.");
+		assertSame(first, second, "Cached item description was not reused.");
+		assertEquals(1, store.lookups, "Cached item was read from the store again.");
+
+		CacheStatistics statistics = cache.getStatistics();
+		assertEquals(1, statistics.getHitCount(), "Incorrect hit count.");
+		assertEquals(1, statistics.getMissCount(), "Incorrect miss count.");
+	}
+
+	@Test
+	void testMissingItem() {
+		assertNull(cache.get(4711), "Item that does not exist in the store was returned.");
+	}
+
+	@Test
+	void testExpiredItemIsReadFromStore() {
+		cache.get(1);
+		now += TIME_TO_LIVE;
+		cache.get(1);
+
+		assertEquals(2, store.lookups, "Expired item was not read from the store.");
+		assertEquals(1, cache.getStatistics().getEvictionCount(), "Expired item was not counted as evicted.");
+	}
+
+	@Test
+	void testSizeIsBounded() {
+		for (long id = 1; id <= 100; id++) {
+			cache.get(id);
+		}
+
+		CacheStatistics statistics = cache.getStatistics();
+		assertTrue(statistics.getSize() <= CACHE_SIZE, "Cache grew beyond its maximum size: " + statistics.getSize());
+		assertEquals(100 - CACHE_SIZE, statistics.getEvictionCount(), "Incorrect eviction count.");
+	}
+
+	@Test
+	void testFrequentlyUsedItemStaysCached() {
+		for (int use = 0; use < 10; use++) {
+			cache.get(1);
+		}
+		for (long id = 2; id <= 100; id++) {
+			cache.get(id);
+		}
+		int lookupsBefore = store.lookups;
+		cache.get(1);
+
+		assertEquals(lookupsBefore, store.lookups, "Frequently used item was evicted.");
+	}
+
+	@Test
+	void testEvictionSamplesWholeCache() {
+		ItemCache largeCache = new ItemCache(store, 32, TIME_TO_LIVE, () -> now);
+		for (long id = 1; id <= 32; id++) {
+			largeCache.get(id);
+			for (int use = 0; id != 30 && use < 3; use++) {
+				largeCache.get(id);
+			}
+		}
+
+		for (long id = 33; id <= 40; id++) {
+			largeCache.get(id);
+			for (int use = 0; use < 3; use++) {
+				largeCache.get(id);
+			}
+		}
+		int lookupsBefore = store.lookups;
+		largeCache.get(30);
+
+		assertEquals(lookupsBefore + 1, store.lookups,
+				"Unused item was kept while frequently used items were evicted.");
+	}
+
+	@Test
+	void testInvalidate() {
+		cache.get(1);
+		cache.invalidate(1);
+		cache.get(1);
+
+		assertEquals(2, store.lookups, "Invalidated item was not read from the store.");
+	}
+
+	private static class CountingItemStore extends InMemoryItemStore {
+		private int lookups;
+
+		@Override
+		public ItemData findItem(long itemID) {
+			lookups++;
+			return super.findItem(itemID);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package integration.dbhandler.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ItemIDFilterTest {
+	private static final int VALID_IDS = 100_000;
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+
+	private ItemIDFilter filter;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		filter = new ItemIDFilter(VALID_IDS, FALSE_POSITIVE_RATE);
+		for (long id = 0; id < VALID_IDS; id++) {
+			filter.add(id * 31);
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		filter = null;
+	}
+
+	@Test
+	void testNoFalseNegatives() {
+		for (long id = 0; id < VALID_IDS; id++) {
+			assertTrue(filter.mightContain(id * 31), "Valid ID " + id * 31 + " was rejected by the filter.");
+		}
+	}
+
+	@Test
+	void testFalsePositiveRate() {
+		Random random = new Random(7);
+		int lookups = 100_000;
+		int falsePositives = 0;
+		for (int i = 0; i < lookups; i++) {
+			long invalidID = VALID_IDS * 31L + 1 + random.nextInt(Integer.MAX_VALUE);
+			if (filter.mightContain(invalidID)) {
+				falsePositives++;
+			}
+		}
+
+		double rate = (double) falsePositives / lookups;
+		assertTrue(rate < FALSE_POSITIVE_RATE * 2, "False positive rate " + rate + " is too high.");
+	}
+}
@@ -0,0 +1,58 @@
+package integration.dbhandler.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RejectedIDCacheTest {
+	private static final long TIME_TO_LIVE = 1_000;
+
+	private long now;
+	private RejectedIDCache cache;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		now = -5_000;
+		cache = new RejectedIDCache(16, TIME_TO_LIVE, () -> now);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		cache = null;
+	}
+
+	@Test
+	void testNothingRejectedInitially() {
+		assertFalse(cache.isRecentlyRejected(0), "ID 0 is rejected although it was never recorded.");
+		assertFalse(cache.isRecentlyRejected(98734342), "ID is rejected although it was never recorded.");
+	}
+
+	@Test
+	void testRecordedIDIsRejectedUntilExpired() {
+		cache.recordRejected(98734342);
+		assertTrue(cache.isRecentlyRejected(98734342), "Recorded ID is not rejected.");
+
+		now += TIME_TO_LIVE;
+		assertFalse(cache.isRecentlyRejected(98734342), "Recorded ID is still rejected after it expired.");
+	}
+
+	@Test
+	void testClear() {
+		cache.recordRejected(98734342);
+		cache.clear();
+
+		assertFalse(cache.isRecentlyRejected(98734342), "Recorded ID is still rejected after clearing.");
+	}
+}
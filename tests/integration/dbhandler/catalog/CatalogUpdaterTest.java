@@ -0,0 +1,134 @@
+package integration.dbhandler.catalog;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.DiscountSystem;
+import integration.dbhandler.InvalidItemIDException;
+import integration.dbhandler.InventorySystem;
+import integration.dbhandler.data.ItemData;
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.DiscountRuleRegistry;
+import integration.dbhandler.discount.DiscountRules;
+import integration.dbhandler.store.InMemoryItemStore;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class CatalogUpdaterTest {
+	private Path deltaFile;
+	private InventorySystem inventorySystem;
+	private DiscountSystem discountSystem;
+	private CatalogUpdater updater;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		InMemoryItemStore store = new InMemoryItemStore();
+		store.addItem(new ItemData(
+				new ItemDescription("apple", new Amount(5), new Amount(0.16), new IdentificationNumber(123)), 54));
+		store.addItem(new ItemData(
+				new ItemDescription("coffee", new Amount(42), new Amount(0.16), new IdentificationNumber(666)), 87));
+
+		DiscountRuleRegistry registry = new DiscountRuleRegistry();
+		inventorySystem = new InventorySystem(store);
+		discountSystem = new DiscountSystem(
+				DiscountRules.compile(Arrays.asList(registry.create("quantity", 666, "3", "0.2"))));
+		updater = new CatalogUpdater(inventorySystem, discountSystem);
+		deltaFile = Files.createTempFile("catalog", ".delta");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		updater.shutdown(1, TimeUnit.SECONDS);
+		Files.deleteIfExists(deltaFile);
+	}
+
+	@Test
+	void testChangedPriceIsSeenByNewScans() throws Exception {
+		load("# new price", "item 123 5.50 0.16 0 apple");
+
+		ItemDescription description = inventorySystem.retrieveItemDescription(new IdentificationNumber(123));
+
+		assertEquals(new Amount(5.5), description.getPrice(), "Changed price was not seen.");
+		assertEquals(1, inventorySystem.getCatalogVersion(), "Catalog version was not increased.");
+	}
+
+	@Test
+	void testStockIsKeptWhenItemIsChanged() throws Exception {
+		load("item 123 5.50 0.16 0 apple");
+
+		assertEquals(54, inventorySystem.getAvailableQuantityOfItem(new IdentificationNumber(123)),
+				"Stock of a changed item was replaced.");
+	}
+
+	@Test
+	void testAddedItemIsFound() throws Exception {
+		IdentificationNumber newItemID = new IdentificationNumber(492);
+		assertThrows(InvalidItemIDException.class, () -> inventorySystem.retrieveItemDescription(newItemID),
+				"Item was found before it was added.");
+
+		load("item 492 12 0.16 56 orange juice");
+
+		assertEquals("orange juice", inventorySystem.retrieveItemDescription(newItemID).getName(),
+				"Added item was not found.");
+		assertEquals(56, inventorySystem.getAvailableQuantityOfItem(newItemID), "Incorrect stock of added item.");
+	}
+
+	@Test
+	void testDeltaDoesNotChangePublishedRules() throws Exception {
+		DiscountRules rulesOfStartedSale = discountSystem.getDiscountRules();
+
+		load("nodiscount 666", "discount 123 price 0.1");
+
+		DiscountRules newRules = discountSystem.getDiscountRules();
+		assertNotNull(rulesOfStartedSale.find(666), "Rules of a started sale were changed.");
+		assertNull(rulesOfStartedSale.find(123), "Rules of a started sale were changed.");
+		assertNull(newRules.find(666), "Removed rule is still used.");
+		assertNotNull(newRules.find(123), "Added rule is not used.");
+		assertEquals(rulesOfStartedSale.getVersion() + 1, newRules.getVersion(), "Rule version was not increased.");
+	}
+
+	@Test
+	void testInvalidDeltaChangesNothing() throws Exception {
+		DiscountRules rules = discountSystem.getDiscountRules();
+		write("item 123 5.50 0.16 0 apple", "discount 666 unknown 1");
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> updater.loadDelta(deltaFile).get(),
+				"Invalid delta was loaded.");
+
+		assertTrue(e.getCause() instanceof UncheckedIOException, "Incorrect cause: " + e.getCause());
+		assertTrue(e.getCause().getMessage().contains("line 2"), "Line of the error is missing.");
+		assertEquals(0, inventorySystem.getCatalogVersion(), "Items were changed by an invalid delta.");
+		assertSame(rules, discountSystem.getDiscountRules(), "Rules were changed by an invalid delta.");
+	}
+
+	private void load(String... lines) throws Exception {
+		write(lines);
+		updater.loadDelta(deltaFile).get(5, TimeUnit.SECONDS);
+	}
+
+	private void write(String... lines) throws IOException {
+		Files.write(deltaFile, Arrays.asList(lines), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,117 @@
+package integration.dbhandler.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class ItemDataTest {
+	private static final int THREADS = 16;
+	private static final int OPERATIONS_PER_THREAD = 20_000;
+
+	private ItemData itemData;
+	private ExecutorService executor;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		ItemDescription description = new ItemDescription("apple", new Amount(5), new Amount(0.16),
+				new IdentificationNumber(123));
+		itemData = new ItemData(description, 0);
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		executor.shutdownNow();
+		executor = null;
+		itemData = null;
+	}
+
+	@Test
+	void testReserveIfAvailable() {
+		itemData.increaseQuantity(5);
+
+		assertTrue(itemData.reserveIfAvailable(3), "Reservation failed although there was enough in stock.");
+		assertFalse(itemData.reserveIfAvailable(3), "Reservation succeeded although there was not enough in stock.");
+		assertEquals(2, itemData.getAvailableQuantity(), "A failed reservation changed the stock quantity.");
+	}
+
+	@Test
+	void testConcurrentUpdatesAreNotLost() throws Exception {
+		int startQuantity = 1_000_000;
+		itemData.increaseQuantity(startQuantity);
+
+		List<Future<Integer>> results = runConcurrently(() -> {
+			for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+				itemData.decreaseQuantity(3);
+				itemData.increaseQuantity(1);
+			}
+			return 0;
+		});
+		for (Future<Integer> result : results) {
+			result.get();
+		}
+
+		int expectedQuantity = startQuantity - THREADS * OPERATIONS_PER_THREAD * 2;
+		assertEquals(expectedQuantity, itemData.getAvailableQuantity(), "Concurrent stock updates were lost.");
+	}
+
+	@Test
+	void testConcurrentReservationsNeverOversell() throws Exception {
+		int startQuantity = THREADS * OPERATIONS_PER_THREAD / 2;
+		itemData.increaseQuantity(startQuantity);
+
+		List<Future<Integer>> results = runConcurrently(() -> {
+			int reserved = 0;
+			for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+				if (itemData.reserveIfAvailable(1)) {
+					reserved++;
+				}
+			}
+			return reserved;
+		});
+		int totalReserved = 0;
+		for (Future<Integer> result : results) {
+			totalReserved += result.get();
+		}
+
+		assertEquals(startQuantity, totalReserved, "Incorrect number of successful reservations.");
+		assertEquals(0, itemData.getAvailableQuantity(), "Stock was oversold or left over.");
+	}
+
+	private List<Future<Integer>> runConcurrently(Callable<Integer> task) {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> results = new ArrayList<>();
+		for (int thread = 0; thread < THREADS; thread++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				return task.call();
+			}));
+		}
+		start.countDown();
+
+		return results;
+	}
+}
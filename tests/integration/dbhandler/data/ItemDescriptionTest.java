@@ -55,4 +55,13 @@ class ItemDescriptionTest {
 		assertFalse(description.equals(differentDescription), "Item descriptions with different IDs " + "are equal.");
 	}
 
+	@Test
+	void testEqualHashCode() {
+		ItemDescription identicalDescription = new ItemDescription("apple", new Amount(5), new Amount(0.16),
+				new IdentificationNumber(123));
+
+		assertEquals(description.hashCode(), identicalDescription.hashCode(),
+				"Equal item descriptions have different hash codes.");
+	}
+
 }
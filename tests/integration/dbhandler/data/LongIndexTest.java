@@ -0,0 +1,98 @@
+package integration.dbhandler.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LongIndexTest {
+	private LongIndex<String> index;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		index = new LongIndex<>();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		index = null;
+	}
+
+	@Test
+	void testGetStoredRecord() {
+		index.put(123, "apple");
+		index.put(0, "zero");
+		index.put(-7, "negative");
+
+		assertEquals("apple", index.get(123), "Stored record was not found.");
+		assertEquals("zero", index.get(0), "Record with key 0 was not found.");
+		assertEquals("negative", index.get(-7), "Record with negative key was not found.");
+		assertEquals(3, index.size(), "Incorrect number of records.");
+	}
+
+	@Test
+	void testGetMissingRecord() {
+		index.put(123, "apple");
+
+		assertNull(index.get(124), "Record was found for a key that was never stored.");
+		assertFalse(index.containsKey(124), "Index contains a key that was never stored.");
+	}
+
+	@Test
+	void testReplaceRecord() {
+		index.put(123, "apple");
+		String previous = index.put(123, "green apple");
+
+		assertEquals("apple", previous, "The replaced record was not returned.");
+		assertEquals("green apple", index.get(123), "Record was not replaced.");
+		assertEquals(1, index.size(), "Replacing a record changed the number of records.");
+	}
+
+	@Test
+	void testSameContentAsHashMapAfterGrowing() {
+		Random random = new Random(42);
+		Map<Long, String> expected = new HashMap<>();
+		for (int i = 0; i < 100_000; i++) {
+			long key = random.nextLong();
+			expected.put(key, "item " + key);
+			index.put(key, "item " + key);
+		}
+
+		assertEquals(expected.size(), index.size(), "Incorrect number of records.");
+		for (Map.Entry<Long, String> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), index.get(entry.getKey()), "Incorrect record for key " + entry.getKey());
+		}
+
+		int[] visited = { 0 };
+		index.forEach((key, value) -> {
+			assertEquals(expected.get(key), value, "Incorrect record visited for key " + key);
+			visited[0]++;
+		});
+		assertEquals(expected.size(), visited[0], "Not every record was visited.");
+	}
+
+	@Test
+	void testCopyIsIndependent() {
+		index.put(123, "apple");
+		LongIndex<String> copy = new LongIndex<>(index);
+		copy.put(666, "coffee");
+
+		assertEquals("apple", copy.get(123), "Copy does not contain the original records.");
+		assertNull(index.get(666), "Writing to the copy changed the original index.");
+	}
+}
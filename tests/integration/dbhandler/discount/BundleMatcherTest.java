@@ -0,0 +1,207 @@
+package integration.dbhandler.discount;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.data.ItemDescription;
+import model.dto.BundleDiscountInformation;
+import model.dto.PurchasedItemInformation;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class BundleMatcherTest {
+	private static final long TIME_BUDGET = 1_000_000_000L;
+
+	private Amount vatRate;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		vatRate = new Amount(0.25);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		vatRate = null;
+	}
+
+	@Test
+	void testMatchBundle() {
+		BundleMatcher matcher = BundleMatcher.compile(Collections.singletonList(new BundleRule("coffee + chocolate",
+				new Amount(0.1), new BundleRequirement(1, 666), new BundleRequirement(1, 876))), TIME_BUDGET);
+
+		BundleMatch match = matcher.match(Arrays.asList(line(666, 40, 1), line(123, 8, 2), line(876, 8, 1)));
+
+		assertEquals(new Amount(4.8), match.getTotalDiscount(), "Incorrect bundle discount.");
+		assertEquals(new Amount(0.96), match.getTotalVatDiscount(), "Incorrect VAT of the bundle discount.");
+		assertEquals(2, match.getDiscounts().size(), "Discount was not split over the bundled items.");
+		BundleDiscountInformation coffeeDiscount = match.getDiscounts().get(0);
+		assertEquals(666, coffeeDiscount.getItemID().getID(), "Incorrect item of the bundle discount.");
+		assertEquals(new Amount(4), coffeeDiscount.getDiscount(), "Incorrect discount on the item.");
+		assertTrue(match.isOptimal(), "Search did not finish.");
+	}
+
+	@Test
+	void testBundleNotInSale() {
+		BundleMatcher matcher = BundleMatcher.compile(Collections.singletonList(new BundleRule("coffee + chocolate",
+				new Amount(0.1), new BundleRequirement(1, 666), new BundleRequirement(1, 876))), TIME_BUDGET);
+
+		BundleMatch match = matcher.match(Arrays.asList(line(666, 40, 3), line(123, 8, 2)));
+
+		assertSame(BundleMatch.NONE, match, "Bundle matched a sale without all of its items.");
+		assertTrue(matcher.isBundled(876), "Bundled item not recognized.");
+		assertFalse(matcher.isBundled(123), "Item that is not bundled was recognized.");
+	}
+
+	@Test
+	void testBundleAppliedSeveralTimes() {
+		BundleMatcher matcher = BundleMatcher.compile(Collections.singletonList(new BundleRule("coffee + chocolate",
+				new Amount(0.1), new BundleRequirement(1, 666), new BundleRequirement(1, 876))), TIME_BUDGET);
+
+		BundleMatch match = matcher.match(Arrays.asList(line(666, 40, 3), line(876, 8, 2)));
+
+		assertEquals(new Amount(9.6), match.getTotalDiscount(), "Bundle was not applied once per complete set.");
+		for (BundleDiscountInformation discount : match.getDiscounts()) {
+			assertEquals(2, discount.getQuantity(), "A unit was part of more than one bundle.");
+		}
+	}
+
+	@Test
+	void testBundleAppliedToLargeQuantity() {
+		BundleMatcher matcher = BundleMatcher.compile(Collections.singletonList(new BundleRule("coffee + chocolate",
+				new Amount(0.1), new BundleRequirement(1, 666), new BundleRequirement(1, 876))), TIME_BUDGET);
+
+		BundleMatch match = matcher.match(Arrays.asList(line(666, 40, 100_000), line(876, 8, 100_000)));
+
+		assertEquals(new Amount(480_000), match.getTotalDiscount(), "Bundle was not applied to every complete set.");
+		for (BundleDiscountInformation discount : match.getDiscounts()) {
+			assertEquals(100_000, discount.getQuantity(), "Not every unit was part of a bundle.");
+		}
+	}
+
+	@Test
+	void testMixAndMatchTakesMostValuableUnits() {
+		BundleMatcher matcher = BundleMatcher.compile(Collections.singletonList(
+				new BundleRule("3 for 2 juice", new Amount(0.5), new BundleRequirement(3, 1, 2, 3))), TIME_BUDGET);
+
+		BundleMatch match = matcher.match(Arrays.asList(line(1, 8, 2), line(2, 16, 1), line(3, 4, 1)));
+
+		assertEquals(new Amount(16), match.getTotalDiscount(), "The most valuable units were not used.");
+	}
+
+	@Test
+	void testBestCombinationBeatsGreedy() {
+		List<BundleRule> rules = overlappingBundles();
+		BundleMatcher matcher = BundleMatcher.compile(rules, TIME_BUDGET);
+
+		BundleMatch match = matcher.match(overlappingSale());
+
+		assertEquals(new Amount(280), match.getTotalDiscount(),
+				"The bundle with the largest discount was used although two smaller ones give more.");
+		assertTrue(match.isOptimal(), "Search did not finish.");
+	}
+
+	@Test
+	void testExhaustedTimeBudgetKeepsGreedyCombination() {
+		BundleMatcher matcher = BundleMatcher.compile(overlappingBundles(), 0);
+
+		BundleMatch match = matcher.match(overlappingSale());
+
+		assertTrue(match.getTotalDiscount().getMinorUnits() >= new Amount(240).getMinorUnits(),
+				"Result is worse than the greedy combination: " + match.getTotalDiscount());
+	}
+
+	@Test
+	void testManyBundles() {
+		int bundleCount = 20_000;
+		List<BundleRule> rules = new ArrayList<>();
+		for (int i = 0; i < bundleCount; i++) {
+			rules.add(new BundleRule("bundle " + i, new Amount(0.1), new BundleRequirement(1, 10_000 + i),
+					new BundleRequirement(2, 50_000 + i % 100, 60_000 + i % 100)));
+		}
+		BundleMatcher matcher = BundleMatcher.compile(rules, TIME_BUDGET);
+
+		BundleMatch match = matcher.match(Arrays.asList(line(10_007, 100, 1), line(50_007, 10, 1),
+				line(60_007, 10, 1), line(10_008, 100, 1)));
+
+		assertEquals(bundleCount, matcher.size(), "Bundles were lost when compiling.");
+		assertEquals(new Amount(12), match.getTotalDiscount(), "Incorrect bundle matched among many rules.");
+	}
+
+	@Test
+	void testIncompleteBundleGivesBackItsUnits() {
+		BundleMatcher matcher = BundleMatcher.compile(Arrays.asList(
+				new BundleRule("two juices and a coffee", new Amount(0.5), new BundleRequirement(2, 1),
+						new BundleRequirement(1, 2)),
+				new BundleRule("two juices", new Amount(0.1), new BundleRequirement(2, 1))), TIME_BUDGET);
+
+		BundleMatch match = matcher.match(Arrays.asList(line(1, 100, 4), line(2, 100, 1)));
+
+		assertEquals(new Amount(170), match.getTotalDiscount(),
+				"Units taken by a bundle that could not be completed were not given back.");
+	}
+
+	@Test
+	void testWorkspaceReusedBetweenMatches() {
+		BundleMatcher matcher = BundleMatcher.compile(Collections.singletonList(new BundleRule("coffee + chocolate",
+				new Amount(0.1), new BundleRequirement(1, 666), new BundleRequirement(1, 876))), TIME_BUDGET);
+		BundleMatcher.Workspace workspace = new BundleMatcher.Workspace();
+
+		BundleMatch first = matcher.match(Arrays.asList(line(666, 40, 1), line(876, 8, 1)), workspace);
+		BundleMatch second = matcher.match(Collections.singletonList(line(666, 40, 1)), workspace);
+
+		assertEquals(new Amount(4.8), first.getTotalDiscount(), "Incorrect bundle discount.");
+		assertSame(BundleMatch.NONE, second, "Items of an earlier match were left in the workspace.");
+	}
+
+	@Test
+	void testItemInTwoRequirements() {
+		assertThrows(IllegalArgumentException.class, () -> new BundleRule("invalid", new Amount(0.1),
+				new BundleRequirement(1, 666), new BundleRequirement(1, 666, 876)),
+				"Bundle accepted an item in two requirements.");
+	}
+
+	/**
+	 * One bundle gives the largest discount, but uses an item that two other
+	 * bundles need, and those two give more together.
+	 */
+	private List<BundleRule> overlappingBundles() {
+		return Arrays.asList(
+				new BundleRule("large", new Amount(0.5), new BundleRequirement(1, 1), new BundleRequirement(1, 2)),
+				new BundleRule("first small", new Amount(0.35), new BundleRequirement(1, 1),
+						new BundleRequirement(1, 3)),
+				new BundleRule("second small", new Amount(0.35), new BundleRequirement(1, 2),
+						new BundleRequirement(1, 4)),
+				new BundleRule("filler", new Amount(0.1), new BundleRequirement(1, 3), new BundleRequirement(1, 4)));
+	}
+
+	private List<PurchasedItemInformation> overlappingSale() {
+		return Arrays.asList(line(1, 200, 1), line(2, 200, 1), line(3, 200, 1), line(4, 200, 1));
+	}
+
+	private PurchasedItemInformation line(long itemID, int unitPrice, int quantity) {
+		Amount price = new Amount(unitPrice).subtract(new Amount(unitPrice).multiply(new Amount(0.2)));
+		ItemDescription description = new ItemDescription("item " + itemID, price, vatRate,
+				new IdentificationNumber(itemID));
+
+		return new PurchasedItemInformation(description, new Amount(unitPrice),
+				new Amount(unitPrice).subtract(price), quantity, null);
+	}
+}
@@ -0,0 +1,123 @@
+package integration.dbhandler.discount;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.util.Amount;
+
+class DiscountRulesTest {
+	private DiscountRuleRegistry registry;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		registry = new DiscountRuleRegistry();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		registry = null;
+	}
+
+	@Test
+	void testFindRule() {
+		DiscountRules rules = DiscountRules.compile(Arrays.asList(registry.create("price", 876, "0.4"),
+				registry.create("quantity", 666, "3", "0.2")));
+
+		assertEquals(2, rules.size(), "Incorrect number of rules.");
+		assertEquals(876, rules.find(876).getItemID(), "Incorrect rule found.");
+		assertEquals(666, rules.find(666).getItemID(), "Incorrect rule found.");
+		assertNull(rules.find(123), "Rule found for an item without a rule.");
+	}
+
+	@Test
+	void testManyRules() {
+		int ruleCount = 50_000;
+		List<DiscountRule> ruleList = new ArrayList<>();
+		for (int i = 0; i < ruleCount; i++) {
+			ruleList.add(registry.create("price", 1_000_000L + i * 7L, "0.1"));
+		}
+
+		DiscountRules rules = DiscountRules.compile(ruleList);
+
+		assertEquals(ruleCount, rules.size(), "Rules were lost when compiling.");
+		for (int i = 0; i < ruleCount; i++) {
+			assertNotNull(rules.find(1_000_000L + i * 7L), "Rule was not found.");
+			assertNull(rules.find(1_000_001L + i * 7L), "Rule found for an item without a rule.");
+		}
+	}
+
+	@Test
+	void testQuantityRuleLimit() {
+		DiscountRule rule = registry.create("quantity", 666, "3", "0.2");
+
+		assertNull(rule.evaluate(2), "Discount given below the quantity limit.");
+		assertNotNull(rule.evaluate(3), "No discount given at the quantity limit.");
+	}
+
+	@Test
+	void testPriceRuleRate() {
+		DiscountRule rule = registry.create("price", 876, "0.4");
+
+		assertEquals(new Amount(0.4), rule.evaluate(1).getRate(), "Incorrect discount rate.");
+	}
+
+	@Test
+	void testRegisterRuleType() {
+		registry.register("free", (itemID, parameters) -> new PriceDiscountRule(itemID,
+				new PriceDiscount(new Amount(1))));
+
+		DiscountRule rule = registry.create("free", 42);
+
+		assertEquals(42, rule.getItemID(), "Incorrect item ID.");
+		assertEquals(new Amount(1), rule.evaluate(1).getRate(), "Registered rule type was not used.");
+	}
+
+	@Test
+	void testUnknownRuleType() {
+		assertThrows(IllegalArgumentException.class, () -> registry.create("bundle", 1),
+				"Unknown rule type was accepted.");
+	}
+
+	@Test
+	void testInvalidParameters() {
+		assertThrows(IllegalArgumentException.class, () -> registry.create("quantity", 1, "many"),
+				"Invalid parameters were accepted.");
+	}
+
+	@Test
+	void testWithChanges() {
+		BundleMatcher bundles = BundleMatcher.compile(Collections.singletonList(new BundleRule("bundle",
+				new Amount(0.1), new BundleRequirement(1, 666), new BundleRequirement(1, 876))), 0);
+		DiscountRules rules = DiscountRules.compile(Arrays.asList(registry.create("price", 876, "0.4"),
+				registry.create("quantity", 666, "3", "0.2")), bundles);
+
+		DiscountRules changedRules = rules.withChanges(Arrays.asList(registry.create("price", 876, "0.1"),
+				registry.create("price", 123, "0.3")), new long[] { 666 });
+
+		assertEquals(2, changedRules.size(), "Incorrect number of changed rules.");
+		assertNotSame(rules.find(876), changedRules.find(876), "Rule was not replaced.");
+		assertNotNull(changedRules.find(123), "Rule was not added.");
+		assertNull(changedRules.find(666), "Rule was not removed.");
+		assertNotNull(rules.find(666), "Original rules were changed.");
+		assertSame(bundles, changedRules.getBundles(), "Bundles were not kept.");
+		assertEquals(rules.getVersion() + 1, changedRules.getVersion(), "Version was not increased.");
+	}
+}
@@ -0,0 +1,65 @@
+package integration.dbhandler.discount;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.util.Amount;
+
+class QuantityDiscountTest {
+	private QuantityDiscount discount;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		discount = new QuantityDiscount((short) 3, new Amount(0.2));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		discount = null;
+	}
+
+	@Test
+	void testRateForQuantity() {
+		assertEquals(new Amount(0.06), discount.withQuantity(3).getRate(), "Incorrect rate for 3 items.");
+		assertEquals(new Amount(0.18), discount.withQuantity(9).getRate(), "Incorrect rate for 9 items.");
+	}
+
+	@Test
+	void testRateIsLimited() {
+		assertEquals(new Amount(0.2), discount.withQuantity(50).getRate(), "Rate exceeds the maximum rate.");
+	}
+
+	@Test
+	void testWithQuantityDoesNotChangeDiscount() {
+		QuantityDiscount forFive = discount.withQuantity(5);
+		discount.withQuantity(8);
+
+		assertEquals(new Amount(0), discount.getRate(), "Shared discount was changed.");
+		assertEquals(new Amount(0.1), forFive.getRate(), "Earlier discount was changed by a later one.");
+		assertEquals(5, forFive.getQuantity(), "Incorrect quantity.");
+	}
+
+	@Test
+	void testRuleReturnsNewDiscount() {
+		QuantityDiscountRule rule = new QuantityDiscountRule(666, discount);
+
+		Discount forFour = rule.evaluate(4);
+		Discount forTen = rule.evaluate(10);
+
+		assertEquals(new Amount(0.08), forFour.getRate(), "Discount was changed by a later evaluation.");
+		assertEquals(new Amount(0.2), forTen.getRate(), "Incorrect rate for 10 items.");
+	}
+}
@@ -0,0 +1,257 @@
+package integration.dbhandler.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.RecordedDiscount;
+import model.dto.BundleDiscountInformation;
+import model.dto.PriceInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.dto.Store;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class ReceiptCodecTest {
+	private static final String[] NAMES = { "apple", "coffee", "", "k\u00e4rnm\u00e4lk",
+			"\u00e5\u00e4\u00f6 \ud83d\ude00", "a name that is longer than one hundred and twenty-seven characters, "
+					+ "so that its length takes two bytes when it is written as a number" };
+
+	private Random random;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		random = new Random(23);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		random = null;
+	}
+
+	@Test
+	void testRandomReceiptsRoundTrip() throws Exception {
+		for (int i = 0; i < 2_000; i++) {
+			Receipt receipt = randomReceipt();
+
+			byte[] encoded = ReceiptCodec.encode(receipt);
+
+			assertReceiptEquals(receipt, ReceiptCodec.decode(encoded));
+			ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+			direct.put(encoded).flip();
+			assertReceiptEquals(receipt, ReceiptCodec.decode(direct));
+			assertFalse(direct.hasRemaining(), "Receipt was not read to its end.");
+		}
+	}
+
+	@Test
+	void testDecodeFromSliceOfLargerArray() throws Exception {
+		Receipt receipt = randomReceipt();
+		byte[] encoded = ReceiptCodec.encode(receipt);
+		byte[] larger = new byte[encoded.length + 20];
+		System.arraycopy(encoded, 0, larger, 13, encoded.length);
+
+		ByteBuffer buffer = ByteBuffer.wrap(larger, 13, encoded.length).slice();
+
+		assertReceiptEquals(receipt, ReceiptCodec.decode(buffer));
+	}
+
+	@Test
+	void testRepeatedTextIsWrittenOnce() {
+		List<PurchasedItemInformation> items = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			items.add(item(i, "same name", 1, "same discount"));
+		}
+
+		byte[] encoded = ReceiptCodec.encode(receipt(items, new ArrayList<BundleDiscountInformation>()));
+
+		assertEquals(1, occurrences(encoded, "same name"), "Repeated item name was not written once.");
+		assertEquals(1, occurrences(encoded, "same discount"), "Repeated discount was not written once.");
+	}
+
+	@Test
+	void testTruncatedReceiptIsRejected() {
+		byte[] encoded = ReceiptCodec.encode(randomReceipt());
+
+		for (int length = 0; length < encoded.length; length++) {
+			byte[] truncated = Arrays.copyOf(encoded, length);
+			assertThrows(IOException.class, () -> ReceiptCodec.decode(truncated),
+					"Receipt truncated to " + length + " bytes was accepted.");
+		}
+	}
+
+	@Test
+	void testUnknownVersionIsRejected() {
+		byte[] encoded = ReceiptCodec.encode(randomReceipt());
+		encoded[1] = 9;
+
+		IOException e = assertThrows(IOException.class, () -> ReceiptCodec.decode(encoded),
+				"Unknown format version was accepted.");
+		assertTrue(e.getMessage().contains("version"), "Error does not mention the version.");
+	}
+
+	@Test
+	void testReceiptWithoutRegisterIsDecoded() throws Exception {
+		Receipt receipt = receipt(new ArrayList<PurchasedItemInformation>(),
+				new ArrayList<BundleDiscountInformation>());
+		byte[] encoded = ReceiptCodec.encode(receipt);
+		byte[] secondFormat = Arrays.copyOf(encoded, encoded.length - 2);
+		secondFormat[1] = 2;
+
+		Receipt decoded = ReceiptCodec.decode(secondFormat);
+
+		assertReceiptEquals(receipt, decoded);
+		assertEquals(0, decoded.getRegisterID(), "Receipt without register got a register ID.");
+	}
+
+	private static int occurrences(byte[] encoded, String text) {
+		byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+		int count = 0;
+		for (int i = 0; i + textBytes.length <= encoded.length; i++) {
+			if (Arrays.equals(textBytes, Arrays.copyOfRange(encoded, i, i + textBytes.length))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private Receipt randomReceipt() {
+		List<PurchasedItemInformation> items = new ArrayList<>();
+		for (int i = random.nextInt(8); i > 0; i--) {
+			items.add(item(randomID(), randomName(), random.nextInt(2_000) - 10,
+					random.nextBoolean() ? null : randomName()));
+		}
+		List<BundleDiscountInformation> bundleDiscounts = new ArrayList<>();
+		for (int i = random.nextInt(3); i > 0; i--) {
+			bundleDiscounts.add(new BundleDiscountInformation(randomName(), new IdentificationNumber(randomID()),
+					randomAmount(), random.nextInt(100), randomAmount(), randomAmount()));
+		}
+
+		Receipt receipt = receipt(items, bundleDiscounts);
+		return random.nextBoolean() ? receipt : receipt.registeredIn(randomID(), random.nextInt(1_000));
+	}
+
+	private Receipt receipt(List<PurchasedItemInformation> items, List<BundleDiscountInformation> bundleDiscounts) {
+		return new Receipt(items, bundleDiscounts, new PriceInformation(randomAmount(), randomAmount()), randomAmount(),
+				randomAmount(), new Store(randomName(), randomName()),
+				LocalTime.ofNanoOfDay((long) (random.nextDouble() * 86_399_999_999_999L)),
+				LocalDate.ofEpochDay(random.nextInt(200_000) - 100_000));
+	}
+
+	private PurchasedItemInformation item(long itemID, String name, int quantity, String discountDescription) {
+		ItemDescription description = new ItemDescription(name, randomAmount(), randomAmount(),
+				new IdentificationNumber(itemID));
+		RecordedDiscount discount = discountDescription == null ? null
+				: new RecordedDiscount(randomAmount(), discountDescription);
+
+		return new PurchasedItemInformation(description, randomAmount(), randomAmount(), quantity, discount);
+	}
+
+	private long randomID() {
+		switch (random.nextInt(4)) {
+		case 0:
+			return random.nextInt(1_000);
+		case 1:
+			return random.nextLong();
+		case 2:
+			return Long.MAX_VALUE;
+		default:
+			return -1;
+		}
+	}
+
+	private String randomName() {
+		return NAMES[random.nextInt(NAMES.length)];
+	}
+
+	private Amount randomAmount() {
+		switch (random.nextInt(3)) {
+		case 0:
+			return Amount.ofMinorUnits(random.nextInt(1_000_000) * 10_000L);
+		case 1:
+			return Amount.ofMinorUnits(random.nextLong() >> 24);
+		default:
+			return Amount.ofMinorUnits(-random.nextInt(1_000_000));
+		}
+	}
+
+	/**
+	 * Asserts that a receipt that was read back has the same content as the
+	 * receipt that was written. Also used by {@link SaleJournalTest}.
+	 */
+	static void assertReceiptEquals(Receipt expected, Receipt actual) {
+		assertEquals(expected.getDateOfSale(), actual.getDateOfSale(), "Incorrect date of sale.");
+		assertEquals(expected.getTimeOfSale(), actual.getTimeOfSale(), "Incorrect time of sale.");
+		assertEquals(expected.getStore().getName(), actual.getStore().getName(), "Incorrect store name.");
+		assertEquals(expected.getStore().getAddress(), actual.getStore().getAddress(), "Incorrect store address.");
+		assertEquals(expected.getPriceInfo().getTotalPrice(), actual.getPriceInfo().getTotalPrice(),
+				"Incorrect total price.");
+		assertEquals(expected.getPriceInfo().getTotalVat(), actual.getPriceInfo().getTotalVat(), "Incorrect VAT.");
+		assertEquals(expected.getAmountPaid(), actual.getAmountPaid(), "Incorrect amount paid.");
+		assertEquals(expected.getAmountOfChange(), actual.getAmountOfChange(), "Incorrect change.");
+		assertEquals(expected.getRegisterID(), actual.getRegisterID(), "Incorrect register ID.");
+		assertEquals(expected.getRegisterPeriod(), actual.getRegisterPeriod(), "Incorrect register period.");
+		assertEquals(expected.getListOfSoldItems().size(), actual.getListOfSoldItems().size(),
+				"Incorrect number of items.");
+		assertEquals(expected.getBundleDiscounts().size(), actual.getBundleDiscounts().size(),
+				"Incorrect number of bundle discounts.");
+
+		for (int i = 0; i < expected.getListOfSoldItems().size(); i++) {
+			PurchasedItemInformation expectedItem = expected.getListOfSoldItems().get(i);
+			PurchasedItemInformation actualItem = actual.getListOfSoldItems().get(i);
+			ItemDescription expectedDescription = expectedItem.getItemDescription();
+			ItemDescription actualDescription = actualItem.getItemDescription();
+			assertEquals(expectedDescription.getID(), actualDescription.getID(), "Incorrect item ID.");
+			assertEquals(expectedDescription.getName(), actualDescription.getName(), "Incorrect item name.");
+			assertEquals(expectedDescription.getPrice(), actualDescription.getPrice(), "Incorrect item price.");
+			assertEquals(expectedDescription.getVatRate(), actualDescription.getVatRate(), "Incorrect VAT rate.");
+			assertEquals(expectedItem.getQuantity(), actualItem.getQuantity(), "Incorrect quantity.");
+			assertEquals(expectedItem.getUnitPrice(), actualItem.getUnitPrice(), "Incorrect unit price.");
+			assertEquals(expectedItem.getUnitVatTax(), actualItem.getUnitVatTax(), "Incorrect unit VAT.");
+			assertEquals(expectedItem.getDiscountState(), actualItem.getDiscountState(), "Incorrect discount state.");
+			if (expectedItem.getDiscountState()) {
+				assertEquals(expectedItem.getDiscount().getRate(), actualItem.getDiscount().getRate(),
+						"Incorrect discount rate.");
+				assertEquals(expectedItem.getDiscount().toString(), actualItem.getDiscount().toString(),
+						"Incorrect discount description.");
+			}
+		}
+
+		for (int i = 0; i < expected.getBundleDiscounts().size(); i++) {
+			BundleDiscountInformation expectedDiscount = expected.getBundleDiscounts().get(i);
+			BundleDiscountInformation actualDiscount = actual.getBundleDiscounts().get(i);
+			assertEquals(expectedDiscount.getDescription(), actualDiscount.getDescription(),
+					"Incorrect bundle description.");
+			assertEquals(expectedDiscount.getItemID(), actualDiscount.getItemID(), "Incorrect bundled item.");
+			assertEquals(expectedDiscount.getVatRate(), actualDiscount.getVatRate(), "Incorrect bundle VAT rate.");
+			assertEquals(expectedDiscount.getQuantity(), actualDiscount.getQuantity(), "Incorrect bundle quantity.");
+			assertEquals(expectedDiscount.getDiscount(), actualDiscount.getDiscount(), "Incorrect bundle discount.");
+			assertEquals(expectedDiscount.getVatDiscount(), actualDiscount.getVatDiscount(),
+					"Incorrect VAT of bundle discount.");
+		}
+	}
+}
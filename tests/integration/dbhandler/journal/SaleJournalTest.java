@@ -0,0 +1,416 @@
+package integration.dbhandler.journal;
+
+import static integration.dbhandler.journal.ReceiptCodecTest.assertReceiptEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.RecordedDiscount;
+import model.dto.BundleDiscountInformation;
+import model.dto.PriceInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.dto.Store;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class SaleJournalTest {
+	private static final long SMALL_SEGMENT_SIZE = 4096;
+	/**
+	 * <code>createReceipt(2)</code> as it was written by the first journal
+	 * format, before receipts had bundle discounts.
+	 */
+	private static final String RECEIPT_WRITTEN_BEFORE_BUNDLES =
+			"0000000000004d4700002f7d4086e6000003494341000c4b756e6773676174616e2031000000000325aa000000000000"
+			+ "687e00000000001dcd6500000000001aa7bb0000000002000000000000007b00056170706c6500000000004c4b400000"
+			+ "00000002710000000000004c4b4000000000000c35000000000200000000000000029a0006636f666665650000000002"
+			+ "80de800000000000027100000000000240c84000000000005c4900000000010100000000000dbba0000e313025206f66"
+			+ "6620636f66666565";
+
+	private Path journalDirectory;
+	private SaleJournal journal;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		journalDirectory = Files.createTempDirectory("journal");
+		journal = SaleJournal.open(journalDirectory, 0);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		journal.close();
+		for (Path file : listFiles()) {
+			Files.delete(file);
+		}
+		Files.delete(journalDirectory);
+	}
+
+	@Test
+	void testReplayReturnsAppendedReceipts() throws Exception {
+		Receipt first = createReceipt(1);
+		Receipt second = createReceipt(2);
+		journal.append(first);
+		journal.append(second);
+
+		List<Receipt> replayed = new ArrayList<>();
+		long count = journal.replay(replayed::add);
+
+		assertEquals(2, count, "Incorrect number of replayed receipts.");
+		assertReceiptEquals(first, replayed.get(0));
+		assertReceiptEquals(second, replayed.get(1));
+	}
+
+	@Test
+	void testReceiptsSurviveReopen() throws Exception {
+		journal.append(createReceipt(1));
+		journal.append(createReceipt(2));
+		journal.close();
+
+		journal = SaleJournal.open(journalDirectory, 0);
+
+		assertEquals(2, journal.getRecoveredCount(), "Appended receipts were not recovered.");
+	}
+
+	@Test
+	void testTornRecordIsRemoved() throws Exception {
+		journal.append(createReceipt(1));
+		journal.append(createReceipt(2));
+		journal.close();
+
+		Path segmentFile = lastSegmentFile();
+		long sizeBeforeCrash = Files.size(segmentFile);
+		try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 100, 1, 2, 3, 4, 5, 6 }), sizeBeforeCrash);
+		}
+
+		journal = SaleJournal.open(journalDirectory, 0);
+
+		assertEquals(2, journal.getRecoveredCount(), "Complete receipts were not recovered.");
+		assertEquals(sizeBeforeCrash, Files.size(segmentFile), "Incomplete record was not removed.");
+
+		journal.append(createReceipt(3));
+		List<Receipt> replayed = new ArrayList<>();
+		journal.replay(replayed::add);
+		assertEquals(3, replayed.size(), "Receipt appended after recovery was not kept.");
+		assertReceiptEquals(createReceipt(3), replayed.get(2));
+	}
+
+	@Test
+	void testDamagedRecordIsRemoved() throws Exception {
+		journal.append(createReceipt(1));
+		Path segmentFile = lastSegmentFile();
+		long sizeAfterFirst = Files.size(segmentFile);
+		journal.append(createReceipt(2));
+		journal.close();
+
+		try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 42 }), Files.size(segmentFile) - 3);
+		}
+
+		journal = SaleJournal.open(journalDirectory, 0);
+
+		assertEquals(1, journal.getRecoveredCount(), "Damaged receipt was recovered.");
+		assertEquals(sizeAfterFirst, Files.size(segmentFile), "Damaged record was not removed.");
+	}
+
+	@Test
+	void testSegmentsAreRolled() throws Exception {
+		journal.close();
+		journal = SaleJournal.open(journalDirectory, 0, SMALL_SEGMENT_SIZE);
+
+		for (int i = 1; i <= 200; i++) {
+			assertEquals(i, journal.append(createReceipt(i)), "Incorrect sequence number.");
+		}
+
+		assertTrue(journal.getSegmentCount() > 1, "No new segment was started.");
+		List<Integer> quantities = new ArrayList<>();
+		journal.replay(receipt -> quantities.add(receipt.getListOfSoldItems().get(0).getQuantity()));
+		assertEquals(200, quantities.size(), "Incorrect number of replayed receipts.");
+		for (int i = 0; i < quantities.size(); i++) {
+			assertEquals(i + 1, (int) quantities.get(i), "Receipts were not replayed in order.");
+		}
+	}
+
+	@Test
+	void testReopenRolledJournal() throws Exception {
+		journal.close();
+		journal = SaleJournal.open(journalDirectory, 0, SMALL_SEGMENT_SIZE);
+		for (int i = 1; i <= 200; i++) {
+			journal.append(createReceipt(i));
+		}
+		int segmentCount = journal.getSegmentCount();
+		journal.close();
+
+		journal = SaleJournal.open(journalDirectory, 0, SMALL_SEGMENT_SIZE);
+
+		assertEquals(200, journal.getRecoveredCount(), "Receipts in sealed segments were not recovered.");
+		assertEquals(segmentCount, journal.getSegmentCount(), "Incorrect number of segments.");
+		assertEquals(201, journal.append(createReceipt(201)), "Sequence numbers did not continue.");
+	}
+
+	@Test
+	void testMissingIndexIsRebuilt() throws Exception {
+		journal.close();
+		journal = SaleJournal.open(journalDirectory, 0, SMALL_SEGMENT_SIZE);
+		for (int i = 1; i <= 200; i++) {
+			journal.append(createReceipt(i));
+		}
+		journal.close();
+		for (Path file : listFiles()) {
+			if (file.toString().endsWith(".idx")) {
+				Files.delete(file);
+			}
+		}
+
+		journal = SaleJournal.open(journalDirectory, 0, SMALL_SEGMENT_SIZE);
+		List<Receipt> replayed = new ArrayList<>();
+		journal.replayFrom(150, replayed::add);
+
+		assertEquals(200, journal.getRecoveredCount(), "Receipts were lost when the index was rebuilt.");
+		assertEquals(51, replayed.size(), "Incorrect number of replayed receipts.");
+	}
+
+	@Test
+	void testReplayFromSequence() throws Exception {
+		journal.close();
+		journal = SaleJournal.open(journalDirectory, 0, SMALL_SEGMENT_SIZE);
+		for (int i = 1; i <= 200; i++) {
+			journal.append(createReceipt(i));
+		}
+
+		List<Integer> quantities = new ArrayList<>();
+		long count = journal.replayFrom(123, receipt -> quantities.add(receipt.getListOfSoldItems().get(0).getQuantity()));
+
+		assertEquals(78, count, "Incorrect number of replayed receipts.");
+		assertEquals(123, (int) quantities.get(0), "Replay did not start at the requested sequence number.");
+		assertEquals(200, (int) quantities.get(quantities.size() - 1), "Replay did not reach the last receipt.");
+	}
+
+	@Test
+	void testReplayBetween() throws Exception {
+		journal.close();
+		journal = SaleJournal.open(journalDirectory, 0, SMALL_SEGMENT_SIZE);
+		LocalDateTime opening = LocalDateTime.of(2024, 3, 1, 9, 0);
+		for (int i = 0; i < 12 * 60; i++) {
+			journal.append(createReceipt(i, opening.plusMinutes(i)));
+		}
+		journal.append(createReceipt(0, LocalDateTime.of(2024, 3, 2, 14, 30)));
+
+		List<Receipt> replayed = new ArrayList<>();
+		long count = journal.replayBetween(LocalDateTime.of(2024, 3, 1, 14, 0), LocalDateTime.of(2024, 3, 1, 15, 0),
+				replayed::add);
+
+		assertEquals(60, count, "Incorrect number of sales between 14:00 and 15:00.");
+		for (Receipt receipt : replayed) {
+			assertEquals(14, receipt.getTimeOfSale().getHour(), "Sale outside the period was replayed.");
+			assertEquals(LocalDate.of(2024, 3, 1), receipt.getDateOfSale(), "Sale on another day was replayed.");
+		}
+		assertEquals(12 * 60, journal.replayDay(LocalDate.of(2024, 3, 1), receipt -> {
+		}), "Incorrect number of sales on the day.");
+	}
+
+	@Test
+	void testConcurrentAppendsAreGrouped() throws Exception {
+		journal.close();
+		journal = SaleJournal.open(journalDirectory, TimeUnit.MILLISECONDS.toNanos(1));
+
+		int threadCount = 16;
+		int receiptsPerThread = 50;
+		Thread[] threads = new Thread[threadCount];
+		Throwable[] failures = new Throwable[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			int threadNumber = t;
+			threads[t] = new Thread(() -> {
+				try {
+					for (int i = 0; i < receiptsPerThread; i++) {
+						journal.append(createReceipt(threadNumber * receiptsPerThread + i));
+					}
+				} catch (Throwable e) {
+					failures[threadNumber] = e;
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		for (Throwable failure : failures) {
+			assertNull(failure, "Append failed.");
+		}
+		Set<Long> quantities = new HashSet<>();
+		journal.replay(receipt -> quantities.add((long) receipt.getListOfSoldItems().get(0).getQuantity()));
+		assertEquals(threadCount * receiptsPerThread, quantities.size(), "Not every receipt was written once.");
+	}
+
+	@Test
+	void testBundleDiscountsAreReplayed() throws Exception {
+		Receipt receipt = createReceipt(1);
+		List<BundleDiscountInformation> bundleDiscounts = Collections.singletonList(new BundleDiscountInformation(
+				"coffee + apple", new IdentificationNumber(666), new Amount(0.16), 1, new Amount(3.78),
+				new Amount(0.6048)));
+		Receipt bundled = new Receipt(receipt.getListOfSoldItems(), bundleDiscounts, receipt.getPriceInfo(),
+				receipt.getAmountPaid(), receipt.getAmountOfChange(), receipt.getStore(), receipt.getTimeOfSale(),
+				receipt.getDateOfSale());
+		journal.append(bundled);
+
+		List<Receipt> replayed = new ArrayList<>();
+		journal.replay(replayed::add);
+
+		assertReceiptEquals(bundled, replayed.get(0));
+		BundleDiscountInformation replayedDiscount = replayed.get(0).getBundleDiscounts().get(0);
+		assertEquals("coffee + apple", replayedDiscount.getDescription(), "Incorrect bundle description.");
+		assertEquals(new Amount(3.78), replayedDiscount.getDiscount(), "Incorrect bundle discount.");
+		assertEquals(new Amount(0.6048), replayedDiscount.getVatDiscount(), "Incorrect VAT of bundle discount.");
+	}
+
+	@Test
+	void testDecodeReceiptWithoutBundleDiscounts() throws Exception {
+		Receipt receipt = createReceipt(2);
+		byte[] writtenBeforeBundles = parseHex(RECEIPT_WRITTEN_BEFORE_BUNDLES);
+
+		Receipt decoded = ReceiptCodec.decode(writtenBeforeBundles);
+
+		assertReceiptEquals(receipt, decoded);
+		assertTrue(decoded.getBundleDiscounts().isEmpty(), "Bundle discounts read from an older receipt.");
+	}
+
+	@Test
+	void testEncodingIsSmallerThanFirstFormat() {
+		int encodedSize = ReceiptCodec.encode(createReceipt(2)).length;
+
+		assertTrue(encodedSize * 2 < RECEIPT_WRITTEN_BEFORE_BUNDLES.length() / 2,
+				"Receipt takes " + encodedSize + " bytes.");
+	}
+
+	@Test
+	void testAppendAfterCloseFails() throws Exception {
+		journal.close();
+
+		assertThrows(IOException.class, () -> journal.append(createReceipt(1)),
+				"Closed journal accepted a receipt.");
+	}
+
+	@Test
+	void testReceiptAcceptedBeforeCloseIsWritten() throws Exception {
+		journal.close();
+		journal = SaleJournal.open(journalDirectory, TimeUnit.SECONDS.toNanos(1));
+		AtomicReference<Object> result = new AtomicReference<>();
+		Thread appender = new Thread(() -> {
+			try {
+				result.set(journal.append(createReceipt(1)));
+			} catch (IOException e) {
+				result.set(e);
+			}
+		});
+		appender.start();
+		Thread.sleep(100);
+
+		journal.close();
+		appender.join(5_000);
+
+		assertEquals(1L, result.get(), "Receipt written during close was reported as failed.");
+		journal = SaleJournal.open(journalDirectory, 0);
+		assertEquals(1, journal.getRecoveredCount(), "Receipt accepted before close was not written.");
+	}
+
+	@Test
+	void testFailedWriteDoesNotStopJournal() throws Exception {
+		journal.close();
+		journal = SaleJournal.open(journalDirectory, 0, JournalSegment.HEADER_SIZE + 1);
+		journal.append(createReceipt(1));
+		Path blockedSegment = journalDirectory.resolve("segment-00000000000000000002.log");
+		Files.createDirectory(blockedSegment);
+
+		assertThrows(IOException.class, () -> journal.append(createReceipt(2)),
+				"Receipt that could not be written was accepted.");
+		Files.delete(blockedSegment);
+
+		assertEquals(2, journal.append(createReceipt(3)), "Journal did not recover from the failed write.");
+		List<Integer> quantities = new ArrayList<>();
+		journal.replay(receipt -> quantities.add(receipt.getListOfSoldItems().get(0).getQuantity()));
+		assertEquals(Arrays.asList(1, 3), quantities, "Incorrect receipts after the failed write.");
+		journal.close();
+		journal = SaleJournal.open(journalDirectory, 0, JournalSegment.HEADER_SIZE + 1);
+		assertEquals(2, journal.getRecoveredCount(), "Receipts after the failed write were not recovered.");
+	}
+
+	private static byte[] parseHex(String hex) {
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+		}
+		return bytes;
+	}
+
+	private List<Path> listFiles() throws Exception {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> directory = Files.newDirectoryStream(journalDirectory)) {
+			for (Path file : directory) {
+				files.add(file);
+			}
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	private Path lastSegmentFile() throws Exception {
+		Path segmentFile = null;
+		for (Path file : listFiles()) {
+			if (file.toString().endsWith(".log")) {
+				segmentFile = file;
+			}
+		}
+		return segmentFile;
+	}
+
+	private static Receipt createReceipt(int quantity) {
+		return createReceipt(quantity, LocalDateTime.of(2024, 3, 1, 14, 30, 15));
+	}
+
+	private static Receipt createReceipt(int quantity, LocalDateTime timeOfSale) {
+		ItemDescription apple = new ItemDescription("apple", new Amount(5), new Amount(0.16),
+				new IdentificationNumber(123));
+		ItemDescription coffee = new ItemDescription("coffee", new Amount(42), new Amount(0.16),
+				new IdentificationNumber(666));
+		List<PurchasedItemInformation> items = Arrays.asList(
+				new PurchasedItemInformation(apple, new Amount(5), new Amount(0.8), quantity, null),
+				new PurchasedItemInformation(coffee, new Amount(37.8), new Amount(6.048), 1,
+						new RecordedDiscount(new Amount(0.9), "10% off coffee")));
+
+		return new Receipt(items, new PriceInformation(new Amount(42.8 + 5 * quantity), new Amount(6.848)),
+				new Amount(500), new Amount(457.2 - 5 * quantity), new Store("ICA", "Kungsgatan 1"),
+				timeOfSale.toLocalTime(), timeOfSale.toLocalDate());
+	}
+}
@@ -0,0 +1,121 @@
+package integration.dbhandler.store;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.InvalidItemIDException;
+import integration.dbhandler.InventorySystem;
+import integration.dbhandler.data.ItemData;
+import integration.dbhandler.data.ItemDescription;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class MappedCatalogStoreTest {
+	private static final int ITEM_COUNT = 10_000;
+
+	private Path catalogFile;
+	private MappedCatalogStore store;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		List<ItemData> items = new ArrayList<>();
+		for (int i = ITEM_COUNT; i > 0; i--) {
+			items.add(new ItemData(new ItemDescription("item nr " + i + " \u00e5\u00e4\u00f6", new Amount(i * 0.25),
+					new Amount(0.16), new IdentificationNumber(i * 3L)), i));
+		}
+
+		catalogFile = Files.createTempFile("catalog", ".bin");
+		CatalogFileWriter.write(catalogFile, items);
+		store = MappedCatalogStore.open(catalogFile);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		store = null;
+		Files.deleteIfExists(catalogFile);
+	}
+
+	@Test
+	void testFindItem() {
+		for (int i = 1; i <= ITEM_COUNT; i++) {
+			ItemDescription description = store.findItem(i * 3L).getItemDescription();
+
+			assertEquals(new IdentificationNumber(i * 3L), description.getID(), "Incorrect item ID.");
+			assertEquals("item nr " + i + " \u00e5\u00e4\u00f6", description.getName(), "Incorrect item name.");
+			assertEquals(new Amount(i * 0.25), description.getPrice(), "Incorrect item price.");
+			assertEquals(new Amount(0.16), description.getVatRate(), "Incorrect VAT rate.");
+		}
+	}
+
+	@Test
+	void testFindMissingItem() {
+		assertNull(store.findItem(1), "Item that is not in the catalog was found.");
+		assertNull(store.findItem(ITEM_COUNT * 3L + 3), "Item that is not in the catalog was found.");
+	}
+
+	@Test
+	void testStockUpdatesAreKept() {
+		store.findItem(30).decreaseQuantity(4);
+
+		assertEquals(6, store.findItem(30).getAvailableQuantity(), "Stock update was lost between lookups.");
+	}
+
+	@Test
+	void testForEachItemID() {
+		Set<Long> itemIDs = new HashSet<>();
+		store.forEachItemID(itemIDs::add);
+
+		assertEquals(ITEM_COUNT, store.getItemCount(), "Incorrect item count.");
+		assertEquals(ITEM_COUNT, itemIDs.size(), "Not every item ID was visited.");
+	}
+
+	@Test
+	void testInventorySystemWithCatalog() throws InvalidItemIDException {
+		InventorySystem inventory = new InventorySystem(store);
+
+		assertEquals("item nr 7 \u00e5\u00e4\u00f6", inventory.retrieveItemDescription(new IdentificationNumber(21)).getName(),
+				"Incorrect item retrieved from catalog.");
+		assertThrows(InvalidItemIDException.class, () -> inventory.retrieveItemDescription(new IdentificationNumber(22)),
+				"No exception was thrown for an ID that is not in the catalog.");
+	}
+
+	@Test
+	void testDuplicateIDsAreRejected() {
+		ItemDescription description = new ItemDescription("apple", new Amount(5), new Amount(0.16),
+				new IdentificationNumber(123));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> CatalogFileWriter.write(catalogFile, Arrays.asList(new ItemData(description, 1),
+						new ItemData(description, 2))), "Catalog with duplicate item IDs was written.");
+	}
+
+	@Test
+	void testOpenInvalidFile() throws IOException {
+		Files.write(catalogFile, new byte[64]);
+
+		assertThrows(IOException.class, () -> MappedCatalogStore.open(catalogFile),
+				"A file that is not a catalog file was opened.");
+	}
+}
@@ -0,0 +1,169 @@
+package integration.printer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.Discount;
+import integration.dbhandler.discount.PriceDiscount;
+import integration.dbhandler.discount.QuantityDiscount;
+import integration.dbhandler.discount.RecordedDiscount;
+import model.dto.BundleDiscountInformation;
+import model.dto.PriceInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.dto.Store;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class ReceiptRendererTest {
+	private ReceiptRenderer renderer;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		renderer = new ReceiptRenderer();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		renderer = null;
+	}
+
+	@Test
+	void testGoldenReceipt() {
+		List<PurchasedItemInformation> items = Arrays.asList(
+				line("apple", 123, 5.5, 3, null),
+				line("chocolate bar", 876, 6.005, 2, new PriceDiscount(new Amount(0.4))),
+				line("a very long item name", 42, 0.125, 1, null));
+		List<BundleDiscountInformation> bundleDiscounts = Collections.singletonList(new BundleDiscountInformation(
+				"coffee + chocolate bar", new IdentificationNumber(876), new Amount(0.25), 1, new Amount(4.8),
+				new Amount(0.96)));
+		Receipt receipt = new Receipt(items, bundleDiscounts, new PriceInformation(new Amount(23.835),
+				new Amount(4.77)), new Amount(50), new Amount(26.16), new Store("Real Store", "Real Street 123"),
+				LocalTime.of(9, 5, 33), LocalDate.of(2026, 10, 18));
+
+		String expected = "-----------------Receipt-----------------\n"
+				+ "09:05                          2026-10-18\n"
+				+ "\n"
+				+ "name            qty*price       total\n"
+				+ "\n"
+				+ "apple           3*5.50          16.50\n"
+				+ "chocolate bar   2*6.01          12.01\n"
+				+ "                   Price discount! 40.00% off!\n"
+				+ "a very long item name 1*0.13          0.13\n"
+				+ "coffee + chocolate bar          -4.80\n"
+				+ "\n"
+				+ "-----------------------------------------\n"
+				+ "TOTAL: 23.84             VAT tax: 4.77\n"
+				+ "-----------------------------------------\n"
+				+ "Amount paid: 50.00\n"
+				+ "Change received: 26.16\n"
+				+ "\n"
+				+ "        Thank you, come again!\n"
+				+ "\n"
+				+ "          Store: Real Store \n"
+				+ "      Address: Real Street 123\n";
+
+		assertEquals(expected, renderer.render(receipt).toString(), "Receipt layout has changed.");
+		assertEquals(receipt.toString(), renderer.render(receipt).toString(),
+				"Rendered receipt differs from Receipt.toString().");
+	}
+
+	@Test
+	void testRoundingMatchesAmountToString() {
+		Random random = new Random(18);
+		for (int i = 0; i < 2_000; i++) {
+			List<PurchasedItemInformation> items = new ArrayList<>();
+			for (int j = random.nextInt(5); j >= 0; j--) {
+				items.add(line("item " + j, j, randomAmount(random), 1 + random.nextInt(20),
+						random.nextBoolean() ? null : new RecordedDiscount(new Amount(0.1), "discount " + j)));
+			}
+			Receipt receipt = new Receipt(items, Collections.<BundleDiscountInformation>emptyList(),
+					new PriceInformation(new Amount(randomAmount(random)), new Amount(randomAmount(random))),
+					new Amount(randomAmount(random)), new Amount(-randomAmount(random) / 1000),
+					new Store("Store " + i, "Street " + i), LocalTime.of(i % 24, i % 60), LocalDate.ofEpochDay(i * 7));
+
+			assertEquals(receipt.toString(), renderer.render(receipt).toString(), "Incorrectly rendered receipt.");
+		}
+	}
+
+	@Test
+	void testRenderingDoesNotAllocate() {
+		List<PurchasedItemInformation> items = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			items.add(line("item nr " + i, i, i * 1.25, 1 + i % 3, null));
+		}
+		items.add(line("discounted", 50, 10, 2, new PriceDiscount(new Amount(0.4))));
+		items.add(line("bought in bulk", 51, 10, 20, new QuantityDiscount((short) 10, new Amount(0.3)).withQuantity(20)));
+		Receipt receipt = new Receipt(items, new PriceInformation(new Amount(1000), new Amount(200)), new Amount(1000),
+				new Amount(0));
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return;
+		}
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		long threadID = Thread.currentThread().getId();
+		int renders = 1_000;
+		for (int i = 0; i < renders; i++) {
+			renderer.render(receipt);
+		}
+
+		long before = allocations.getThreadAllocatedBytes(threadID);
+		for (int i = 0; i < renders; i++) {
+			renderer.render(receipt);
+		}
+		long allocatedPerReceipt = (allocations.getThreadAllocatedBytes(threadID) - before) / renders;
+
+		assertTrue(allocatedPerReceipt < 256, "Rendering allocated " + allocatedPerReceipt + " bytes per receipt.");
+	}
+
+	@Test
+	void testDatesWithUnusualYears() {
+		for (int year : new int[] { -10_000, -1_000, -5, 0, 7, 999, 10_000, 123_456 }) {
+			List<PurchasedItemInformation> items = Collections.singletonList(line("apple", 123, 5, 1,
+					new QuantityDiscount((short) 1, new Amount(0.125)).withQuantity(3)));
+			Receipt receipt = new Receipt(items, Collections.<BundleDiscountInformation>emptyList(),
+					new PriceInformation(new Amount(5), new Amount(1)), new Amount(5), new Amount(0),
+					new Store("Real Store", "Real Street 123"), LocalTime.of(12, 0), LocalDate.of(year, 2, 3));
+
+			assertEquals(receipt.toString(), renderer.render(receipt).toString(),
+					"Incorrectly rendered date in year " + year + ".");
+		}
+	}
+
+	private double randomAmount(Random random) {
+		return random.nextInt(10_000_000) / 1000.0 + (random.nextBoolean() ? 0.005 : 0);
+	}
+
+	private PurchasedItemInformation line(String name, long itemID, double unitPrice, int quantity, Discount discount) {
+		ItemDescription description = new ItemDescription(name, new Amount(unitPrice), new Amount(0.25),
+				new IdentificationNumber(itemID));
+
+		return new PurchasedItemInformation(description, new Amount(unitPrice), new Amount(unitPrice * 0.2), quantity,
+				discount);
+	}
+}
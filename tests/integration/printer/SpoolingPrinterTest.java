@@ -0,0 +1,258 @@
+package integration.printer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import integration.dbhandler.data.ItemDescription;
+import log.ErrorLogHandler;
+import model.dto.BundleDiscountInformation;
+import model.dto.PriceInformation;
+import model.dto.PurchasedItemInformation;
+import model.dto.Receipt;
+import model.dto.Store;
+import model.util.Amount;
+import model.util.IdentificationNumber;
+
+class SpoolingPrinterTest {
+	private static final byte ESC = 0x1B;
+	private static final byte GS = 0x1D;
+
+	private Path deviceFile;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		deviceFile = Files.createTempFile("printer", ".bin");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		Files.deleteIfExists(deviceFile);
+	}
+
+	@Test
+	void testReceiptsAreWrittenAsEscPos() throws Exception {
+		SpoolingPrinter printer = SpoolingPrinter.open(deviceFile, 16, 8);
+		Receipt receipt = receipt("k\u00e4rnm\u00e4lk");
+
+		for (int i = 0; i < 3; i++) {
+			printer.printReceipt(receipt);
+		}
+		assertTrue(printer.shutdown(5, TimeUnit.SECONDS), "Spooled receipts were not printed.");
+
+		byte[] printed = Files.readAllBytes(deviceFile);
+		byte[] text = new ReceiptRenderer().render(receipt).toString().getBytes(StandardCharsets.ISO_8859_1);
+		int receiptLength = 5 + text.length + 6;
+		assertEquals(3 * receiptLength, printed.length, "Incorrect number of bytes printed.");
+		for (int i = 0; i < 3; i++) {
+			int start = i * receiptLength;
+			assertEquals(ESC, printed[start], "Receipt does not start by initializing the printer.");
+			assertEquals('@', printed[start + 1], "Receipt does not start by initializing the printer.");
+			assertEquals(new String(text, StandardCharsets.ISO_8859_1),
+					new String(printed, start + 5, text.length, StandardCharsets.ISO_8859_1), "Incorrect receipt text.");
+			assertEquals(GS, printed[start + receiptLength - 3], "Paper is not cut after the receipt.");
+			assertEquals('V', printed[start + receiptLength - 2], "Paper is not cut after the receipt.");
+		}
+		assertEquals(3, printer.getPrintedCount(), "Incorrect number of printed receipts.");
+		assertTrue(printer.getBatchCount() <= 3, "More writes than receipts.");
+	}
+
+	@Test
+	void testFullSpoolBlocksSender() throws Exception {
+		BlockingDevice device = new BlockingDevice();
+		SpoolingPrinter printer = new SpoolingPrinter(device, 2, 1);
+		Receipt receipt = receipt("milk");
+
+		printer.printReceipt(receipt);
+		assertTrue(device.writeStarted.await(5, TimeUnit.SECONDS), "Writer did not start printing.");
+		printer.printReceipt(receipt);
+		printer.printReceipt(receipt);
+
+		Thread sender = new Thread(() -> printer.printReceipt(receipt));
+		sender.start();
+		sender.join(200);
+		assertTrue(sender.isAlive(), "Receipt was accepted although the spool was full.");
+		assertEquals(2, printer.getSpooledReceipts(), "Incorrect number of spooled receipts.");
+
+		device.release.countDown();
+		sender.join(5_000);
+		assertFalse(sender.isAlive(), "Sender was not released when the spool got room.");
+		assertTrue(printer.awaitIdle(5, TimeUnit.SECONDS), "Spooled receipts were not printed.");
+		assertEquals(4, printer.getPrintedCount(), "Incorrect number of printed receipts.");
+		assertTrue(printer.shutdown(5, TimeUnit.SECONDS), "Printer did not shut down.");
+	}
+
+	@Test
+	void testFailedWriteIsCounted() throws Exception {
+		BlockingDevice device = new BlockingDevice();
+		device.release.countDown();
+		device.close();
+		SpoolingPrinter printer = new SpoolingPrinter(device, 4, 4);
+
+		printer.printReceipt(receipt("milk"));
+
+		assertTrue(printer.awaitIdle(5, TimeUnit.SECONDS), "Failed receipt was not counted.");
+		assertEquals(1, printer.getFailedCount(), "Incorrect number of failed receipts.");
+		assertEquals(0, printer.getPrintedCount(), "Receipt was counted as printed.");
+		assertEquals(1, printer.getFailedReceipts().size(), "Failed receipt was not kept.");
+		printer.shutdown(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testFailedReceiptIsLoggedAndReprinted() throws Exception {
+		Path logFile = Files.createTempFile("printer-errors", ".txt");
+		ErrorLogHandler errorLog = new ErrorLogHandler(logFile.toString());
+		FailingDevice device = new FailingDevice(1);
+		SpoolingPrinter printer = new SpoolingPrinter(device, 4, 4, errorLog);
+		Receipt receipt = receipt("milk");
+
+		printer.printReceipt(receipt);
+		assertTrue(printer.awaitIdle(5, TimeUnit.SECONDS), "Failed receipt was not counted.");
+		assertEquals(1, printer.reprintFailed(), "Failed receipt was not spooled again.");
+		assertTrue(printer.awaitIdle(5, TimeUnit.SECONDS), "Reprinted receipt was not printed.");
+		assertTrue(printer.shutdown(5, TimeUnit.SECONDS), "Printer did not shut down.");
+		assertTrue(errorLog.shutdown(5, TimeUnit.SECONDS), "Error log did not shut down.");
+
+		assertEquals(1, printer.getPrintedCount(), "Reprinted receipt was not printed.");
+		assertTrue(printer.getFailedReceipts().isEmpty(), "Reprinted receipt is still kept as failed.");
+		assertEquals(1, errorLog.getWrittenCount(), "Failed write was not logged.");
+		Files.deleteIfExists(logFile);
+	}
+
+	@Test
+	void testReceiptSpooledDuringShutdownIsPrintedOrRejected() throws Exception {
+		for (int round = 0; round < 20; round++) {
+			SpoolingPrinter printer = SpoolingPrinter.open(deviceFile, 64, 8);
+			AtomicLong accepted = new AtomicLong();
+			List<Thread> senders = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				Thread sender = new Thread(() -> {
+					try {
+						while (true) {
+							printer.printReceipt(receipt("milk"));
+							accepted.incrementAndGet();
+						}
+					} catch (IllegalStateException e) {
+						return;
+					}
+				});
+				sender.start();
+				senders.add(sender);
+			}
+
+			Thread.sleep(5);
+			assertTrue(printer.shutdown(5, TimeUnit.SECONDS), "Printer did not shut down.");
+			for (Thread sender : senders) {
+				sender.join(5_000);
+			}
+			assertTrue(printer.awaitIdle(1, TimeUnit.SECONDS), "Accepted receipt was never printed.");
+			assertEquals(accepted.get(), printer.getPrintedCount(), "Accepted receipt was not printed.");
+		}
+	}
+
+	private Receipt receipt(String itemName) {
+		ItemDescription description = new ItemDescription(itemName, new Amount(12), new Amount(0.25),
+				new IdentificationNumber(1));
+		PurchasedItemInformation item = new PurchasedItemInformation(description, new Amount(12), new Amount(2.4), 2,
+				null);
+
+		return new Receipt(Collections.singletonList(item), Collections.<BundleDiscountInformation>emptyList(),
+				new PriceInformation(new Amount(24), new Amount(4.8)), new Amount(30), new Amount(6),
+				new Store("Real Store", "Real Street 123"), LocalTime.of(12, 0), LocalDate.of(2026, 10, 18));
+	}
+
+	/**
+	 * A device that fails a number of writes before it starts writing.
+	 */
+	private static class FailingDevice implements WritableByteChannel {
+		private int failuresLeft;
+
+		private FailingDevice(int failures) {
+			this.failuresLeft = failures;
+		}
+
+		@Override
+		public int write(ByteBuffer source) throws IOException {
+			if (failuresLeft > 0) {
+				failuresLeft--;
+				throw new IOException("The device is out of paper.");
+			}
+
+			int written = source.remaining();
+			source.position(source.limit());
+			return written;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * A device that blocks the first write until it is released.
+	 */
+	private static class BlockingDevice implements WritableByteChannel {
+		private final CountDownLatch writeStarted = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private volatile boolean open = true;
+
+		@Override
+		public int write(ByteBuffer source) throws IOException {
+			writeStarted.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			if (!open) {
+				throw new IOException("The device is closed.");
+			}
+
+			int written = source.remaining();
+			source.position(source.limit());
+			return written;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() {
+			open = false;
+		}
+	}
+}
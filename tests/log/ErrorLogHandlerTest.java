@@ -0,0 +1,181 @@
+package log;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ErrorLogHandlerTest {
+	private Path logFile;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		logFile = Files.createTempFile("error-log", ".txt");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		Files.deleteIfExists(logFile);
+	}
+
+	@Test
+	void testShutdownWritesLoggedExceptions() throws Exception {
+		ErrorLogHandler errorLog = new ErrorLogHandler(logFile.toString(), 16, 0, TimeUnit.MILLISECONDS);
+
+		for (int i = 0; i < 3; i++) {
+			errorLog.logException(new IllegalStateException("failure " + i));
+		}
+		assertTrue(errorLog.shutdown(5, TimeUnit.SECONDS), "Error log did not shut down.");
+
+		String log = new String(Files.readAllBytes(logFile), StandardCharsets.UTF_8);
+		for (int i = 0; i < 3; i++) {
+			assertTrue(log.contains("ERROR:\nfailure " + i + "\nStack trace:"), "Exception " + i + " was not logged.");
+		}
+		assertTrue(log.contains("\tat log.ErrorLogHandlerTest.testShutdownWritesLoggedExceptions"),
+				"Stack trace was not logged.");
+		assertEquals(3, errorLog.getWrittenCount(), "Incorrect number of written entries.");
+		assertEquals(0, errorLog.getDroppedCount(), "Entries were dropped.");
+	}
+
+	@Test
+	void testOverflowingEntriesAreCounted() throws Exception {
+		ErrorLogHandler errorLog = new ErrorLogHandler(logFile.toString(), 1);
+		Exception exception = new IllegalStateException("storm");
+
+		for (int i = 0; i < 10_000; i++) {
+			errorLog.logException(exception);
+		}
+		assertTrue(errorLog.shutdown(5, TimeUnit.SECONDS), "Error log did not shut down.");
+
+		assertEquals(10_000, errorLog.getWrittenCount() + errorLog.getRepeatedCount() + errorLog.getDroppedCount(),
+				"Entries were lost.");
+		String log = new String(Files.readAllBytes(logFile), StandardCharsets.UTF_8);
+		if (errorLog.getDroppedCount() > 0) {
+			assertTrue(log.contains("WARNING:"), "Dropped entries were not noted in the log.");
+		}
+	}
+
+	@Test
+	void testRepeatedExceptionIsWrittenOnce() throws Exception {
+		ErrorLogHandler errorLog = new ErrorLogHandler(logFile.toString(), 16, 1, TimeUnit.HOURS);
+
+		for (int i = 0; i < 5; i++) {
+			errorLog.logException(new IllegalStateException("item " + i));
+		}
+		assertTrue(errorLog.shutdown(5, TimeUnit.SECONDS), "Error log did not shut down.");
+
+		String log = new String(Files.readAllBytes(logFile), StandardCharsets.UTF_8);
+		assertEquals(1, occurrences(log, "Stack trace:"), "Stack trace of repeated error was not written once.");
+		assertTrue(log.contains("REPEATED:\njava.lang.IllegalStateException: item 0\nRepeated 4 more time(s)"),
+				"Repeats were not noted in the log.");
+		assertEquals(1, errorLog.getWrittenCount(), "Incorrect number of written entries.");
+		assertEquals(4, errorLog.getRepeatedCount(), "Incorrect number of repeated entries.");
+	}
+
+	@Test
+	void testDifferentStackFramesAreWrittenSeparately() throws Exception {
+		ErrorLogHandler errorLog = new ErrorLogHandler(logFile.toString(), 16, 1, TimeUnit.HOURS);
+
+		errorLog.logException(new IllegalStateException("first"));
+		errorLog.logException(new IllegalStateException("second"));
+		errorLog.logException(new IllegalArgumentException("first"));
+		assertTrue(errorLog.shutdown(5, TimeUnit.SECONDS), "Error log did not shut down.");
+
+		String log = new String(Files.readAllBytes(logFile), StandardCharsets.UTF_8);
+		assertEquals(3, occurrences(log, "Stack trace:"), "Different errors were not written separately.");
+		assertEquals(0, errorLog.getRepeatedCount(), "Different errors were counted as repeats.");
+	}
+
+	@Test
+	void testRepeatAfterWindowIsWrittenAgain() throws Exception {
+		AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+		ErrorLogHandler errorLog = new ErrorLogHandler(logFile.toString(), 16, 100, TimeUnit.MILLISECONDS,
+				clock::get);
+
+		for (int i = 0; i < 2; i++) {
+			for (int repeat = 0; repeat < 2; repeat++) {
+				errorLog.logException(new IllegalStateException("item " + i));
+			}
+			clock.addAndGet(300);
+		}
+		assertTrue(errorLog.shutdown(5, TimeUnit.SECONDS), "Error log did not shut down.");
+
+		String log = new String(Files.readAllBytes(logFile), StandardCharsets.UTF_8);
+		assertEquals(2, occurrences(log, "Stack trace:"), "Error was not written again after its window.");
+		assertEquals(2, occurrences(log, "Repeated 1 more time(s)"), "Repeats were not noted for each window.");
+		assertEquals(2, errorLog.getRepeatedCount(), "Incorrect number of repeated entries.");
+	}
+
+	@Test
+	void testEntriesAfterShutdownAreDropped() throws Exception {
+		ErrorLogHandler errorLog = new ErrorLogHandler(logFile.toString());
+		assertTrue(errorLog.shutdown(5, TimeUnit.SECONDS), "Error log did not shut down.");
+
+		errorLog.logException(new IllegalStateException("too late"));
+
+		assertEquals(1, errorLog.getDroppedCount(), "Entry after shutdown was not dropped.");
+		assertEquals(0, Files.size(logFile), "Entry was written after shutdown.");
+	}
+
+	@Test
+	void testEntriesLoggedDuringShutdownAreCounted() throws Exception {
+		Exception exception = new IllegalStateException("failure");
+		for (int round = 0; round < 200; round++) {
+			ErrorLogHandler errorLog = new ErrorLogHandler(logFile.toString(), 4, 1, TimeUnit.HOURS);
+			AtomicLong logged = new AtomicLong();
+			AtomicBoolean stop = new AtomicBoolean();
+			CountDownLatch started = new CountDownLatch(4);
+			List<Thread> loggers = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				Thread logger = new Thread(() -> {
+					started.countDown();
+					while (!stop.get()) {
+						errorLog.logException(exception);
+						logged.incrementAndGet();
+					}
+				});
+				logger.start();
+				loggers.add(logger);
+			}
+
+			started.await();
+			assertTrue(errorLog.shutdown(5, TimeUnit.SECONDS), "Error log did not shut down.");
+			stop.set(true);
+			for (Thread logger : loggers) {
+				logger.join();
+			}
+			assertEquals(logged.get(),
+					errorLog.getWrittenCount() + errorLog.getRepeatedCount() + errorLog.getDroppedCount(),
+					"Entries logged during shutdown were lost.");
+		}
+	}
+
+	private static int occurrences(String text, String part) {
+		int count = 0;
+		for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + 1)) {
+			count++;
+		}
+		return count;
+	}
+}
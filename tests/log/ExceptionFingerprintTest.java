@@ -0,0 +1,92 @@
+package log;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExceptionFingerprintTest {
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+	}
+
+	@Test
+	void testMessageIsNotPartOfFingerprint() {
+		Exception[] exceptions = new Exception[2];
+		for (int i = 0; i < exceptions.length; i++) {
+			exceptions[i] = exceptionFromSameFrames("item " + i, null);
+		}
+		Exception first = exceptions[0];
+		Exception second = exceptions[1];
+
+		assertEquals(ExceptionFingerprint.of(first), ExceptionFingerprint.of(second),
+				"Exceptions thrown the same way have different fingerprints.");
+		assertEquals(ExceptionFingerprint.of(first).hashCode(), ExceptionFingerprint.of(second).hashCode(),
+				"Equal fingerprints have different hash codes.");
+	}
+
+	@Test
+	void testCallingLineIsPartOfFingerprint() {
+		Exception first = exceptionFromSameFrames("item", null);
+		Exception second = exceptionFromSameFrames("item", null);
+
+		assertNotEquals(ExceptionFingerprint.of(first), ExceptionFingerprint.of(second),
+				"Exceptions thrown from different calling lines have the same fingerprint.");
+	}
+
+	@Test
+	void testTypeAndFramesArePartOfFingerprint() {
+		Exception exception = exceptionFromSameFrames("item", null);
+		Exception otherFrame = new IllegalStateException("item");
+		Exception otherType = new IllegalArgumentException("item");
+
+		assertNotEquals(ExceptionFingerprint.of(exception), ExceptionFingerprint.of(otherFrame),
+				"Exceptions from different frames have the same fingerprint.");
+		assertNotEquals(ExceptionFingerprint.of(otherFrame), ExceptionFingerprint.of(otherType),
+				"Exceptions of different types have the same fingerprint.");
+	}
+
+	@Test
+	void testCauseIsPartOfFingerprint() {
+		Throwable[] causes = { new IllegalArgumentException("cause"), new UnsupportedOperationException("cause") };
+		Exception[] exceptions = new Exception[causes.length];
+		for (int i = 0; i < causes.length; i++) {
+			exceptions[i] = exceptionFromSameFrames("item", causes[i]);
+		}
+		Exception withCause = exceptions[0];
+		Exception withOtherCause = exceptions[1];
+
+		assertNotEquals(ExceptionFingerprint.of(withCause), ExceptionFingerprint.of(withOtherCause),
+				"Exceptions with different causes have the same fingerprint.");
+	}
+
+	@Test
+	void testCyclicCausesAreFingerprinted() {
+		IllegalStateException first = new IllegalStateException("first");
+		IllegalArgumentException second = new IllegalArgumentException("second", first);
+		first.initCause(second);
+
+		assertEquals(ExceptionFingerprint.of(first), ExceptionFingerprint.of(first),
+				"Fingerprint of exception with cyclic causes is not equal to itself.");
+	}
+
+	private static Exception exceptionFromSameFrames(String message, Throwable cause) {
+		return new IllegalStateException(message, cause);
+	}
+}
@@ -0,0 +1,110 @@
+package log;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RingBufferTest {
+	private RingBuffer<Integer> buffer;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		buffer = new RingBuffer<>(3);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		buffer = null;
+	}
+
+	@Test
+	void testCapacityIsRoundedUpToPowerOfTwo() {
+		assertEquals(4, buffer.capacity(), "Capacity was not rounded up to a power of two.");
+		assertEquals(8, new RingBuffer<Integer>(8).capacity(), "Power of two capacity was changed.");
+		assertEquals(2, new RingBuffer<Integer>(1).capacity(), "Capacity of one was not rounded up to two.");
+	}
+
+	@Test
+	void testFullBufferRefusesElements() {
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i), "Element was refused although there was room.");
+		}
+
+		assertFalse(buffer.offer(4), "Element was accepted although the buffer was full.");
+		assertEquals(Integer.valueOf(0), buffer.poll(), "Incorrect first element.");
+		assertTrue(buffer.offer(4), "Element was refused after an element was taken.");
+	}
+
+	@Test
+	void testElementsAreTakenInOrderAcrossWrapAround() {
+		int next = 0;
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 3; i++) {
+				buffer.offer(round * 3 + i);
+			}
+			for (int i = 0; i < 3; i++) {
+				assertEquals(Integer.valueOf(next++), buffer.poll(), "Elements were not taken in order.");
+			}
+		}
+
+		assertNull(buffer.poll(), "Element was taken from an empty buffer.");
+	}
+
+	@Test
+	void testConcurrentProducersLoseNothing() throws Exception {
+		int producerCount = 4;
+		int perProducer = 20_000;
+		RingBuffer<Integer> shared = new RingBuffer<>(64);
+		List<Thread> producers = new ArrayList<>();
+		for (int p = 0; p < producerCount; p++) {
+			int first = p * perProducer;
+			Thread producer = new Thread(() -> {
+				for (int i = first; i < first + perProducer; i++) {
+					while (!shared.offer(i)) {
+						Thread.yield();
+					}
+				}
+			});
+			producers.add(producer);
+			producer.start();
+		}
+
+		boolean[] seen = new boolean[producerCount * perProducer];
+		int[] lastSeen = new int[producerCount];
+		Arrays.fill(lastSeen, -1);
+		for (int taken = 0; taken < seen.length;) {
+			Integer element = shared.poll();
+			if (element == null) {
+				Thread.yield();
+				continue;
+			}
+			assertFalse(seen[element], "Element " + element + " was taken twice.");
+			int producer = element / perProducer;
+			assertTrue(element > lastSeen[producer], "Elements of one producer were not taken in order.");
+			seen[element] = true;
+			lastSeen[producer] = element;
+			taken++;
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+
+		assertNull(shared.poll(), "Buffer has more elements than were added.");
+	}
+}
@@ -1,7 +1,10 @@
 package model.pos;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.jupiter.api.AfterAll;
@@ -13,6 +16,12 @@ import org.junit.jupiter.api.Test;
 import integration.dbhandler.InvalidItemIDException;
 import integration.dbhandler.SystemCreator;
 import integration.dbhandler.data.ItemDescription;
+import integration.dbhandler.discount.DiscountRules;
+import integration.dbhandler.discount.PriceDiscount;
+import integration.dbhandler.discount.PriceDiscountRule;
+import integration.dbhandler.discount.QuantityDiscount;
+import integration.dbhandler.discount.QuantityDiscountRule;
+import model.dto.BundleDiscountInformation;
 import model.dto.PriceInformation;
 import model.dto.PurchasedItemInformation;
 import model.dto.Receipt;
@@ -193,4 +202,126 @@ class SaleTest {
 				"Incorrect total vat " + totalVat.getValue() + ", expected " + expectedVat.getValue());
 	}
 
+	@Test
+	void testRunningTotalAfterDiscount() throws InvalidItemIDException {
+		ItemDescription itemApple = creator.getInventorySystem().retrieveItemDescription(new IdentificationNumber(123));
+		ItemDescription itemCoffee = creator.getInventorySystem().retrieveItemDescription(new IdentificationNumber(666));
+
+		sale.addItemToSale(itemApple, 2);
+		sale.addItemToSale(itemCoffee, 3);
+		sale.addItemToSale(itemCoffee, 2);
+
+		DiscountRules discountRules = DiscountRules.compile(Collections.singletonList(
+				new PriceDiscountRule(itemCoffee.getID().getID(), new PriceDiscount(new Amount(0.4)))));
+		sale.applyDiscounts(discountRules);
+
+		Amount expectedPrice = new Amount(0);
+		Amount expectedVat = new Amount(0);
+		for (PurchasedItemInformation item : sale.getImmutableItemList()) {
+			expectedPrice = expectedPrice.add(item.getAccumulatedPrice());
+			expectedVat = expectedVat.add(item.getAccumulatedVatTax());
+		}
+
+		PriceInformation priceInfo = sale.getPriceInformation();
+		assertTrue(priceInfo.getTotalPrice().equals(expectedPrice),
+				"Incorrect running total " + priceInfo.getTotalPrice() + " after discount, expected " + expectedPrice);
+		assertTrue(priceInfo.getTotalVat().equals(expectedVat),
+				"Incorrect running VAT " + priceInfo.getTotalVat() + " after discount, expected " + expectedVat);
+	}
+
+	@Test
+	void testDiscountUpdatedWhenItemIsAdded() throws InvalidItemIDException {
+		ItemDescription itemCoffee = creator.getInventorySystem().retrieveItemDescription(new IdentificationNumber(666));
+		QuantityDiscount quantityDiscount = new QuantityDiscount((short) 3, new Amount(0.2));
+		DiscountRules discountRules = DiscountRules.compile(Collections.singletonList(
+				new QuantityDiscountRule(itemCoffee.getID().getID(), quantityDiscount)));
+		sale = new Sale(discountRules);
+
+		sale.addItemToSale(itemCoffee, 2);
+		Amount undiscountedPrice = new Item(itemCoffee, 2).getItemInformation().getAccumulatedPrice();
+		assertTrue(sale.getPriceInformation().getTotalPrice().equals(undiscountedPrice),
+				"Discount applied below the quantity limit.");
+
+		sale.addItemToSale(itemCoffee, 1);
+		Item expectedItem = new Item(itemCoffee, 3);
+		expectedItem.applyDiscount(quantityDiscount.withQuantity(3));
+		Amount expectedPrice = expectedItem.getItemInformation().getAccumulatedPrice();
+		assertTrue(sale.getPriceInformation().getTotalPrice().equals(expectedPrice), "Incorrect running total "
+				+ sale.getPriceInformation().getTotalPrice() + " at the quantity limit, expected " + expectedPrice);
+
+		sale.addItemToSale(itemCoffee, 2);
+		expectedItem = new Item(itemCoffee, 5);
+		expectedItem.applyDiscount(quantityDiscount.withQuantity(5));
+		expectedPrice = expectedItem.getItemInformation().getAccumulatedPrice();
+		assertTrue(sale.getPriceInformation().getTotalPrice().equals(expectedPrice), "Incorrect running total "
+				+ sale.getPriceInformation().getTotalPrice() + ", discounts were added up, expected " + expectedPrice);
+
+		sale.applyDiscounts(discountRules);
+		assertTrue(sale.getPriceInformation().getTotalPrice().equals(expectedPrice),
+				"Applying the same discount rules again changed the running total.");
+	}
+
+	@Test
+	void testAddedItemInformationMatchesRunningTotal() throws InvalidItemIDException {
+		ItemDescription itemCoffee = creator.getInventorySystem().retrieveItemDescription(new IdentificationNumber(666));
+		QuantityDiscount quantityDiscount = new QuantityDiscount((short) 3, new Amount(0.2));
+		sale = new Sale(DiscountRules.compile(Collections.singletonList(
+				new QuantityDiscountRule(itemCoffee.getID().getID(), quantityDiscount))));
+
+		sale.addItemToSale(itemCoffee, 2);
+		PurchasedItemInformation itemInfo = sale.addItemToSale(itemCoffee, 2);
+
+		assertEquals(4, itemInfo.getQuantity(), "Returned item does not have the quantity of the sale.");
+		assertEquals(sale.getPriceInformation().getTotalPrice(), itemInfo.getAccumulatedPrice(),
+				"Returned item price does not match the running total.");
+		assertNotEquals(new Amount(0), itemInfo.getAccumulatedDiscount(), "Returned item was not discounted.");
+	}
+
+	@Test
+	void testBundleDiscountInRunningTotal() throws InvalidItemIDException {
+		ItemDescription itemCoffee = creator.getInventorySystem().retrieveItemDescription(new IdentificationNumber(666));
+		ItemDescription itemChocolate = creator.getInventorySystem()
+				.retrieveItemDescription(new IdentificationNumber(876));
+		sale = new Sale(creator.getDiscountSystem().getDiscountRules());
+
+		sale.addItemToSale(itemCoffee, 1);
+		sale.addItemToSale(itemChocolate, 1);
+		Receipt receipt = sale.processSale(new Amount(100), new Amount(0));
+
+		List<BundleDiscountInformation> bundleDiscounts = receipt.getBundleDiscounts();
+		assertEquals(2, bundleDiscounts.size(), "Coffee and chocolate bar did not get the bundle discount.");
+		Amount expectedPrice = new Amount(0);
+		for (PurchasedItemInformation item : receipt.getListOfSoldItems()) {
+			expectedPrice = expectedPrice.add(item.getAccumulatedPrice());
+		}
+		for (BundleDiscountInformation bundleDiscount : bundleDiscounts) {
+			expectedPrice = expectedPrice.subtract(bundleDiscount.getDiscount());
+		}
+		assertTrue(receipt.getPriceInfo().getTotalPrice().equals(expectedPrice), "Incorrect running total "
+				+ receipt.getPriceInfo().getTotalPrice() + " with bundle discount, expected " + expectedPrice);
+	}
+
+	@Test
+	void testItemsKeepScanOrder() {
+		int distinctItems = 500;
+		for (int id = 0; id < distinctItems; id++) {
+			ItemDescription description = new ItemDescription("item " + id, new Amount(1), stdVatRate,
+					new IdentificationNumber(id));
+			sale.addItemToSale(description, 1);
+		}
+		for (int id = 0; id < distinctItems; id += 2) {
+			ItemDescription description = new ItemDescription("item " + id, new Amount(1), stdVatRate,
+					new IdentificationNumber(id));
+			sale.addItemToSale(description, 1);
+		}
+
+		List<PurchasedItemInformation> itemList = sale.getImmutableItemList();
+		assertEquals(distinctItems, itemList.size(), "Identical items were not merged into one line.");
+		for (int id = 0; id < distinctItems; id++) {
+			PurchasedItemInformation item = itemList.get(id);
+			assertEquals(id, item.getItemDescription().getID().getID(), "Items are not in scan order.");
+			assertEquals(id % 2 == 0 ? 2 : 1, item.getQuantity(), "Incorrect quantity of merged item.");
+		}
+	}
+
 }
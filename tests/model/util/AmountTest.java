@@ -2,6 +2,9 @@ package model.util;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -64,4 +67,73 @@ class AmountTest {
 						+ " but expected " + expectedProduct + ".");
 	}
 
+	@Test
+	void testSubtract() {
+		Amount amtToSubtract = new Amount(3.2);
+		double expectedDifference = 10 - 3.2;
+		Amount actualDifference = wholeAmount.subtract(amtToSubtract);
+
+		assertEquals(expectedDifference, actualDifference.getValue().doubleValue(),
+				"Incorrect difference from subtraction of two Amount: " + actualDifference.getValue()
+						+ " but expected " + expectedDifference + ".");
+	}
+
+	@Test
+	void testSameResultAsBigDecimal() {
+		Amount price = new Amount(42);
+		Amount vatRate = new Amount(0.16);
+		Amount discountRate = new Amount(0.2);
+
+		BigDecimal expectedVat = new BigDecimal("42").multiply(new BigDecimal("0.16"));
+		BigDecimal expectedPrice = new BigDecimal("42").add(expectedVat);
+		BigDecimal expectedDiscountedPrice = expectedPrice.subtract(expectedPrice.multiply(new BigDecimal("0.2")));
+
+		Amount vat = price.multiply(vatRate);
+		Amount unitPrice = price.add(vat);
+		Amount discountedPrice = unitPrice.subtract(unitPrice.multiply(discountRate));
+
+		assertEquals(0, expectedVat.compareTo(vat.getValue()), "VAT differs from BigDecimal result " + expectedVat);
+		assertEquals(0, expectedDiscountedPrice.compareTo(discountedPrice.getValue()),
+				"Discounted price differs from BigDecimal result " + expectedDiscountedPrice);
+		assertEquals(0, expectedDiscountedPrice.multiply(new BigDecimal(7)).compareTo(discountedPrice.multiply(7).getValue()),
+				"Accumulated price differs from BigDecimal result.");
+	}
+
+	@Test
+	void testEqualRegardlessOfConstructor() {
+		Amount fromDouble = new Amount(5.8);
+		Amount fromBigDecimal = new Amount(new BigDecimal("5.80"));
+		Amount fromUnits = Amount.ofMinorUnits(5_800_000);
+
+		assertEquals(fromDouble, fromBigDecimal, "Amounts with equal value do not equal.");
+		assertEquals(fromDouble, fromUnits, "Amounts with equal value do not equal.");
+		assertEquals(fromDouble.hashCode(), fromBigDecimal.hashCode(), "Equal amounts have different hash codes.");
+	}
+
+	@Test
+	void testMultiplyWithRoundingMode() {
+		Amount amount = Amount.ofMinorUnits(5);
+		Amount half = new Amount(0.5);
+
+		assertEquals(Amount.ofMinorUnits(3), amount.multiply(half, RoundingMode.HALF_UP), "Incorrect HALF_UP rounding.");
+		assertEquals(Amount.ofMinorUnits(2), amount.multiply(half, RoundingMode.HALF_EVEN), "Incorrect HALF_EVEN rounding.");
+		assertEquals(Amount.ofMinorUnits(2), amount.multiply(half, RoundingMode.DOWN), "Incorrect DOWN rounding.");
+		assertEquals(Amount.ofMinorUnits(-3), Amount.ofMinorUnits(-5).multiply(half, RoundingMode.HALF_UP),
+				"Incorrect HALF_UP rounding of negative amount.");
+	}
+
+	@Test
+	void testMultiplyLargeAmounts() {
+		Amount large = new Amount(3_000_000);
+		Amount expectedProduct = new Amount(new BigDecimal("9000000000000"));
+
+		assertEquals(expectedProduct, large.multiply(large), "Incorrect product when minor units overflow a long.");
+	}
+
+	@Test
+	void testToString() {
+		assertEquals("10.00", wholeAmount.toString(), "Incorrect string representation.");
+		assertEquals("5.80", new Amount(5.8).toString(), "Incorrect string representation.");
+	}
+
 }